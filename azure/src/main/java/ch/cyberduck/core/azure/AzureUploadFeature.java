@@ -0,0 +1,383 @@
+package ch.cyberduck.core.azure;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.features.Upload;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.http.HttpUploadFeature;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.Checksum;
+import ch.cyberduck.core.io.StreamListener;
+import ch.cyberduck.core.io.ThrottledInputStream;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.DefaultRetryCallable;
+import ch.cyberduck.core.threading.PartScheduler;
+import ch.cyberduck.core.transfer.TransferStatus;
+import ch.cyberduck.core.worker.DefaultExceptionMappingService;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.log4j.Logger;
+import org.bouncycastle.util.encoders.Base64;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.BlobType;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.storage.blob.DeleteSnapshotsOption;
+
+/**
+ * Upload files above threshold as block blob with blocks staged in parallel from file offsets and committed with a
+ * block list. Block identifiers are derived from the block number. Uncommitted blocks are kept by the server for a
+ * week, so a resumed transfer only stages blocks missing in the uncommitted block list of the blob.
+ */
+public class AzureUploadFeature extends HttpUploadFeature<Void, MessageDigest> {
+    private static final Logger log = Logger.getLogger(AzureUploadFeature.class);
+
+    /**
+     * The maximum number of blocks in a block blob
+     */
+    public static final int MAXIMUM_UPLOAD_PARTS = 50000;
+
+    private final PathContainerService containerService
+        = new AzurePathContainerService();
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final AzureSession session;
+    private final OperationContext context;
+
+    private final Long threshold;
+    private final Long partSize;
+    private final Integer concurrency;
+
+    private Write<Void> writer;
+
+    public AzureUploadFeature(final AzureSession session, final OperationContext context) {
+        this(session, context, new AzureWriteFeature(session, context),
+            PreferencesFactory.get().getLong("azure.upload.blocks.threshold"),
+            PreferencesFactory.get().getLong("azure.upload.blocks.size"),
+            PreferencesFactory.get().getInteger("azure.upload.blocks.concurrency"));
+    }
+
+    public AzureUploadFeature(final AzureSession session, final OperationContext context, final Write<Void> writer,
+                              final Long threshold, final Long partSize, final Integer concurrency) {
+        super(writer);
+        this.session = session;
+        this.context = context;
+        this.writer = writer;
+        this.threshold = threshold;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+    }
+
+    private boolean isStaged(final Long length) {
+        return preferences.getBoolean("azure.upload.blocks") && length >= threshold;
+    }
+
+    @Override
+    public Write.Append append(final Path file, final Long length, final Cache<Path> cache) throws BackgroundException {
+        if(this.isStaged(length)) {
+            final Map<String, Long> blocks = this.uncommitted(file);
+            long size = 0L;
+            for(int partNumber = 1; size < length; partNumber++) {
+                final Long staged = blocks.get(this.getBlockId(partNumber));
+                if(null == staged || staged != this.getPartSize(length, size)) {
+                    break;
+                }
+                size += staged;
+            }
+            if(size > 0L && size < length) {
+                return new Write.Append(size);
+            }
+            final Write.Append append = writer.append(file, length, cache);
+            if(append.append) {
+                // Committed block blob cannot be appended to
+                return new Write.Append(false, true).withSize(append.size).withChecksum(append.checksum);
+            }
+            return append;
+        }
+        return writer.append(file, length, cache);
+    }
+
+    @Override
+    public Void upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                       final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        // Full size of file
+        final long size = status.getLength() + status.getOffset();
+        if(!this.isStaged(size)) {
+            return super.upload(file, local, throttle, listener, status, callback);
+        }
+        try {
+            final CloudBlobContainer container = session.getClient().getContainerReference(containerService.getContainer(file).getName());
+            final CloudBlockBlob blob = container.getBlockBlobReference(containerService.getKey(file));
+            final Map<String, Long> staged;
+            if(status.isAppend()) {
+                staged = this.uncommitted(file);
+            }
+            else {
+                staged = new HashMap<String, Long>();
+                if(status.isExists()) {
+                    this.replace(container, file);
+                }
+            }
+            final List<String> blocks = new ArrayList<String>();
+            final List<Future<String>> parts = new ArrayList<Future<String>>();
+            final PartScheduler.Upload pool = PartScheduler.create(session.getHost(), concurrency);
+            try {
+                long offset = 0;
+                for(int partNumber = 1; offset < size; partNumber++) {
+                    final String id = this.getBlockId(partNumber);
+                    final long length = this.getPartSize(size, offset);
+                    final Long previous = staged.get(id);
+                    if(null != previous && previous == length) {
+                        if(log.isInfoEnabled()) {
+                            log.info(String.format("Skip staged block %d", partNumber));
+                        }
+                    }
+                    else {
+                        parts.add(this.submit(pool, blob, file, local, throttle, listener, status, id, offset, length));
+                    }
+                    blocks.add(id);
+                    offset += length;
+                }
+                for(Future<String> f : parts) {
+                    f.get();
+                }
+            }
+            catch(InterruptedException e) {
+                log.error("Block upload failed with interrupt failure");
+                status.setCanceled();
+                throw new ConnectionCanceledException(e);
+            }
+            catch(ExecutionException e) {
+                log.warn(String.format("Block upload failed with execution failure %s", e.getMessage()));
+                if(e.getCause() instanceof BackgroundException) {
+                    throw (BackgroundException) e.getCause();
+                }
+                throw new DefaultExceptionMappingService().map(e.getCause());
+            }
+            finally {
+                pool.shutdown();
+            }
+            this.properties(blob, status);
+            final List<BlockEntry> list = new ArrayList<BlockEntry>();
+            for(String id : blocks) {
+                list.add(new BlockEntry(id));
+            }
+            final BlobRequestOptions options = new BlobRequestOptions();
+            blob.commitBlockList(list, AccessCondition.generateEmptyCondition(), options, context);
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Committed block list for %s with %d blocks", file, blocks.size()));
+            }
+            // Mark parent status as complete
+            status.setComplete();
+            return null;
+        }
+        catch(StorageException e) {
+            throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+        catch(URISyntaxException e) {
+            throw new NotfoundException(e.getMessage(), e);
+        }
+    }
+
+    private Future<String> submit(final PartScheduler.Upload pool, final CloudBlockBlob blob, final Path file, final Local local,
+                                  final BandwidthThrottle throttle, final StreamListener listener,
+                                  final TransferStatus overall, final String id, final long offset, final long length) {
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Submit block %s of %s to queue with offset %d and length %d", id, file, offset, length));
+        }
+        return pool.execute(new DefaultRetryCallable<String>(new BackgroundExceptionCallable<String>() {
+            @Override
+            public String call() throws BackgroundException {
+                if(overall.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                InputStream in = null;
+                try {
+                    in = local.getInputStream();
+                    IOUtils.skipFully(in, offset);
+                    final InputStream block = new ThrottledInputStream(new ProxyInputStream(new BoundedInputStream(in, length)) {
+                        @Override
+                        protected void afterRead(final int n) {
+                            if(n > 0) {
+                                listener.sent(n);
+                                overall.progress(n);
+                            }
+                        }
+                    }, throttle);
+                    final BlobRequestOptions options = new BlobRequestOptions();
+                    options.setUseTransactionalContentMD5(preferences.getBoolean("azure.upload.md5"));
+                    blob.uploadBlock(id, block, length, AccessCondition.generateEmptyCondition(), options, context);
+                    return id;
+                }
+                catch(StorageException e) {
+                    throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+                }
+                catch(IOException e) {
+                    throw new DefaultIOExceptionMappingService().map("Upload {0} failed", e, file);
+                }
+                finally {
+                    IOUtils.closeQuietly(in);
+                }
+            }
+        }, overall));
+    }
+
+    /**
+     * @return Size of uncommitted blocks by identifier
+     */
+    private Map<String, Long> uncommitted(final Path file) throws BackgroundException {
+        final Map<String, Long> blocks = new HashMap<String, Long>();
+        try {
+            final CloudBlockBlob blob = session.getClient().getContainerReference(containerService.getContainer(file).getName())
+                .getBlockBlobReference(containerService.getKey(file));
+            final BlobRequestOptions options = new BlobRequestOptions();
+            for(BlockEntry entry : blob.downloadBlockList(BlockListingFilter.UNCOMMITTED, AccessCondition.generateEmptyCondition(), options, context)) {
+                blocks.put(entry.getId(), entry.getSize());
+            }
+        }
+        catch(StorageException e) {
+            if(HttpStatus.SC_NOT_FOUND == e.getHttpStatusCode() || HttpStatus.SC_CONFLICT == e.getHttpStatusCode()) {
+                // No blob or not a block blob
+                return blocks;
+            }
+            throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+        catch(URISyntaxException e) {
+            throw new NotfoundException(e.getMessage(), e);
+        }
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Found %d uncommitted blocks for %s", blocks.size(), file));
+        }
+        return blocks;
+    }
+
+    /**
+     * Delete existing blob of other type as blocks cannot be staged for append blobs
+     */
+    private void replace(final CloudBlobContainer container, final Path file) throws StorageException, URISyntaxException {
+        final BlobRequestOptions options = new BlobRequestOptions();
+        final CloudBlob existing;
+        try {
+            existing = container.getBlobReferenceFromServer(containerService.getKey(file), null,
+                AccessCondition.generateEmptyCondition(), options, context);
+        }
+        catch(StorageException e) {
+            if(HttpStatus.SC_NOT_FOUND == e.getHttpStatusCode()) {
+                return;
+            }
+            throw e;
+        }
+        if(existing.getProperties().getBlobType() != BlobType.BLOCK_BLOB) {
+            log.warn(String.format("Delete %s of type %s to replace with block blob", file, existing.getProperties().getBlobType()));
+            existing.delete(DeleteSnapshotsOption.INCLUDE_SNAPSHOTS, AccessCondition.generateEmptyCondition(), options, context);
+        }
+    }
+
+    /**
+     * Set properties and metadata saved when committing the block list
+     */
+    private void properties(final CloudBlockBlob blob, final TransferStatus status) {
+        if(StringUtils.isNotBlank(status.getMime())) {
+            blob.getProperties().setContentType(status.getMime());
+        }
+        final HashMap<String, String> headers = new HashMap<>(status.getMetadata());
+        blob.setMetadata(headers);
+        // Remove additional headers not allowed in metadata and move to properties
+        if(headers.containsKey(HttpHeaders.CACHE_CONTROL)) {
+            blob.getProperties().setCacheControl(headers.get(HttpHeaders.CACHE_CONTROL));
+            headers.remove(HttpHeaders.CACHE_CONTROL);
+        }
+        if(headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+            blob.getProperties().setContentType(headers.get(HttpHeaders.CONTENT_TYPE));
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+        }
+        final Checksum checksum = status.getChecksum();
+        if(Checksum.NONE != checksum) {
+            switch(checksum.algorithm) {
+                case md5:
+                    try {
+                        blob.getProperties().setContentMD5(Base64.toBase64String(Hex.decodeHex(checksum.hash.toCharArray())));
+                        headers.remove(HttpHeaders.CONTENT_MD5);
+                    }
+                    catch(DecoderException e) {
+                        // Ignore
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @param partNumber Block number starting at 1
+     * @return Base64 encoded identifier of same length for all blocks
+     */
+    protected String getBlockId(final int partNumber) {
+        return Base64.toBase64String(String.format("%06d", partNumber).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param size   Full size of file
+     * @param offset Offset of block
+     */
+    private long getPartSize(final long size, final long offset) {
+        return Math.min(Math.max(size / MAXIMUM_UPLOAD_PARTS, partSize), size - offset);
+    }
+
+    @Override
+    public Upload<Void> withWriter(final Write<Void> writer) {
+        this.writer = writer;
+        return super.withWriter(writer);
+    }
+}
@@ -32,8 +32,7 @@ import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
-import ch.cyberduck.core.threading.ThreadPool;
-import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.worker.DefaultExceptionMappingService;
 
@@ -94,7 +93,6 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                                  final StreamListener listener,
                                  final TransferStatus status,
                                  final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("largeupload", concurrency);
         try {
             final String fileid;
             // Get the results of the uploads in the order they were submitted
@@ -134,37 +132,38 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
             final long size = status.getLength() + status.getOffset();
             // Submit file segments for concurrent upload
             final List<Future<B2UploadPartResponse>> parts = new ArrayList<Future<B2UploadPartResponse>>();
-            long remaining = status.getLength();
-            long offset = 0;
-            for(int partNumber = 1; remaining > 0; partNumber++) {
-                boolean skip = false;
-                if(status.isAppend()) {
-                    if(log.isInfoEnabled()) {
-                        log.info(String.format("Determine if part number %d can be skipped", partNumber));
-                    }
-                    for(B2UploadPartResponse c : completed) {
-                        if(c.getPartNumber().equals(partNumber)) {
-                            if(log.isInfoEnabled()) {
-                                log.info(String.format("Skip completed part number %d", partNumber));
+            final PartScheduler.Upload pool = PartScheduler.create(session.getHost(), concurrency);
+            try {
+                long remaining = status.getLength();
+                long offset = 0;
+                for(int partNumber = 1; remaining > 0; partNumber++) {
+                    boolean skip = false;
+                    if(status.isAppend()) {
+                        if(log.isInfoEnabled()) {
+                            log.info(String.format("Determine if part number %d can be skipped", partNumber));
+                        }
+                        for(B2UploadPartResponse c : completed) {
+                            if(c.getPartNumber().equals(partNumber)) {
+                                if(log.isInfoEnabled()) {
+                                    log.info(String.format("Skip completed part number %d", partNumber));
+                                }
+                                skip = true;
+                                offset += c.getContentLength();
+                                break;
                             }
-                            skip = true;
-                            offset += c.getContentLength();
-                            break;
                         }
                     }
-                }
-                if(!skip) {
-                    final Long length = Math.min(Math.max((size / B2LargeUploadService.MAXIMUM_UPLOAD_PARTS), partSize), remaining);
-                    // Submit to queue
-                    parts.add(this.submit(pool, file, local, throttle, listener, status, partNumber, offset, length, callback));
-                    if(log.isDebugEnabled()) {
-                        log.debug(String.format("Part %s submitted with size %d and offset %d", partNumber, length, offset));
+                    if(!skip) {
+                        final Long length = Math.min(Math.max((size / B2LargeUploadService.MAXIMUM_UPLOAD_PARTS), partSize), remaining);
+                        // Submit to queue
+                        parts.add(this.submit(pool, file, local, throttle, listener, status, partNumber, offset, length, callback));
+                        if(log.isDebugEnabled()) {
+                            log.debug(String.format("Part %s submitted with size %d and offset %d", partNumber, length, offset));
+                        }
+                        remaining -= length;
+                        offset += length;
                     }
-                    remaining -= length;
-                    offset += length;
                 }
-            }
-            try {
                 for(Future<B2UploadPartResponse> f : parts) {
                     completed.add(f.get());
                 }
@@ -182,7 +181,7 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                 throw new DefaultExceptionMappingService().map(e.getCause());
             }
             finally {
-                pool.shutdown(false);
+                pool.shutdown();
             }
             completed.sort(new Comparator<B2UploadPartResponse>() {
                 @Override
@@ -210,7 +209,7 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
         }
     }
 
-    private Future<B2UploadPartResponse> submit(final ThreadPool pool, final Path file, final Local local,
+    private Future<B2UploadPartResponse> submit(final PartScheduler.Upload pool, final Path file, final Local local,
                                                 final BandwidthThrottle throttle, final StreamListener listener,
                                                 final TransferStatus overall,
                                                 final int partNumber,
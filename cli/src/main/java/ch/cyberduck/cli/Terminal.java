@@ -41,6 +41,10 @@ import ch.cyberduck.core.local.ApplicationFinderFactory;
 import ch.cyberduck.core.local.ApplicationQuitCallback;
 import ch.cyberduck.core.local.TemporaryFileServiceFactory;
 import ch.cyberduck.core.manta.MantaProtocol;
+import ch.cyberduck.core.metrics.JsonMetricsExporter;
+import ch.cyberduck.core.metrics.MetricsExporter;
+import ch.cyberduck.core.metrics.MetricsFactory;
+import ch.cyberduck.core.metrics.PrometheusMetricsExporter;
 import ch.cyberduck.core.nio.LocalProtocol;
 import ch.cyberduck.core.onedrive.OneDriveProtocol;
 import ch.cyberduck.core.onedrive.SharepointProtocol;
@@ -80,10 +84,13 @@ import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -141,7 +148,8 @@ public class Terminal {
             log.info(String.format("Parsed options %s from input %s", options, input));
         }
         this.input = input;
-        this.cache = new PathCache(preferences.getInteger("browser.cache.size"));
+        this.cache = new PathCache(preferences.getInteger("browser.cache.size"),
+            preferences.getLong("browser.cache.weight"), preferences.getLong("browser.cache.expiry"));
         this.progress = input.hasOption(TerminalOptionsBuilder.Params.quiet.name())
             ? new DisabledListProgressListener() : new TerminalProgressListener();
         this.transcript = input.hasOption(TerminalOptionsBuilder.Params.verbose.name())
@@ -312,10 +320,37 @@ public class Terminal {
         finally {
             this.disconnect(source);
             this.disconnect(destination);
+            this.metrics();
         }
         return Exit.failure;
     }
 
+    /**
+     * Write metrics recorded for all sessions to file
+     */
+    protected void metrics() {
+        if(!input.hasOption(TerminalOptionsBuilder.Params.metrics.name())) {
+            return;
+        }
+        final Local file = LocalFactory.get(input.getOptionValue(TerminalOptionsBuilder.Params.metrics.name()));
+        final MetricsExporter exporter = "json".equalsIgnoreCase(file.getExtension())
+            ? new JsonMetricsExporter() : new PrometheusMetricsExporter();
+        OutputStream out = null;
+        try {
+            out = file.getOutputStream(false);
+            exporter.export(MetricsFactory.get(), out);
+        }
+        catch(AccessDeniedException e) {
+            log.warn(String.format("Failure writing metrics to %s. %s", file, e.getDetail()));
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure writing metrics to %s. %s", file, e.getMessage()));
+        }
+        finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
     protected void configure(final CommandLine input) {
         final boolean preserve = input.hasOption(TerminalOptionsBuilder.Params.preserve.name());
         preferences.setProperty("queue.upload.permissions.change", preserve);
@@ -345,6 +380,7 @@ public class Terminal {
                 NumberUtils.toInt(input.getOptionValue(TerminalOptionsBuilder.Params.parallel.name()), 2));
         }
         preferences.setProperty("connection.login.keychain", !input.hasOption(TerminalOptionsBuilder.Params.nokeychain.name()));
+        preferences.setProperty("metrics.enable", input.hasOption(TerminalOptionsBuilder.Params.metrics.name()));
     }
 
     protected Exit transfer(final Transfer transfer, final SessionPool source, final SessionPool destination) {
@@ -160,6 +160,12 @@ public final class TerminalOptionsBuilder {
             .hasArg(true).withArgName("bytes per second")
             .isRequired(false)
             .create());
+        options.addOption(OptionBuilder
+            .withDescription("Write metrics to file after completion. JSON if the file extension is json or Prometheus text format otherwise")
+            .withLongOpt(Params.metrics.name())
+            .hasArg(true).withArgName("file")
+            .isRequired(false)
+            .create());
         options.addOption(OptionBuilder
             .withDescription("Do not save passwords in keychain")
             .withLongOpt(Params.nokeychain.name())
@@ -228,6 +234,7 @@ public final class TerminalOptionsBuilder {
         parallel,
         throttle,
         nokeychain,
+        metrics,
         existing,
         verbose,
         quiet,
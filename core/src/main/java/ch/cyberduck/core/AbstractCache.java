@@ -18,31 +18,98 @@ package ch.cyberduck.core;
  *  dkocher@cyberduck.ch
  */
 
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.log4j.Logger;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
 
 public abstract class AbstractCache<T extends Referenceable> implements Cache<T> {
     private static final Logger log = Logger.getLogger(AbstractCache.class);
 
-    private final Map<T, AttributedList<T>> impl;
+    /**
+     * Number of segments locked independently. Limits apply to each segment with its share of the maximum.
+     */
+    private static final int CONCURRENCY = 4;
 
-    public AbstractCache(int size) {
-        if(size == Integer.MAX_VALUE) {
-            // Unlimited
-            impl = Collections.synchronizedMap(new LinkedHashMap<T, AttributedList<T>>());
-        }
-        else if(size == 0) {
-            impl = Collections.emptyMap();
+    private final com.google.common.cache.Cache<T, Entry<T>> delegate;
+    private final ConcurrentMap<T, Entry<T>> impl;
+
+    /**
+     * Milliseconds after which a cached directory listing is invalid or -1
+     */
+    private final long expiry;
+
+    /**
+     * Maximum number of files in all cached directory listings or -1
+     */
+    private final long weight;
+
+    /**
+     * Maximum weight of a single directory listing to fit into the share of the weight of a segment
+     */
+    private final long segment;
+
+    /**
+     * @param size Maximum number of directory listings cached
+     */
+    public AbstractCache(final int size) {
+        this(size, -1L, -1L);
+    }
+
+    /**
+     * @param size   Maximum number of directory listings cached
+     * @param files  Average number of files per directory listing. Limits the number of files in all cached
+     *               directory listings to size times files instead of the number of listings. Disabled with -1.
+     * @param expiry Milliseconds after which a cached directory listing is marked invalid or -1
+     */
+    public AbstractCache(final int size, final long files, final long expiry) {
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().concurrencyLevel(CONCURRENCY).recordStats();
+        if(files >= 0) {
+            weight = size > 0 && files > Long.MAX_VALUE / size ? Long.MAX_VALUE : size * files;
+            segment = Math.max(1L, weight / segments(weight));
+            builder.maximumWeight(weight).weigher(new Weigher<T, Entry<T>>() {
+                @Override
+                public int weigh(final T key, final Entry<T> value) {
+                    return value.weight;
+                }
+            });
         }
         else {
-            // Will inflate to the given size
-            impl = Collections.synchronizedMap(new LRUMap<T, AttributedList<T>>(size));
+            weight = -1L;
+            segment = -1L;
+            if(size != Integer.MAX_VALUE) {
+                builder.maximumSize(size);
+            }
+        }
+        delegate = builder.removalListener(new RemovalListener<T, Entry<T>>() {
+            @Override
+            public void onRemoval(final RemovalNotification<T, Entry<T>> notification) {
+                if(notification.wasEvicted()) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Evicted %s from cache with cause %s", notification.getKey(), notification.getCause()));
+                    }
+                }
+            }
+        }).build();
+        impl = delegate.asMap();
+        this.expiry = expiry;
+    }
+
+    /**
+     * @return Number of segments Guava uses for the maximum weight
+     */
+    private static int segments(final long weight) {
+        int segments = 1;
+        while(segments < CONCURRENCY && segments * 20L <= weight) {
+            segments <<= 1;
         }
+        return segments;
     }
 
     @Override
@@ -63,6 +130,9 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
      * @return True if the directory listing of this path is cached
      */
     public boolean containsKey(final T reference) {
+        if(null == reference) {
+            return false;
+        }
         return impl.containsKey(reference);
     }
 
@@ -73,29 +143,47 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
      * @return The previously cached directory listing
      */
     public AttributedList<T> remove(final T reference) {
-        final AttributedList<T> removed = impl.remove(reference);
+        if(null == reference) {
+            return AttributedList.emptyList();
+        }
+        final Entry<T> removed = impl.remove(reference);
         if(null == removed) {
             // Not previously in cache
             return AttributedList.emptyList();
         }
-        return removed;
+        return removed.children;
     }
 
     /**
      * @param reference Absolute path
      * @return An empty list if no cached file listing is available
-     * @throws java.util.ConcurrentModificationException If the caller is iterating of the cache himself
-     *                                                   and requests a new filter here.
      */
     public AttributedList<T> get(final T reference) {
-        AttributedList<T> children = impl.get(reference);
-        if(null == children) {
+        if(null == reference) {
+            return AttributedList.emptyList();
+        }
+        final Entry<T> entry = delegate.getIfPresent(reference);
+        if(null == entry) {
             if(log.isDebugEnabled()) {
                 log.debug(String.format("No cache for %s", reference));
             }
             return AttributedList.emptyList();
         }
-        return children;
+        if(weight >= 0 && entry.weight != this.weigh(entry.children)) {
+            // Listing changed after it was cached. Replace to update weight and evict other listings if required
+            impl.replace(reference, entry, new Entry<T>(entry.children, entry.timestamp, this.weigh(entry.children)));
+        }
+        if(expiry >= 0) {
+            if(System.currentTimeMillis() - entry.timestamp > expiry) {
+                if(!entry.children.attributes().isInvalid()) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Invalidate expired cache for %s", reference));
+                    }
+                    entry.children.attributes().setInvalid(true);
+                }
+            }
+        }
+        return entry.children;
     }
 
     /**
@@ -107,7 +195,11 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
         if(log.isDebugEnabled()) {
             log.debug(String.format("Caching %s", reference));
         }
-        return impl.put(reference, children);
+        final Entry<T> previous = impl.put(reference, new Entry<T>(children, System.currentTimeMillis(), this.weigh(children)));
+        if(null == previous) {
+            return null;
+        }
+        return previous.children;
     }
 
     /**
@@ -151,10 +243,64 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
         impl.clear();
     }
 
+    /**
+     * @return Number of lookups with cached directory listing
+     */
+    public long getHitCount() {
+        return delegate.stats().hitCount();
+    }
+
+    /**
+     * @return Number of lookups without cached directory listing
+     */
+    public long getMissCount() {
+        return delegate.stats().missCount();
+    }
+
+    /**
+     * @return Number of directory listings removed to stay within size or weight limit
+     */
+    public long getEvictionCount() {
+        return delegate.stats().evictionCount();
+    }
+
+    /**
+     * @return Number of files in listing including the directory itself. Limited to the share of the maximum weight
+     * of a segment to keep the most recent listing cached when it is larger than the limit.
+     */
+    private int weigh(final AttributedList<T> children) {
+        if(weight < 0) {
+            return 1;
+        }
+        return (int) Math.min(Math.min(segment, Integer.MAX_VALUE), 1L + children.size());
+    }
+
+    private static final class Entry<T extends Referenceable> {
+        private final AttributedList<T> children;
+        /**
+         * Milliseconds when cached
+         */
+        private final long timestamp;
+        /**
+         * Number of files when cached
+         */
+        private final int weight;
+
+        public Entry(final AttributedList<T> children, final long timestamp, final int weight) {
+            this.children = children;
+            this.timestamp = timestamp;
+            this.weight = weight;
+        }
+    }
+
     @Override
     public String toString() {
+        final CacheStats stats = delegate.stats();
         final StringBuilder sb = new StringBuilder("Cache{");
         sb.append("size=").append(impl.size());
+        sb.append(", hits=").append(stats.hitCount());
+        sb.append(", misses=").append(stats.missCount());
+        sb.append(", evictions=").append(stats.evictionCount());
         sb.append('}');
         return sb.toString();
     }
@@ -20,17 +20,31 @@ package ch.cyberduck.core;
 
 import org.apache.log4j.Logger;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 /**
  * A sortable list with a map to lookup values by key.
+ * <p>
+ * Elements are kept in an append-optimized array that is published as an immutable snapshot after every
+ * modification. Appending does not copy existing elements unless the backing array must grow which gives amortized
+ * constant time for building a directory listing. Iterators and readers always work on a consistent snapshot and
+ * never observe a concurrent modification. Lookup by reference is served from a hash index keyed by the absolute path
+ * which unlike the hash code of an element is not changed when its attributes are updated. The index holds the
+ * positions of all elements with the same key such as multiple versions of a file.
  */
 public class AttributedList<E extends Referenceable> implements Iterable<E> {
     private static final Logger log = Logger.getLogger(AttributedList.class);
@@ -52,8 +66,17 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         }
     };
 
-    private final List<E> impl
-        = new CopyOnWriteArrayList<>();
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Guards all modifications
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Current content. Slots below the snapshot size are never moved by an append.
+     */
+    private volatile Snapshot snapshot = new Snapshot(new Object[0], 0, new ConcurrentHashMap<Object, Positions>());
 
     /**
      * Metadata of file listing
@@ -72,9 +95,7 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
      * @param collection Default content
      */
     public AttributedList(final Iterable<E> collection) {
-        for(E e : collection) {
-            this.add(e);
-        }
+        this.addAll(collection);
     }
 
     @SuppressWarnings("unchecked")
@@ -92,58 +113,94 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     public boolean add(final E e) {
-        return impl.add(e);
+        synchronized(lock) {
+            this.append(e);
+        }
+        return true;
     }
 
     public void add(final int index, final E e) {
-        impl.add(index, e);
+        synchronized(lock) {
+            final Snapshot current = snapshot;
+            if(index == current.size) {
+                this.append(e);
+                return;
+            }
+            if(index < 0 || index > current.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for size %d", index, current.size));
+            }
+            final Object[] elements = new Object[Math.max(current.size + 1, DEFAULT_CAPACITY)];
+            System.arraycopy(current.elements, 0, elements, 0, index);
+            elements[index] = e;
+            System.arraycopy(current.elements, index, elements, index + 1, current.size - index);
+            this.publish(new Snapshot(elements, current.size + 1, null));
+        }
     }
 
+    /**
+     * Append all elements in a single modification.
+     *
+     * @param c Elements to append
+     * @return Always true
+     */
     public boolean addAll(final Iterable<? extends E> c) {
-        for(E file : c) {
-            this.add(file);
+        synchronized(lock) {
+            final Snapshot current = snapshot;
+            Object[] elements = current.elements;
+            int size = current.size;
+            final Map<Object, Positions> index = current.index;
+            for(E e : c) {
+                if(size == elements.length) {
+                    elements = Arrays.copyOf(elements, grow(elements.length));
+                }
+                elements[size] = e;
+                if(null != index && null != e) {
+                    index(index, key(e), size);
+                }
+                size++;
+            }
+            snapshot = new Snapshot(elements, size, index);
         }
         return true;
     }
 
     public E get(final int index) {
-        return impl.get(index);
+        return snapshot.get(index);
     }
 
+    /**
+     * @param reference Element to lookup
+     * @return Element in list equal to reference or null if not found
+     */
     public E get(final E reference) {
-        final int index = impl.indexOf(reference);
-        if(-1 == index) {
+        final Snapshot current = snapshot;
+        final int i = this.indexOf(current, reference);
+        if(-1 == i) {
             return null;
         }
-        return impl.get(index);
+        return current.get(i);
     }
 
     public void set(final int i, final E e) {
-        impl.set(i, e);
+        synchronized(lock) {
+            final Snapshot current = snapshot;
+            final E previous = current.get(i);
+            // Copy as the current elements may be in use by readers
+            final Object[] elements = Arrays.copyOf(current.elements, current.elements.length);
+            elements[i] = e;
+            if(null != previous && null != e && key(previous).equals(key(e))) {
+                // Positions of elements with key are unchanged
+                snapshot = new Snapshot(elements, current.size, current.index);
+            }
+            else {
+                this.publish(new Snapshot(elements, current.size, null));
+            }
+        }
     }
 
     @Override
     public Iterator<E> iterator() {
-        return impl.iterator();
-    }
-
-    /**
-     * The CopyOnWriteArrayList iterator does not support remove but the sort implementation
-     * makes use of it. Provide our own implementation here to circumvent.
-     *
-     * @param copy       The list copy to sort
-     * @param comparator The comparator to use
-     * @see java.util.Collections#sort(java.util.List, java.util.Comparator)
-     * @see java.util.concurrent.CopyOnWriteArrayList#iterator()
-     */
-    private void doSort(final List<E> copy, final Comparator<E> comparator) {
-        if(null == comparator) {
-            return;
-        }
-        if(log.isDebugEnabled()) {
-            log.debug(String.format("Sort list %s with comparator %s", this, comparator));
-        }
-        Collections.sort(copy, comparator);
+        return snapshot.iterator();
     }
 
     /**
@@ -164,71 +221,208 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
      * @return Filtered list sorted with comparator
      */
     public AttributedList<E> filter(final Comparator<E> comparator, final Filter<E> filter) {
-        final AttributedList<E> filtered = new AttributedList<>(impl);
+        final List<E> copy = new ArrayList<>(snapshot.toList());
         if(null != comparator) {
-            this.doSort(filtered.impl, comparator);
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Sort list %s with comparator %s", this, comparator));
+            }
+            copy.sort(comparator);
         }
         if(null != filter) {
             if(log.isDebugEnabled()) {
                 log.debug(String.format("Filter list %s with filter %s", this, filter));
             }
-            filtered.impl.removeIf(new Predicate<E>() {
+            copy.removeIf(new Predicate<E>() {
                 @Override
                 public boolean test(final E e) {
                     return !filter.accept(e);
                 }
             });
         }
-        return filtered;
+        return new AttributedList<>(copy);
     }
 
     /**
      * Clear the list and all references.
      */
     public void clear() {
-        impl.clear();
+        synchronized(lock) {
+            this.publish(new Snapshot(new Object[0], 0, null));
+        }
     }
 
     public boolean isEmpty() {
-        return impl.isEmpty();
+        return snapshot.size == 0;
     }
 
     public int size() {
-        return impl.size();
+        return snapshot.size;
     }
 
     public boolean contains(final E e) {
-        return impl.contains(e);
+        return this.indexOf(e) != -1;
     }
 
     public E find(final Predicate<E> predicate) {
-        final Optional<E> optional = impl.stream().filter(predicate).findFirst();
-        return optional.orElse(null);
+        for(E e : this) {
+            if(predicate.test(e)) {
+                return e;
+            }
+        }
+        return null;
     }
 
     @SuppressWarnings("unchecked")
     public E[] toArray() {
-        return (E[]) impl.toArray(new Referenceable[impl.size()]);
+        final Snapshot current = snapshot;
+        return (E[]) Arrays.copyOf(current.elements, current.size, Referenceable[].class);
     }
 
+    /**
+     * @return Unmodifiable view of the current content not reflecting later changes
+     */
     public List<E> toList() {
-        return impl;
+        return snapshot.toList();
     }
 
     public int indexOf(final E e) {
-        return impl.indexOf(e);
+        return this.indexOf(snapshot, e);
     }
 
     public void remove(final int index) {
-        impl.remove(index);
+        synchronized(lock) {
+            final Snapshot current = snapshot;
+            if(index < 0 || index >= current.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for size %d", index, current.size));
+            }
+            this.publish(current.without(Collections.singleton(index)));
+        }
     }
 
     public boolean remove(final E e) {
-        return impl.remove(e);
+        synchronized(lock) {
+            final int i = this.indexOf(e);
+            if(-1 == i) {
+                return false;
+            }
+            this.publish(snapshot.without(Collections.singleton(i)));
+            return true;
+        }
     }
 
     public boolean removeAll(final java.util.Collection<E> e) {
-        return impl.removeAll(e);
+        synchronized(lock) {
+            final Snapshot current = snapshot;
+            final Set<Integer> removed = new HashSet<>();
+            for(int i = 0; i < current.size; i++) {
+                if(e.contains(current.elements[i])) {
+                    removed.add(i);
+                }
+            }
+            if(removed.isEmpty()) {
+                return false;
+            }
+            this.publish(current.without(removed));
+            return true;
+        }
+    }
+
+    /**
+     * Must be called with lock held
+     */
+    private void append(final E e) {
+        final Snapshot current = snapshot;
+        Object[] elements = current.elements;
+        if(current.size == elements.length) {
+            elements = Arrays.copyOf(elements, grow(elements.length));
+        }
+        elements[current.size] = e;
+        final Map<Object, Positions> index = current.index;
+        if(null != index && null != e) {
+            index(index, key(e), current.size);
+        }
+        snapshot = new Snapshot(elements, current.size + 1, index);
+    }
+
+    /**
+     * Must be called with lock held. Replace content with index to be rebuilt on next lookup.
+     */
+    private void publish(final Snapshot update) {
+        snapshot = update;
+    }
+
+    /**
+     * Must be called with lock held
+     */
+    private static void index(final Map<Object, Positions> index, final Object key, final int position) {
+        final Positions positions = index.get(key);
+        if(null == positions) {
+            index.put(key, new Positions(position));
+        }
+        else {
+            positions.add(position);
+        }
+    }
+
+    private static int grow(final int capacity) {
+        return Math.max(DEFAULT_CAPACITY, capacity + (capacity >> 1));
+    }
+
+    /**
+     * @return Key not changed when the attributes of a file are updated after it has been added
+     */
+    private static Object key(final Object e) {
+        if(e instanceof Path) {
+            return ((Path) e).getAbsolute();
+        }
+        return e;
+    }
+
+    private int indexOf(final Snapshot current, final E e) {
+        if(null == e) {
+            return current.indexOf(null, 0);
+        }
+        Map<Object, Positions> index = current.index;
+        if(null == index) {
+            index = this.reindex(current);
+        }
+        final Positions positions = index.get(key(e));
+        if(null == positions) {
+            return -1;
+        }
+        // Read count before array to see all positions added before
+        final int count = positions.count;
+        final int[] elements = positions.elements;
+        for(int k = 0; k < count; k++) {
+            final int i = elements[k];
+            // Skip positions of elements appended after snapshot
+            if(i < current.size && e.equals(current.elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Index for snapshot. Only kept for later lookups and appends if snapshot is still current.
+     */
+    private Map<Object, Positions> reindex(final Snapshot current) {
+        synchronized(lock) {
+            Map<Object, Positions> index = current.index;
+            if(null == index) {
+                index = new ConcurrentHashMap<>(Math.max(DEFAULT_CAPACITY, current.size * 4 / 3 + 1));
+                for(int i = 0; i < current.size; i++) {
+                    final E e = current.get(i);
+                    if(null != e) {
+                        index(index, key(e), i);
+                    }
+                }
+                if(current == snapshot) {
+                    current.index = index;
+                }
+            }
+            return index;
+        }
     }
 
     @Override
@@ -240,11 +434,114 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
             return false;
         }
         final AttributedList<?> that = (AttributedList<?>) o;
-        return Objects.equals(impl, that.impl);
+        return Objects.equals(this.toList(), that.toList());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(impl);
+        return Objects.hash(this.toList());
+    }
+
+    /**
+     * Immutable view of elements up to size. Slots above size may be filled by a concurrent append.
+     */
+    private final class Snapshot {
+        private final Object[] elements;
+        private final int size;
+        /**
+         * Positions of elements by key shared with snapshots derived by appending. Null if not yet built.
+         */
+        private volatile Map<Object, Positions> index;
+
+        private Snapshot(final Object[] elements, final int size, final Map<Object, Positions> index) {
+            this.elements = elements;
+            this.size = size;
+            this.index = index;
+        }
+
+        @SuppressWarnings("unchecked")
+        private E get(final int index) {
+            if(index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for size %d", index, size));
+            }
+            return (E) elements[index];
+        }
+
+        private int indexOf(final Object e, final int from) {
+            for(int i = from; i < size; i++) {
+                if(Objects.equals(e, elements[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Snapshot without(final Set<Integer> removed) {
+            final Object[] copy = new Object[Math.max(size - removed.size(), DEFAULT_CAPACITY)];
+            int j = 0;
+            for(int i = 0; i < size; i++) {
+                if(!removed.contains(i)) {
+                    copy[j++] = elements[i];
+                }
+            }
+            return new Snapshot(copy, j, null);
+        }
+
+        private Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int cursor = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return cursor < size;
+                }
+
+                @Override
+                public E next() {
+                    if(cursor >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return get(cursor++);
+                }
+            };
+        }
+
+        private List<E> toList() {
+            return new SnapshotList();
+        }
+
+        private final class SnapshotList extends AbstractList<E> implements RandomAccess {
+            @Override
+            public E get(final int index) {
+                return Snapshot.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+    }
+
+    /**
+     * Positions of elements with the same key in ascending order. Only added to with lock held. Readers see all
+     * positions up to the count read.
+     */
+    private static final class Positions {
+        private int[] elements;
+        private volatile int count;
+
+        private Positions(final int position) {
+            this.elements = new int[]{position};
+            this.count = 1;
+        }
+
+        private void add(final int position) {
+            if(count == elements.length) {
+                elements = Arrays.copyOf(elements, count * 2);
+            }
+            elements[count] = position;
+            count++;
+        }
     }
 }
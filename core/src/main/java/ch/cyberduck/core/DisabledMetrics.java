@@ -15,12 +15,44 @@ package ch.cyberduck.core;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.metrics.Histogram;
+
+import java.util.Collections;
+import java.util.Map;
+
 public class DisabledMetrics implements Metrics {
 
     public <T> void increment(final T key) {
     }
 
+    @Override
+    public <T> void increment(final T key, final long delta) {
+    }
+
     public <T> long get(final T key) {
         return 0;
     }
+
+    @Override
+    public <T> void gauge(final T key, final long value) {
+    }
+
+    @Override
+    public <T> void record(final T key, final long value) {
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Histogram> getHistograms() {
+        return Collections.emptyMap();
+    }
 }
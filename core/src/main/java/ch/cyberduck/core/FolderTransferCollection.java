@@ -30,6 +30,7 @@ import ch.cyberduck.core.serializer.Writer;
 import ch.cyberduck.core.transfer.Transfer;
 import ch.cyberduck.core.transfer.TransferProgress;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 
 import java.text.MessageFormat;
@@ -89,6 +90,14 @@ public class FolderTransferCollection extends Collection<Transfer> {
         return LocalFactory.get(folder, String.format("%s.cyberducktransfer", transfer.getUuid()));
     }
 
+    /**
+     * @param transfer Transfer
+     * @return File for remote listings saved with synchronization
+     */
+    public Local getManifest(final Transfer transfer) {
+        return LocalFactory.get(folder, String.format("%s.manifest", transfer.getUuid()));
+    }
+
     public Local getFolder() {
         return folder;
     }
@@ -97,6 +106,10 @@ public class FolderTransferCollection extends Collection<Transfer> {
     public void collectionItemRemoved(final Transfer transfer) {
         try {
             this.getFile(transfer).delete();
+            final Local manifest = this.getManifest(transfer);
+            if(manifest.exists()) {
+                manifest.delete();
+            }
             preferences.deleteProperty(String.format("%s%s", prefix, transfer.getUuid()));
         }
         catch(AccessDeniedException | NotfoundException e) {
@@ -192,6 +205,7 @@ public class FolderTransferCollection extends Collection<Transfer> {
                 }
                 this.add(transfer);
             }
+            this.clean();
             // Sort using previously built index
             this.sort();
         }
@@ -201,6 +215,37 @@ public class FolderTransferCollection extends Collection<Transfer> {
         super.load();
     }
 
+    /**
+     * Delete manifests of transfers no longer saved
+     */
+    private void clean() throws AccessDeniedException {
+        for(Local next : folder.list().filter(new Filter<Local>() {
+            @Override
+            public boolean accept(final Local file) {
+                return file.getName().endsWith(".manifest");
+            }
+
+            @Override
+            public Pattern toPattern() {
+                return Pattern.compile(".*\\.manifest");
+            }
+        })) {
+            final Local transfer = LocalFactory.get(folder, String.format("%s.cyberducktransfer",
+                StringUtils.removeEnd(next.getName(), ".manifest")));
+            if(!transfer.exists()) {
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Delete manifest %s of missing transfer", next));
+                }
+                try {
+                    next.delete();
+                }
+                catch(NotfoundException e) {
+                    log.warn(String.format("Failure deleting manifest %s", e.getMessage()));
+                }
+            }
+        }
+    }
+
     protected void rename(final Local next, final Transfer transfer) throws AccessDeniedException {
         // Rename all files previously saved with nickname to UUID.
         next.rename(this.getFile(transfer));
@@ -15,9 +15,41 @@ package ch.cyberduck.core;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.metrics.Histogram;
+
+import java.util.Map;
+
+/**
+ * Counters, gauges and histograms keyed by name. Keys of type {@link Class} are named by their simple name prefixed
+ * with <code>feature.</code>, any other key by its string representation. Latency is recorded in nanoseconds.
+ */
 public interface Metrics {
 
     <T> void increment(T key);
 
+    /**
+     * @param delta Value to add to counter
+     */
+    <T> void increment(T key, long delta);
+
+    /**
+     * @return Current value of counter
+     */
     <T> long get(T key);
+
+    /**
+     * @param value Current value
+     */
+    <T> void gauge(T key, long value);
+
+    /**
+     * @param value Value to add to histogram
+     */
+    <T> void record(T key, long value);
+
+    Map<String, Long> getCounters();
+
+    Map<String, Long> getGauges();
+
+    Map<String, Histogram> getHistograms();
 }
@@ -52,6 +52,11 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
      */
     private PathAttributes attributes;
 
+    /**
+     * Cached identity used for hashCode and equals. Not serialized and recomputed on first use.
+     */
+    private transient Identity identity;
+
     public Path(final Path copy) {
         this.parent = copy.parent;
         this.path = copy.path;
@@ -241,7 +246,7 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
      */
     @Override
     public int hashCode() {
-        return new DefaultPathPredicate(this).hashCode();
+        return this.identity().reference.hashCode();
     }
 
     /**
@@ -254,11 +259,55 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
             return false;
         }
         if(other instanceof Path) {
-            return new DefaultPathPredicate(this).equals(new DefaultPathPredicate((Path) other));
+            return this.identity().reference.equals(((Path) other).identity().reference);
         }
         return false;
     }
 
+    /**
+     * @return Precomputed reference only recalculated when type, attributes, region or version change
+     */
+    private Identity identity() {
+        final Identity cached = identity;
+        if(null != cached && cached.isValid(this)) {
+            return cached;
+        }
+        return identity = new Identity(this);
+    }
+
+    /**
+     * Immutable snapshot of the properties the reference is derived from
+     */
+    private static final class Identity {
+        private final DefaultPathPredicate reference;
+        private final Type kind;
+        private final PathAttributes attributes;
+        private final String region;
+        private final String versionId;
+
+        private Identity(final Path file) {
+            this.kind = kind(file);
+            this.attributes = file.attributes;
+            this.region = file.attributes.getRegion();
+            this.versionId = file.attributes.getVersionId();
+            this.reference = new DefaultPathPredicate(file);
+        }
+
+        /**
+         * Compare by identity to avoid any allocation
+         */
+        private boolean isValid(final Path file) {
+            return attributes == file.attributes
+                && region == file.attributes.getRegion()
+                && versionId == file.attributes.getVersionId()
+                && kind == kind(file);
+        }
+
+        private static Type kind(final Path file) {
+            return file.isSymbolicLink() ? Type.symboliclink : file.isFile() ? Type.file : Type.directory;
+        }
+    }
+
     /**
      * @return The absolute path name
      */
@@ -34,6 +34,16 @@ public class PathCache extends AbstractCache<Path> {
         super(size);
     }
 
+    /**
+     * @param size   Maximum number of directory listings cached
+     * @param files  Average number of files per directory listing. Limits the number of files in all cached
+     *               directory listings to size times files instead of the number of listings. Disabled with -1.
+     * @param expiry Milliseconds after which a cached directory listing is marked invalid or -1
+     */
+    public PathCache(final int size, final long files, final long expiry) {
+        super(size, files, expiry);
+    }
+
     @Override
     public CacheReference key(final Path file) {
         return new DefaultPathPredicate(file);
@@ -22,6 +22,7 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.features.Bulk;
 import ch.cyberduck.core.features.Copy;
+import ch.cyberduck.core.features.Delete;
 import ch.cyberduck.core.features.Download;
 import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.features.Home;
@@ -32,6 +33,12 @@ import ch.cyberduck.core.features.Read;
 import ch.cyberduck.core.features.Search;
 import ch.cyberduck.core.features.Upload;
 import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.metrics.DefaultMetrics;
+import ch.cyberduck.core.metrics.MetricsDeleteFeature;
+import ch.cyberduck.core.metrics.MetricsFactory;
+import ch.cyberduck.core.metrics.MetricsListService;
+import ch.cyberduck.core.metrics.MetricsReadFeature;
+import ch.cyberduck.core.metrics.MetricsWriteFeature;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.proxy.Proxy;
@@ -66,7 +73,7 @@ public abstract class Session<C> implements TranscriptListener {
      */
     protected final Host host;
 
-    private Metrics metrics = new DisabledMetrics();
+    private Metrics metrics = MetricsFactory.get();
 
     /**
      * Connection
@@ -133,7 +140,14 @@ public abstract class Session<C> implements TranscriptListener {
     }
 
     public void enableMetrics() {
-        metrics = new CountingMetrics();
+        this.enableMetrics(new DefaultMetrics());
+    }
+
+    /**
+     * @param metrics Record latency and throughput of features
+     */
+    public void enableMetrics(final Metrics metrics) {
+        this.metrics = metrics;
     }
 
     public Metrics getMetrics() {
@@ -280,7 +294,30 @@ public abstract class Session<C> implements TranscriptListener {
     @SuppressWarnings("unchecked")
     public <T> T getFeature(final Class<T> type) {
         metrics.increment(type);
-        return this.getFeature(type, this._getFeature(type));
+        return this.meter(type, this.getFeature(type, this._getFeature(type)));
+    }
+
+    /**
+     * Wrap feature to record metrics if enabled
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T meter(final Class<T> type, final T feature) {
+        if(null == feature || metrics instanceof DisabledMetrics) {
+            return feature;
+        }
+        if(type == Read.class) {
+            return (T) new MetricsReadFeature((Read) feature, metrics);
+        }
+        if(type == Write.class) {
+            return (T) new MetricsWriteFeature((Write) feature, metrics);
+        }
+        if(type == ListService.class) {
+            return (T) new MetricsListService((ListService) feature, metrics);
+        }
+        if(type == Delete.class) {
+            return (T) new MetricsDeleteFeature((Delete) feature, metrics);
+        }
+        return feature;
     }
 
     /**
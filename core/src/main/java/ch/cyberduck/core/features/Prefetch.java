@@ -0,0 +1,37 @@
+package ch.cyberduck.core.features;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+
+/**
+ * Retrieve listings of a directory and all its descendants with fewer requests than listing every directory
+ */
+public interface Prefetch {
+
+    /**
+     * Add listing of directory and all directories in subtree to cache. Leave cache unchanged if not supported
+     * for this directory.
+     *
+     * @param directory Directory
+     * @param cache     Cache to populate
+     * @param listener  Notification listener
+     */
+    void prefetch(Path directory, Cache<Path> cache, ListProgressListener listener) throws BackgroundException;
+}
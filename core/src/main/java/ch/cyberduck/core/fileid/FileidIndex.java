@@ -0,0 +1,296 @@
+package ch.cyberduck.core.fileid;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.HostUrlProvider;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LocalFactory;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.io.AppendLog;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.preferences.SupportDirectoryFinderFactory;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Identifiers of directories for backends addressing files by ID instead of path. Shared by all sessions with the
+ * same server and user and optionally saved to disk to resolve deep paths without listing every parent directory in
+ * later runs. Only directories are indexed as their ID is not changed by uploading new content. Entries are removed
+ * when a directory is moved or deleted. Entries loaded from disk are validated with the server on first use as the
+ * directory may have been changed by another client in the meantime.
+ */
+public class FileidIndex {
+    private static final Logger log = Logger.getLogger(FileidIndex.class);
+
+    /**
+     * Version of index file format
+     */
+    private static final String VERSION = "2";
+
+    private static final Map<String, FileidIndex> instances = new ConcurrentHashMap<>();
+
+    private static final Function<String, FileidIndex> factory = new Function<String, FileidIndex>() {
+        @Override
+        public FileidIndex apply(final String url) {
+            if(PreferencesFactory.get().getBoolean("fileid.index.enable")) {
+                return new FileidIndex(LocalFactory.get(LocalFactory.get(SupportDirectoryFinderFactory.get().find(), "Fileids"),
+                    DigestUtils.sha256Hex(url)));
+            }
+            return new FileidIndex();
+        }
+    };
+
+    /**
+     * @return Index shared by all sessions with the same server and username
+     */
+    public static FileidIndex get(final Host host) {
+        return instances.computeIfAbsent(new HostUrlProvider(true).get(host), factory);
+    }
+
+    public interface Validator {
+        /**
+         * @param directory Directory
+         * @param id        Identifier from index
+         * @return False if the identifier no longer refers to the directory
+         */
+        boolean validate(Path directory, String id) throws BackgroundException;
+    }
+
+    /**
+     * Index file or null to keep entries in memory only
+     */
+    private final AppendLog file;
+
+    /**
+     * Absolute path of directory mapped to identifier
+     */
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+    /**
+     * Paths of directories with identifier retrieved from or validated with the server
+     */
+    private final Set<String> confirmed = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded;
+
+    /**
+     * Keep entries in memory only
+     */
+    public FileidIndex() {
+        this(null);
+    }
+
+    /**
+     * @param file Index file
+     */
+    public FileidIndex(final Local file) {
+        this.file = null == file ? null : new AppendLog(file, "V", VERSION);
+    }
+
+    /**
+     * @param directory Directory
+     * @param validator Check identifier loaded from disk with the server before first use
+     * @return Identifier or null if not indexed
+     */
+    public String get(final Path directory, final Validator validator) throws BackgroundException {
+        if(!directory.isDirectory()) {
+            return null;
+        }
+        this.load();
+        final String id = entries.get(directory.getAbsolute());
+        if(null == id) {
+            return null;
+        }
+        if(confirmed.contains(directory.getAbsolute())) {
+            return id;
+        }
+        boolean valid;
+        try {
+            valid = validator.validate(directory, id);
+        }
+        catch(NotfoundException e) {
+            valid = false;
+        }
+        if(!valid) {
+            log.warn(String.format("Discard identifier %s of %s no longer valid", id, directory));
+            this.remove(directory);
+            return null;
+        }
+        confirmed.add(directory.getAbsolute());
+        return id;
+    }
+
+    /**
+     * Add identifier of directory. Ignored for files.
+     */
+    public void put(final Path directory, final String id) {
+        if(!directory.isDirectory() || StringUtils.isBlank(id)) {
+            return;
+        }
+        this.load();
+        confirmed.add(directory.getAbsolute());
+        final String previous = entries.put(directory.getAbsolute(), id);
+        if(id.equals(previous)) {
+            return;
+        }
+        this.append("P", id, directory.getAbsolute());
+    }
+
+    /**
+     * Remove file and all its descendants
+     */
+    public void remove(final Path file) {
+        this.load();
+        final Predicate<String> descendant = this.descendant(file.getAbsolute());
+        confirmed.removeIf(descendant);
+        if(entries.keySet().removeIf(descendant)) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Removed %s from index", file));
+            }
+            this.append("R", StringUtils.EMPTY, file.getAbsolute());
+        }
+    }
+
+    /**
+     * Remove identifier of directory that may have been moved or deleted by another client after looking up a child
+     * failed. Clears the identifier cached in the attributes of the directory.
+     *
+     * @return True if the directory was indexed and a lookup should be retried
+     */
+    public boolean invalidate(final Path directory) {
+        if(!directory.isDirectory()) {
+            return false;
+        }
+        this.load();
+        if(!entries.containsKey(directory.getAbsolute())) {
+            return false;
+        }
+        log.warn(String.format("Invalidate identifier of %s", directory));
+        this.remove(directory);
+        directory.attributes().setVersionId(null);
+        return true;
+    }
+
+    /**
+     * @return Matches path and its descendants
+     */
+    private Predicate<String> descendant(final String path) {
+        final String prefix = String.format("%s%s", path, Path.DELIMITER);
+        return new Predicate<String>() {
+            @Override
+            public boolean test(final String key) {
+                return key.equals(path) || key.startsWith(prefix);
+            }
+        };
+    }
+
+    private void load() {
+        if(loaded) {
+            return;
+        }
+        synchronized(this) {
+            if(loaded) {
+                return;
+            }
+            if(null != file && file.read(new AppendLog.Reader() {
+                @Override
+                public void read(final String[] fields) {
+                    parse(fields);
+                }
+            })) {
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Loaded %d identifiers from %s", entries.size(), file));
+                }
+            }
+            loaded = true;
+            if(null != file && file.isCompactionRequired(entries.size())) {
+                this.compact();
+            }
+        }
+    }
+
+    private void parse(final String[] fields) {
+        // Operation, identifier and path
+        if(fields.length != 3) {
+            log.warn(String.format("Skip invalid record %s", Arrays.toString(fields)));
+            return;
+        }
+        if("P".equals(fields[0])) {
+            entries.put(fields[2], fields[1]);
+        }
+        else if("R".equals(fields[0])) {
+            entries.keySet().removeIf(this.descendant(fields[2]));
+        }
+        else {
+            log.warn(String.format("Skip invalid record %s", Arrays.toString(fields)));
+        }
+    }
+
+    private void append(final String operation, final String id, final String path) {
+        if(null == file) {
+            return;
+        }
+        if(file.append(operation, id, path)) {
+            if(file.isCompactionRequired(entries.size())) {
+                this.compact();
+            }
+        }
+    }
+
+    /**
+     * Rewrite index file with current entries only
+     */
+    public synchronized void compact() {
+        if(null == file) {
+            return;
+        }
+        final List<String[]> records = new ArrayList<String[]>();
+        for(Map.Entry<String, String> entry : entries.entrySet()) {
+            records.add(new String[]{"P", entry.getValue(), entry.getKey()});
+        }
+        file.replace(records);
+    }
+
+    /**
+     * @return Number of directories in index
+     */
+    public int size() {
+        this.load();
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("FileidIndex{");
+        sb.append("file=").append(file);
+        sb.append(", entries=").append(entries.size());
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package ch.cyberduck.core.fileid;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.PasswordCallback;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Delete;
+
+import java.util.List;
+
+/**
+ * Remove deleted directories from index
+ */
+public class FileidIndexDeleteFeature implements Delete {
+
+    private final Delete proxy;
+    private final FileidIndex index;
+
+    public FileidIndexDeleteFeature(final Delete proxy, final FileidIndex index) {
+        this.proxy = proxy;
+        this.index = index;
+    }
+
+    @Override
+    public void delete(final List<Path> files, final PasswordCallback prompt, final Callback callback) throws BackgroundException {
+        try {
+            proxy.delete(files, prompt, callback);
+        }
+        finally {
+            // Also invalidate when failed after deleting some files
+            for(Path file : files) {
+                index.remove(file);
+            }
+        }
+    }
+
+    @Override
+    public boolean isSupported(final Path file) {
+        return proxy.isSupported(file);
+    }
+
+    @Override
+    public boolean isRecursive() {
+        return proxy.isRecursive();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("FileidIndexDeleteFeature{");
+        sb.append("proxy=").append(proxy);
+        sb.append('}');
+        return sb.toString();
+    }
+}
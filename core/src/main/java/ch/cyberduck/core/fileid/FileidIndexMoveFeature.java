@@ -0,0 +1,79 @@
+package ch.cyberduck.core.fileid;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.Session;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.features.Move;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+/**
+ * Remove source and replaced target directories from index
+ */
+public class FileidIndexMoveFeature implements Move {
+
+    private final Move proxy;
+    private final FileidIndex index;
+
+    public FileidIndexMoveFeature(final Move proxy, final FileidIndex index) {
+        this.proxy = proxy;
+        this.index = index;
+    }
+
+    @Override
+    public Path move(final Path source, final Path target, final TransferStatus status, final Delete.Callback delete, final ConnectionCallback callback) throws BackgroundException {
+        try {
+            return proxy.move(source, target, status, delete, callback);
+        }
+        finally {
+            index.remove(source);
+            index.remove(target);
+        }
+    }
+
+    @Override
+    public boolean isRecursive(final Path source, final Path target) {
+        return proxy.isRecursive(source, target);
+    }
+
+    @Override
+    public boolean isSupported(final Path source, final Path target) {
+        return proxy.isSupported(source, target);
+    }
+
+    @Override
+    public Move withDelete(final Delete delete) {
+        proxy.withDelete(delete);
+        return this;
+    }
+
+    @Override
+    public Move withTarget(final Session<?> session) {
+        proxy.withTarget(session);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("FileidIndexMoveFeature{");
+        sb.append("proxy=").append(proxy);
+        sb.append('}');
+        return sb.toString();
+    }
+}
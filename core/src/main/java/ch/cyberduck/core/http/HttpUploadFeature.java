@@ -69,13 +69,23 @@ public class HttpUploadFeature<Reply, Digest> implements Upload<Reply> {
     public Reply upload(final Path file, final Local local, final BandwidthThrottle throttle,
                         final StreamListener listener, final TransferStatus status,
                         final StreamCancelation cancel, final StreamProgress progress, final ConnectionCallback callback) throws BackgroundException {
+        return this.upload(file, local.getInputStream(), status.getOffset(), throttle, listener, status, cancel, progress, callback);
+    }
+
+    /**
+     * @param source Input positioned at the beginning of the file or already read into memory
+     * @param skip   Number of bytes to skip in input before upload
+     */
+    public Reply upload(final Path file, final InputStream source, final long skip, final BandwidthThrottle throttle,
+                        final StreamListener listener, final TransferStatus status,
+                        final StreamCancelation cancel, final StreamProgress progress, final ConnectionCallback callback) throws BackgroundException {
         try {
             final Digest digest = this.digest();
             // Wrap with digest stream if available
-            final InputStream in = this.decorate(local.getInputStream(), digest);
+            final InputStream in = this.decorate(source, digest);
             final StatusOutputStream<Reply> out = writer.write(file, status, callback);
             new StreamCopier(cancel, progress)
-                    .withOffset(status.getOffset())
+                    .withOffset(skip)
                     .withLimit(status.getLength())
                     .withListener(listener)
                     .transfer(in, new ThrottledOutputStream(out, throttle));
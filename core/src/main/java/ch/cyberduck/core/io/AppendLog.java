@@ -0,0 +1,294 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LocalFactory;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.local.DefaultLocalDirectoryFeature;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * File of records with tab separated fields, one record per line. Records are appended as changes are made and the
+ * file is replaced with the current records only when it is compacted. Backslash, tab and line breaks in fields are
+ * escaped.
+ */
+public class AppendLog {
+    private static final Logger log = Logger.getLogger(AppendLog.class);
+
+    /**
+     * Minimum number of lines in file before compaction
+     */
+    private static final int COMPACTION_MINIMUM = 1000;
+
+    private final Local file;
+    /**
+     * First record identifying the format or empty if none
+     */
+    private final String[] header;
+
+    private Writer writer;
+    /**
+     * Number of lines in file
+     */
+    private int lines;
+
+    /**
+     * @param file   Log file
+     * @param header First record identifying the format. A file with a different header is discarded.
+     */
+    public AppendLog(final Local file, final String... header) {
+        this.file = file;
+        this.header = header;
+    }
+
+    public interface Reader {
+        /**
+         * @param fields Unescaped fields of record
+         */
+        void read(String[] fields);
+    }
+
+    /**
+     * Read all records
+     *
+     * @return False if the file is missing, cannot be read or has an unknown header
+     */
+    public synchronized boolean read(final Reader reader) {
+        lines = 0;
+        if(!file.exists()) {
+            return false;
+        }
+        BufferedReader in = null;
+        try {
+            in = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+            if(header.length > 0) {
+                final String line = in.readLine();
+                if(!StringUtils.equals(join(header), line)) {
+                    log.warn(String.format("Discard %s with unknown format %s", file, line));
+                    return false;
+                }
+                lines++;
+            }
+            String line;
+            while((line = in.readLine()) != null) {
+                lines++;
+                reader.read(split(line));
+            }
+            return true;
+        }
+        catch(AccessDeniedException e) {
+            log.warn(String.format("Failure reading %s. %s", file, e.getDetail()));
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading %s. %s", file, e.getMessage()));
+        }
+        finally {
+            IOUtils.closeQuietly(in);
+        }
+        return false;
+    }
+
+    /**
+     * Append record and flush
+     *
+     * @return False if writing failed
+     */
+    public synchronized boolean append(final String... fields) {
+        try {
+            if(null == writer) {
+                new DefaultLocalDirectoryFeature().mkdir(file.getParent());
+                // Replace missing header or file with unknown format
+                final boolean append = lines > 0 || header.length == 0;
+                writer = new BufferedWriter(new OutputStreamWriter(file.getOutputStream(append), StandardCharsets.UTF_8));
+                if(!append) {
+                    this.write(writer, header);
+                    lines++;
+                }
+            }
+            this.write(writer, fields);
+            writer.flush();
+            lines++;
+            return true;
+        }
+        catch(AccessDeniedException e) {
+            log.warn(String.format("Failure writing to %s. %s", file, e.getDetail()));
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure writing to %s. %s", file, e.getMessage()));
+        }
+        return false;
+    }
+
+    /**
+     * @param size Number of current records
+     * @return True if the file contains more superseded than current records
+     */
+    public synchronized boolean isCompactionRequired(final int size) {
+        return lines > COMPACTION_MINIMUM && lines > 2 * size;
+    }
+
+    /**
+     * Replace file with records given
+     *
+     * @return False if writing failed
+     */
+    public synchronized boolean replace(final Iterable<String[]> records) {
+        this.close();
+        final Local temporary = LocalFactory.get(file.getParent(), String.format("%s.tmp", file.getName()));
+        Writer out = null;
+        int count = 0;
+        try {
+            new DefaultLocalDirectoryFeature().mkdir(file.getParent());
+            out = new BufferedWriter(new OutputStreamWriter(temporary.getOutputStream(false), StandardCharsets.UTF_8));
+            if(header.length > 0) {
+                this.write(out, header);
+                count++;
+            }
+            for(String[] record : records) {
+                this.write(out, record);
+                count++;
+            }
+            out.close();
+            out = null;
+            temporary.rename(file);
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Replaced %s with %d lines previously %d lines", file, count, lines));
+            }
+            lines = count;
+            return true;
+        }
+        catch(AccessDeniedException e) {
+            log.warn(String.format("Failure writing to %s. %s", file, e.getDetail()));
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure writing to %s. %s", file, e.getMessage()));
+        }
+        finally {
+            IOUtils.closeQuietly(out);
+        }
+        return false;
+    }
+
+    /**
+     * Close writer for appending
+     */
+    public synchronized void close() {
+        IOUtils.closeQuietly(writer);
+        writer = null;
+    }
+
+    private void write(final Writer out, final String[] fields) throws IOException {
+        out.write(join(fields));
+        out.write('\n');
+    }
+
+    private static String join(final String[] fields) {
+        final StringBuilder line = new StringBuilder();
+        for(int i = 0; i < fields.length; i++) {
+            if(i > 0) {
+                line.append('\t');
+            }
+            line.append(escape(StringUtils.defaultString(fields[i])));
+        }
+        return line.toString();
+    }
+
+    private static String[] split(final String line) {
+        final String[] fields = StringUtils.splitPreserveAllTokens(line, '\t');
+        for(int i = 0; i < fields.length; i++) {
+            fields[i] = unescape(fields[i]);
+        }
+        return fields;
+    }
+
+    private static String escape(final String value) {
+        if(StringUtils.containsNone(value, '\\', '\t', '\n', '\r')) {
+            return value;
+        }
+        final StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for(int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch(c) {
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(final String value) {
+        if(value.indexOf('\\') == -1) {
+            return value;
+        }
+        final StringBuilder unescaped = new StringBuilder(value.length());
+        for(int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if(c == '\\' && i + 1 < value.length()) {
+                final char next = value.charAt(++i);
+                switch(next) {
+                    case 't':
+                        unescaped.append('\t');
+                        break;
+                    case 'n':
+                        unescaped.append('\n');
+                        break;
+                    case 'r':
+                        unescaped.append('\r');
+                        break;
+                    default:
+                        unescaped.append(next);
+                }
+            }
+            else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("AppendLog{");
+        sb.append("file=").append(file);
+        sb.append(", lines=").append(lines);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -1,15 +1,20 @@
 package ch.cyberduck.core.io;
 
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
 import org.apache.log4j.Logger;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * Limits throughput of a stream to at most N bytes per T seconds.  Mutable and
+ * Limits throughput of a stream to at most N bytes per second.  Mutable and
  * thread-safe.<p>
  * <p/>
  * In the following example, <tt>throttle</tt> is used to send the contents of
- * <tt>buf</tt> to <tt>out</tt> at no more than <tt>N/T</tt> bytes per second:
+ * <tt>buf</tt> to <tt>out</tt> at no more than <tt>N</tt> bytes per second:
  * <pre>
- *      BandwidthThrottle throttle=new BandwidthThrottle(N, T);
+ *      BandwidthThrottle throttle=new BandwidthThrottle(N);
  *      OutputStream out=...;
  *      byte[] buf=...;
  *      for (int i=0; i<buf.length; ) {
@@ -19,21 +24,16 @@ import org.apache.log4j.Logger;
  *      }
  * </pre>
  * <p/>
- * This class works by allowing exactly N bytes to be sent every T seconds.  If
- * the number of bytes for a given window have been exceeded, subsequent calls
- * to request(..) will block.  The default value of T is 100 milliseconds.
- * Smaller window values T allow fairer bandwidth sharing and less noticeable
- * pauses but may decrease efficiency slightly.<p>
+ * This class works as a token bucket holding at most the bytes allowed in 100
+ * milliseconds. Instead of counting tokens, the time when the bucket will be
+ * empty is kept and advanced atomically for every request. Callers reserve
+ * bandwidth in the order of their requests without holding a lock and sleep
+ * until their reservation is due. The same throttle can be shared by many
+ * concurrent streams.<p>
  * <p/>
- * Note that throttles are <i>not</i> cumulative.  In the future, this may allow
- * enable fancier control.  Also, BandwidthThrottle may be able delegate to
- * other throttles.  This would allow, for example, a 15 KB/s Gnutella messaging
- * throttle, with no more than 10 KB/s devoted to uploads.<p>
- * <p/>
- * This implementation is based on the <a href="http://cvs.sourceforge.net/cgi-bin/viewcvs.cgi/freenet/freenet/src/freenet/support/io/Bandwidth.java">Bandwidth</a>
- * class from
- * the Freenet project.  It has been simplified and better documented.<p>
-
+ * Throttles nest. A request to a throttle with a parent also reserves the
+ * granted bytes from the parent and blocks until both allow sending, such that
+ * per transfer limits apply within the {@link #get() global} limit.<p>
  */
 public final class BandwidthThrottle {
     private static final Logger log = Logger.getLogger(BandwidthThrottle.class);
@@ -42,79 +42,74 @@ public final class BandwidthThrottle {
      * The number of windows per second.
      */
     private static final int TICKS_PER_SECOND = 10;
+
     /**
-     * The value of T, in milliseconds.
+     * No throttling
      */
-    private static final int MILLIS_PER_TICK = 1000 / TICKS_PER_SECOND;
+    public static final int UNLIMITED = -1;
+
+    private static final class Global {
+        private static final BandwidthThrottle instance
+            = new BandwidthThrottle(null, PreferencesFactory.get().getFloat("queue.bandwidth.bytes"));
+    }
 
     /**
-     * The bytes to send per tick.  Modified by setThrottle.
+     * @return Limit shared by all transfers
      */
-    private volatile int bytesPerTick;
+    public static BandwidthThrottle get() {
+        return Global.instance;
+    }
+
+    private final BandwidthThrottle parent;
 
     /**
-     * Whether or not we're only allowing bandwidth to be used every other
-     * second.
+     * Bytes per second allowed
      */
-    private volatile boolean switching = false;
+    private volatile float rate = UNLIMITED;
 
     /**
-     * The number of bytes remaining in this window.
+     * Nanoseconds to send a single byte
      */
-    private int availableBytes;
+    private volatile double cost;
+
     /**
-     * The system time when the window is reset so more bytes can be sent.
+     * Size of bucket. Maximum number of bytes granted for a single request.
      */
-    private long nextTickTime;
+    private volatile int bytesPerTick;
+
+    /**
+     * Time in nanoseconds when all reserved bytes have been sent.
+     */
+    private final AtomicLong next
+        = new AtomicLong(System.nanoTime());
 
     /**
      * Creates a new bandwidth throttle at the given throttle rate.
-     * The default windows size T is used.  The bytes per windows N
-     * is calculated from bytesPerSecond.
      *
      * @param bytesPerSecond the limits in bytes (not bits!) per second
      *                       (not milliseconds!)
      */
-    public BandwidthThrottle(float bytesPerSecond) {
-        this.setRate(bytesPerSecond);
+    public BandwidthThrottle(final float bytesPerSecond) {
+        this(null, bytesPerSecond);
     }
 
     /**
-     * Creates a new bandwidth throttle at the given throttle rate,
-     * only allowing bandwidth to be used every other second if
-     * switching is true.
-     * The default windows size T is used.  The bytes per windows N
-     * is calculated from bytesPerSecond.
-     *
+     * @param parent         Limit shared with other throttles or null
      * @param bytesPerSecond the limits in bytes (not bits!) per second
      *                       (not milliseconds!)
-     * @param switching      true if we should only allow bandwidth to be used
-     *                       every other second.
      */
-    public BandwidthThrottle(float bytesPerSecond, boolean switching) {
+    public BandwidthThrottle(final BandwidthThrottle parent, final float bytesPerSecond) {
+        this.parent = parent;
         this.setRate(bytesPerSecond);
-        this.setSwitching(switching);
-
     }
 
     /**
-     * No throttling
-     */
-    public static final int UNLIMITED = -1;
-
-    /**
-     * Bytes per second allowed
-     */
-    private float rate = UNLIMITED;
-
-    /**
-     * Sets the throttle to the given throttle rate.  The default windows size
-     * T is used.  The bytes per windows N is calculated from bytesPerSecond.
+     * Sets the throttle to the given throttle rate.
      *
      * @param bytesPerSecond the limits in bytes (not bits!) per second
      *                       (not milliseconds!)
      */
-    public void setRate(float bytesPerSecond) {
+    public void setRate(final float bytesPerSecond) {
         if(bytesPerSecond < 0) {
             rate = UNLIMITED;
         }
@@ -122,11 +117,9 @@ public final class BandwidthThrottle {
             if(log.isDebugEnabled()) {
                 log.debug(String.format("Set rate to %s bytes per second", bytesPerSecond));
             }
+            bytesPerTick = Math.max(1, (int) (bytesPerSecond / TICKS_PER_SECOND));
+            cost = TimeUnit.SECONDS.toNanos(1) / (double) bytesPerSecond;
             rate = bytesPerSecond;
-            bytesPerTick = (int) (bytesPerSecond / TICKS_PER_SECOND);
-        }
-        if(switching) {
-            this.fixBytesPerTick(true);
         }
     }
 
@@ -138,34 +131,10 @@ public final class BandwidthThrottle {
     }
 
     /**
-     * Sets whether or not this throttle is switching bandwidth on/off.
+     * @return Limit shared with other throttles or null
      */
-    public void setSwitching(boolean switching) {
-        log.debug("setSwitching:" + switching);
-        if(this.switching != switching) {
-            fixBytesPerTick(switching);
-        }
-        this.switching = switching;
-    }
-
-    /**
-     * Modifies bytesPerTick to either be double or half of what it was.
-     * This is necessary because of the 'switching', which can effectively
-     * reduce or raise the amount of data transferred.
-     */
-    private void fixBytesPerTick(boolean raise) {
-        int newBytesPerTick = bytesPerTick;
-        if(raise) {
-            newBytesPerTick *= 2;
-        }
-        else {
-            newBytesPerTick /= 2;
-        }
-        if(newBytesPerTick < 0) // overflowed?
-        {
-            newBytesPerTick = Integer.MAX_VALUE;
-        }
-        bytesPerTick = newBytesPerTick;
+    public BandwidthThrottle getParent() {
+        return parent;
     }
 
     /**
@@ -176,55 +145,65 @@ public final class BandwidthThrottle {
      * @return the number of bytes the sender is expected to send, which
      *         is always greater than one and less than or equal to desired
      */
-    public synchronized int request(int desired) {
-        if(UNLIMITED == rate) {
+    public int request(final int desired) {
+        final int limit = this.limit();
+        if(Integer.MAX_VALUE == limit) {
             return desired;
         }
-        waitForBandwidth();
-        int result = Math.min(desired, availableBytes);
-        availableBytes -= result;
-        return result;
-    }
-
-    /**
-     * Waits until data is _availableBytes.
-     */
-    private void waitForBandwidth() {
-        while(true) {
-            long now = System.currentTimeMillis();
-            updateWindow(now);
-            if(availableBytes != 0) {
-                break;
+        final int granted = Math.min(desired, limit);
+        final long wait = this.reserve(granted, System.nanoTime());
+        if(wait > 0) {
+            if(log.isTraceEnabled()) {
+                log.trace(String.format("Throttling bandwidth for %d milliseconds", TimeUnit.NANOSECONDS.toMillis(wait)));
             }
             try {
-                if(log.isInfoEnabled()) {
-                    log.info(String.format("Throttling bandwidth for %d milliseconds", nextTickTime - now));
-                }
-                Thread.sleep(nextTickTime - now);
+                TimeUnit.NANOSECONDS.sleep(wait);
             }
             catch(InterruptedException e) {
-                log.error(e.getMessage(), e);
+                log.warn(String.format("Interrupted while throttling bandwidth. %s", e.getMessage()));
+                Thread.currentThread().interrupt();
             }
         }
+        return granted;
     }
 
     /**
-     * Updates _availableBytes and _nextTickTime if possible.
+     * @return Maximum number of bytes allowed for a single request by this and all parent throttles
      */
-    private void updateWindow(long now) {
-        if(now >= nextTickTime) {
-            if(!switching || ((now / 1000) % 2) == 0) {
-                availableBytes = bytesPerTick;
-                nextTickTime = now + MILLIS_PER_TICK;
-            }
-            else {
-                availableBytes = 0;
-                // the next tick time is the time we'll hit
-                // the next second.
-                long diff = 1000 - (now % 1000);
-                nextTickTime = now + diff;
+    private int limit() {
+        int limit = UNLIMITED == rate ? Integer.MAX_VALUE : bytesPerTick;
+        if(null != parent) {
+            limit = Math.min(limit, parent.limit());
+        }
+        return limit;
+    }
+
+    /**
+     * Reserve bandwidth in this and all parent throttles
+     *
+     * @param bytes Number of bytes to send
+     * @param now   Current time in nanoseconds
+     * @return Nanoseconds to wait until bytes can be sent
+     */
+    private long reserve(final int bytes, final long now) {
+        long wait = 0L;
+        if(UNLIMITED != rate) {
+            final double cost = this.cost;
+            // Bandwidth accumulated while idle
+            final long burst = (long) (bytesPerTick * cost);
+            while(true) {
+                final long current = next.get();
+                final long update = Math.max(current, now - burst) + (long) (bytes * cost);
+                if(next.compareAndSet(current, update)) {
+                    wait = update - burst - now;
+                    break;
+                }
             }
         }
+        if(null != parent) {
+            wait = Math.max(wait, parent.reserve(bytes, now));
+        }
+        return wait;
     }
 
     @Override
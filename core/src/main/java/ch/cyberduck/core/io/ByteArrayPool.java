@@ -0,0 +1,175 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.apache.log4j.Logger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Shared pool of byte arrays for transfer buffers. Arrays are grouped in size classes of powers of two up to 1MB and
+ * multiples of 1MB above. Released arrays are retained up to a total number of bytes and discarded otherwise.
+ */
+public final class ByteArrayPool {
+    private static final Logger log = Logger.getLogger(ByteArrayPool.class);
+
+    private static final ByteArrayPool global
+        = new ByteArrayPool(PreferencesFactory.get().getLong("connection.buffer.pool.limit"));
+
+    public static ByteArrayPool get() {
+        return global;
+    }
+
+    private static final int MINIMUM = 4 * 1024;
+    private static final int MEGABYTE = 1024 * 1024;
+
+    private final ConcurrentMap<Integer, Queue<byte[]>> classes
+        = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum number of bytes retained in pool
+     */
+    private final long limit;
+
+    private final AtomicLong pooled = new AtomicLong();
+    private final AtomicLong outstanding = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ByteArrayPool(final long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @param size Minimum length of array
+     * @return Array with a length of at least the requested size. Content is undefined.
+     */
+    public byte[] acquire(final int size) {
+        final int length = sizeclass(size);
+        final Queue<byte[]> queue = classes.get(length);
+        final byte[] array = null == queue ? null : queue.poll();
+        outstanding.addAndGet(length);
+        if(null == array) {
+            misses.incrementAndGet();
+            return new byte[length];
+        }
+        hits.incrementAndGet();
+        pooled.addAndGet(-length);
+        return array;
+    }
+
+    /**
+     * Return array previously obtained with {@link #acquire(int)}. The caller must not access the array afterwards.
+     */
+    public void release(final byte[] array) {
+        if(null == array) {
+            return;
+        }
+        final int length = array.length;
+        if(sizeclass(length) != length) {
+            log.warn(String.format("Ignore array with length %d not obtained from pool", length));
+            return;
+        }
+        outstanding.addAndGet(-length);
+        if(pooled.addAndGet(length) > limit) {
+            pooled.addAndGet(-length);
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Discard array with length %d exceeding pool limit %d", length, limit));
+            }
+            return;
+        }
+        classes.computeIfAbsent(length, new Function<Integer, Queue<byte[]>>() {
+            @Override
+            public Queue<byte[]> apply(final Integer length) {
+                return new ConcurrentLinkedQueue<>();
+            }
+        }).offer(array);
+    }
+
+    /**
+     * @return Length of arrays in size class for requested size
+     */
+    protected static int sizeclass(final int size) {
+        if(size <= MINIMUM) {
+            return MINIMUM;
+        }
+        if(size <= MEGABYTE) {
+            return Integer.highestOneBit(size - 1) << 1;
+        }
+        if(size > Integer.MAX_VALUE - MEGABYTE) {
+            return size;
+        }
+        return (size + MEGABYTE - 1) / MEGABYTE * MEGABYTE;
+    }
+
+    /**
+     * @return Number of requests served from pool
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of requests requiring a new allocation
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Ratio of requests served from pool
+     */
+    public double getHitRate() {
+        final long total = hits.get() + misses.get();
+        if(0L == total) {
+            return 0d;
+        }
+        return (double) hits.get() / total;
+    }
+
+    /**
+     * @return Number of bytes in arrays acquired but not yet released
+     */
+    public long getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * @return Number of bytes retained for reuse
+     */
+    public long getPooled() {
+        return pooled.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ByteArrayPool{");
+        sb.append("hits=").append(hits);
+        sb.append(", misses=").append(misses);
+        sb.append(", outstanding=").append(outstanding);
+        sb.append(", pooled=").append(pooled);
+        sb.append(", limit=").append(limit);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,305 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LocalFactory;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.preferences.SupportDirectoryFinderFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checksums computed for local files kept across transfers. An entry is only used while the size, modification date
+ * and file key of the file are unchanged. New entries are appended to the index file which is compacted when it
+ * contains more superseded than current entries.
+ * <p>
+ * As in the racy clean check of git, an entry is not trusted when the file was modified close to the time the
+ * checksum was computed. A change within the resolution of the file system timestamp would not be detected.
+ */
+public class ChecksumIndex {
+    private static final Logger log = Logger.getLogger(ChecksumIndex.class);
+
+    /**
+     * Milliseconds the modification date must be before the time the checksum was computed. Covers file systems
+     * with a timestamp resolution of 2 seconds.
+     */
+    private static final long RACY_THRESHOLD = 2000L;
+
+    /**
+     * Version of index file format. Files with another version are discarded.
+     */
+    private static final String VERSION = "2";
+
+    private static final class Global {
+        private static final ChecksumIndex instance = PreferencesFactory.get().getBoolean("local.checksum.index.enable") ?
+            new ChecksumIndex(LocalFactory.get(SupportDirectoryFinderFactory.get().find(), "Checksums")) : new DisabledChecksumIndex();
+    }
+
+    /**
+     * @return Index shared by all transfers
+     */
+    public static ChecksumIndex get() {
+        return Global.instance;
+    }
+
+    /**
+     * Index file or null to keep entries in memory only
+     */
+    private final AppendLog file;
+
+    private final Map<HashAlgorithm, Map<String, Entry>> entries
+        = new EnumMap<HashAlgorithm, Map<String, Entry>>(HashAlgorithm.class);
+
+    private volatile boolean loaded;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Keep entries in memory only
+     */
+    public ChecksumIndex() {
+        this(null);
+    }
+
+    /**
+     * @param file Index file
+     */
+    public ChecksumIndex(final Local file) {
+        this.file = null == file ? null : new AppendLog(file, "V", VERSION);
+        for(HashAlgorithm algorithm : HashAlgorithm.values()) {
+            entries.put(algorithm, new ConcurrentHashMap<String, Entry>());
+        }
+    }
+
+    /**
+     * @param local     Local file
+     * @param algorithm Hash algorithm
+     * @return Checksum from index or computed from file contents if missing or file has changed
+     */
+    public Checksum compute(final Local local, final HashAlgorithm algorithm) throws BackgroundException {
+        this.load();
+        final long timestamp = System.currentTimeMillis();
+        // Attributes must be read before computing the checksum to detect changes while reading
+        final Entry current = this.stat(local);
+        if(null == current) {
+            return this.digest(local, algorithm);
+        }
+        final Map<String, Entry> index = entries.get(algorithm);
+        final Entry cached = index.get(local.getAbsolute());
+        if(null != cached) {
+            if(cached.matches(current)) {
+                if(cached.isRacy()) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Skip %s checksum for file %s modified while indexed", algorithm, local));
+                    }
+                }
+                else {
+                    hits.incrementAndGet();
+                    return new Checksum(algorithm, cached.hash);
+                }
+            }
+            else {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Invalidate %s checksum for changed file %s", algorithm, local));
+                }
+            }
+        }
+        misses.incrementAndGet();
+        final Checksum checksum = this.digest(local, algorithm);
+        if(null == checksum.hash) {
+            return checksum;
+        }
+        final Entry entry = new Entry(current.size, current.modified, current.key, timestamp, checksum.hash);
+        index.put(local.getAbsolute(), entry);
+        this.append(algorithm, local.getAbsolute(), entry);
+        return checksum;
+    }
+
+    protected Checksum digest(final Local local, final HashAlgorithm algorithm) throws BackgroundException {
+        return ChecksumComputeFactory.get(algorithm).compute(local.getInputStream(), new TransferStatus());
+    }
+
+    private Entry stat(final Local local) {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(Paths.get(local.getAbsolute()), BasicFileAttributes.class);
+            return new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                null == attributes.fileKey() ? null : attributes.fileKey().toString(), -1L, null);
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading attributes of %s. %s", local, e.getMessage()));
+            return null;
+        }
+    }
+
+    private void load() {
+        if(loaded) {
+            return;
+        }
+        synchronized(this) {
+            if(loaded) {
+                return;
+            }
+            if(null != file && file.read(new AppendLog.Reader() {
+                @Override
+                public void read(final String[] fields) {
+                    parse(fields);
+                }
+            })) {
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Loaded %d checksums from %s", this.size(), file));
+                }
+            }
+            loaded = true;
+            if(null != file && file.isCompactionRequired(this.size())) {
+                this.compact();
+            }
+        }
+    }
+
+    private void parse(final String[] fields) {
+        // Algorithm, size, modification date, file key, time indexed, checksum and path
+        if(fields.length != 7) {
+            log.warn(String.format("Skip invalid record %s", Arrays.toString(fields)));
+            return;
+        }
+        try {
+            final HashAlgorithm algorithm = HashAlgorithm.valueOf(fields[0]);
+            final Entry entry = new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                StringUtils.isEmpty(fields[3]) ? null : fields[3], Long.parseLong(fields[4]), fields[5]);
+            entries.get(algorithm).put(fields[6], entry);
+        }
+        catch(IllegalArgumentException e) {
+            log.warn(String.format("Skip invalid record %s", Arrays.toString(fields)));
+        }
+    }
+
+    private void append(final HashAlgorithm algorithm, final String path, final Entry entry) {
+        if(null == file) {
+            return;
+        }
+        if(file.append(this.toRecord(algorithm, path, entry))) {
+            if(file.isCompactionRequired(this.size())) {
+                this.compact();
+            }
+        }
+    }
+
+    private String[] toRecord(final HashAlgorithm algorithm, final String path, final Entry entry) {
+        return new String[]{algorithm.name(), String.valueOf(entry.size), String.valueOf(entry.modified),
+            entry.key, String.valueOf(entry.indexed), entry.hash, path};
+    }
+
+    /**
+     * Rewrite index file with current entries only and remove entries for files no longer found
+     */
+    public synchronized void compact() {
+        if(null == file) {
+            return;
+        }
+        final List<String[]> records = new ArrayList<String[]>();
+        for(Map.Entry<HashAlgorithm, Map<String, Entry>> index : entries.entrySet()) {
+            for(Iterator<Map.Entry<String, Entry>> iter = index.getValue().entrySet().iterator(); iter.hasNext(); ) {
+                final Map.Entry<String, Entry> entry = iter.next();
+                if(!Files.exists(Paths.get(entry.getKey()))) {
+                    iter.remove();
+                    continue;
+                }
+                records.add(this.toRecord(index.getKey(), entry.getKey(), entry.getValue()));
+            }
+        }
+        file.replace(records);
+    }
+
+    /**
+     * @return Number of checksums in index
+     */
+    public int size() {
+        int size = 0;
+        for(Map<String, Entry> index : entries.values()) {
+            size += index.size();
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        /**
+         * Inode and device or null if not available
+         */
+        private final String key;
+        /**
+         * Time before file was read to compute checksum
+         */
+        private final long indexed;
+        private final String hash;
+
+        private Entry(final long size, final long modified, final String key, final long indexed, final String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.key = key;
+            this.indexed = indexed;
+            this.hash = hash;
+        }
+
+        private boolean matches(final Entry other) {
+            return size == other.size && modified == other.modified && StringUtils.equals(key, other.key);
+        }
+
+        /**
+         * @return True if file may have been modified after reading with the same modification date
+         */
+        private boolean isRacy() {
+            return modified > indexed - RACY_THRESHOLD;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ChecksumIndex{");
+        sb.append("file=").append(file);
+        sb.append(", hits=").append(hits);
+        sb.append(", misses=").append(misses);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.LocaleFactory;
+import ch.cyberduck.core.exception.ChecksumException;
+
+import org.apache.commons.codec.binary.Hex;
+
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Calculate checksum of all bytes read from the proxied stream in the same pass the data is consumed. Skipped bytes
+ * are not included.
+ */
+public class ChecksumInputStream extends DigestInputStream {
+
+    private final HashAlgorithm algorithm;
+
+    private Checksum checksum;
+
+    public ChecksumInputStream(final InputStream proxy, final HashAlgorithm algorithm) throws ChecksumException {
+        super(proxy, digest(algorithm));
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * @return Checksum of data read. Only valid after the stream has been read to the end.
+     */
+    public Checksum getChecksum() {
+        if(null == checksum) {
+            checksum = new Checksum(algorithm, Hex.encodeHexString(this.getMessageDigest().digest()));
+        }
+        return checksum;
+    }
+
+    private static MessageDigest digest(final HashAlgorithm algorithm) throws ChecksumException {
+        final String name;
+        switch(algorithm) {
+            case md5:
+                name = "MD5";
+                break;
+            case sha1:
+                name = "SHA-1";
+                break;
+            case sha256:
+                name = "SHA-256";
+                break;
+            case sha512:
+                name = "SHA-512";
+                break;
+            default:
+                throw new ChecksumException(LocaleFactory.localizedString("Checksum failure", "Error"),
+                    String.format("Unsupported algorithm %s", algorithm));
+        }
+        try {
+            return MessageDigest.getInstance(name);
+        }
+        catch(NoSuchAlgorithmException e) {
+            throw new ChecksumException(LocaleFactory.localizedString("Checksum failure", "Error"), e.getMessage(), e);
+        }
+    }
+}
@@ -21,128 +21,240 @@ import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.local.LocalTouchFactory;
 import ch.cyberduck.core.local.TemporaryFileServiceFactory;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.input.NullInputStream;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Buffer kept in memory up to a threshold and written to a temporary file when exceeded. Reads and writes to the
+ * temporary file use positional access and do not block each other. Concurrent writes must not overlap.
+ */
 public class FileBuffer implements Buffer {
     private static final Logger log = Logger.getLogger(FileBuffer.class);
 
     private final Local temporary;
 
-    private RandomAccessFile file;
-    private Long length = 0L;
+    /**
+     * Maximum number of bytes kept in memory
+     */
+    private final int threshold;
+
+    /**
+     * Exclusive when writing to memory or switching to temporary file
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private byte[] memory = new byte[0];
+    /**
+     * Number of bytes written to memory
+     */
+    private int size;
+    /**
+     * Temporary file once threshold is exceeded
+     */
+    private FileChannel channel;
+
+    private final AtomicLong length = new AtomicLong();
 
     public FileBuffer() {
         this(TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random()));
     }
 
     public FileBuffer(final Local temporary) {
-        this.temporary = temporary;
+        this(temporary, PreferencesFactory.get().getInteger("connection.buffer.memory.threshold"));
     }
 
-    @Override
-    public synchronized int write(final byte[] chunk, final Long offset) throws IOException {
-        final RandomAccessFile file = random();
-        file.seek(offset);
-        file.write(chunk, 0, chunk.length);
-        length = Math.max(length, file.length());
-        return chunk.length;
+    /**
+     * @param temporary Temporary file
+     * @param threshold Maximum number of bytes to keep in memory
+     */
+    public FileBuffer(final Local temporary, final int threshold) {
+        this.temporary = temporary;
+        this.threshold = threshold;
     }
 
     @Override
-    public synchronized int read(final byte[] chunk, final Long offset) throws IOException {
-        final RandomAccessFile file = random();
-        if(offset < file.length()) {
-            file.seek(offset);
-            if(chunk.length + offset > file.length()) {
-                return file.read(chunk, 0, (int) (file.length() - offset));
+    public int write(final byte[] chunk, final Long offset) throws IOException {
+        final long end = offset + chunk.length;
+        lock.readLock().lock();
+        try {
+            if(null != channel) {
+                this.write(channel, chunk, offset);
+                this.extend(end);
+                return chunk.length;
             }
-            else {
-                return file.read(chunk, 0, chunk.length);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if(null == channel) {
+                if(end <= threshold) {
+                    if(end > memory.length) {
+                        memory = Arrays.copyOf(memory, (int) Math.max(end, Math.min(threshold, memory.length * 2L)));
+                    }
+                    System.arraycopy(chunk, 0, memory, offset.intValue(), chunk.length);
+                    size = (int) Math.max(size, end);
+                    this.extend(end);
+                    return chunk.length;
+                }
+                channel = this.open();
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Write %d bytes in memory to %s", size, temporary));
+                }
+                this.write(channel, Arrays.copyOf(memory, size), 0L);
+                memory = new byte[0];
+                size = 0;
             }
+            this.write(channel, chunk, offset);
+            this.extend(end);
+            return chunk.length;
+        }
+        finally {
+            lock.writeLock().unlock();
         }
-        else {
-            final NullInputStream nullStream = new NullInputStream(length);
-            if(nullStream.available() > 0) {
-                nullStream.skip(offset);
-                return nullStream.read(chunk, 0, chunk.length);
+    }
+
+    @Override
+    public int read(final byte[] chunk, final Long offset) throws IOException {
+        lock.readLock().lock();
+        try {
+            final long written = null == channel ? size : channel.size();
+            if(offset < written) {
+                final int count = (int) Math.min(chunk.length, written - offset);
+                if(null == channel) {
+                    System.arraycopy(memory, offset.intValue(), chunk, 0, count);
+                    return count;
+                }
+                final ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, count);
+                while(buffer.hasRemaining()) {
+                    if(IOUtils.EOF == channel.read(buffer, offset + buffer.position())) {
+                        break;
+                    }
+                }
+                return buffer.position();
             }
-            else {
-                return IOUtils.EOF;
+            final long length = this.length.get();
+            if(offset < length) {
+                // Not written
+                final int count = (int) Math.min(chunk.length, length - offset);
+                Arrays.fill(chunk, 0, count, (byte) 0);
+                return count;
             }
+            return IOUtils.EOF;
+        }
+        finally {
+            lock.readLock().unlock();
         }
     }
 
     @Override
-    public synchronized Long length() {
-        return length;
+    public Long length() {
+        return length.get();
     }
 
     @Override
     public void truncate(final Long length) {
-        this.length = length;
-        if(temporary.exists()) {
-            try {
-                final RandomAccessFile file = random();
-                if(length < file.length()) {
-                    // Truncate current
-                    file.setLength(length);
+        lock.writeLock().lock();
+        try {
+            this.length.set(length);
+            if(null == channel) {
+                if(length < size) {
+                    Arrays.fill(memory, length.intValue(), size, (byte) 0);
+                    size = length.intValue();
                 }
             }
-            catch(IOException e) {
-                log.warn(String.format("Failure truncating file %s to %d", temporary, length));
+            else {
+                try {
+                    if(length < channel.size()) {
+                        // Truncate current
+                        channel.truncate(length);
+                    }
+                }
+                catch(IOException e) {
+                    log.warn(String.format("Failure truncating file %s to %d", temporary, length));
+                }
             }
         }
+        finally {
+            lock.writeLock().unlock();
+        }
     }
 
     @Override
-    public synchronized void close() {
-        this.length = 0L;
-        if(temporary.exists()) {
-            try {
-                final RandomAccessFile file = random();
-                file.close();
-            }
-            catch(IOException e) {
-                log.error(String.format("Failure closing buffer %s", this));
-            }
-            finally {
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            this.length.set(0L);
+            memory = new byte[0];
+            size = 0;
+            if(null != channel) {
                 try {
-                    temporary.delete();
-                    file = null;
+                    channel.close();
+                }
+                catch(IOException e) {
+                    log.error(String.format("Failure closing buffer %s", this));
                 }
-                catch(AccessDeniedException | NotfoundException e) {
-                    log.warn(String.format("Failure removing temporary file %s for buffer %s. Schedule for delete on exit.", temporary, this));
-                    Paths.get(temporary.getAbsolute()).toFile().deleteOnExit();
+                finally {
+                    channel = null;
+                    try {
+                        temporary.delete();
+                    }
+                    catch(AccessDeniedException | NotfoundException e) {
+                        log.warn(String.format("Failure removing temporary file %s for buffer %s. Schedule for delete on exit.", temporary, this));
+                        Paths.get(temporary.getAbsolute()).toFile().deleteOnExit();
+                    }
                 }
             }
         }
+        finally {
+            lock.writeLock().unlock();
+        }
     }
 
-    protected synchronized RandomAccessFile random() throws IOException {
-        if(null == file) {
-            try {
-                LocalTouchFactory.get().touch(temporary);
-            }
-            catch(AccessDeniedException e) {
-                throw new IOException(e);
+    private void write(final FileChannel channel, final byte[] chunk, final long offset) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        while(buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    private void extend(final long end) {
+        long current;
+        while(end > (current = length.get())) {
+            if(length.compareAndSet(current, end)) {
+                break;
             }
-            this.file = new RandomAccessFile(temporary.getAbsolute(), "rw");
-            this.file.seek(0L);
         }
-        return file;
+    }
+
+    private FileChannel open() throws IOException {
+        try {
+            LocalTouchFactory.get().touch(temporary);
+        }
+        catch(AccessDeniedException e) {
+            throw new IOException(e);
+        }
+        return FileChannel.open(Paths.get(temporary.getAbsolute()), StandardOpenOption.READ, StandardOpenOption.WRITE);
     }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("FileBuffer{");
         sb.append("temporary=").append(temporary);
+        sb.append(", length=").append(length);
         sb.append('}');
         return sb.toString();
     }
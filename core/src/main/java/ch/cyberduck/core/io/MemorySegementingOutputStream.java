@@ -17,26 +17,24 @@ package ch.cyberduck.core.io;
 
 import org.apache.log4j.Logger;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MemorySegementingOutputStream extends SegmentingOutputStream {
     private static final Logger log = Logger.getLogger(MemorySegementingOutputStream.class);
 
     private final OutputStream proxy;
-    private final ByteArrayOutputStream buffer;
+    private final PooledByteArrayOutputStream buffer;
     private final Integer threshold;
 
     private final AtomicBoolean close = new AtomicBoolean();
 
     public MemorySegementingOutputStream(final OutputStream proxy, final Integer threshold) {
-        this(proxy, threshold, new ByteArrayOutputStream(threshold));
+        this(proxy, threshold, new PooledByteArrayOutputStream(threshold));
     }
 
-    public MemorySegementingOutputStream(final OutputStream proxy, final Integer threshold, final ByteArrayOutputStream buffer) {
+    public MemorySegementingOutputStream(final OutputStream proxy, final Integer threshold, final PooledByteArrayOutputStream buffer) {
         super(proxy, (long) threshold, buffer);
         this.proxy = proxy;
         this.buffer = buffer;
@@ -45,20 +43,20 @@ public class MemorySegementingOutputStream extends SegmentingOutputStream {
 
     @Override
     public void flush() throws IOException {
-        // Copy from memory file to output
-        final byte[] content = buffer.toByteArray();
+        // Write from memory buffer to output without copy
+        final byte[] content = buffer.getBuffer();
+        final int size = buffer.size();
         // Re-use buffer
         buffer.reset();
-        for(int offset = 0; offset < content.length; offset += threshold) {
-            int len = Math.min(threshold, content.length - offset);
-            final byte[] bytes = Arrays.copyOfRange(content, offset, offset + len);
+        for(int offset = 0; offset < size; offset += threshold) {
+            int len = Math.min(threshold, size - offset);
             if(len < threshold) {
-                // Write to start of buffer
-                this.write(bytes);
+                // Move to start of buffer
+                this.write(content, offset, len);
             }
             else {
                 // Write out
-                proxy.write(bytes);
+                proxy.write(content, offset, len);
             }
         }
     }
@@ -71,13 +69,15 @@ public class MemorySegementingOutputStream extends SegmentingOutputStream {
         }
         try {
             if(buffer.size() > 0) {
-                proxy.write(buffer.toByteArray());
+                proxy.write(buffer.getBuffer(), 0, buffer.size());
             }
             // Re-use buffer
             buffer.reset();
             super.close();
         }
         finally {
+            // Return buffer to pool
+            buffer.close();
             close.set(true);
         }
     }
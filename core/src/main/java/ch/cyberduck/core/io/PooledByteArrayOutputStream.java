@@ -0,0 +1,60 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Memory buffer with initial capacity obtained from pool and returned on close
+ */
+public class PooledByteArrayOutputStream extends ByteArrayOutputStream {
+
+    private final ByteArrayPool pool;
+
+    /**
+     * Array obtained from pool. Not referenced by the stream anymore once grown.
+     */
+    private byte[] acquired;
+
+    public PooledByteArrayOutputStream(final int size) {
+        this(ByteArrayPool.get(), size);
+    }
+
+    public PooledByteArrayOutputStream(final ByteArrayPool pool, final int size) {
+        super(0);
+        this.pool = pool;
+        this.acquired = pool.acquire(size);
+        this.buf = acquired;
+    }
+
+    /**
+     * @return Backing array with valid content up to {@link #size()}. Not a copy.
+     */
+    public synchronized byte[] getBuffer() {
+        return buf;
+    }
+
+    @Override
+    public synchronized void close() {
+        if(null == acquired) {
+            return;
+        }
+        buf = new byte[0];
+        count = 0;
+        pool.release(acquired);
+        acquired = null;
+    }
+}
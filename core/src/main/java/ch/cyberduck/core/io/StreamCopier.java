@@ -28,6 +28,7 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 public final class StreamCopier {
     private static final Logger log = Logger.getLogger(StreamCopier.class);
@@ -45,10 +46,16 @@ public final class StreamCopier {
     private Integer chunksize
             = PreferencesFactory.get().getInteger("connection.chunksize");
 
+    private ByteArrayPool pool
+            = ByteArrayPool.get();
+
     private Long offset = 0L;
 
     private Long limit = -1L;
 
+    private BandwidthThrottle throttle
+            = new BandwidthThrottle(BandwidthThrottle.UNLIMITED);
+
     public StreamCopier(final StreamCancelation cancel, final StreamProgress progress) {
         this.cancel = cancel;
         this.progress = progress;
@@ -59,6 +66,11 @@ public final class StreamCopier {
         return this;
     }
 
+    public StreamCopier withPool(final ByteArrayPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
     public StreamCopier withListener(final StreamListener listener) {
         this.listener = new BytecountStreamListener(listener);
         return this;
@@ -71,6 +83,14 @@ public final class StreamCopier {
         return this;
     }
 
+    /**
+     * @param throttle Limit bandwidth for every chunk read
+     */
+    public StreamCopier withThrottle(final BandwidthThrottle throttle) {
+        this.throttle = throttle;
+        return this;
+    }
+
     public StreamCopier withOffset(final Long offset) {
         if(offset > 0) {
             this.offset = offset;
@@ -85,43 +105,50 @@ public final class StreamCopier {
      * @param out The stream to write to
      */
     public void transfer(final InputStream in, final OutputStream out) throws BackgroundException {
+        byte[] buffer = null;
         try {
             try {
-                if(offset > 0) {
-                    skip(in, offset);
-                }
-                final byte[] buffer = new byte[chunksize];
-                long total = 0;
-                int len = chunksize;
-                if(limit > 0 && limit < chunksize) {
-                    // Cast will work because chunk size is int
-                    len = limit.intValue();
+                if(in instanceof FileChannelStream && out instanceof FileChannelStream) {
+                    // Copy between files without buffer in heap
+                    this.transfer(((FileChannelStream) in).getChannel(), ((FileChannelStream) out).getChannel());
                 }
-                while(len > 0 && !cancel.isCanceled()) {
-                    final int read = in.read(buffer, 0, len);
-                    if(-1 == read) {
-                        if(log.isDebugEnabled()) {
-                            log.debug(String.format("End of file reached with %d bytes read from stream", total));
-                        }
-                        progress.setComplete();
-                        break;
-                    }
-                    else {
-                        listener.recv(read);
-                        out.write(buffer, 0, read);
-                        progress.progress(read);
-                        listener.sent(read);
-                        total += read;
+                else {
+                    if(offset > 0) {
+                        skip(in, offset);
                     }
-                    if(limit > 0) {
-                        // Only adjust if not reading to the end of the stream. Cast will work because chunk size is int
-                        len = (int) Math.min(limit - total, chunksize);
+                    buffer = pool.acquire(chunksize);
+                    long total = 0;
+                    int len = chunksize;
+                    if(limit > 0 && limit < chunksize) {
+                        // Cast will work because chunk size is int
+                        len = limit.intValue();
                     }
-                    if(limit == total) {
-                        if(log.isDebugEnabled()) {
-                            log.debug(String.format("Limit %d reached reading from stream", limit));
+                    while(len > 0 && !cancel.isCanceled()) {
+                        final int read = in.read(buffer, 0, throttle.request(len));
+                        if(-1 == read) {
+                            if(log.isDebugEnabled()) {
+                                log.debug(String.format("End of file reached with %d bytes read from stream", total));
+                            }
+                            progress.setComplete();
+                            break;
+                        }
+                        else {
+                            listener.recv(read);
+                            out.write(buffer, 0, read);
+                            progress.progress(read);
+                            listener.sent(read);
+                            total += read;
+                        }
+                        if(limit > 0) {
+                            // Only adjust if not reading to the end of the stream. Cast will work because chunk size is int
+                            len = (int) Math.min(limit - total, chunksize);
+                        }
+                        if(limit == total) {
+                            if(log.isDebugEnabled()) {
+                                log.debug(String.format("Limit %d reached reading from stream", limit));
+                            }
+                            progress.setComplete();
                         }
-                        progress.setComplete();
                     }
                 }
                 final StreamCloser c = new DefaultStreamCloser();
@@ -133,6 +160,7 @@ public final class StreamCopier {
             finally {
                 final StreamCloser c = new DefaultStreamCloser();
                 c.close(in);
+                pool.release(buffer);
             }
         }
         catch(BackgroundException e) {
@@ -149,6 +177,44 @@ public final class StreamCopier {
         }
     }
 
+    /**
+     * Transfer chunks from current position of input to current position of output leaving the copy to the
+     * operating system where supported
+     */
+    private void transfer(final FileChannel in, final FileChannel out) throws IOException {
+        long position = in.position() + offset;
+        long total = 0;
+        long len = chunksize;
+        if(limit > 0 && limit < chunksize) {
+            len = limit;
+        }
+        while(len > 0 && !cancel.isCanceled()) {
+            final long transferred = in.transferTo(position, throttle.request((int) len), out);
+            if(transferred <= 0) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("End of file reached with %d bytes transferred from channel", total));
+                }
+                progress.setComplete();
+                break;
+            }
+            listener.recv(transferred);
+            position += transferred;
+            progress.progress(transferred);
+            listener.sent(transferred);
+            total += transferred;
+            if(limit > 0) {
+                len = Math.min(limit - total, chunksize);
+            }
+            if(limit == total) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Limit %d reached reading from channel", limit));
+                }
+                progress.setComplete();
+            }
+        }
+        in.position(position);
+    }
+
     public static InputStream skip(final InputStream in, final long offset) throws BackgroundException {
         try {
             long skipped = in.skip(offset);
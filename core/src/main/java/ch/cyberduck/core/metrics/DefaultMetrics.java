@@ -0,0 +1,110 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class DefaultMetrics implements Metrics {
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private static final Function<String, LongAdder> counter = new Function<String, LongAdder>() {
+        @Override
+        public LongAdder apply(final String key) {
+            return new LongAdder();
+        }
+    };
+
+    private static final Function<String, AtomicLong> gauge = new Function<String, AtomicLong>() {
+        @Override
+        public AtomicLong apply(final String key) {
+            return new AtomicLong();
+        }
+    };
+
+    private static final Function<String, Histogram> histogram = new Function<String, Histogram>() {
+        @Override
+        public Histogram apply(final String key) {
+            return new Histogram();
+        }
+    };
+
+    @Override
+    public <T> void increment(final T key) {
+        this.increment(key, 1L);
+    }
+
+    @Override
+    public <T> void increment(final T key, final long delta) {
+        counters.computeIfAbsent(name(key), counter).add(delta);
+    }
+
+    @Override
+    public <T> long get(final T key) {
+        final LongAdder value = counters.get(name(key));
+        return null == value ? 0L : value.sum();
+    }
+
+    @Override
+    public <T> void gauge(final T key, final long value) {
+        gauges.computeIfAbsent(name(key), gauge).set(value);
+    }
+
+    @Override
+    public <T> void record(final T key, final long value) {
+        histograms.computeIfAbsent(name(key), histogram).record(value);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        final Map<String, Long> values = new TreeMap<>();
+        for(Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().sum());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        final Map<String, Long> values = new TreeMap<>();
+        for(Map.Entry<String, AtomicLong> entry : gauges.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().get());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Histogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    private static String name(final Object key) {
+        if(key instanceof Class) {
+            return String.format("feature.%s", ((Class<?>) key).getSimpleName());
+        }
+        return String.valueOf(key);
+    }
+}
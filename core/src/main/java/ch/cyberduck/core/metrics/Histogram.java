@@ -0,0 +1,132 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non negative values with buckets of exponentially increasing width. Every power of two is divided
+ * into 16 linear sub buckets limiting the relative error of percentiles to about 6% with a fixed size of
+ * 976 buckets covering all positive long values. Recording is lock free.
+ */
+public final class Histogram {
+
+    /**
+     * Number of linear sub buckets per power of two
+     */
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param value Negative values are recorded as zero
+     */
+    public void record(final long value) {
+        final long v = Math.max(0L, value);
+        counts.incrementAndGet(index(v));
+        count.increment();
+        sum.add(v);
+        long current;
+        while(v < (current = min.get())) {
+            if(min.compareAndSet(current, v)) {
+                break;
+            }
+        }
+        while(v > (current = max.get())) {
+            if(max.compareAndSet(current, v)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return Smallest value recorded or zero if empty
+     */
+    public long getMin() {
+        final long value = min.get();
+        return value == Long.MAX_VALUE ? 0L : value;
+    }
+
+    /**
+     * @return Largest value recorded or zero if empty
+     */
+    public long getMax() {
+        final long value = max.get();
+        return value == Long.MIN_VALUE ? 0L : value;
+    }
+
+    public double getMean() {
+        final long n = this.getCount();
+        return n == 0 ? 0d : (double) this.getSum() / n;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100
+     * @return Highest value equivalent to the bucket containing the percentile
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long total = this.getCount();
+        if(total == 0) {
+            return 0L;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(Math.min(100d, percentile) / 100d * total));
+        long cumulative = 0L;
+        for(int i = 0; i < BUCKETS; i++) {
+            cumulative += counts.get(i);
+            if(cumulative >= rank) {
+                return Math.max(this.getMin(), Math.min(this.getMax(), highest(i)));
+            }
+        }
+        return this.getMax();
+    }
+
+    static int index(final long value) {
+        if(value < SUB_BUCKETS * 2) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @return Largest value mapped to bucket
+     */
+    static long highest(final int index) {
+        if(index < SUB_BUCKETS * 2) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long top = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,72 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Counters, gauges and histograms as JSON objects keyed by name. Histograms include count, sum, min, max, mean and
+ * percentiles.
+ */
+public class JsonMetricsExporter implements MetricsExporter {
+
+    @Override
+    public void export(final Metrics metrics, final OutputStream out) throws IOException {
+        final JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.setIndent("  ");
+        writer.beginObject();
+        writer.name("counters");
+        this.values(writer, metrics.getCounters());
+        writer.name("gauges");
+        this.values(writer, metrics.getGauges());
+        writer.name("histograms");
+        writer.beginObject();
+        for(Map.Entry<String, Histogram> entry : metrics.getHistograms().entrySet()) {
+            final Histogram histogram = entry.getValue();
+            writer.name(entry.getKey());
+            writer.beginObject();
+            writer.name("count").value(histogram.getCount());
+            writer.name("sum").value(histogram.getSum());
+            writer.name("min").value(histogram.getMin());
+            writer.name("max").value(histogram.getMax());
+            writer.name("mean").value(histogram.getMean());
+            writer.name("p50").value(histogram.getValueAtPercentile(50d));
+            writer.name("p90").value(histogram.getValueAtPercentile(90d));
+            writer.name("p99").value(histogram.getValueAtPercentile(99d));
+            writer.name("p999").value(histogram.getValueAtPercentile(99.9d));
+            writer.endObject();
+        }
+        writer.endObject();
+        writer.endObject();
+        writer.flush();
+    }
+
+    private void values(final JsonWriter writer, final Map<String, Long> values) throws IOException {
+        writer.beginObject();
+        for(Map.Entry<String, Long> entry : values.entrySet()) {
+            writer.name(entry.getKey()).value(entry.getValue());
+        }
+        writer.endObject();
+    }
+}
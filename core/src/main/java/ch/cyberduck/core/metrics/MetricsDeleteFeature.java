@@ -0,0 +1,67 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Metrics;
+import ch.cyberduck.core.PasswordCallback;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Delete;
+
+import java.util.List;
+
+public class MetricsDeleteFeature implements Delete {
+
+    private final Delete proxy;
+    private final Metrics metrics;
+
+    public MetricsDeleteFeature(final Delete proxy, final Metrics metrics) {
+        this.proxy = proxy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void delete(final List<Path> files, final PasswordCallback prompt, final Callback callback) throws BackgroundException {
+        final long start = System.nanoTime();
+        try {
+            proxy.delete(files, prompt, callback);
+            metrics.record("delete.latency", System.nanoTime() - start);
+            metrics.increment("delete.files", files.size());
+        }
+        catch(BackgroundException e) {
+            metrics.increment("delete.failure");
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isSupported(final Path file) {
+        return proxy.isSupported(file);
+    }
+
+    @Override
+    public boolean isRecursive() {
+        return proxy.isRecursive();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("MetricsDeleteFeature{");
+        sb.append("proxy=").append(proxy);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.DisabledMetrics;
+import ch.cyberduck.core.Metrics;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+public final class MetricsFactory {
+
+    private static final Metrics disabled = new DisabledMetrics();
+
+    private MetricsFactory() {
+        //
+    }
+
+    private static final class Global {
+        private static final Metrics instance = new DefaultMetrics();
+    }
+
+    /**
+     * @return Metrics shared by all sessions if enabled with <code>metrics.enable</code>
+     */
+    public static Metrics get() {
+        if(PreferencesFactory.get().getBoolean("metrics.enable")) {
+            return Global.instance;
+        }
+        return disabled;
+    }
+}
@@ -0,0 +1,69 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.Metrics;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.io.FileChannelStream;
+import ch.cyberduck.core.io.StatusOutputStream;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Pass file channel through for copy with the operating system. Bytes transferred are counted from the change of
+ * the channel position.
+ */
+public class MetricsFileChannelStatusOutputStream<Reply> extends MetricsStatusOutputStream<Reply> implements FileChannelStream {
+
+    private final FileChannel channel;
+    private final long position;
+
+    private long transferred;
+
+    /**
+     * @param proxy Stream implementing FileChannelStream
+     */
+    public MetricsFileChannelStatusOutputStream(final StatusOutputStream<Reply> proxy, final Metrics metrics, final String name, final long start) throws BackgroundException {
+        super(proxy, metrics, name, start);
+        this.channel = ((FileChannelStream) proxy).getChannel();
+        try {
+            this.position = channel.position();
+        }
+        catch(IOException e) {
+            throw new DefaultIOExceptionMappingService().map(e);
+        }
+    }
+
+    @Override
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    protected long getBytes() {
+        return Math.max(super.getBytes(), transferred);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(channel.isOpen()) {
+            transferred = channel.position() - position;
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,81 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Metrics;
+
+import org.apache.commons.io.input.ProxyInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Record bytes read and throughput in bytes per second when closed
+ */
+public class MetricsInputStream extends ProxyInputStream {
+
+    private final Metrics metrics;
+    private final String name;
+    private final long start;
+
+    private long bytes;
+    private boolean closed;
+
+    /**
+     * @param name  Prefix for metrics
+     * @param start Time in nanoseconds when request was sent
+     */
+    public MetricsInputStream(final InputStream proxy, final Metrics metrics, final String name, final long start) {
+        super(proxy);
+        this.metrics = metrics;
+        this.name = name;
+        this.start = start;
+    }
+
+    @Override
+    protected void afterRead(final int n) {
+        if(n > 0) {
+            bytes += n;
+        }
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long skipped = super.skip(n);
+        bytes += skipped;
+        return skipped;
+    }
+
+    /**
+     * @return Number of bytes transferred
+     */
+    protected long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        }
+        finally {
+            if(!closed) {
+                closed = true;
+                Streams.record(metrics, name, this.getBytes(), System.nanoTime() - start);
+            }
+        }
+    }
+}
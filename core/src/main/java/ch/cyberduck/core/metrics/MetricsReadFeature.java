@@ -0,0 +1,72 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.Metrics;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Read;
+import ch.cyberduck.core.io.FileChannelStream;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import java.io.InputStream;
+
+/**
+ * Record time until the stream is opened and duration of the complete transfer with throughput when the stream is
+ * closed
+ */
+public class MetricsReadFeature implements Read {
+
+    private final Read proxy;
+    private final Metrics metrics;
+
+    public MetricsReadFeature(final Read proxy, final Metrics metrics) {
+        this.proxy = proxy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public InputStream read(final Path file, final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        final long start = System.nanoTime();
+        try {
+            final InputStream in = proxy.read(file, status, callback);
+            metrics.record("read.open", System.nanoTime() - start);
+            if(in instanceof FileChannelStream) {
+                // Allow copy with file channel
+                return new MetricsFileChannelInputStream(in, metrics, "read", start);
+            }
+            return new MetricsInputStream(in, metrics, "read", start);
+        }
+        catch(BackgroundException e) {
+            metrics.increment("read.failure");
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean offset(final Path file) throws BackgroundException {
+        return proxy.offset(file);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("MetricsReadFeature{");
+        sb.append("proxy=").append(proxy);
+        sb.append('}');
+        return sb.toString();
+    }
+}
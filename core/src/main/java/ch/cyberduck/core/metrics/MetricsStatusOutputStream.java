@@ -0,0 +1,78 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Metrics;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.io.StatusOutputStream;
+
+import java.io.IOException;
+
+/**
+ * Record bytes written and throughput in bytes per second when closed
+ */
+public class MetricsStatusOutputStream<Reply> extends StatusOutputStream<Reply> {
+
+    private final StatusOutputStream<Reply> proxy;
+    private final Metrics metrics;
+    private final String name;
+    private final long start;
+
+    private long bytes;
+    private boolean closed;
+
+    /**
+     * @param name  Prefix for metrics
+     * @param start Time in nanoseconds when request was sent
+     */
+    public MetricsStatusOutputStream(final StatusOutputStream<Reply> proxy, final Metrics metrics, final String name, final long start) {
+        super(proxy);
+        this.proxy = proxy;
+        this.metrics = metrics;
+        this.name = name;
+        this.start = start;
+    }
+
+    @Override
+    protected void afterWrite(final int n) {
+        bytes += n;
+    }
+
+    /**
+     * @return Number of bytes transferred
+     */
+    protected long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        }
+        finally {
+            if(!closed) {
+                closed = true;
+                Streams.record(metrics, name, this.getBytes(), System.nanoTime() - start);
+            }
+        }
+    }
+
+    @Override
+    public Reply getStatus() throws BackgroundException {
+        return proxy.getStatus();
+    }
+}
@@ -0,0 +1,79 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Prometheus text exposition format. Histograms are written as summaries with quantiles.
+ */
+public class PrometheusMetricsExporter implements MetricsExporter {
+
+    private static final double[] QUANTILES = {0.5d, 0.9d, 0.99d, 0.999d};
+
+    private final String prefix;
+
+    public PrometheusMetricsExporter() {
+        this("cyberduck");
+    }
+
+    /**
+     * @param prefix Namespace for all metric names
+     */
+    public PrometheusMetricsExporter(final String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void export(final Metrics metrics, final OutputStream out) throws IOException {
+        final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        for(Map.Entry<String, Long> entry : metrics.getCounters().entrySet()) {
+            final String name = String.format("%s_total", this.name(entry.getKey()));
+            writer.write(String.format("# TYPE %s counter\n", name));
+            writer.write(String.format("%s %d\n", name, entry.getValue()));
+        }
+        for(Map.Entry<String, Long> entry : metrics.getGauges().entrySet()) {
+            final String name = this.name(entry.getKey());
+            writer.write(String.format("# TYPE %s gauge\n", name));
+            writer.write(String.format("%s %d\n", name, entry.getValue()));
+        }
+        for(Map.Entry<String, Histogram> entry : metrics.getHistograms().entrySet()) {
+            final String name = this.name(entry.getKey());
+            final Histogram histogram = entry.getValue();
+            writer.write(String.format("# TYPE %s summary\n", name));
+            for(double quantile : QUANTILES) {
+                writer.write(String.format("%s{quantile=\"%s\"} %d\n", name, quantile, histogram.getValueAtPercentile(quantile * 100d)));
+            }
+            writer.write(String.format("%s_sum %d\n", name, histogram.getSum()));
+            writer.write(String.format("%s_count %d\n", name, histogram.getCount()));
+        }
+        writer.flush();
+    }
+
+    /**
+     * @return Name with characters not allowed replaced by underscore
+     */
+    private String name(final String key) {
+        return String.format("%s_%s", prefix, key).replaceAll("[^a-zA-Z0-9_:]", "_");
+    }
+}
@@ -0,0 +1,39 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Metrics;
+
+import java.util.concurrent.TimeUnit;
+
+final class Streams {
+
+    private Streams() {
+        //
+    }
+
+    /**
+     * @param bytes   Number of bytes transferred
+     * @param elapsed Nanoseconds from request until stream is closed
+     */
+    static void record(final Metrics metrics, final String name, final long bytes, final long elapsed) {
+        metrics.increment(String.format("%s.bytes", name), bytes);
+        metrics.record(String.format("%s.duration", name), elapsed);
+        if(elapsed > 0) {
+            metrics.record(String.format("%s.throughput", name), (long) ((double) bytes * TimeUnit.SECONDS.toNanos(1) / elapsed));
+        }
+    }
+}
@@ -135,6 +135,7 @@ public class DefaultSessionPool implements SessionPool {
         if(numActive > POOL_WARNING_THRESHOLD) {
             log.warn(String.format("Possibly large number of open connections (%d) in pool %s", numActive, this));
         }
+        final long start = System.nanoTime();
         try {
             while(!callback.isCanceled()) {
                 try {
@@ -142,6 +143,9 @@ public class DefaultSessionPool implements SessionPool {
                         log.info(String.format("Borrow session from pool %s", this));
                     }
                     final Session<?> session = pool.borrowObject();
+                    // Includes time to connect new session
+                    session.getMetrics().record("pool.borrow", System.nanoTime() - start);
+                    session.getMetrics().gauge("pool.active", pool.getNumActive());
                     if(log.isInfoEnabled()) {
                         log.info(String.format("Borrowed session %s from pool %s", session, this));
                     }
@@ -294,6 +294,14 @@ public abstract class Preferences implements Locales {
         this.setDefault("local.normalize.tilde", String.valueOf(true));
         this.setDefault("local.delimiter", File.separator);
         this.setDefault("local.temporaryfiles.shortening.threshold", String.valueOf(240));
+        /*
+          Keep checksums of local files in support directory to compare files without reading unchanged files again
+         */
+        this.setDefault("local.checksum.index.enable", String.valueOf(true));
+        /*
+          Keep identifiers of directories for backends addressing files by ID in support directory
+         */
+        this.setDefault("fileid.index.enable", String.valueOf(true));
 
         this.setDefault("application.name", "Cyberduck");
         this.setDefault("application.container.name", "duck");
@@ -311,6 +319,15 @@ public abstract class Preferences implements Locales {
           Maximum number of directory listings to cache using a most recently used implementation
          */
         this.setDefault("browser.cache.size", String.valueOf(1000));
+        /*
+          Average number of files per cached directory listing. Limits the cache to browser.cache.size times this number
+          of files in all listings instead of the number of directories. Disabled with -1.
+         */
+        this.setDefault("browser.cache.weight", String.valueOf(1000));
+        /*
+          Milliseconds after which a cached directory listing is marked invalid. Disabled with -1.
+         */
+        this.setDefault("browser.cache.expiry", String.valueOf(-1));
         this.setDefault("transfer.cache.size", String.valueOf(100));
         this.setDefault("icon.cache.size", String.valueOf(200));
         this.setDefault("preferences.cache.size", String.valueOf(1000));
@@ -466,6 +483,10 @@ public abstract class Preferences implements Locales {
         this.setDefault("queue.download.reload.action", TransferAction.callback.name());
         this.setDefault("queue.upload.reload.action", TransferAction.callback.name());
         this.setDefault("queue.copy.reload.action", TransferAction.callback.name());
+        /*
+          Reuse listing of directories with unchanged ETag or modification date from previous synchronization
+         */
+        this.setDefault("queue.sync.manifest.enable", String.valueOf(false));
 
         this.setDefault("queue.upload.permissions.change", String.valueOf(false));
         this.setDefault("queue.upload.permissions.default", String.valueOf(false));
@@ -529,6 +550,8 @@ public abstract class Preferences implements Locales {
         this.setDefault("queue.download.segments", String.valueOf(false));
         this.setDefault("queue.download.segments.threshold", String.valueOf(100L * 1024L * 1024L));
         this.setDefault("queue.download.segments.size", String.valueOf(50L * 1024L * 1024L));
+        // Write segments at their offset to the preallocated target file instead of reassembling segment files
+        this.setDefault("queue.download.segments.positional", String.valueOf(true));
 
         /*
           Open completed downloads
@@ -570,11 +593,17 @@ public abstract class Preferences implements Locales {
           Bandwidth throttle download stream
          */
         this.setDefault("queue.download.bandwidth.bytes", String.valueOf(-1));
+        /*
+          Bandwidth throttle shared by all transfers
+         */
+        this.setDefault("queue.bandwidth.bytes", String.valueOf(-1));
 
         /*
          * Concurrent connections for single transfer and maximum number of concurrent transfers in transfer list
          */
         this.setDefault("queue.connections.limit", String.valueOf(2));
+        // Maximum number of concurrent part uploads to a host shared by all large files
+        this.setDefault("queue.upload.parts.limit", String.valueOf(20));
         {
             final StringBuilder options = new StringBuilder();
             options.append(1).append(",");
@@ -587,6 +616,10 @@ public abstract class Preferences implements Locales {
             options.append(20).append(",");
             this.setDefault("queue.connections.options", options.toString());
         }
+        /*
+         * Maximum number of queued tasks for listing and for transferring files before tasks are run by the submitting connection
+         */
+        this.setDefault("queue.scheduler.capacity", String.valueOf(1000));
 
         /*
           While downloading, update the icon of the downloaded file as a progress indicator
@@ -634,6 +667,10 @@ public abstract class Preferences implements Locales {
         this.setDefault("ftp.parser.multiline.strict", String.valueOf(false));
         this.setDefault("ftp.parser.reply.strict", String.valueOf(false));
         this.setDefault("ftp.parser.mlsd.perm.enable", String.valueOf(false));
+        /*
+          Number of parsed entries before updating directory listing while reading from data connection
+         */
+        this.setDefault("ftp.listing.chunksize", String.valueOf(1000));
 
         /*
           Send LIST -a
@@ -692,6 +729,11 @@ public abstract class Preferences implements Locales {
         this.setDefault("s3.url.expire.seconds", String.valueOf(24 * 60 * 60));
 
         this.setDefault("s3.listing.chunksize", String.valueOf(1000));
+        // List all keys of a prefix without delimiter when listing the root of a download. Listings are kept
+        // until the directories are listed by the transfer.
+        this.setDefault("s3.listing.prefetch.enable", String.valueOf(true));
+        // Number of subdirectories listed in parallel
+        this.setDefault("s3.listing.prefetch.concurrency", String.valueOf(5));
 
         this.setDefault("s3.upload.md5", String.valueOf(true));
 
@@ -706,6 +748,19 @@ public abstract class Preferences implements Locales {
         // Maximum number of parts is 10'000. With 10MB segements this gives a maximum object size of 100GB
         // Must be a multiple of org.cryptomator.cryptolib.v1.Constants.PAYLOAD_SIZE when using Cryptomator Vaults
         this.setDefault("s3.upload.multipart.size", String.valueOf(10L * 1024L * 1024L)); // 10MB
+        // Read parts up to this size into memory once to calculate the SHA-256 hash and upload from the same buffer.
+        // Adaptive part size does not grow past this threshold. Memory used per host is bounded by the threshold
+        // multiplied with queue.upload.parts.limit as buffers are only held by running parts.
+        this.setDefault("s3.upload.multipart.checksum.memory.threshold", String.valueOf(16L * 1024L * 1024L)); // 16MB
+        /*
+          Adjust part size and number of concurrent parts to measured throughput within limits
+         */
+        this.setDefault("s3.upload.multipart.adaptive", String.valueOf(true));
+        this.setDefault("s3.upload.multipart.concurrency.maximum", String.valueOf(20));
+        this.setDefault("s3.upload.multipart.size.maximum", String.valueOf(100L * 1024L * 1024L)); // 100MB
+        // Target duration range in milliseconds for a single part
+        this.setDefault("s3.upload.multipart.adaptive.duration.minimum", String.valueOf(2000L));
+        this.setDefault("s3.upload.multipart.adaptive.duration.maximum", String.valueOf(30000L));
         this.setDefault("s3.copy.multipart.size", String.valueOf(100L * 1024L * 1024L)); // 100MB
 
         this.setDefault("s3.upload.expect-continue", String.valueOf(true));
@@ -744,6 +799,28 @@ public abstract class Preferences implements Locales {
         this.setDefault("azure.metadata.default", StringUtils.EMPTY);
         this.setDefault("azure.listing.chunksize", String.valueOf(1000));
         this.setDefault("azure.upload.md5", String.valueOf(false));
+        /*
+          Stage blocks of block blob in parallel for files above threshold
+         */
+        this.setDefault("azure.upload.blocks", String.valueOf(true));
+        this.setDefault("azure.upload.blocks.threshold", String.valueOf(100L * 1024L * 1024L));
+        this.setDefault("azure.upload.blocks.size", String.valueOf(10L * 1024L * 1024L)); // 10MB
+        this.setDefault("azure.upload.blocks.concurrency", String.valueOf(10));
+
+        /*
+          Commit uploaded files up to threshold in batches of a transfer
+         */
+        this.setDefault("dropbox.upload.batch", String.valueOf(true));
+        this.setDefault("dropbox.upload.batch.threshold", String.valueOf(10L * 1024L * 1024L)); // 10MB
+        // Maximum number of entries allowed for upload_session/finish_batch
+        this.setDefault("dropbox.upload.batch.size", String.valueOf(1000));
+        this.setDefault("dropbox.upload.batch.poll.interval", String.valueOf(1000L));
+        // Milliseconds to collect more files after the first pending file before committing
+        this.setDefault("dropbox.upload.batch.delay", String.valueOf(500L));
+        // Milliseconds to wait for the commit job of a batch
+        this.setDefault("dropbox.upload.batch.timeout", String.valueOf(600000L));
+        // Number of attempts to commit files failed with too_many_write_operations
+        this.setDefault("dropbox.upload.batch.retry", String.valueOf(5));
 
         // Legacy authentication
 //        this.setDefault("openstack.authentication.context", "/v1.0");
@@ -775,6 +852,12 @@ public abstract class Preferences implements Locales {
         this.setDefault("googledrive.list.limit", String.valueOf(1000));
         this.setDefault("googledrive.teamdrive.enable", String.valueOf(true));
         this.setDefault("googledrive.delete.trash", String.valueOf(true));
+        // Merge concurrent metadata requests into batch requests
+        this.setDefault("googledrive.batch", String.valueOf(true));
+        // Maximum number of requests in a single batch
+        this.setDefault("googledrive.batch.size", String.valueOf(100));
+        // Milliseconds to wait for requests of other callers before sending a batch
+        this.setDefault("googledrive.batch.delay", String.valueOf(20L));
 
         this.setDefault("b2.bucket.acl.default", "allPrivate");
         this.setDefault("b2.listing.chunksize", String.valueOf(1000));
@@ -826,6 +909,10 @@ public abstract class Preferences implements Locales {
         this.setDefault("webdav.redirect.HEAD.follow", String.valueOf(true));
         this.setDefault("webdav.redirect.PUT.follow", String.valueOf(false));
         this.setDefault("webdav.redirect.PROPFIND.follow", String.valueOf(true));
+        /*
+          Retrieve complete tree of transfer root with PROPFIND Depth: infinity
+         */
+        this.setDefault("webdav.list.infinity.enable", String.valueOf(false));
 
         this.setDefault("webdav.upload.md5", String.valueOf(false));
         this.setDefault("webdav.metadata.default", StringUtils.EMPTY);
@@ -929,6 +1016,11 @@ public abstract class Preferences implements Locales {
          */
         this.setDefault("connection.retry.login.enable", String.valueOf(true));
 
+        /*
+          Record latency and throughput of features for all sessions
+         */
+        this.setDefault("metrics.enable", String.valueOf(false));
+
         this.setDefault("connection.hostname.default", StringUtils.EMPTY);
         /*
           Convert hostname to Punycode
@@ -973,6 +1065,14 @@ public abstract class Preferences implements Locales {
           Transfer read buffer size
          */
         this.setDefault("connection.chunksize", String.valueOf(32768));
+        /*
+          Maximum number of bytes retained in shared pool of transfer buffers
+         */
+        this.setDefault("connection.buffer.pool.limit", String.valueOf(64L * 1024L * 1024L));
+        /*
+          Maximum number of bytes kept in memory for file buffers before writing to temporary file
+         */
+        this.setDefault("connection.buffer.memory.threshold", String.valueOf(4 * 1024 * 1024));
         /*
           Buffer size for wrapped buffered streams
          */
@@ -1026,7 +1126,12 @@ public abstract class Preferences implements Locales {
         this.setDefault("ssh.algorithm.signature.blacklist", StringUtils.EMPTY);
 
         this.setDefault("sftp.read.maxunconfirmed", String.valueOf(64));
+        // Download large files in segments read concurrently with multiple connections. Opt-in as servers may
+        // limit the number of concurrent sessions per user.
+        this.setDefault("sftp.download.segments", String.valueOf(false));
         this.setDefault("sftp.write.maxunconfirmed", String.valueOf(64));
+        // Maximum number of symbolic links with pending requests to resolve target when listing directory
+        this.setDefault("sftp.list.maxunconfirmed", String.valueOf(64));
 
         this.setDefault("archive.default", "tar.gz");
 
@@ -1067,6 +1172,10 @@ public abstract class Preferences implements Locales {
 
         this.setDefault("cryptomator.enable", String.valueOf(true));
         this.setDefault("cryptomator.vault.autodetect", String.valueOf(true));
+        /*
+          Number of threads to encrypt and decrypt file content chunks. Chunks are processed sequentially if set to 1
+         */
+        this.setDefault("cryptomator.chunk.threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
     }
 
     protected void setLogging() {
@@ -31,6 +31,7 @@ import ch.cyberduck.core.transfer.Transfer;
 import ch.cyberduck.core.transfer.TransferAction;
 import ch.cyberduck.core.transfer.TransferItem;
 import ch.cyberduck.core.transfer.UploadTransfer;
+import ch.cyberduck.core.transfer.download.SegmentProgress;
 
 import org.apache.log4j.Logger;
 
@@ -156,6 +157,10 @@ public class TransferDictionary {
         switch(type) {
             case download:
                 transfer = new DownloadTransfer(host, roots);
+                final Map<String, String> segmentsObj = dict.mapForKey("Segments");
+                if(segmentsObj != null) {
+                    ((DownloadTransfer) transfer).withSegmentProgress(new SegmentProgress(segmentsObj));
+                }
                 break;
             case upload:
                 transfer = new UploadTransfer(host, roots);
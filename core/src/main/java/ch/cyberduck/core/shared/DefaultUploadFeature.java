@@ -29,7 +29,6 @@ import ch.cyberduck.core.io.BandwidthThrottle;
 import ch.cyberduck.core.io.StatusOutputStream;
 import ch.cyberduck.core.io.StreamCopier;
 import ch.cyberduck.core.io.StreamListener;
-import ch.cyberduck.core.io.ThrottledOutputStream;
 import ch.cyberduck.core.transfer.TransferStatus;
 
 import java.io.InputStream;
@@ -52,7 +51,8 @@ public class DefaultUploadFeature<Reply> implements Upload<Reply> {
             .withOffset(status.getOffset())
             .withLimit(status.getLength())
             .withListener(listener)
-            .transfer(in, new ThrottledOutputStream(out, throttle));
+            .withThrottle(throttle)
+            .transfer(in, out);
         return out.getStatus();
     }
 
@@ -26,14 +26,15 @@ import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.Session;
+import ch.cyberduck.core.SimplePathPredicate;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.io.Checksum;
-import ch.cyberduck.core.io.ChecksumComputeFactory;
+import ch.cyberduck.core.io.ChecksumIndex;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultFindFeature;
-import ch.cyberduck.core.transfer.TransferStatus;
 
 import java.text.MessageFormat;
 import java.util.TimeZone;
@@ -49,6 +50,11 @@ public class ComparisonServiceFilter implements ComparePathFilter {
     private final ProgressListener progress;
 
     private Cache<Path> cache = PathCache.empty();
+    private ChecksumIndex index = ChecksumIndex.get();
+    /**
+     * Use attributes from cached listing of parent directory
+     */
+    private boolean listing = PreferencesFactory.get().getBoolean("queue.sync.manifest.enable");
 
     public ComparisonServiceFilter(final Session<?> session, final TimeZone tz, final ProgressListener listener) {
         this.finder = session.getFeature(Find.class, new DefaultFindFeature(session));
@@ -74,6 +80,16 @@ public class ComparisonServiceFilter implements ComparePathFilter {
         return this;
     }
 
+    public ComparisonServiceFilter withIndex(final ChecksumIndex index) {
+        this.index = index;
+        return this;
+    }
+
+    public ComparisonServiceFilter withListing(final boolean listing) {
+        this.listing = listing;
+        return this;
+    }
+
     @Override
     public Comparison compare(final Path file, final Local local) throws BackgroundException {
         if(local.exists()) {
@@ -82,7 +98,7 @@ public class ComparisonServiceFilter implements ComparePathFilter {
                     // Do not compare directories
                     return Comparison.equal;
                 }
-                final PathAttributes attributes = attribute.withCache(cache).find(file);
+                final PathAttributes attributes = this.attributes(file);
                 // We must always compare the size because the download filter will have already created a temporary 0 byte file
                 switch(size.compare(attributes, local.attributes())) {
                     case remote:
@@ -93,8 +109,7 @@ public class ComparisonServiceFilter implements ComparePathFilter {
                 if(Checksum.NONE != attributes.getChecksum()) {
                     // MD5/ETag Checksum is supported
                     progress.message(MessageFormat.format(LocaleFactory.localizedString("Compute MD5 hash of {0}", "Status"), file.getName()));
-                    local.attributes().setChecksum(ChecksumComputeFactory.get(attributes.getChecksum().algorithm)
-                        .compute(local.getInputStream(), new TransferStatus()));
+                    local.attributes().setChecksum(index.compute(local, attributes.getChecksum().algorithm));
                     switch(checksum.compare(attributes, local.attributes())) {
                         case equal:
                             // Decision is available
@@ -132,4 +147,18 @@ public class ComparisonServiceFilter implements ComparePathFilter {
             return Comparison.equal;
         }
     }
+
+    /**
+     * @return Attributes from cached listing of parent directory if enabled and available to save a request for
+     * every file
+     */
+    private PathAttributes attributes(final Path file) throws BackgroundException {
+        if(listing && cache.isCached(file.getParent())) {
+            final Path cached = cache.get(file.getParent()).find(new SimplePathPredicate(file));
+            if(null != cached) {
+                return cached.attributes();
+            }
+        }
+        return attribute.withCache(cache).find(file);
+    }
 }
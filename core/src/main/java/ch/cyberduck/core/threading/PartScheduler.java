@@ -0,0 +1,327 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.HostUrlProvider;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.BiFunction;
+
+/**
+ * Run part uploads of all large files transferred to a host with a shared limit of concurrent parts instead of a
+ * thread pool per file.
+ * <ul>
+ * <li>Files with fewer running parts than their fair share of the limit are served first.</li>
+ * <li>Among these the file with the least number of remaining parts is preferred to complete files early.</li>
+ * </ul>
+ */
+public final class PartScheduler {
+    private static final Logger log = Logger.getLogger(PartScheduler.class);
+
+    /**
+     * Schedulers with at least one upload not shut down
+     */
+    private static final Map<String, PartScheduler> schedulers = new ConcurrentHashMap<>();
+
+    /**
+     * Register upload with scheduler shared by all uploads to host. The scheduler is removed when the last upload
+     * registered is shut down.
+     *
+     * @param host        Bookmark
+     * @param concurrency Maximum number of concurrent parts for this file
+     * @return Queue for parts of a single file
+     */
+    public static Upload create(final Host host, final int concurrency) {
+        final String url = new HostUrlProvider(true).get(host);
+        final PartScheduler scheduler = schedulers.compute(url, new BiFunction<String, PartScheduler, PartScheduler>() {
+            @Override
+            public PartScheduler apply(final String key, final PartScheduler existing) {
+                final int limit = PreferencesFactory.get().getInteger("queue.upload.parts.limit");
+                final PartScheduler scheduler = null == existing ? new PartScheduler(key, limit) : existing;
+                // Apply changes to limit made since scheduler was created
+                scheduler.setLimit(limit);
+                scheduler.users++;
+                return scheduler;
+            }
+        });
+        return scheduler.create(concurrency);
+    }
+
+    /**
+     * Registry key or null if not shared
+     */
+    private final String key;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Files with queued or running parts in order of registration
+     */
+    private final Set<Upload> uploads = new LinkedHashSet<>();
+    private int limit;
+    private int running;
+    /**
+     * Number of uploads not shut down. Guarded by registry.
+     */
+    private int users;
+
+    /**
+     * @param limit Maximum number of concurrent parts
+     */
+    public PartScheduler(final int limit) {
+        this(null, limit);
+    }
+
+    private PartScheduler(final String key, final int limit) {
+        this.key = key;
+        this.limit = Math.max(1, limit);
+        this.executor = DefaultThreadPool.createExecutor("parts", this.limit, ThreadPool.Priority.norm,
+            new LoggingUncaughtExceptionHandler());
+        // No idle threads when no upload is running
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @param concurrency Maximum number of concurrent parts for this file
+     * @return Queue for parts of a single file
+     */
+    public Upload create(final int concurrency) {
+        return new Upload(concurrency);
+    }
+
+    /**
+     * @param limit Maximum number of concurrent parts
+     */
+    public synchronized void setLimit(final int limit) {
+        final int size = Math.max(1, limit);
+        if(size == this.limit) {
+            return;
+        }
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Change limit of %s to %d", this, size));
+        }
+        // Maximum pool size must not be less than core pool size
+        if(size > this.limit) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        }
+        else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+        this.limit = size;
+        this.dispatch();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return Scheduler registered for host or null if no upload is left
+     */
+    static PartScheduler get(final Host host) {
+        return schedulers.get(new HostUrlProvider(true).get(host));
+    }
+
+    /**
+     * Remove from registry when no upload is left
+     */
+    private void release() {
+        if(null == key) {
+            return;
+        }
+        schedulers.computeIfPresent(key, new BiFunction<String, PartScheduler, PartScheduler>() {
+            @Override
+            public PartScheduler apply(final String key, final PartScheduler existing) {
+                if(existing != PartScheduler.this) {
+                    return existing;
+                }
+                if(--users > 0) {
+                    return existing;
+                }
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Remove %s with no uploads left", existing));
+                }
+                // Running parts are interrupted already and threads terminate when done
+                executor.shutdown();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Start queued parts while below limit
+     */
+    private synchronized void dispatch() {
+        while(running < limit) {
+            final Upload next = this.next();
+            if(null == next) {
+                return;
+            }
+            final Part<?> part = next.queued.poll();
+            next.running.add(part);
+            running++;
+            executor.execute(part);
+        }
+    }
+
+    /**
+     * @return File to start next part for or null if there is no queued part allowed to start
+     */
+    private Upload next() {
+        int active = 0;
+        for(Upload upload : uploads) {
+            if(!upload.queued.isEmpty() || !upload.running.isEmpty()) {
+                active++;
+            }
+        }
+        final int share = Math.max(1, limit / Math.max(1, active));
+        Upload next = null;
+        for(Upload upload : uploads) {
+            if(upload.queued.isEmpty() || upload.running.size() >= upload.concurrency) {
+                continue;
+            }
+            if(null == next || this.compare(upload, next, share) < 0) {
+                next = upload;
+            }
+        }
+        return next;
+    }
+
+    private int compare(final Upload a, final Upload b, final int share) {
+        final boolean fairA = a.running.size() < share;
+        final boolean fairB = b.running.size() < share;
+        if(fairA != fairB) {
+            return fairA ? -1 : 1;
+        }
+        return Integer.compare(a.remaining(), b.remaining());
+    }
+
+    private synchronized void complete(final Upload upload, final Part<?> part) {
+        if(upload.running.remove(part)) {
+            running--;
+        }
+        if(upload.queued.isEmpty() && upload.running.isEmpty() && upload.shutdown) {
+            uploads.remove(upload);
+        }
+        this.dispatch();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PartScheduler{");
+        sb.append("limit=").append(limit);
+        sb.append(", running=").append(running);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Parts of a single file
+     */
+    public final class Upload {
+        private final int concurrency;
+        private final Deque<Part<?>> queued = new ArrayDeque<>();
+        private final Set<Part<?>> running = new LinkedHashSet<>();
+        private boolean shutdown;
+
+        private Upload(final int concurrency) {
+            this.concurrency = Math.max(1, concurrency);
+        }
+
+        private int remaining() {
+            return queued.size() + running.size();
+        }
+
+        /**
+         * @param callable Part upload
+         * @return Future completed when part is uploaded
+         */
+        public <T> Future<T> execute(final Callable<T> callable) {
+            final Part<T> part = new Part<T>(this, callable);
+            synchronized(PartScheduler.this) {
+                if(shutdown) {
+                    part.cancel(false);
+                    return part;
+                }
+                uploads.add(this);
+                queued.add(part);
+                dispatch();
+            }
+            return part;
+        }
+
+        /**
+         * Cancel queued and interrupt running parts of this file
+         */
+        public void shutdown() {
+            final List<Part<?>> cancel = new ArrayList<>();
+            synchronized(PartScheduler.this) {
+                if(shutdown) {
+                    return;
+                }
+                shutdown = true;
+                cancel.addAll(queued);
+                queued.clear();
+                cancel.addAll(running);
+                if(running.isEmpty()) {
+                    uploads.remove(this);
+                }
+            }
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Cancel %d parts of %s", cancel.size(), this));
+            }
+            for(Part<?> part : cancel) {
+                part.cancel(true);
+            }
+            release();
+        }
+    }
+
+    private final class Part<T> extends FutureTask<T> {
+        private final Upload upload;
+
+        private Part(final Upload upload, final Callable<T> callable) {
+            super(callable);
+            this.upload = upload;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            }
+            finally {
+                complete(upload, this);
+            }
+        }
+    }
+}
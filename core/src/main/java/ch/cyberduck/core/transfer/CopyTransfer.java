@@ -64,7 +64,7 @@ public class CopyTransfer extends Transfer {
 
     public CopyTransfer(final Host source, final Host destination,
                         final Map<Path, Path> selected) {
-        this(source, destination, selected, new BandwidthThrottle(PreferencesFactory.get().getFloat("queue.download.bandwidth.bytes")));
+        this(source, destination, selected, new BandwidthThrottle(BandwidthThrottle.get(), PreferencesFactory.get().getFloat("queue.download.bandwidth.bytes")));
     }
 
     public CopyTransfer(final Host source, final Host destination,
@@ -21,6 +21,7 @@ import ch.cyberduck.core.*;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.Bulk;
 import ch.cyberduck.core.features.Download;
+import ch.cyberduck.core.features.Prefetch;
 import ch.cyberduck.core.filter.DownloadDuplicateFilter;
 import ch.cyberduck.core.filter.DownloadRegexFilter;
 import ch.cyberduck.core.io.BandwidthThrottle;
@@ -29,6 +30,7 @@ import ch.cyberduck.core.local.DefaultLocalDirectoryFeature;
 import ch.cyberduck.core.local.LocalSymlinkFactory;
 import ch.cyberduck.core.local.features.Symlink;
 import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.serializer.Serializer;
 import ch.cyberduck.core.transfer.download.AbstractDownloadFilter;
 import ch.cyberduck.core.transfer.download.CompareFilter;
 import ch.cyberduck.core.transfer.download.DownloadFilterOptions;
@@ -38,6 +40,7 @@ import ch.cyberduck.core.transfer.download.OverwriteFilter;
 import ch.cyberduck.core.transfer.download.RenameExistingFilter;
 import ch.cyberduck.core.transfer.download.RenameFilter;
 import ch.cyberduck.core.transfer.download.ResumeFilter;
+import ch.cyberduck.core.transfer.download.SegmentProgress;
 import ch.cyberduck.core.transfer.download.SkipFilter;
 import ch.cyberduck.core.transfer.download.TrashFilter;
 import ch.cyberduck.core.transfer.normalizer.DownloadRootPathsNormalizer;
@@ -62,10 +65,22 @@ public class DownloadTransfer extends Transfer {
     private Cache<Path> cache
             = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"));
 
+    /**
+     * Prefetched listings not yet used. Unlimited as listings of a large tree would otherwise be evicted from the
+     * transfer cache before the directories are listed.
+     */
+    private final PathCache prefetched
+            = new PathCache(Integer.MAX_VALUE);
+
     private final DownloadSymlinkResolver symlinkResolver;
 
     private DownloadFilterOptions options = new DownloadFilterOptions();
 
+    /**
+     * Bytes written for segments of files downloaded in place
+     */
+    private SegmentProgress segments = new SegmentProgress();
+
     public DownloadTransfer(final Host host, final Path root, final Local local) {
         this(host, Collections.singletonList(new TransferItem(root, local)),
                 PreferencesFactory.get().getBoolean("queue.download.skip.enable") ? new DownloadRegexFilter() : new DownloadDuplicateFilter());
@@ -85,7 +100,7 @@ public class DownloadTransfer extends Transfer {
     }
 
     public DownloadTransfer(final Host host, final List<TransferItem> roots, final Filter<Path> f, final Comparator<Path> comparator) {
-        super(host, roots, new BandwidthThrottle(PreferencesFactory.get().getFloat("queue.download.bandwidth.bytes")));
+        super(host, roots, new BandwidthThrottle(BandwidthThrottle.get(), PreferencesFactory.get().getFloat("queue.download.bandwidth.bytes")));
         this.filter = f;
         this.comparator = comparator;
         this.symlinkResolver = new DownloadSymlinkResolver(roots);
@@ -102,6 +117,19 @@ public class DownloadTransfer extends Transfer {
         return this;
     }
 
+    public DownloadTransfer withSegmentProgress(final SegmentProgress segments) {
+        this.segments = segments;
+        return this;
+    }
+
+    @Override
+    public <T> T serialize(final Serializer dict) {
+        if(!segments.isEmpty()) {
+            dict.setMapForKey(segments.serialize(), "Segments");
+        }
+        return super.serialize(dict);
+    }
+
     @Override
     public Type getType() {
         return Type.download;
@@ -121,10 +149,22 @@ public class DownloadTransfer extends Transfer {
             return Collections.emptyList();
         }
         else {
+            if(!cache.isCached(directory) && !prefetched.isCached(directory) && this.isRoot(directory)) {
+                final Prefetch prefetch = session.getFeature(Prefetch.class);
+                if(prefetch != null) {
+                    // Retrieve listings for complete tree of root at once
+                    prefetch.prefetch(directory, prefetched, listener);
+                }
+            }
             final AttributedList<Path> list;
             if(cache.isCached(directory)) {
                 list = cache.get(directory);
             }
+            else if(prefetched.isCached(directory)) {
+                // Each directory is only listed once
+                list = prefetched.remove(directory);
+                cache.put(directory, list);
+            }
             else {
                 list = session.getFeature(ListService.class).list(directory, listener);
                 cache.put(directory, list);
@@ -138,31 +178,44 @@ public class DownloadTransfer extends Transfer {
         }
     }
 
+    private boolean isRoot(final Path directory) {
+        for(TransferItem root : roots) {
+            if(root.remote.equals(directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public AbstractDownloadFilter filter(final Session<?> source, final Session<?> destination, final TransferAction action, final ProgressListener listener) {
         if(log.isDebugEnabled()) {
             log.debug(String.format("Filter transfer with action %s", action));
         }
         final DownloadSymlinkResolver resolver = new DownloadSymlinkResolver(roots);
+        final AbstractDownloadFilter filter;
         if(action.equals(TransferAction.resume)) {
-            return new ResumeFilter(resolver, source, options).withCache(cache);
+            filter = new ResumeFilter(resolver, source, options);
         }
-        if(action.equals(TransferAction.rename)) {
-            return new RenameFilter(resolver, source, options).withCache(cache);
+        else if(action.equals(TransferAction.rename)) {
+            filter = new RenameFilter(resolver, source, options);
         }
-        if(action.equals(TransferAction.renameexisting)) {
-            return new RenameExistingFilter(resolver, source, options).withCache(cache);
+        else if(action.equals(TransferAction.renameexisting)) {
+            filter = new RenameExistingFilter(resolver, source, options);
         }
-        if(action.equals(TransferAction.skip)) {
-            return new SkipFilter(resolver, source, options).withCache(cache);
+        else if(action.equals(TransferAction.skip)) {
+            filter = new SkipFilter(resolver, source, options);
         }
-        if(action.equals(TransferAction.trash)) {
-            return new TrashFilter(resolver, source, options).withCache(cache);
+        else if(action.equals(TransferAction.trash)) {
+            filter = new TrashFilter(resolver, source, options);
         }
-        if(action.equals(TransferAction.comparison)) {
-            return new CompareFilter(resolver, source, options, listener).withCache(cache);
+        else if(action.equals(TransferAction.comparison)) {
+            filter = new CompareFilter(resolver, source, options, listener);
+        }
+        else {
+            filter = new OverwriteFilter(resolver, source, options);
         }
-        return new OverwriteFilter(resolver, source, options).withCache(cache);
+        return filter.withSegmentProgress(segments).withCache(cache);
     }
 
     @Override
@@ -214,6 +267,7 @@ public class DownloadTransfer extends Transfer {
     @Override
     public void stop() {
         cache.clear();
+        prefetched.clear();
         super.stop();
     }
 
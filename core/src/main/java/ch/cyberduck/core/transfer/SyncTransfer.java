@@ -21,24 +21,30 @@ package ch.cyberduck.core.transfer;
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
 import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.FolderTransferCollection;
 import ch.cyberduck.core.Host;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Local;
 import ch.cyberduck.core.PasswordCallback;
 import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.io.BandwidthThrottle;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.serializer.Serializer;
+import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultFindFeature;
 import ch.cyberduck.core.synchronization.CachingComparisonServiceFilter;
 import ch.cyberduck.core.synchronization.Comparison;
 import ch.cyberduck.core.synchronization.ComparisonServiceFilter;
+import ch.cyberduck.core.transfer.synchronisation.SyncManifest;
 import ch.cyberduck.core.transfer.synchronisation.SynchronizationPathFilter;
 
 import org.apache.commons.collections4.map.LRUMap;
@@ -77,13 +83,23 @@ public class SyncTransfer extends Transfer {
     private final Map<TransferItem, Comparison> comparisons = Collections.synchronizedMap(new LRUMap<TransferItem, Comparison>(
         PreferencesFactory.get().getInteger("transfer.cache.size")));
 
+    /**
+     * Remote listings from previous synchronization or null if disabled
+     */
+    private SyncManifest manifest;
+
+    /**
+     * Directories listed from server in this run with current attributes of children
+     */
+    private final Set<Path> listed = Collections.synchronizedSet(new HashSet<Path>());
+
     public SyncTransfer(final Host host, final TransferItem item) {
         this(host, item, TransferAction.callback);
     }
 
     public SyncTransfer(final Host host, final TransferItem item, final TransferAction action) {
         super(host, Collections.singletonList(item),
-            new BandwidthThrottle(PreferencesFactory.get().getFloat("queue.upload.bandwidth.bytes")));
+            new BandwidthThrottle(BandwidthThrottle.get(), PreferencesFactory.get().getFloat("queue.upload.bandwidth.bytes")));
         this.init();
         this.item = item;
         this.action = action;
@@ -108,6 +124,11 @@ public class SyncTransfer extends Transfer {
         return this;
     }
 
+    public SyncTransfer withManifest(final SyncManifest manifest) {
+        this.manifest = manifest;
+        return this;
+    }
+
     @Override
     public <T> T serialize(final Serializer dict) {
         dict.setStringForKey(String.valueOf(this.getType().name()), "Type");
@@ -194,7 +215,28 @@ public class SyncTransfer extends Transfer {
         final Set<TransferItem> children = new HashSet<TransferItem>();
         final Find finder = session.getFeature(Find.class, new DefaultFindFeature(session)).withCache(cache);
         if(finder.find(directory)) {
-            children.addAll(download.list(session, directory, local, listener));
+            final SyncManifest manifest = this.getManifest();
+            if(null == manifest || cache.isCached(directory)) {
+                children.addAll(download.list(session, directory, local, listener));
+            }
+            else {
+                final PathAttributes attributes = this.attributes(session, directory);
+                final AttributedList<Path> previous = null == attributes ? null : manifest.get(directory, attributes);
+                if(null == previous) {
+                    children.addAll(download.list(session, directory, local, listener));
+                    listed.add(directory);
+                }
+                else {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Reuse listing of unchanged directory %s", directory));
+                    }
+                    cache.put(directory, previous);
+                    children.addAll(download.list(session, directory, local, listener));
+                }
+                if(null != attributes && cache.isCached(directory)) {
+                    manifest.put(directory, attributes, cache.get(directory));
+                }
+            }
         }
         if(local.exists()) {
             children.addAll(upload.list(session, directory, local, listener));
@@ -202,12 +244,51 @@ public class SyncTransfer extends Transfer {
         return new ArrayList<TransferItem>(children);
     }
 
+    /**
+     * @return Current attributes of directory taken from parent listing if retrieved in this run
+     */
+    private PathAttributes attributes(final Session<?> session, final Path directory) throws BackgroundException {
+        if(listed.contains(directory.getParent())) {
+            return directory.attributes();
+        }
+        try {
+            return session.getFeature(AttributesFinder.class, new DefaultAttributesFinderFeature(session)).find(directory);
+        }
+        catch(NotfoundException e) {
+            log.warn(String.format("Failure reading attributes of %s. %s", directory, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * @return Manifest for transfer saved in collection or null if disabled. Transfers not saved such as from the
+     * command line interface have no manifest.
+     */
+    private SyncManifest getManifest() {
+        if(null == manifest) {
+            if(PreferencesFactory.get().getBoolean("queue.sync.manifest.enable")) {
+                final FolderTransferCollection collection = FolderTransferCollection.defaultCollection();
+                if(collection.contains(this)) {
+                    manifest = new SyncManifest(collection.getManifest(this));
+                }
+            }
+        }
+        return manifest;
+    }
+
     @Override
     public TransferAction action(final Session<?> source, final Session<?> destination, final boolean resumeRequested, final boolean reloadRequested,
                                  final TransferPrompt prompt, final ListProgressListener listener) {
         if(log.isDebugEnabled()) {
             log.debug(String.format("Find transfer action for Resume=%s,Reload=%s", resumeRequested, reloadRequested));
         }
+        if(reloadRequested) {
+            final SyncManifest manifest = this.getManifest();
+            if(null != manifest) {
+                // Full listing on reload
+                manifest.clear();
+            }
+        }
         if(resumeRequested) {
             if(action.equals(TransferAction.callback)) {
                 return action = prompt.prompt(item);
@@ -258,6 +339,10 @@ public class SyncTransfer extends Transfer {
     public void stop() {
         download.stop();
         upload.stop();
+        if(null != manifest) {
+            manifest.save();
+        }
+        listed.clear();
         cache.clear();
         comparisons.clear();
         super.stop();
@@ -109,7 +109,7 @@ public abstract class Transfer implements Serializable {
      * In Bytes per second
      */
     protected BandwidthThrottle bandwidth
-        = new BandwidthThrottle(BandwidthThrottle.UNLIMITED);
+        = new BandwidthThrottle(BandwidthThrottle.get(), BandwidthThrottle.UNLIMITED);
 
 
     /**
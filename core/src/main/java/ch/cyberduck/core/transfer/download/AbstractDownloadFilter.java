@@ -41,6 +41,7 @@ import ch.cyberduck.core.io.ChecksumCompute;
 import ch.cyberduck.core.io.ChecksumComputeFactory;
 import ch.cyberduck.core.local.ApplicationLauncher;
 import ch.cyberduck.core.local.ApplicationLauncherFactory;
+import ch.cyberduck.core.local.DefaultLocalDirectoryFeature;
 import ch.cyberduck.core.local.IconService;
 import ch.cyberduck.core.local.IconServiceFactory;
 import ch.cyberduck.core.local.QuarantineService;
@@ -85,6 +86,11 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
 
     private DownloadFilterOptions options;
 
+    /**
+     * Progress of segments written in place
+     */
+    protected SegmentProgress segmentProgress = new SegmentProgress();
+
     protected AbstractDownloadFilter(final SymlinkResolver<Path> symlinkResolver, final Session<?> session,
                                      final DownloadFilterOptions options) {
         this.symlinkResolver = symlinkResolver;
@@ -109,6 +115,11 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
         return this;
     }
 
+    public AbstractDownloadFilter withSegmentProgress(final SegmentProgress segmentProgress) {
+        this.segmentProgress = segmentProgress;
+        return this;
+    }
+
     @Override
     public boolean accept(final Path file, final Local local, final TransferStatus parent) throws BackgroundException {
         final Local volume = local.getVolume();
@@ -194,7 +205,7 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
             status.setPermission(permission);
         }
         status.setAcl(attributes.getAcl());
-        if(options.segments) {
+        if(this.isSegmented()) {
             if(file.isFile()) {
                 // Make segments
                 if(status.getLength() >= preferences.getLong("queue.download.segments.threshold")
@@ -202,7 +213,7 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
                     final Download read = session.getFeature(Download.class);
                     if(read.offset(file)) {
                         if(log.isInfoEnabled()) {
-                            log.info(String.format("Split download %s into segments", local));
+                            log.info(String.format("Split download %s into segments%s", local, options.positional ? " written in place" : StringUtils.EMPTY));
                         }
                         long remaining = status.getLength();
                         long offset = 0;
@@ -214,25 +225,28 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
                         final List<TransferStatus> segments = new ArrayList<TransferStatus>();
                         final Local segmentsFolder = LocalFactory.get(local.getParent(), String.format("%s.cyberducksegment", local.getName()));
                         for(int segmentNumber = 1; remaining > 0; segmentNumber++) {
-                            final Local segmentFile = LocalFactory.get(
-                                segmentsFolder, String.format("%s-%d.cyberducksegment", local.getName(), segmentNumber));
-                            boolean skip = false;
                             // Last part can be less than 5 MB. Adjust part size.
                             Long length = Math.min(partsize, remaining);
                             final TransferStatus segmentStatus = new TransferStatus()
                                 .segment(true)
-                                .append(true)
                                 .skip(offset)
-                                .length(length)
-                                .rename(segmentFile);
+                                .length(length);
+                            if(!options.positional) {
+                                final Local segmentFile = LocalFactory.get(
+                                    segmentsFolder, String.format("%s-%d.cyberducksegment", local.getName(), segmentNumber));
+                                segmentStatus.append(true).rename(segmentFile);
+                            }
                             if(log.isDebugEnabled()) {
-                                log.debug(String.format("Adding status %s for segment %s", segmentStatus, segmentFile));
+                                log.debug(String.format("Adding status %s for segment %d", segmentStatus, segmentNumber));
                             }
                             segments.add(segmentStatus);
                             remaining -= length;
                             offset += length;
                         }
                         status.withSegments(segments);
+                        if(options.positional) {
+                            segmentProgress.register(local, segments);
+                        }
                     }
                 }
             }
@@ -243,10 +257,37 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
         return status;
     }
 
+    /**
+     * @return True if downloads should be split into segments. A protocol specific setting takes precedence over
+     * the default
+     */
+    private boolean isSegmented() {
+        final String protocol = preferences.getProperty(String.format("%s.download.segments",
+            session.getHost().getProtocol().getIdentifier()));
+        if(null == protocol) {
+            return options.segments;
+        }
+        return Boolean.parseBoolean(protocol);
+    }
+
     @Override
     public void apply(final Path file, final Local local, final TransferStatus status,
                       final ProgressListener listener) throws BackgroundException {
-        //
+        if(status.isSegmented() && options.positional) {
+            // Segments are written to the target chosen by a rename filter instead of the existing file
+            final Local target = null != status.getRename().local ? status.getRename().local : local;
+            if(!target.equals(local)) {
+                segmentProgress.rename(local, target);
+            }
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Allocate %d bytes for segments of %s", status.getLength(), target));
+            }
+            final Local folder = target.getParent();
+            if(!folder.exists()) {
+                new DefaultLocalDirectoryFeature().mkdir(folder);
+            }
+            target.allocate(status.getLength());
+        }
     }
 
     /**
@@ -266,7 +307,11 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
             return;
         }
         if(status.isComplete()) {
-            if(status.isSegmented()) {
+            if(status.isSegmented() && this.options.positional) {
+                // Segments already written in place
+                segmentProgress.remove(status.getSegments());
+            }
+            else if(status.isSegmented()) {
                 // Obtain ordered list of segments to reassemble
                 final List<TransferStatus> segments = status.getSegments();
                 if(log.isInfoEnabled()) {
@@ -32,6 +32,8 @@ import ch.cyberduck.core.transfer.symlink.SymlinkResolver;
 
 import org.apache.log4j.Logger;
 
+import java.util.Map;
+
 public class ResumeFilter extends AbstractDownloadFilter {
     private static final Logger log = Logger.getLogger(ResumeFilter.class);
 
@@ -56,6 +58,12 @@ public class ResumeFilter extends AbstractDownloadFilter {
     public boolean accept(final Path file, final Local local, final TransferStatus parent) throws BackgroundException {
         if(local.isFile()) {
             if(local.exists()) {
+                if(segmentProgress.contains(local)) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Resume incomplete segments for %s", local));
+                    }
+                    return super.accept(file, local, parent);
+                }
                 // Read remote attributes
                 final PathAttributes attributes = attribute.find(file);
                 if(local.attributes().getSize() == attributes.getSize()) {
@@ -86,10 +94,35 @@ public class ResumeFilter extends AbstractDownloadFilter {
 
     @Override
     public TransferStatus prepare(final Path file, final Local local, final TransferStatus parent, final ProgressListener progress) throws BackgroundException {
+        // Bytes written to target file for segments from previous attempt
+        final Map<Long, Long> completed = segmentProgress.completed(local);
         final TransferStatus status = super.prepare(file, local, parent, progress);
         if(status.isSegmented()) {
             for(TransferStatus segmentStatus : status.getSegments()) {
                 final Local segmentFile = segmentStatus.getRename().local;
+                if(null == segmentFile) {
+                    // Segment written in place
+                    if(!local.exists()) {
+                        continue;
+                    }
+                    final Long written = completed.get(segmentStatus.getOffset());
+                    if(null == written || written <= 0) {
+                        continue;
+                    }
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Skip %d bytes already written for segment %s", written, segmentStatus));
+                    }
+                    if(written >= segmentStatus.getLength()) {
+                        segmentStatus.setOffset(segmentStatus.getOffset() + segmentStatus.getLength());
+                        segmentStatus.setLength(0L);
+                        segmentStatus.setComplete();
+                    }
+                    else {
+                        segmentStatus.setLength(segmentStatus.getLength() - written);
+                        segmentStatus.setOffset(segmentStatus.getOffset() + written);
+                    }
+                    continue;
+                }
                 if(segmentFile.exists()) {
                     if(log.isInfoEnabled()) {
                         log.info(String.format("Determine if part %s can be skipped", segmentStatus));
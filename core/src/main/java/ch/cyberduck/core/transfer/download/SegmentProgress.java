@@ -0,0 +1,210 @@
+package ch.cyberduck.core.transfer.download;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Bytes written per segment of downloads written in place to the target file. Serialized with the transfer to allow
+ * resuming individual segments.
+ */
+public final class SegmentProgress {
+    private static final Logger log = Logger.getLogger(SegmentProgress.class);
+
+    private static final char SEPARATOR = '#';
+
+    /**
+     * Key is local path and offset of segment
+     */
+    private final Map<String, Entry> segments = new ConcurrentHashMap<>();
+
+    /**
+     * @param serialized Map of local path and segment offset to number of bytes written
+     */
+    public SegmentProgress(final Map<String, String> serialized) {
+        for(Map.Entry<String, String> entry : serialized.entrySet()) {
+            final int index = StringUtils.lastIndexOf(entry.getKey(), SEPARATOR);
+            if(-1 == index) {
+                log.warn(String.format("Ignore invalid segment key %s", entry.getKey()));
+                continue;
+            }
+            try {
+                final long offset = Long.parseLong(entry.getKey().substring(index + 1));
+                segments.put(entry.getKey(), new Entry(offset, Long.parseLong(entry.getValue())));
+            }
+            catch(NumberFormatException e) {
+                log.warn(String.format("Ignore invalid segment %s", entry));
+            }
+        }
+    }
+
+    public SegmentProgress() {
+        //
+    }
+
+    /**
+     * Replace all previous segments for file
+     *
+     * @param local    Target file
+     * @param statuses Segments to track progress for
+     */
+    public void register(final Local local, final List<TransferStatus> statuses) {
+        this.remove(local);
+        for(TransferStatus status : statuses) {
+            segments.put(toKey(local, status.getOffset()), new Entry(status.getOffset(), status));
+        }
+    }
+
+    /**
+     * @param local Target file
+     * @return Segment offset mapped to number of bytes already written
+     */
+    public Map<Long, Long> completed(final Local local) {
+        final Map<Long, Long> completed = new HashMap<>();
+        final String prefix = local.getAbsolute() + SEPARATOR;
+        for(Map.Entry<String, Entry> entry : segments.entrySet()) {
+            if(entry.getKey().startsWith(prefix)) {
+                completed.put(entry.getValue().offset, entry.getValue().getWritten());
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * @return True if there is any incomplete segment for file
+     */
+    public boolean contains(final Local local) {
+        final String prefix = local.getAbsolute() + SEPARATOR;
+        for(String key : segments.keySet()) {
+            if(key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Track segments registered for file as written to another target
+     *
+     * @param local  File segments were registered for
+     * @param target File segments are written to
+     */
+    public void rename(final Local local, final Local target) {
+        this.remove(target);
+        final String prefix = local.getAbsolute() + SEPARATOR;
+        for(Map.Entry<String, Entry> entry : segments.entrySet()) {
+            if(entry.getKey().startsWith(prefix)) {
+                segments.put(toKey(target, entry.getValue().offset), entry.getValue());
+                segments.remove(entry.getKey());
+            }
+        }
+    }
+
+    public void remove(final Local local) {
+        final String prefix = local.getAbsolute() + SEPARATOR;
+        segments.keySet().removeIf(new Predicate<String>() {
+            @Override
+            public boolean test(final String key) {
+                return key.startsWith(prefix);
+            }
+        });
+    }
+
+    /**
+     * Remove entries for segments of completed download
+     */
+    public void remove(final List<TransferStatus> statuses) {
+        segments.values().removeIf(new Predicate<Entry>() {
+            @Override
+            public boolean test(final Entry entry) {
+                for(TransferStatus status : statuses) {
+                    if(status == entry.status) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    public Map<String, String> serialize() {
+        final Map<String, String> serialized = new HashMap<>();
+        for(Map.Entry<String, Entry> entry : segments.entrySet()) {
+            serialized.put(entry.getKey(), String.valueOf(entry.getValue().getWritten()));
+        }
+        return serialized;
+    }
+
+    private static String toKey(final Local local, final long offset) {
+        return String.format("%s%s%d", local.getAbsolute(), SEPARATOR, offset);
+    }
+
+    private static final class Entry {
+        /**
+         * Segment offset in file
+         */
+        private final long offset;
+        /**
+         * Number of bytes written as read from previous serialized state
+         */
+        private final long written;
+        /**
+         * Live status of current transfer
+         */
+        private final TransferStatus status;
+
+        private Entry(final long offset, final long written) {
+            this.offset = offset;
+            this.written = written;
+            this.status = null;
+        }
+
+        private Entry(final long offset, final TransferStatus status) {
+            this.offset = offset;
+            this.written = 0L;
+            this.status = status;
+        }
+
+        private long getWritten() {
+            if(null == status) {
+                return written;
+            }
+            return Math.max(0L, status.getOffset() - offset);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SegmentProgress{");
+        sb.append("segments=").append(segments.size());
+        sb.append('}');
+        return sb.toString();
+    }
+}
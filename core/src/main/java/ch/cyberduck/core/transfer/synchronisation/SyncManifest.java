@@ -0,0 +1,265 @@
+package ch.cyberduck.core.transfer.synchronisation;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.io.AppendLog;
+import ch.cyberduck.core.io.Checksum;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remote directory listings saved from a previous synchronization. A listing is only reused while the marker of the
+ * directory is unchanged. The marker is the ETag of the directory if available or its modification date otherwise.
+ * Only directories listed or reused in the current run are saved.
+ */
+public class SyncManifest {
+    private static final Logger log = Logger.getLogger(SyncManifest.class);
+
+    private final AppendLog file;
+
+    /**
+     * Listings from previous run
+     */
+    private final Map<String, Entry> previous = new ConcurrentHashMap<String, Entry>();
+    /**
+     * Listings from current run
+     */
+    private final Map<String, Entry> current = new ConcurrentHashMap<String, Entry>();
+
+    private volatile boolean loaded;
+
+    /**
+     * @param file Manifest file
+     */
+    public SyncManifest(final Local file) {
+        this.file = new AppendLog(file);
+    }
+
+    /**
+     * @param attributes Attributes of directory
+     * @return ETag, modification date or null if no marker is available
+     */
+    public static String marker(final PathAttributes attributes) {
+        if(StringUtils.isNotBlank(attributes.getETag())) {
+            return attributes.getETag();
+        }
+        if(attributes.getModificationDate() > 0) {
+            return String.valueOf(attributes.getModificationDate());
+        }
+        return null;
+    }
+
+    /**
+     * @param directory  Directory
+     * @param attributes Current attributes of directory
+     * @return Previous listing or null if missing or the directory has changed
+     */
+    public AttributedList<Path> get(final Path directory, final PathAttributes attributes) {
+        this.load();
+        final String marker = marker(attributes);
+        if(null == marker) {
+            return null;
+        }
+        final Entry entry = previous.get(directory.getAbsolute());
+        if(null == entry) {
+            return null;
+        }
+        if(!marker.equals(entry.marker)) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Marker of %s changed from %s to %s", directory, entry.marker, marker));
+            }
+            return null;
+        }
+        final AttributedList<Path> list = new AttributedList<Path>();
+        for(Child child : entry.children) {
+            list.add(child.toPath(directory));
+        }
+        return list;
+    }
+
+    /**
+     * Save listing of directory with attributes retrieved before listing
+     *
+     * @param directory  Directory
+     * @param attributes Attributes of directory
+     * @param list       Children
+     */
+    public void put(final Path directory, final PathAttributes attributes, final AttributedList<Path> list) {
+        final String marker = marker(attributes);
+        if(null == marker) {
+            return;
+        }
+        final List<Child> children = new ArrayList<Child>(list.size());
+        for(Path f : list) {
+            if(f.isSymbolicLink() || f.getType().contains(Path.Type.encrypted) || f.getType().contains(Path.Type.decrypted)) {
+                // Symbolic link target and vault are not saved
+                return;
+            }
+            children.add(new Child(f));
+        }
+        current.put(directory.getAbsolute(), new Entry(marker, children));
+    }
+
+    private void load() {
+        if(loaded) {
+            return;
+        }
+        synchronized(this) {
+            if(loaded) {
+                return;
+            }
+            try {
+                if(file.read(new AppendLog.Reader() {
+                    private Entry entry;
+
+                    @Override
+                    public void read(final String[] fields) {
+                        // Directory with marker followed by children
+                        if(fields.length == 3 && "D".equals(fields[0])) {
+                            entry = new Entry(fields[1], new ArrayList<Child>());
+                            previous.put(fields[2], entry);
+                        }
+                        else if(fields.length == 9 && "F".equals(fields[0]) && entry != null) {
+                            entry.children.add(new Child(fields));
+                        }
+                        else {
+                            log.warn(String.format("Skip invalid record %s", Arrays.toString(fields)));
+                        }
+                    }
+                })) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Loaded %d directories from %s", previous.size(), file));
+                    }
+                }
+            }
+            catch(IllegalArgumentException e) {
+                log.warn(String.format("Failure reading manifest %s. %s", file, e.getMessage()));
+                previous.clear();
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * Replace manifest file with listings from current run
+     */
+    public synchronized void save() {
+        if(current.isEmpty()) {
+            return;
+        }
+        final List<String[]> records = new ArrayList<String[]>();
+        for(Map.Entry<String, Entry> entry : current.entrySet()) {
+            records.add(new String[]{"D", entry.getValue().marker, entry.getKey()});
+            for(Child child : entry.getValue().children) {
+                records.add(child.toRecord());
+            }
+        }
+        if(file.replace(records)) {
+            // Compare with saved listings in next run
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Saved %d directories to %s", current.size(), file));
+            }
+            previous.clear();
+            previous.putAll(current);
+            current.clear();
+        }
+    }
+
+    /**
+     * Discard previous listings to force full listing
+     */
+    public void clear() {
+        this.load();
+        previous.clear();
+    }
+
+    private static final class Entry {
+        private final String marker;
+        private final List<Child> children;
+
+        private Entry(final String marker, final List<Child> children) {
+            this.marker = marker;
+            this.children = children;
+        }
+    }
+
+    private static final class Child {
+        private final EnumSet<Path.Type> type;
+        private final long size;
+        private final long modified;
+        private final String etag;
+        private final String version;
+        private final String checksum;
+        private final String region;
+        private final String name;
+
+        private Child(final Path file) {
+            this.type = file.getType();
+            this.size = file.attributes().getSize();
+            this.modified = file.attributes().getModificationDate();
+            this.etag = file.attributes().getETag();
+            this.version = file.attributes().getVersionId();
+            this.checksum = file.attributes().getChecksum().hash;
+            this.region = file.attributes().getRegion();
+            this.name = file.getName();
+        }
+
+        /**
+         * @param fields Type, size, modification date, ETag, version, checksum, region and name
+         */
+        private Child(final String[] fields) {
+            this.type = EnumSet.noneOf(Path.Type.class);
+            for(String t : StringUtils.split(fields[1], ',')) {
+                type.add(Path.Type.valueOf(t));
+            }
+            this.size = Long.parseLong(fields[2]);
+            this.modified = Long.parseLong(fields[3]);
+            this.etag = StringUtils.defaultIfEmpty(fields[4], null);
+            this.version = StringUtils.defaultIfEmpty(fields[5], null);
+            this.checksum = StringUtils.defaultIfEmpty(fields[6], null);
+            this.region = StringUtils.defaultIfEmpty(fields[7], null);
+            this.name = fields[8];
+        }
+
+        private Path toPath(final Path parent) {
+            final PathAttributes attributes = new PathAttributes();
+            attributes.setSize(size);
+            attributes.setModificationDate(modified);
+            attributes.setETag(etag);
+            attributes.setVersionId(version);
+            attributes.setChecksum(Checksum.parse(checksum));
+            attributes.setRegion(region);
+            return new Path(parent, name, EnumSet.copyOf(type), attributes);
+        }
+
+        private String[] toRecord() {
+            return new String[]{"F", StringUtils.join(type, ','), String.valueOf(size), String.valueOf(modified),
+                etag, version, checksum, region, name};
+        }
+    }
+}
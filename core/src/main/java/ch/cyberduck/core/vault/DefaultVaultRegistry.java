@@ -209,6 +209,9 @@ public class DefaultVaultRegistry extends CopyOnWriteArraySet<Vault> implements
         if(type == Redundancy.class) {
             return (T) new VaultRegistryRedundancyFeature(session, (Redundancy) proxy, this);
         }
+        if(type == Prefetch.class) {
+            return (T) new VaultRegistryPrefetchFeature(session, (Prefetch) proxy, this);
+        }
         if(type == Search.class) {
             return (T) new VaultRegistrySearchFeature(session, (Search) proxy, this);
         }
@@ -0,0 +1,96 @@
+package ch.cyberduck.core.vault.registry;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathCache;
+import ch.cyberduck.core.Session;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Prefetch;
+import ch.cyberduck.core.features.Vault;
+import ch.cyberduck.core.vault.DefaultVaultRegistry;
+import ch.cyberduck.core.vault.VaultRegistry;
+
+import org.apache.log4j.Logger;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Only cache prefetched listings outside of vaults as contents of a vault must be listed decrypted
+ */
+public class VaultRegistryPrefetchFeature implements Prefetch {
+    private static final Logger log = Logger.getLogger(VaultRegistryPrefetchFeature.class);
+
+    private final Session<?> session;
+    private final Prefetch proxy;
+    private final VaultRegistry registry;
+
+    public VaultRegistryPrefetchFeature(final Session<?> session, final Prefetch proxy, final VaultRegistry registry) {
+        this.session = session;
+        this.proxy = proxy;
+        this.registry = registry;
+    }
+
+    @Override
+    public void prefetch(final Path directory, final Cache<Path> cache, final ListProgressListener listener) throws BackgroundException {
+        if(registry.find(session, directory) != Vault.DISABLED) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Skip prefetch for %s in vault", directory));
+            }
+            return;
+        }
+        final Cache<Path> temporary = new PathCache(Integer.MAX_VALUE);
+        proxy.prefetch(directory, temporary, listener);
+        final Set<Path> vaults = new HashSet<Path>();
+        for(Path parent : temporary.keySet()) {
+            final Path key = new Path(parent, DefaultVaultRegistry.DEFAULT_MASTERKEY_FILE_NAME, EnumSet.of(Path.Type.file));
+            if(temporary.get(parent).contains(key)) {
+                vaults.add(parent);
+            }
+        }
+        for(Path parent : temporary.keySet()) {
+            if(this.isVault(parent, vaults)) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Skip prefetched listing of %s in vault", parent));
+                }
+                continue;
+            }
+            cache.put(parent, temporary.get(parent));
+        }
+    }
+
+    private boolean isVault(final Path directory, final Set<Path> vaults) {
+        for(Path vault : vaults) {
+            if(directory.equals(vault) || directory.isChild(vault)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("VaultRegistryPrefetchFeature{");
+        sb.append("proxy=").append(proxy);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -54,6 +54,7 @@ import org.apache.commons.lang3.concurrent.ConcurrentUtils;
 import org.apache.log4j.Logger;
 
 import java.text.MessageFormat;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -148,6 +149,18 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
      */
     protected abstract Future<TransferStatus> submit(TransferCallable callable) throws BackgroundException;
 
+    /**
+     * Submit to lane of scheduler
+     *
+     * @param callable Repeatable
+     * @param lane     Prepare or transfer
+     * @param length   Number of bytes to transfer
+     * @return Future transfer status
+     */
+    protected Future<TransferStatus> submit(final TransferCallable callable, final TransferScheduler.Lane lane, final long length) throws BackgroundException {
+        return this.submit(callable);
+    }
+
     /**
      * Borrow session from pool for transfer
      */
@@ -265,6 +278,8 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                     if(parent.isCanceled()) {
                         throw new TransferCanceledException();
                     }
+                    final TransferStatus status;
+                    final List<TransferItem> children;
                     final Session<?> source = borrow(Connection.source);
                     final Session<?> destination = borrow(Connection.destination);
                     try {
@@ -285,7 +300,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             progress.message(MessageFormat.format(LocaleFactory.localizedString("Prepare {0} ({1})", "Status"),
                                 file.getName(), action.getTitle()));
                             // Determine transfer status
-                            final TransferStatus status = filter.prepare(file, local, parent, progress);
+                            status = filter.prepare(file, local, parent, progress);
                             table.put(new TransferItem(file, local), status);
                             final TransferItem item = new TransferItem(
                                 status.getRename().remote != null ? status.getRename().remote : file,
@@ -299,21 +314,13 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             transfer.addTransferred(status.getOffset());
                             // Recursive
                             if(file.isDirectory()) {
-                                final List<TransferItem> children;
-                                // Call recursively for all children
                                 children = transfer.list(source, file, local, new WorkerListProgressListener(AbstractTransferWorker.this, progress));
                                 // Put into cache for later reference when transferring
                                 cache.put(item, new AttributedList<TransferItem>(children));
-                                // Call recursively
-                                for(TransferItem f : children) {
-                                    // Change download path relative to parent local folder
-                                    prepare(f.remote, f.local, status, action);
-                                }
                             }
-                            if(log.isInfoEnabled()) {
-                                log.info(String.format("Determined transfer status %s of %s for transfer %s", status, file, this));
+                            else {
+                                children = Collections.emptyList();
                             }
-                            return status;
                         }
                     }
                     catch(ConnectionCanceledException e) {
@@ -342,6 +349,15 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                         release(source, Connection.source, null);
                         release(destination, Connection.destination, null);
                     }
+                    // Call recursively for all children after releasing connections as these may be prepared in the same thread
+                    for(TransferItem f : children) {
+                        // Change download path relative to parent local folder
+                        prepare(f.remote, f.local, status, action);
+                    }
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Determined transfer status %s of %s for transfer %s", status, file, this));
+                    }
+                    return status;
                 }
 
                 @Override
@@ -352,7 +368,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                     sb.append('}');
                     return sb.toString();
                 }
-            });
+            }, TransferScheduler.Lane.prepare, 0L);
         }
         else {
             log.info(String.format("Skip unchecked file %s for transfer %s", file, this));
@@ -380,9 +396,16 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                         if(status.isCanceled()) {
                             throw new TransferCanceledException();
                         }
-                        // Transfer
-                        // Do transfer with retry
-                        this.retry(segment);
+                        if(segment.isSegment() && segment.isComplete()) {
+                            if(log.isInfoEnabled()) {
+                                log.info(String.format("Skip completed segment %s", segment));
+                            }
+                        }
+                        else {
+                            // Transfer
+                            // Do transfer with retry
+                            this.retry(segment);
+                        }
                         // Recursive
                         if(item.remote.isDirectory()) {
                             if(!cache.isCached(item)) {
@@ -402,7 +425,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             // Post process of file.
                             filter.complete(
                                 segment.getRename().remote != null ? segment.getRename().remote : item.remote,
-                                segment.getRename().local != null ? segment.getRename().local : item.local,
+                                segment.getRename().local != null ? segment.getRename().local : status.getRename().local != null ? status.getRename().local : item.local,
                                 options, segment, progress);
                         }
                         finally {
@@ -421,7 +444,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                         try {
                             transfer.transfer(s, d,
                                 segment.getRename().remote != null ? segment.getRename().remote : item.remote,
-                                segment.getRename().local != null ? segment.getRename().local : item.local,
+                                segment.getRename().local != null ? segment.getRename().local : status.getRename().local != null ? status.getRename().local : item.local,
                                 options, segment, connectionCallback, passwordCallback, progress, stream);
                         }
                         catch(ConnectionCanceledException e) {
@@ -434,6 +457,12 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             release(d, Connection.destination, e);
                             log.warn(String.format("Failure transferring %s. %s", item, e.getDetail()));
                             if(this.retry(e, progress, new TransferBackgroundActionState(status))) {
+                                if(segment.isSegment() && null == segment.getRename().local) {
+                                    // Bytes of failed attempt are discarded from offset. Segment written in place resumes at same position
+                                    log.info(String.format("Retry segment %s of %s", segment, item));
+                                    this.retry(segment);
+                                    return;
+                                }
                                 final Session<?> source = borrow(Connection.source);
                                 final Session<?> destination = borrow(Connection.destination);
                                 try {
@@ -488,7 +517,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                         sb.append('}');
                         return sb.toString();
                     }
-                });
+                }, TransferScheduler.Lane.transfer, segment.getLength());
             }
             return this.submit(new TransferCallable() {
                 @Override
@@ -538,7 +567,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                     sb.append('}');
                     return sb.toString();
                 }
-            });
+            }, status.isSegmented() ? TransferScheduler.Lane.complete : TransferScheduler.Lane.transfer, status.getLength());
         }
         else {
             log.warn(String.format("Skip file %s with unknown transfer status", item));
@@ -42,9 +42,7 @@ import ch.cyberduck.core.transfer.TransferStatus;
 
 import org.apache.log4j.Logger;
 
-import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -54,10 +52,9 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
     private final SessionPool source;
     private final SessionPool destination;
 
-    private final CompletionService<TransferStatus> completion;
+    private final TransferScheduler scheduler;
     // Keep number of submited tasks
     private final AtomicInteger size = new AtomicInteger();
-    private final ThreadPool pool;
 
     public ConcurrentTransferWorker(final SessionPool source,
                                     final SessionPool destination,
@@ -91,10 +88,10 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
         super(transfer, options, prompt, meter, error, progressListener, streamListener, connectionCallback, passwordCallback, notification);
         this.source = source;
         this.destination = destination;
-        this.pool = ThreadPoolFactory.get(String.format("%s-transfer", new AlphanumericRandomStringService().random()),
-            transfer.getSource().getTransferType() == Host.TransferType.newconnection ?
-                1 : PreferencesFactory.get().getInteger("queue.connections.limit"), priority);
-        this.completion = new ExecutorCompletionService<TransferStatus>(pool.executor());
+        final int concurrency = transfer.getSource().getTransferType() == Host.TransferType.newconnection ?
+            1 : PreferencesFactory.get().getInteger("queue.connections.limit");
+        this.scheduler = new TransferScheduler(ThreadPoolFactory.get(String.format("%s-transfer", new AlphanumericRandomStringService().random()),
+            concurrency, priority), concurrency, PreferencesFactory.get().getInteger("queue.scheduler.capacity"));
     }
 
     @Override
@@ -142,12 +139,16 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
 
     @Override
     public Future<TransferStatus> submit(final TransferCallable callable) {
+        return this.submit(callable, TransferScheduler.Lane.transfer, 0L);
+    }
+
+    @Override
+    protected Future<TransferStatus> submit(final TransferCallable callable, final TransferScheduler.Lane lane, final long length) {
         if(log.isInfoEnabled()) {
-            log.info(String.format("Submit %s to pool", callable));
+            log.info(String.format("Submit %s to %s lane", callable, lane));
         }
-        final Future<TransferStatus> f = completion.submit(callable);
         size.incrementAndGet();
-        return f;
+        return scheduler.submit(callable, lane, length);
     }
 
     @Override
@@ -156,9 +157,9 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
             // Repeat until no new entries in queue found
             try {
                 if(log.isInfoEnabled()) {
-                    log.info(String.format("Await completion for %d submitted tasks in queue", size.get()));
+                    log.info(String.format("Await completion for %d submitted tasks in %s", size.get(), scheduler));
                 }
-                final TransferStatus status = completion.take().get();
+                final TransferStatus status = scheduler.take().get();
                 if(log.isInfoEnabled()) {
                     log.info(String.format("Finished task with return value %s", status));
                 }
@@ -183,7 +184,7 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
 
     @Override
     public void cleanup(final Boolean result) {
-        pool.shutdown(result);
+        scheduler.shutdown(result);
     }
 
     @Override
@@ -191,7 +192,7 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
         final StringBuilder sb = new StringBuilder("ConcurrentTransferWorker{");
         sb.append("source=").append(source);
         sb.append(", destination=").append(destination);
-        sb.append(", pool=").append(completion);
+        sb.append(", scheduler=").append(scheduler);
         sb.append('}');
         return sb.toString();
     }
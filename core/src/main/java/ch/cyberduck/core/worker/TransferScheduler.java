@@ -0,0 +1,353 @@
+package ch.cyberduck.core.worker;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.log4j.Logger;
+
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedule tasks of a transfer on a fixed number of workers with separate lanes for preparing and transferring files.
+ * <ul>
+ * <li>Tasks in the prepare lane submitted by a worker are queued in its own deque and run depth first. Idle workers
+ * steal from the opposite end of the deques of other workers.</li>
+ * <li>Tasks in the transfer lane are ordered by transfer length to run small files first.</li>
+ * <li>The number of queued tasks per lane is bounded. When a lane is full, a worker submitting a task runs it
+ * immediately and other threads block until a slot is available.</li>
+ * </ul>
+ * Completed tasks are retrieved with {@link #take()}.
+ */
+public class TransferScheduler {
+    private static final Logger log = Logger.getLogger(TransferScheduler.class);
+
+    public enum Lane {
+        /**
+         * Listing and determining transfer status
+         */
+        prepare,
+        /**
+         * Transfer of files and segments
+         */
+        transfer,
+        /**
+         * Awaiting completion of segments. Not bounded and only run when no transfer is queued to make sure all
+         * segments of the file have been started.
+         */
+        complete
+    }
+
+    private final ThreadPool pool;
+    private final Worker[] workers;
+
+    /**
+     * Identify submissions from worker threads
+     */
+    private final ThreadLocal<Worker> current = new ThreadLocal<>();
+
+    /**
+     * Prepare tasks submitted by threads other than workers
+     */
+    private final Deque<Task> prepare = new ConcurrentLinkedDeque<>();
+    private final BlockingQueue<Task> transfer = new PriorityBlockingQueue<>();
+    private final Queue<Task> complete = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Free slots in bounded lanes
+     */
+    private final Map<Lane, Semaphore> slots = new EnumMap<>(Lane.class);
+    /**
+     * Number of tasks in all lanes to wake up idle workers
+     */
+    private final Semaphore available = new Semaphore(0);
+    private final BlockingQueue<Future<TransferStatus>> completed = new LinkedBlockingQueue<>();
+
+    private final Map<Lane, AtomicInteger> queued = new EnumMap<>(Lane.class);
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong inline = new AtomicLong();
+    private final AtomicLong stolen = new AtomicLong();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean shutdown;
+
+    /**
+     * @param pool        Thread pool to run workers
+     * @param concurrency Number of workers
+     * @param capacity    Maximum number of queued tasks in prepare and transfer lane
+     */
+    public TransferScheduler(final ThreadPool pool, final int concurrency, final int capacity) {
+        this.pool = pool;
+        this.workers = new Worker[concurrency];
+        for(int i = 0; i < concurrency; i++) {
+            workers[i] = new Worker();
+        }
+        for(Lane lane : Lane.values()) {
+            queued.put(lane, new AtomicInteger());
+        }
+        slots.put(Lane.prepare, new Semaphore(capacity));
+        slots.put(Lane.transfer, new Semaphore(capacity));
+    }
+
+    /**
+     * @param callable Task
+     * @param lane     Lane to queue task in
+     * @param length   Number of bytes to transfer used to order tasks in transfer lane
+     * @return Future also returned by {@link #take()} when completed
+     */
+    public Future<TransferStatus> submit(final Callable<TransferStatus> callable, final Lane lane, final long length) {
+        final Task task = new Task(callable, lane, length);
+        final Worker worker = current.get();
+        if(slots.containsKey(lane)) {
+            final Semaphore free = slots.get(lane);
+            if(!free.tryAcquire()) {
+                if(null != worker) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Run %s in worker with %s lane full", callable, lane));
+                    }
+                    inline.incrementAndGet();
+                    task.run();
+                    return task;
+                }
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Await free slot in %s lane for %s", lane, callable));
+                }
+                try {
+                    while(!free.tryAcquire(1L, TimeUnit.SECONDS)) {
+                        if(shutdown) {
+                            task.run();
+                            return task;
+                        }
+                    }
+                }
+                catch(InterruptedException e) {
+                    log.warn(String.format("Interrupted waiting for free slot. Run %s immediately", callable));
+                    Thread.currentThread().interrupt();
+                    task.run();
+                    return task;
+                }
+            }
+        }
+        queued.get(lane).incrementAndGet();
+        switch(lane) {
+            case prepare:
+                if(null == worker) {
+                    prepare.addLast(task);
+                }
+                else {
+                    worker.local.addFirst(task);
+                }
+                break;
+            case transfer:
+                transfer.add(task);
+                break;
+            case complete:
+                complete.add(task);
+                break;
+        }
+        this.start();
+        available.release();
+        return task;
+    }
+
+    /**
+     * Wait for next completed task
+     */
+    public Future<TransferStatus> take() throws InterruptedException {
+        return completed.take();
+    }
+
+    private void start() {
+        if(started.compareAndSet(false, true)) {
+            for(Worker worker : workers) {
+                pool.execute(worker);
+            }
+        }
+    }
+
+    /**
+     * @return Next task with transfers before prepare tasks and awaiting segments last
+     */
+    private Task poll(final Worker worker) {
+        Task task = transfer.poll();
+        if(null != task) {
+            return task;
+        }
+        // Depth first in own deque
+        task = worker.local.pollFirst();
+        if(null != task) {
+            return task;
+        }
+        task = prepare.pollFirst();
+        if(null != task) {
+            return task;
+        }
+        for(Worker other : workers) {
+            if(other == worker) {
+                continue;
+            }
+            task = other.local.pollLast();
+            if(null != task) {
+                stolen.incrementAndGet();
+                return task;
+            }
+        }
+        return complete.poll();
+    }
+
+    public void shutdown(final boolean gracefully) {
+        shutdown = true;
+        // Wake up idle workers
+        available.release(workers.length);
+        pool.shutdown(gracefully);
+    }
+
+    /**
+     * @return Number of tasks waiting in lane
+     */
+    public int getQueued(final Lane lane) {
+        return queued.get(lane).get();
+    }
+
+    /**
+     * @return Number of tasks currently run by workers
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return Number of tasks run by the submitting worker because the lane was full
+     */
+    public long getInline() {
+        return inline.get();
+    }
+
+    /**
+     * @return Number of prepare tasks taken from the deque of another worker
+     */
+    public long getStolen() {
+        return stolen.get();
+    }
+
+    private final class Task extends FutureTask<TransferStatus> implements Comparable<Task> {
+        private final Callable<TransferStatus> callable;
+        private final Lane lane;
+        private final long length;
+        private final long sequence;
+
+        public Task(final Callable<TransferStatus> callable, final Lane lane, final long length) {
+            super(callable);
+            this.callable = callable;
+            this.lane = lane;
+            this.length = length;
+            this.sequence = TransferScheduler.this.sequence.incrementAndGet();
+        }
+
+        @Override
+        protected void done() {
+            completed.add(this);
+        }
+
+        @Override
+        public int compareTo(final Task o) {
+            final int c = Long.compare(length, o.length);
+            if(0 == c) {
+                return Long.compare(sequence, o.sequence);
+            }
+            return c;
+        }
+
+        @Override
+        public String toString() {
+            return callable.toString();
+        }
+    }
+
+    private final class Worker implements Callable<Void> {
+        private final Deque<Task> local = new ConcurrentLinkedDeque<>();
+
+        @Override
+        public Void call() {
+            current.set(this);
+            try {
+                while(!shutdown) {
+                    if(!available.tryAcquire(1L, TimeUnit.SECONDS)) {
+                        continue;
+                    }
+                    if(shutdown) {
+                        break;
+                    }
+                    // A task is guaranteed to be queued for every permit acquired
+                    Task task;
+                    while(null == (task = poll(this))) {
+                        Thread.yield();
+                    }
+                    queued.get(task.lane).decrementAndGet();
+                    if(slots.containsKey(task.lane)) {
+                        slots.get(task.lane).release();
+                    }
+                    running.incrementAndGet();
+                    try {
+                        task.run();
+                    }
+                    finally {
+                        running.decrementAndGet();
+                    }
+                }
+            }
+            catch(InterruptedException e) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Interrupted worker in %s", TransferScheduler.this));
+                }
+            }
+            finally {
+                current.remove();
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("TransferScheduler{");
+        sb.append("workers=").append(workers.length);
+        sb.append(", queued=").append(queued);
+        sb.append(", running=").append(running);
+        sb.append(", inline=").append(inline);
+        sb.append(", stolen=").append(stolen);
+        sb.append('}');
+        return sb.toString();
+    }
+}
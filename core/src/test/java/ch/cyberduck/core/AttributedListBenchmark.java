@@ -0,0 +1,99 @@
+package ch.cyberduck.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare building and lookup in directory listings with the previous copy on write implementation. Run with
+ * <code>java -cp target/test-classes:target/classes:... ch.cyberduck.core.AttributedListBenchmark</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AttributedListBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private List<Path> files;
+
+    private AttributedList<Path> list;
+    private CopyOnWriteArrayList<Path> reference;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        files = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            files.add(new Path(directory, String.format("f-%d", i), EnumSet.of(Path.Type.file)));
+        }
+        list = new AttributedList<>(files);
+        reference = new CopyOnWriteArrayList<>(files);
+    }
+
+    /**
+     * Chunked appends as done by list services
+     */
+    @Benchmark
+    public AttributedList<Path> build() {
+        final AttributedList<Path> children = new AttributedList<>();
+        for(int i = 0; i < size; i += 1000) {
+            children.addAll(files.subList(i, Math.min(size, i + 1000)));
+        }
+        return children;
+    }
+
+    /**
+     * Previous implementation appending each file to a copy on write list. Measured once per iteration as building
+     * is quadratic and takes minutes for large listings.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 1)
+    public List<Path> buildCopyOnWrite() {
+        final List<Path> children = new CopyOnWriteArrayList<>();
+        for(Path f : files) {
+            children.add(f);
+        }
+        return children;
+    }
+
+    @Benchmark
+    public Path lookup() {
+        return list.get(files.get(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    @Benchmark
+    public Path lookupCopyOnWrite() {
+        final int index = reference.indexOf(files.get(ThreadLocalRandom.current().nextInt(size)));
+        return reference.get(index);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AttributedListBenchmark.class.getSimpleName()).build()).run();
+    }
+}
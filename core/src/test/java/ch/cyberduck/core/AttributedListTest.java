@@ -2,7 +2,9 @@ package ch.cyberduck.core;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import static org.junit.Assert.*;
@@ -80,4 +82,109 @@ public class AttributedListTest {
         assertNotSame(list, list.filter(new NullFilter<>()));
         assertEquals(list, list.filter(new NullFilter<>()));
     }
+
+    @Test
+    public void testLookup() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        final Path c = new Path("/c", EnumSet.of(Path.Type.file));
+        assertTrue(list.addAll(Arrays.asList(a, b)));
+        assertSame(b, list.get(new Path("/b", EnumSet.of(Path.Type.file))));
+        assertNull(list.get(new Path("/b", EnumSet.of(Path.Type.directory))));
+        assertEquals(1, list.indexOf(b));
+        list.add(0, c);
+        assertEquals(0, list.indexOf(c));
+        assertEquals(2, list.indexOf(b));
+        list.set(2, a);
+        assertEquals(1, list.indexOf(a));
+        assertFalse(list.contains(b));
+        assertTrue(list.remove(a));
+        assertEquals(1, list.indexOf(a));
+        list.remove(0);
+        assertEquals(0, list.indexOf(a));
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertEquals(-1, list.indexOf(a));
+    }
+
+    @Test
+    public void testIterateWhileAppending() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        for(int i = 0; i < 10; i++) {
+            list.add(new Path(String.format("/%d", i), EnumSet.of(Path.Type.file)));
+        }
+        int count = 0;
+        for(Path f : list) {
+            list.add(new Path(f.getAbsolute() + "-copy", EnumSet.of(Path.Type.file)));
+            count++;
+        }
+        assertEquals(10, count);
+        assertEquals(20, list.size());
+        final List<Path> snapshot = list.toList();
+        list.add(new Path("/z", EnumSet.of(Path.Type.file)));
+        assertEquals(20, snapshot.size());
+        assertEquals(21, list.size());
+    }
+
+    @Test
+    public void testLookupAfterAttributesChanged() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        list.addAll(Arrays.asList(a, b));
+        assertEquals(0, list.indexOf(a));
+        a.attributes().setVersionId("1");
+        assertEquals(0, list.indexOf(a));
+        assertTrue(list.contains(a));
+        assertSame(a, list.get(new Path("/a", EnumSet.of(Path.Type.directory), new PathAttributes().withVersionId("1"))));
+        a.attributes().setVersionId(null);
+        assertEquals(0, list.indexOf(a));
+    }
+
+    @Test
+    public void testLookupVersions() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path v1 = new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1"));
+        final Path d = new Path("/b", EnumSet.of(Path.Type.file));
+        final Path v2 = new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("2"));
+        list.addAll(Arrays.asList(v1, d, v2));
+        assertEquals(0, list.indexOf(v1));
+        assertEquals(2, list.indexOf(v2));
+        assertEquals(-1, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("3"))));
+    }
+
+    @Test
+    public void testLookupManyVersions() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        for(int i = 0; i < 100; i++) {
+            list.add(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId(String.valueOf(i))));
+            list.add(new Path(String.format("/f-%d", i), EnumSet.of(Path.Type.file)));
+        }
+        for(int i = 0; i < 100; i++) {
+            assertEquals(2 * i, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId(String.valueOf(i)))));
+        }
+        // Index rebuilt after removal
+        list.remove(0);
+        assertEquals(-1, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("0"))));
+        assertEquals(1, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1"))));
+        // Appended to rebuilt index
+        list.add(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("0")));
+        assertEquals(199, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("0"))));
+        assertEquals(197, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("99"))));
+    }
+
+    @Test
+    public void testSetDoesNotModifySnapshot() throws Exception {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.file));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        list.add(a);
+        final List<Path> snapshot = list.toList();
+        list.set(0, b);
+        assertSame(a, snapshot.get(0));
+        assertSame(b, list.get(0));
+        assertEquals(-1, list.indexOf(a));
+        assertEquals(0, list.indexOf(b));
+    }
 }
@@ -0,0 +1,41 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.local.DefaultLocalDirectoryFeature;
+import ch.cyberduck.core.local.LocalTouchFactory;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class FolderTransferCollectionTest {
+
+    @Test
+    public void testLoadDeleteManifestOfMissingTransfer() throws Exception {
+        final Local folder = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        new DefaultLocalDirectoryFeature().mkdir(folder);
+        final Local manifest = new Local(folder, String.format("%s.manifest", UUID.randomUUID().toString()));
+        LocalTouchFactory.get().touch(manifest);
+        final FolderTransferCollection collection = new FolderTransferCollection(folder);
+        collection.load();
+        assertTrue(collection.isEmpty());
+        assertFalse(manifest.exists());
+        folder.delete();
+    }
+}
@@ -0,0 +1,74 @@
+package ch.cyberduck.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation rate per map lookup with cached path identity compared to computing a new predicate. Run with the GC
+ * profiler and compare <code>gc.alloc.rate.norm</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PathBenchmark {
+
+    private final Map<Path, Path> map = new HashMap<>();
+
+    private Path file;
+    private Path lookup;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Path directory = new Path("/container/directory", EnumSet.of(Path.Type.directory));
+        for(int i = 0; i < 10000; i++) {
+            final Path f = new Path(directory, String.format("f-%d", i), EnumSet.of(Path.Type.file));
+            map.put(f, f);
+        }
+        file = new Path(directory, "f-1", EnumSet.of(Path.Type.file));
+        lookup = new Path(directory, "f-1", EnumSet.of(Path.Type.file));
+    }
+
+    @Benchmark
+    public Path lookup() {
+        return map.get(lookup);
+    }
+
+    @Benchmark
+    public boolean equals() {
+        return file.equals(lookup);
+    }
+
+    /**
+     * Previous implementation of equals
+     */
+    @Benchmark
+    public boolean equalsPredicate() {
+        return new DefaultPathPredicate(file).equals(new DefaultPathPredicate(lookup));
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PathBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class).build()).run();
+    }
+}
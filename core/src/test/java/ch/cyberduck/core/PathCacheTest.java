@@ -68,4 +68,102 @@ public class PathCacheTest {
         assertFalse(cache.containsKey(file));
         assertEquals(0, cache.keySet().size());
     }
+
+    @Test
+    public void testWeight() throws Exception {
+        // Maximum of 10 files derived from number of directories
+        final PathCache cache = new PathCache(2, 5L, -1L);
+        final AttributedList<Path> large = new AttributedList<Path>();
+        final Path directory = new Path("/large", EnumSet.of(Path.Type.directory));
+        for(int i = 0; i < 8; i++) {
+            large.add(new Path(directory, String.valueOf(i), EnumSet.of(Path.Type.file)));
+        }
+        cache.put(directory, large);
+        final Path empty = new Path("/empty", EnumSet.of(Path.Type.directory));
+        cache.put(empty, new AttributedList<Path>());
+        assertTrue(cache.isCached(directory));
+        assertTrue(cache.isCached(empty));
+        cache.put(new Path("/other", EnumSet.of(Path.Type.directory)), large);
+        assertFalse(cache.isCached(directory));
+        assertEquals(1L, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testWeightLargeListing() throws Exception {
+        final PathCache cache = new PathCache(1, 1000L, -1L);
+        final Path small = new Path("/small", EnumSet.of(Path.Type.directory));
+        cache.put(small, new AttributedList<Path>());
+        // Larger than the share of the maximum weight of a segment
+        final Path directory = new Path("/large", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> large = new AttributedList<Path>();
+        for(int i = 0; i < 500; i++) {
+            large.add(new Path(directory, String.valueOf(i), EnumSet.of(Path.Type.file)));
+        }
+        cache.put(directory, large);
+        assertTrue(cache.isCached(directory));
+        // Larger than maximum weight
+        final Path huge = new Path("/huge", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> children = new AttributedList<Path>();
+        for(int i = 0; i < 2000; i++) {
+            children.add(new Path(huge, String.valueOf(i), EnumSet.of(Path.Type.file)));
+        }
+        cache.put(huge, children);
+        assertTrue(cache.isCached(huge));
+        assertEquals(2000, cache.get(huge).size());
+    }
+
+    @Test
+    public void testWeightListingGrowsAfterPut() throws Exception {
+        final PathCache cache = new PathCache(1, 10L, -1L);
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        cache.put(a, new AttributedList<Path>());
+        final Path b = new Path("/b", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> list = new AttributedList<Path>();
+        cache.put(b, list);
+        for(int i = 0; i < 9; i++) {
+            list.add(new Path(b, String.valueOf(i), EnumSet.of(Path.Type.file)));
+        }
+        assertTrue(cache.isCached(a));
+        // Weight updated on access
+        assertEquals(9, cache.get(b).size());
+        assertFalse(cache.isCached(a));
+        assertTrue(cache.isCached(b));
+    }
+
+    @Test
+    public void testSize() throws Exception {
+        final PathCache cache = new PathCache(100);
+        for(int i = 0; i < 1000; i++) {
+            final Path directory = new Path(String.format("/%d", i), EnumSet.of(Path.Type.directory));
+            cache.put(directory, new AttributedList<Path>());
+            assertTrue(cache.isCached(directory));
+        }
+        assertTrue(cache.keySet().size() <= 100);
+        assertEquals(1000L - cache.keySet().size(), cache.getEvictionCount());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        final PathCache cache = new PathCache(1, -1L, 0L);
+        final Path f = new Path("/t", EnumSet.of(Path.Type.directory));
+        cache.put(f, new AttributedList<Path>());
+        Thread.sleep(10L);
+        assertTrue(cache.isCached(f));
+        assertFalse(cache.isValid(f));
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        final PathCache cache = new PathCache(1);
+        final Path f = new Path("/t", EnumSet.of(Path.Type.directory));
+        cache.get(f);
+        cache.put(f, new AttributedList<Path>());
+        cache.get(f);
+        cache.get(f);
+        assertEquals(2L, cache.getHitCount());
+        assertEquals(1L, cache.getMissCount());
+        cache.put(new Path("/o", EnumSet.of(Path.Type.directory)), new AttributedList<Path>());
+        assertFalse(cache.isCached(f));
+        assertEquals(1L, cache.getEvictionCount());
+    }
 }
@@ -149,4 +149,37 @@ public class PathTest {
         assertTrue(attributes.isSymbolicLink());
         assertTrue(attributes.isDirectory());
     }
+
+    @Test
+    public void testHashCodeInvalidated() throws Exception {
+        final Path file = new Path("/container/f", EnumSet.of(Path.Type.file));
+        final int hashCode = file.hashCode();
+        assertEquals(new DefaultPathPredicate(file).hashCode(), hashCode);
+        file.attributes().setVersionId("1");
+        assertNotEquals(hashCode, file.hashCode());
+        assertEquals(new DefaultPathPredicate(file).hashCode(), file.hashCode());
+        file.setAttributes(new PathAttributes());
+        assertEquals(hashCode, file.hashCode());
+        file.getType().add(Path.Type.symboliclink);
+        assertEquals(new DefaultPathPredicate(file).hashCode(), file.hashCode());
+        assertNotEquals(hashCode, file.hashCode());
+        file.setType(EnumSet.of(Path.Type.directory));
+        assertEquals(new Path("/container/f", EnumSet.of(Path.Type.directory)), file);
+        final Path container = new Path("/container", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final int containerHashCode = container.hashCode();
+        container.attributes().setRegion("us-east-1");
+        assertNotEquals(containerHashCode, container.hashCode());
+    }
+
+    @Test
+    public void testSerializeIdentity() {
+        final Path file = new Path("/container/f", EnumSet.of(Path.Type.file));
+        final int hashCode = file.hashCode();
+        final Path deserialized = new PathDictionary().deserialize(file.serialize(SerializerFactory.get()));
+        assertEquals(file, deserialized);
+        assertEquals(hashCode, deserialized.hashCode());
+        deserialized.attributes().setVersionId("1");
+        assertEquals(new DefaultPathPredicate(deserialized).hashCode(), deserialized.hashCode());
+        assertNotEquals(file, deserialized);
+    }
 }
@@ -0,0 +1,173 @@
+package ch.cyberduck.core.fileid;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Credentials;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.NotfoundException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FileidIndexTest {
+
+    private static final FileidIndex.Validator VALID = new FileidIndex.Validator() {
+        @Override
+        public boolean validate(final Path directory, final String id) {
+            return true;
+        }
+    };
+
+    @Test
+    public void testPut() throws Exception {
+        final FileidIndex index = new FileidIndex();
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Path file = new Path("/d/f", EnumSet.of(Path.Type.file));
+        index.put(directory, "1");
+        index.put(file, "2");
+        assertEquals("1", index.get(directory, VALID));
+        assertNull(index.get(file, VALID));
+        assertNull(index.get(new Path("/d", EnumSet.of(Path.Type.file)), VALID));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        final FileidIndex index = new FileidIndex();
+        index.put(new Path("/d", EnumSet.of(Path.Type.directory)), "1");
+        index.put(new Path("/d/c", EnumSet.of(Path.Type.directory)), "2");
+        index.put(new Path("/dc", EnumSet.of(Path.Type.directory)), "3");
+        index.remove(new Path("/d", EnumSet.of(Path.Type.directory)));
+        assertNull(index.get(new Path("/d/c", EnumSet.of(Path.Type.directory)), VALID));
+        assertEquals("3", index.get(new Path("/dc", EnumSet.of(Path.Type.directory)), VALID));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testInvalidate() {
+        final FileidIndex index = new FileidIndex();
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        index.put(directory, "1");
+        directory.attributes().setVersionId("1");
+        assertTrue(index.invalidate(directory));
+        assertNull(directory.attributes().getVersionId());
+        assertFalse(index.invalidate(directory));
+    }
+
+    @Test
+    public void testPersist() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final FileidIndex index = new FileidIndex(file);
+        index.put(new Path("/d", EnumSet.of(Path.Type.directory)), "1");
+        index.put(new Path("/d/c\tt\nn", EnumSet.of(Path.Type.directory)), "2");
+        index.put(new Path("/e", EnumSet.of(Path.Type.directory)), "3");
+        index.remove(new Path("/e", EnumSet.of(Path.Type.directory)));
+        final FileidIndex reloaded = new FileidIndex(file);
+        assertEquals(2, reloaded.size());
+        assertEquals("1", reloaded.get(new Path("/d", EnumSet.of(Path.Type.directory)), VALID));
+        assertEquals("2", reloaded.get(new Path("/d/c\tt\nn", EnumSet.of(Path.Type.directory)), VALID));
+        file.delete();
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final FileidIndex index = new FileidIndex(file);
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        for(int i = 0; i < 1100; i++) {
+            index.put(directory, String.valueOf(i));
+        }
+        assertTrue(IOUtils.readLines(file.getInputStream(), "UTF-8").size() < 1000);
+        index.compact();
+        assertEquals(2, IOUtils.readLines(file.getInputStream(), "UTF-8").size());
+        assertEquals("1099", new FileidIndex(file).get(directory, VALID));
+        file.delete();
+    }
+
+    @Test
+    public void testValidate() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Path other = new Path("/e", EnumSet.of(Path.Type.directory));
+        final FileidIndex index = new FileidIndex(file);
+        index.put(directory, "1");
+        index.put(other, "2");
+        // Confirmed in this session
+        assertEquals("1", index.get(directory, new FileidIndex.Validator() {
+            @Override
+            public boolean validate(final Path directory, final String id) {
+                fail();
+                return false;
+            }
+        }));
+        final FileidIndex reloaded = new FileidIndex(file);
+        final AtomicInteger validated = new AtomicInteger();
+        final FileidIndex.Validator validator = new FileidIndex.Validator() {
+            @Override
+            public boolean validate(final Path directory, final String id) {
+                validated.incrementAndGet();
+                return "1".equals(id);
+            }
+        };
+        assertEquals("1", reloaded.get(directory, validator));
+        // Validated on first use only
+        assertEquals("1", reloaded.get(directory, validator));
+        assertEquals(1, validated.get());
+        // Invalid entry is removed
+        assertNull(reloaded.get(other, validator));
+        assertEquals(1, reloaded.size());
+        assertNull(reloaded.get(other, new FileidIndex.Validator() {
+            @Override
+            public boolean validate(final Path directory, final String id) throws BackgroundException {
+                throw new NotfoundException(directory.getAbsolute());
+            }
+        }));
+        assertEquals(1, new FileidIndex(file).size());
+        file.delete();
+    }
+
+    @Test
+    public void testKey() {
+        assertSame(FileidIndex.get(new Host(new TestProtocol(), "h", new Credentials("u"))),
+            FileidIndex.get(new Host(new TestProtocol(), "h", new Credentials("u"))));
+        assertNotSame(FileidIndex.get(new Host(new TestProtocol(), "h", new Credentials("u"))),
+            FileidIndex.get(new Host(new TestProtocol(), "h", new Credentials("v"))));
+    }
+
+    @Test
+    public void testUnknownVersion() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final OutputStream out = file.getOutputStream(false);
+        IOUtils.write("V\t0\nP\t1\t/d\n", out, "UTF-8");
+        out.close();
+        final FileidIndex index = new FileidIndex(file);
+        assertEquals(0, index.size());
+        index.put(new Path("/e", EnumSet.of(Path.Type.directory)), "2");
+        assertEquals(1, new FileidIndex(file).size());
+        file.delete();
+    }
+}
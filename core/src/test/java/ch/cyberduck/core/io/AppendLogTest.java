@@ -0,0 +1,90 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class AppendLogTest {
+
+    @Test
+    public void testAppend() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final AppendLog log = new AppendLog(file, "V", "1");
+        assertFalse(log.read(new Collector()));
+        assertTrue(log.append("a", "t\tt", "n\nn\\r\r"));
+        assertTrue(log.append("b", null, ""));
+        log.close();
+        final Collector records = new Collector();
+        assertTrue(new AppendLog(file, "V", "1").read(records));
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[]{"a", "t\tt", "n\nn\\r\r"}, records.get(0));
+        assertArrayEquals(new String[]{"b", "", ""}, records.get(1));
+        file.delete();
+    }
+
+    @Test
+    public void testUnknownHeader() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final OutputStream out = file.getOutputStream(false);
+        IOUtils.write("V\t0\na\n", out, "UTF-8");
+        out.close();
+        final AppendLog log = new AppendLog(file, "V", "1");
+        final Collector records = new Collector();
+        assertFalse(log.read(records));
+        assertTrue(records.isEmpty());
+        // File with unknown format is replaced
+        assertTrue(log.append("b"));
+        log.close();
+        assertEquals("V\t1\nb\n", IOUtils.toString(file.getInputStream(), "UTF-8"));
+        file.delete();
+    }
+
+    @Test
+    public void testReplace() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final AppendLog log = new AppendLog(file);
+        log.read(new Collector());
+        for(int i = 0; i < 1001; i++) {
+            assertTrue(log.append(String.valueOf(i)));
+        }
+        assertFalse(log.isCompactionRequired(501));
+        assertTrue(log.isCompactionRequired(500));
+        assertTrue(log.replace(Collections.singletonList(new String[]{"c"})));
+        assertFalse(log.isCompactionRequired(0));
+        // Appended after replaced content
+        assertTrue(log.append("d"));
+        log.close();
+        assertEquals("c\nd\n", IOUtils.toString(file.getInputStream(), "UTF-8"));
+        file.delete();
+    }
+
+    private static final class Collector extends ArrayList<String[]> implements AppendLog.Reader {
+        @Override
+        public void read(final String[] fields) {
+            this.add(fields);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BandwidthThrottleTest {
+
+    @Test
+    public void testUnlimited() {
+        final BandwidthThrottle throttle = new BandwidthThrottle(BandwidthThrottle.UNLIMITED);
+        assertEquals(Integer.MAX_VALUE, throttle.request(Integer.MAX_VALUE));
+        assertEquals(1, throttle.request(1));
+    }
+
+    @Test
+    public void testRequest() {
+        final BandwidthThrottle throttle = new BandwidthThrottle(1000f);
+        // Bytes per tick
+        assertEquals(100, throttle.request(1000));
+        assertEquals(10, throttle.request(10));
+    }
+
+    @Test
+    public void testNested() {
+        final BandwidthThrottle parent = new BandwidthThrottle(100f);
+        final BandwidthThrottle throttle = new BandwidthThrottle(parent, BandwidthThrottle.UNLIMITED);
+        assertEquals(10, throttle.request(1000));
+        throttle.setRate(50f);
+        assertEquals(5, throttle.request(1000));
+        parent.setRate(BandwidthThrottle.UNLIMITED);
+        assertEquals(5, throttle.request(1000));
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        final BandwidthThrottle parent = new BandwidthThrottle(200000f);
+        final long bytes = this.transfer(new BandwidthThrottle(parent, 400000f), 16, 1000L);
+        // Limited by parent allowing one second plus initial burst
+        assertTrue(bytes <= (200000L + 20000L) * 11 / 10);
+        assertTrue(bytes >= 200000L / 2);
+    }
+
+    private volatile long deadline;
+
+    private long transfer(final BandwidthThrottle throttle, final int threads, final long duration) throws Exception {
+        final AtomicLong total = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for(int i = 0; i < threads; i++) {
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    }
+                    catch(InterruptedException e) {
+                        return;
+                    }
+                    while(System.nanoTime() < deadline) {
+                        final int granted = throttle.request(8192);
+                        if(System.nanoTime() < deadline) {
+                            total.addAndGet(granted);
+                        }
+                    }
+                }
+            });
+        }
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(duration);
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10L, TimeUnit.SECONDS));
+        return total.get();
+    }
+}
@@ -0,0 +1,73 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ByteArrayPoolTest {
+
+    @Test
+    public void testSizeclass() {
+        assertEquals(4096, ByteArrayPool.sizeclass(1));
+        assertEquals(4096, ByteArrayPool.sizeclass(4096));
+        assertEquals(8192, ByteArrayPool.sizeclass(4097));
+        assertEquals(32768, ByteArrayPool.sizeclass(32768));
+        assertEquals(1024 * 1024, ByteArrayPool.sizeclass(1024 * 1024));
+        assertEquals(2 * 1024 * 1024, ByteArrayPool.sizeclass(1024 * 1024 + 1));
+        assertEquals(10 * 1024 * 1024, ByteArrayPool.sizeclass(10 * 1024 * 1024));
+    }
+
+    @Test
+    public void testReuse() {
+        final ByteArrayPool pool = new ByteArrayPool(Long.MAX_VALUE);
+        final byte[] first = pool.acquire(32768);
+        assertEquals(32768, first.length);
+        assertEquals(32768L, pool.getOutstanding());
+        assertEquals(1L, pool.getMisses());
+        pool.release(first);
+        assertEquals(0L, pool.getOutstanding());
+        assertEquals(32768L, pool.getPooled());
+        assertSame(first, pool.acquire(30000));
+        assertEquals(1L, pool.getHits());
+        assertEquals(0.5d, pool.getHitRate(), 0d);
+        assertEquals(0L, pool.getPooled());
+        // Different size class
+        assertNotSame(first, pool.acquire(65536));
+        assertEquals(2L, pool.getMisses());
+    }
+
+    @Test
+    public void testLimit() {
+        final ByteArrayPool pool = new ByteArrayPool(32768L);
+        final byte[] first = pool.acquire(32768);
+        final byte[] second = pool.acquire(32768);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(0L, pool.getOutstanding());
+        assertEquals(32768L, pool.getPooled());
+    }
+
+    @Test
+    public void testReleaseForeign() {
+        final ByteArrayPool pool = new ByteArrayPool(Long.MAX_VALUE);
+        pool.release(new byte[1000]);
+        pool.release(null);
+        assertEquals(0L, pool.getPooled());
+        assertEquals(0L, pool.getOutstanding());
+    }
+}
@@ -0,0 +1,182 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChecksumIndexTest {
+
+    @Test
+    public void testCompute() throws Exception {
+        final Local local = this.create(100);
+        final Counting index = new Counting(null);
+        final Checksum checksum = index.compute(local, HashAlgorithm.sha256);
+        assertEquals(new SHA256ChecksumCompute().compute(local.getInputStream(), new TransferStatus()), checksum);
+        assertEquals(checksum, index.compute(local, HashAlgorithm.sha256));
+        assertEquals(1, index.count.get());
+        assertEquals(1L, index.getHitCount());
+        // Separate entry for each algorithm
+        index.compute(local, HashAlgorithm.md5);
+        assertEquals(2, index.count.get());
+        assertEquals(2, index.size());
+        local.delete();
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        final Local local = this.create(100);
+        final Counting index = new Counting(null);
+        final Checksum checksum = index.compute(local, HashAlgorithm.sha256);
+        this.write(local, 100);
+        assertTrue(local.attributes().getModificationDate() > 0L);
+        local.attributes().setModificationDate(local.attributes().getModificationDate() - 10000L);
+        final Checksum changed = index.compute(local, HashAlgorithm.sha256);
+        assertEquals(2, index.count.get());
+        assertEquals(new SHA256ChecksumCompute().compute(local.getInputStream(), new TransferStatus()), changed);
+        assertTrue(!checksum.equals(changed));
+        local.delete();
+    }
+
+    @Test
+    public void testRacy() throws Exception {
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        this.write(local, 100);
+        final long modified = local.attributes().getModificationDate();
+        final Counting index = new Counting(null);
+        index.compute(local, HashAlgorithm.sha256);
+        // Modified within timestamp resolution after checksum was computed
+        this.write(local, 100);
+        local.attributes().setModificationDate(modified);
+        assertEquals(new SHA256ChecksumCompute().compute(local.getInputStream(), new TransferStatus()),
+            index.compute(local, HashAlgorithm.sha256));
+        assertEquals(2, index.count.get());
+        assertEquals(0L, index.getHitCount());
+        local.delete();
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        final Local local = this.create(100);
+        final ChecksumIndex index = new DisabledChecksumIndex();
+        assertEquals(index.compute(local, HashAlgorithm.sha256), index.compute(local, HashAlgorithm.sha256));
+        assertEquals(0, index.size());
+        assertEquals(0L, index.getHitCount());
+        local.delete();
+    }
+
+    @Test
+    public void testPersist() throws Exception {
+        final Local local = this.create(100);
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final Checksum checksum = new Counting(file).compute(local, HashAlgorithm.sha256);
+        final Counting index = new Counting(file);
+        assertEquals(checksum, index.compute(local, HashAlgorithm.sha256));
+        assertEquals(0, index.count.get());
+        local.delete();
+        file.delete();
+    }
+
+    @Test
+    public void testDiscardPreviousVersion() throws Exception {
+        final Local local = this.create(100);
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final OutputStream out = file.getOutputStream(false);
+        final BasicFileAttributes attributes = Files.readAttributes(Paths.get(local.getAbsolute()), BasicFileAttributes.class);
+        // Entry matching file in previous format without header
+        IOUtils.write(String.format("sha256\t%d\t%d\t%s\t%d\t%s\t%s\n", attributes.size(), attributes.lastModifiedTime().toMillis(),
+            attributes.fileKey(), System.currentTimeMillis(), "a", local.getAbsolute()), out, "UTF-8");
+        out.close();
+        final Counting index = new Counting(file);
+        index.compute(local, HashAlgorithm.sha256);
+        assertEquals(1, index.count.get());
+        assertEquals(1, index.size());
+        final List<String> lines = IOUtils.readLines(file.getInputStream(), "UTF-8");
+        assertEquals(2, lines.size());
+        assertEquals("V\t2", lines.get(0));
+        local.delete();
+        file.delete();
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        final Local local = this.create(1);
+        final Local deleted = this.create(1);
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final Counting index = new Counting(file);
+        index.compute(deleted, HashAlgorithm.md5);
+        for(int i = 0; i < 1100; i++) {
+            local.attributes().setModificationDate(i * 1000L);
+            index.compute(local, HashAlgorithm.md5);
+        }
+        final List<String> lines = IOUtils.readLines(file.getInputStream(), "UTF-8");
+        assertTrue(lines.size() < 1000);
+        deleted.delete();
+        index.compact();
+        // Header and single entry
+        assertEquals(2, IOUtils.readLines(file.getInputStream(), "UTF-8").size());
+        assertEquals(1, index.size());
+        final Counting reloaded = new Counting(file);
+        reloaded.compute(local, HashAlgorithm.md5);
+        assertEquals(0, reloaded.count.get());
+        local.delete();
+        file.delete();
+    }
+
+    private Local create(final int length) throws Exception {
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        this.write(local, length);
+        // Modified before checksum is computed
+        local.attributes().setModificationDate(System.currentTimeMillis() - 60000L);
+        return local;
+    }
+
+    private void write(final Local local, final int length) throws Exception {
+        final OutputStream out = local.getOutputStream(false);
+        IOUtils.write(RandomUtils.nextBytes(length), out);
+        out.close();
+    }
+
+    private static final class Counting extends ChecksumIndex {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Counting(final Local file) {
+            super(file);
+        }
+
+        @Override
+        protected Checksum digest(final Local local, final HashAlgorithm algorithm) throws BackgroundException {
+            count.incrementAndGet();
+            return super.digest(local, algorithm);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.ChecksumException;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.NullInputStream;
+import org.apache.commons.text.RandomStringGenerator;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChecksumInputStreamTest {
+
+    @Test
+    public void testEmpty() throws Exception {
+        final ChecksumInputStream in = new ChecksumInputStream(new NullInputStream(0L), HashAlgorithm.sha256);
+        IOUtils.toByteArray(in);
+        assertEquals(new Checksum(HashAlgorithm.sha256, "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"),
+            in.getChecksum());
+        // Repeated calls return same checksum
+        assertEquals(in.getChecksum(), in.getChecksum());
+    }
+
+    @Test
+    public void testTransfer() throws Exception {
+        final byte[] bytes = new RandomStringGenerator.Builder().build().generate(39865).getBytes();
+        final TransferStatus status = new TransferStatus().skip(1).length(bytes.length - 2);
+        final ChecksumInputStream in = new ChecksumInputStream(new ByteArrayInputStream(bytes), HashAlgorithm.md5);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        new StreamCopier(status, status).withOffset(status.getOffset()).withLimit(status.getLength()).transfer(in, out);
+        assertEquals(bytes.length - 2, out.size());
+        // Same as separate pass with skipped offset
+        assertEquals(new MD5ChecksumCompute().compute(new ByteArrayInputStream(bytes), new TransferStatus().skip(1).length(bytes.length - 2)),
+            in.getChecksum());
+    }
+
+    @Test
+    public void testAlgorithms() throws Exception {
+        for(HashAlgorithm algorithm : new HashAlgorithm[]{HashAlgorithm.md5, HashAlgorithm.sha1, HashAlgorithm.sha256, HashAlgorithm.sha512}) {
+            final ChecksumInputStream in = new ChecksumInputStream(IOUtils.toInputStream("input", Charset.defaultCharset()), algorithm);
+            IOUtils.toByteArray(in);
+            assertEquals(ChecksumComputeFactory.get(algorithm).compute(IOUtils.toInputStream("input", Charset.defaultCharset()), new TransferStatus()),
+                in.getChecksum());
+        }
+    }
+
+    @Test(expected = ChecksumException.class)
+    public void testUnsupported() throws Exception {
+        new ChecksumInputStream(new NullInputStream(0L), HashAlgorithm.crc32);
+    }
+}
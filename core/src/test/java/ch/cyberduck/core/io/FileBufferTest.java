@@ -15,10 +15,22 @@ package ch.cyberduck.core.io;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.AlphanumericRandomStringService;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.local.TemporaryFileServiceFactory;
+
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.*;
 
 public class FileBufferTest {
@@ -98,4 +110,60 @@ public class FileBufferTest {
         assertEquals(0L, buffer.length(), 0L);
         assertEquals(IOUtils.EOF, buffer.read(new byte[10], 100L));
     }
+
+    @Test
+    public void testThreshold() throws Exception {
+        final Local temporary = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final FileBuffer buffer = new FileBuffer(temporary, 150);
+        final byte[] chunk = RandomUtils.nextBytes(100);
+        buffer.write(chunk, 0L);
+        assertFalse(temporary.exists());
+        buffer.write(chunk, 100L);
+        assertTrue(temporary.exists());
+        assertEquals(200L, buffer.length(), 0L);
+        final byte[] read = new byte[200];
+        assertEquals(200, buffer.read(read, 0L));
+        assertArrayEquals(chunk, Arrays.copyOfRange(read, 0, 100));
+        assertArrayEquals(chunk, Arrays.copyOfRange(read, 100, 200));
+        buffer.close();
+        assertFalse(temporary.exists());
+    }
+
+    @Test
+    public void testTruncateMemory() throws Exception {
+        final FileBuffer buffer = new FileBuffer();
+        buffer.write(RandomUtils.nextBytes(100), 0L);
+        buffer.truncate(1L);
+        buffer.write(new byte[1], 50L);
+        final byte[] read = new byte[50];
+        assertEquals(50, buffer.read(read, 1L));
+        assertArrayEquals(new byte[50], read);
+    }
+
+    @Test
+    public void testConcurrentWrite() throws Exception {
+        final Local temporary = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final FileBuffer buffer = new FileBuffer(temporary, 0);
+        final byte[] content = RandomUtils.nextBytes(64 * 1024);
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        final List<Future<Integer>> futures = new ArrayList<>();
+        for(int i = 0; i < 64; i++) {
+            final int offset = i * 1024;
+            futures.add(pool.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return buffer.write(Arrays.copyOfRange(content, offset, offset + 1024), (long) offset);
+                }
+            }));
+        }
+        for(Future<Integer> f : futures) {
+            assertEquals(1024, f.get(), 0);
+        }
+        pool.shutdown();
+        assertEquals(content.length, buffer.length(), 0L);
+        final byte[] read = new byte[content.length];
+        assertEquals(content.length, buffer.read(read, 0L));
+        assertArrayEquals(content, read);
+        buffer.close();
+    }
 }
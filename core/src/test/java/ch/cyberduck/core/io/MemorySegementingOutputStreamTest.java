@@ -60,4 +60,20 @@ public class MemorySegementingOutputStreamTest {
         out.close();
         assertArrayEquals(content, proxy.toByteArray());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCopyMultipleSegments() throws Exception {
+        final ByteArrayOutputStream proxy = new ByteArrayOutputStream(100000);
+        final ByteArrayPool pool = new ByteArrayPool(Long.MAX_VALUE);
+        final MemorySegementingOutputStream out = new MemorySegementingOutputStream(proxy, 32768,
+            new PooledByteArrayOutputStream(pool, 32768));
+        final byte[] content = RandomUtils.nextBytes(100000);
+        out.write(content, 0, 80000);
+        assertEquals(65536, proxy.toByteArray().length);
+        out.write(content, 80000, 20000);
+        out.close();
+        assertArrayEquals(content, proxy.toByteArray());
+        assertEquals(0L, pool.getOutstanding());
+        assertEquals(32768L, pool.getPooled());
+    }
+}
@@ -7,14 +7,20 @@ import ch.cyberduck.core.transfer.TransferStatus;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.NullInputStream;
 import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.text.RandomStringGenerator;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.*;
 
@@ -168,4 +174,28 @@ public class StreamCopierTest {
         assertTrue(status.isCanceled());
         assertEquals(32768L, status.getOffset());
     }
+
+    @Test
+    public void testTransferFileChannel() throws Exception {
+        final byte[] bytes = RandomUtils.nextBytes(100000);
+        final java.nio.file.Path source = Files.createTempFile(null, null);
+        final java.nio.file.Path target = Files.createTempFile(null, null);
+        Files.write(source, bytes);
+        final TransferStatus status = new TransferStatus();
+        final AtomicLong chunks = new AtomicLong();
+        new StreamCopier(status, status).withOffset(1000L).withLimit(90000L).withChunksize(32768).withListener(new DisabledStreamListener() {
+            @Override
+            public void sent(final long bytes) {
+                assertTrue(bytes <= 32768L);
+                chunks.incrementAndGet();
+            }
+        }).transfer(new FileChannelInputStream(FileChannel.open(source, StandardOpenOption.READ)),
+            new FileChannelOutputStream(FileChannel.open(target, StandardOpenOption.WRITE)));
+        assertEquals(90000L, status.getOffset());
+        assertTrue(status.isComplete());
+        assertEquals(3L, chunks.get());
+        assertArrayEquals(Arrays.copyOfRange(bytes, 1000, 91000), Files.readAllBytes(target));
+        Files.delete(source);
+        Files.delete(target);
+    }
 }
@@ -7,9 +7,12 @@ import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.LocalAccessDeniedException;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 import static org.junit.Assert.*;
@@ -201,6 +204,25 @@ public class LocalTest {
         l.delete();
     }
 
+    @Test
+    public void testWriteSegmentsInPlace() throws Exception {
+        Local l = new TestLocal(String.format("%s/%s", System.getProperty("java.io.tmpdir"), new AlphanumericRandomStringService().random()));
+        l.allocate(6L);
+        assertEquals(6L, l.attributes().getSize());
+        final OutputStream second = l.getOutputStream(3L);
+        final OutputStream first = l.getOutputStream(0L);
+        second.write("def".getBytes(StandardCharsets.UTF_8));
+        first.write("abc".getBytes(StandardCharsets.UTF_8));
+        second.close();
+        first.close();
+        assertEquals("abcdef", IOUtils.toString(l.getInputStream(), StandardCharsets.UTF_8));
+        l.allocate(6L);
+        assertEquals("abcdef", IOUtils.toString(l.getInputStream(), StandardCharsets.UTF_8));
+        l.allocate(2L);
+        assertEquals("ab", IOUtils.toString(l.getInputStream(), StandardCharsets.UTF_8));
+        l.delete();
+    }
+
     @Test
     public void testNormalize() throws Exception {
         assertEquals(StringUtils.removeEnd(System.getProperty("java.io.tmpdir"),
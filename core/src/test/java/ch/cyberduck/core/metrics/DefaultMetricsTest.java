@@ -0,0 +1,47 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.features.Read;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultMetricsTest {
+
+    @Test
+    public void testIncrement() {
+        final DefaultMetrics metrics = new DefaultMetrics();
+        assertEquals(0L, metrics.get(Read.class));
+        metrics.increment(Read.class);
+        metrics.increment(Read.class, 2L);
+        assertEquals(3L, metrics.get(Read.class));
+        assertEquals(3L, metrics.getCounters().get("feature.Read").longValue());
+    }
+
+    @Test
+    public void testRecord() {
+        final DefaultMetrics metrics = new DefaultMetrics();
+        metrics.record("read.latency", 10L);
+        metrics.record("read.latency", 20L);
+        metrics.gauge("pool.active", 2L);
+        assertEquals(2L, metrics.getHistograms().get("read.latency").getCount());
+        assertEquals(2L, metrics.getGauges().get("pool.active").longValue());
+        assertTrue(metrics.getCounters().isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    public void testIndex() {
+        for(long value = 0L; value < 100000L; value++) {
+            final int index = Histogram.index(value);
+            assertTrue(value <= Histogram.highest(index));
+            if(index > 0) {
+                assertTrue(value > Histogram.highest(index - 1));
+            }
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.highest(Histogram.index(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testEmpty() {
+        final Histogram histogram = new Histogram();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMin());
+        assertEquals(0L, histogram.getMax());
+        assertEquals(0L, histogram.getValueAtPercentile(99d));
+    }
+
+    @Test
+    public void testPercentile() {
+        final Histogram histogram = new Histogram();
+        for(long value = 1L; value <= 10000L; value++) {
+            histogram.record(value * 1000L);
+        }
+        assertEquals(10000L, histogram.getCount());
+        assertEquals(1000L, histogram.getMin());
+        assertEquals(10000000L, histogram.getMax());
+        assertEquals(5000500d, histogram.getMean(), 0.1d);
+        // Relative error of bucket
+        assertEquals(5000000d, histogram.getValueAtPercentile(50d), 5000000d / 16);
+        assertEquals(9900000d, histogram.getValueAtPercentile(99d), 9900000d / 16);
+        assertEquals(10000000L, histogram.getValueAtPercentile(100d));
+    }
+}
@@ -0,0 +1,43 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonMetricsExporterTest {
+
+    @Test
+    public void testExport() throws Exception {
+        final DefaultMetrics metrics = new DefaultMetrics();
+        metrics.increment("read.bytes", 100L);
+        metrics.record("read.latency", 5L);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JsonMetricsExporter().export(metrics, out);
+        final JsonObject json = new JsonParser().parse(new StringReader(new String(out.toByteArray(), StandardCharsets.UTF_8))).getAsJsonObject();
+        assertEquals(100L, json.getAsJsonObject("counters").get("read.bytes").getAsLong());
+        assertEquals(0, json.getAsJsonObject("gauges").size());
+        assertEquals(5L, json.getAsJsonObject("histograms").getAsJsonObject("read.latency").get("p99").getAsLong());
+    }
+}
@@ -0,0 +1,126 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.DisabledConnectionCallback;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.features.Read;
+import ch.cyberduck.core.io.FileChannelInputStream;
+import ch.cyberduck.core.io.FileChannelOutputStream;
+import ch.cyberduck.core.io.FileChannelStream;
+import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetricsReadFeatureTest {
+
+    @Test
+    public void testRead() throws Exception {
+        final DefaultMetrics metrics = new DefaultMetrics();
+        final Read feature = new MetricsReadFeature(new Read() {
+            @Override
+            public InputStream read(final Path file, final TransferStatus status, final ConnectionCallback callback) {
+                return new ByteArrayInputStream(new byte[1000]);
+            }
+
+            @Override
+            public boolean offset(final Path file) {
+                return false;
+            }
+        }, metrics);
+        final InputStream in = feature.read(new Path("/f", EnumSet.of(Path.Type.file)), new TransferStatus(), new DisabledConnectionCallback());
+        assertEquals(1000, IOUtils.toByteArray(in).length);
+        in.close();
+        in.close();
+        assertEquals(1000L, metrics.get("read.bytes"));
+        assertEquals(1L, metrics.getHistograms().get("read.open").getCount());
+        assertEquals(1L, metrics.getHistograms().get("read.throughput").getCount());
+    }
+
+    @Test
+    public void testReadFileChannel() throws Exception {
+        final java.nio.file.Path source = Files.createTempFile(null, null);
+        final java.nio.file.Path target = Files.createTempFile(null, null);
+        Files.write(source, new byte[1000]);
+        final DefaultMetrics metrics = new DefaultMetrics();
+        final Read feature = new MetricsReadFeature(new Read() {
+            @Override
+            public InputStream read(final Path file, final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+                try {
+                    return new FileChannelInputStream(FileChannel.open(source, StandardOpenOption.READ));
+                }
+                catch(IOException e) {
+                    throw new DefaultIOExceptionMappingService().map(e);
+                }
+            }
+
+            @Override
+            public boolean offset(final Path file) {
+                return false;
+            }
+        }, metrics);
+        final InputStream in = feature.read(new Path("/f", EnumSet.of(Path.Type.file)), new TransferStatus(), new DisabledConnectionCallback());
+        // Copy with channel is not hidden by wrapper
+        assertTrue(in instanceof FileChannelStream);
+        final TransferStatus status = new TransferStatus();
+        new StreamCopier(status, status).transfer(in, new FileChannelOutputStream(FileChannel.open(target, StandardOpenOption.WRITE)));
+        assertEquals(1000L, Files.size(target));
+        assertEquals(1000L, metrics.get("read.bytes"));
+        Files.delete(source);
+        Files.delete(target);
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final DefaultMetrics metrics = new DefaultMetrics();
+        final Read feature = new MetricsReadFeature(new Read() {
+            @Override
+            public InputStream read(final Path file, final TransferStatus status, final ConnectionCallback callback) throws NotfoundException {
+                throw new NotfoundException(file.getAbsolute());
+            }
+
+            @Override
+            public boolean offset(final Path file) {
+                return false;
+            }
+        }, metrics);
+        try {
+            feature.read(new Path("/f", EnumSet.of(Path.Type.file)), new TransferStatus(), new DisabledConnectionCallback());
+            fail();
+        }
+        catch(NotfoundException e) {
+            assertEquals(1L, metrics.get("read.failure"));
+        }
+    }
+}
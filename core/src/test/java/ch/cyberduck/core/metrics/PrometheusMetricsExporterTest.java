@@ -0,0 +1,41 @@
+package ch.cyberduck.core.metrics;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertTrue;
+
+public class PrometheusMetricsExporterTest {
+
+    @Test
+    public void testExport() throws Exception {
+        final DefaultMetrics metrics = new DefaultMetrics();
+        metrics.increment("read.bytes", 100L);
+        metrics.gauge("pool.active", 1L);
+        metrics.record("read.latency", 5L);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PrometheusMetricsExporter().export(metrics, out);
+        final String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(text.contains("# TYPE cyberduck_read_bytes_total counter\ncyberduck_read_bytes_total 100\n"));
+        assertTrue(text.contains("cyberduck_pool_active 1\n"));
+        assertTrue(text.contains("cyberduck_read_latency{quantile=\"0.99\"} 5\n"));
+        assertTrue(text.contains("cyberduck_read_latency_count 1\n"));
+    }
+}
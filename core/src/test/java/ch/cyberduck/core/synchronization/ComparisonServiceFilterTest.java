@@ -1,6 +1,7 @@
 package ch.cyberduck.core.synchronization;
 
 import ch.cyberduck.core.AlphanumericRandomStringService;
+import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.DisabledProgressListener;
 import ch.cyberduck.core.Host;
 import ch.cyberduck.core.LocalAttributes;
@@ -8,6 +9,7 @@ import ch.cyberduck.core.NullLocal;
 import ch.cyberduck.core.NullSession;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.TestProtocol;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.AttributesFinder;
@@ -18,9 +20,11 @@ import ch.cyberduck.core.io.HashAlgorithm;
 import org.junit.Test;
 
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.TimeZone;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -73,6 +77,41 @@ public class ComparisonServiceFilterTest {
         assertTrue(attr.get());
     }
 
+    @Test
+    public void testAttributesFromListing() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final AttributesFinder attributes = new AttributesFinder() {
+            @Override
+            public PathAttributes find(final Path file) throws BackgroundException {
+                count.incrementAndGet();
+                return file.attributes();
+            }
+        };
+        final Find find = new Find() {
+            @Override
+            public boolean find(final Path file) throws BackgroundException {
+                return true;
+            }
+        };
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Path file = new Path(directory, "f", EnumSet.of(Path.Type.file));
+        file.attributes().setSize(3L);
+        final PathCache cache = new PathCache(1);
+        cache.put(directory, new AttributedList<Path>(Collections.singletonList(file)));
+        final NullLocal local = new NullLocal("f") {
+            @Override
+            public boolean exists() {
+                return true;
+            }
+        };
+        final ComparisonServiceFilter s = new ComparisonServiceFilter(new NullSession(new Host(new TestProtocol())),
+            TimeZone.getDefault(), new DisabledProgressListener()).withFinder(find).withAttributes(attributes).withCache(cache);
+        s.withListing(false).compare(file, local);
+        assertEquals(1, count.get());
+        s.withListing(true).compare(file, local);
+        assertEquals(1, count.get());
+    }
+
     @Test
     public void testCompareEqualResultDirectory() throws Exception {
         final AtomicBoolean found = new AtomicBoolean();
@@ -0,0 +1,202 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Credentials;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PartSchedulerTest {
+
+    @Test
+    public void testLimit() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(4);
+        final CountDownLatch started = new CountDownLatch(4);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maximum = new AtomicInteger();
+        final List<Future<Integer>> futures = new ArrayList<>();
+        for(int i = 0; i < 3; i++) {
+            final PartScheduler.Upload upload = scheduler.create(3);
+            for(int part = 0; part < 10; part++) {
+                futures.add(upload.execute(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        final int current = running.incrementAndGet();
+                        synchronized(maximum) {
+                            maximum.set(Math.max(maximum.get(), current));
+                        }
+                        started.countDown();
+                        // Hold the first parts until all slots are taken
+                        assertTrue(release.await(10L, TimeUnit.SECONDS));
+                        running.decrementAndGet();
+                        return current;
+                    }
+                }));
+            }
+        }
+        assertTrue(started.await(10L, TimeUnit.SECONDS));
+        // No further part started while all slots are taken by blocked parts
+        assertEquals(4, running.get());
+        release.countDown();
+        for(Future<Integer> future : futures) {
+            assertTrue(future.get(10L, TimeUnit.SECONDS) <= 4);
+        }
+        assertEquals(4, maximum.get());
+    }
+
+    @Test
+    public void testRegistry() throws Exception {
+        final Host host = new Host(new TestProtocol(), "parts.example.net", new Credentials("u"));
+        PreferencesFactory.get().setProperty("queue.upload.parts.limit", 2);
+        try {
+            final PartScheduler.Upload first = PartScheduler.create(host, 1);
+            final PartScheduler scheduler = PartScheduler.get(host);
+            assertNotNull(scheduler);
+            assertEquals(2, scheduler.getLimit());
+            // Limit is read again for every upload registered
+            PreferencesFactory.get().setProperty("queue.upload.parts.limit", 3);
+            final PartScheduler.Upload second = PartScheduler.create(host, 1);
+            assertSame(scheduler, PartScheduler.get(host));
+            assertEquals(3, scheduler.getLimit());
+            first.shutdown();
+            // Repeated shutdown does not release twice
+            first.shutdown();
+            assertSame(scheduler, PartScheduler.get(host));
+            second.shutdown();
+            // Removed when no upload is left
+            assertNull(PartScheduler.get(host));
+            // Separate scheduler for other user
+            final PartScheduler.Upload other = PartScheduler.create(new Host(new TestProtocol(), "parts.example.net", new Credentials("v")), 1);
+            assertNull(PartScheduler.get(host));
+            other.shutdown();
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.upload.parts.limit");
+        }
+    }
+
+    @Test
+    public void testSetLimit() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(1);
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final PartScheduler.Upload upload = scheduler.create(2);
+        final List<Future<Boolean>> futures = new ArrayList<>();
+        for(int part = 0; part < 2; part++) {
+            futures.add(upload.execute(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    started.countDown();
+                    return release.await(10L, TimeUnit.SECONDS);
+                }
+            }));
+        }
+        // Queued part starts when limit is raised
+        scheduler.setLimit(2);
+        assertTrue(started.await(10L, TimeUnit.SECONDS));
+        release.countDown();
+        for(Future<Boolean> future : futures) {
+            assertTrue(future.get(10L, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testPriority() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(1);
+        final CountDownLatch block = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final PartScheduler.Upload large = scheduler.create(1);
+        final PartScheduler.Upload small = scheduler.create(1);
+        final Future<Boolean> first = large.execute(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return block.await(10L, TimeUnit.SECONDS);
+            }
+        });
+        final List<Future<String>> futures = new ArrayList<>();
+        for(int part = 0; part < 3; part++) {
+            futures.add(large.execute(new Part("large", order)));
+        }
+        futures.add(small.execute(new Part("small", order)));
+        block.countDown();
+        assertTrue(first.get());
+        for(Future<String> future : futures) {
+            future.get(10L, TimeUnit.SECONDS);
+        }
+        // Part of file with fewer remaining parts runs first
+        assertEquals("small", order.get(0));
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final PartScheduler.Upload upload = scheduler.create(1);
+        final Future<Boolean> running = upload.execute(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                started.countDown();
+                Thread.sleep(10000L);
+                return true;
+            }
+        });
+        final Future<String> queued = upload.execute(new Part("queued", new ArrayList<String>()));
+        assertTrue(started.await(10L, TimeUnit.SECONDS));
+        upload.shutdown();
+        assertTrue(queued.isCancelled());
+        try {
+            running.get(10L, TimeUnit.SECONDS);
+            fail();
+        }
+        catch(CancellationException e) {
+            //
+        }
+        // Budget is released for other files
+        assertEquals("other", scheduler.create(1).execute(new Part("other", new ArrayList<String>())).get(10L, TimeUnit.SECONDS));
+    }
+
+    private static final class Part implements Callable<String> {
+        private final String name;
+        private final List<String> order;
+
+        private Part(final String name, final List<String> order) {
+            this.name = name;
+            this.order = order;
+        }
+
+        @Override
+        public String call() {
+            order.add(name);
+            return name;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ch.cyberduck.core.transfer;
 
 import ch.cyberduck.core.*;
 import ch.cyberduck.core.exception.LocalAccessDeniedException;
+import ch.cyberduck.core.features.Prefetch;
 import ch.cyberduck.core.features.Read;
 import ch.cyberduck.core.filter.DownloadRegexFilter;
 import ch.cyberduck.core.io.DisabledStreamListener;
@@ -21,11 +22,13 @@ import org.junit.Test;
 
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -91,6 +94,81 @@ public class DownloadTransferTest {
         }
     }
 
+    @Test
+    public void testListPrefetch() throws Exception {
+        final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Path directory = new Path("/t/d", EnumSet.of(Path.Type.directory));
+        final AtomicInteger prefetched = new AtomicInteger();
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                fail();
+                return null;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Prefetch.class) {
+                    return (T) new Prefetch() {
+                        @Override
+                        public void prefetch(final Path file, final Cache<Path> cache, final ListProgressListener listener) {
+                            assertEquals(root, file);
+                            prefetched.incrementAndGet();
+                            cache.put(root, new AttributedList<Path>(Collections.singletonList(directory)));
+                            cache.put(directory, new AttributedList<Path>(Collections.singletonList(new Path("/t/d/f", EnumSet.of(Path.Type.file)))));
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+        };
+        final Transfer t = new DownloadTransfer(new Host(new TestProtocol()), root, new NullLocal("l"));
+        final List<TransferItem> children = t.list(session, root, new NullLocal("t"), new DisabledListProgressListener());
+        assertEquals(1, children.size());
+        assertEquals(directory, children.get(0).remote);
+        // Descendants are not prefetched again
+        assertEquals(new Path("/t/d/f", EnumSet.of(Path.Type.file)),
+            t.list(session, directory, new NullLocal("t", "d"), new DisabledListProgressListener()).get(0).remote);
+        assertEquals(1, prefetched.get());
+    }
+
+    @Test
+    public void testListPrefetchExceedsCache() throws Exception {
+        final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Path a = new Path(root, "a", EnumSet.of(Path.Type.directory));
+        final Path b = new Path(root, "b", EnumSet.of(Path.Type.directory));
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                fail();
+                return null;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Prefetch.class) {
+                    return (T) new Prefetch() {
+                        @Override
+                        public void prefetch(final Path file, final Cache<Path> cache, final ListProgressListener listener) {
+                            cache.put(root, new AttributedList<Path>(Arrays.asList(a, b)));
+                            cache.put(a, new AttributedList<Path>(Collections.singletonList(new Path(a, "f", EnumSet.of(Path.Type.file)))));
+                            cache.put(b, new AttributedList<Path>(Collections.singletonList(new Path(b, "f", EnumSet.of(Path.Type.file)))));
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+        };
+        // Transfer cache smaller than number of prefetched listings
+        final Transfer t = new DownloadTransfer(new Host(new TestProtocol()), root, new NullLocal("l"))
+            .withCache(new PathCache(1));
+        assertEquals(2, t.list(session, root, new NullLocal("t"), new DisabledListProgressListener()).size());
+        assertEquals(1, t.list(session, a, new NullLocal("t", "a"), new DisabledListProgressListener()).size());
+        assertEquals(1, t.list(session, b, new NullLocal("t", "b"), new DisabledListProgressListener()).size());
+    }
+
     @Test
     public void testChildrenEmpty() throws Exception {
         final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
@@ -32,13 +32,16 @@ import ch.cyberduck.core.TestProtocol;
 import ch.cyberduck.core.exception.LocalAccessDeniedException;
 import ch.cyberduck.core.local.DefaultLocalDirectoryFeature;
 import ch.cyberduck.core.synchronization.Comparison;
+import ch.cyberduck.core.transfer.synchronisation.SyncManifest;
 
 import org.junit.Test;
 
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -265,4 +268,50 @@ public class SyncTransferTest {
         assertTrue(t.filter(session, null, TransferAction.upload, new DisabledProgressListener()).accept(root, directory, new TransferStatus().exists(true)));
         assertFalse(t.filter(session, null, TransferAction.upload, new DisabledProgressListener()).accept(a, local, new TransferStatus().exists(true)));
     }
+
+    @Test
+    public void testChildrenManifest() throws Exception {
+        final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Path a = new Path(root, "a", EnumSet.of(Path.Type.file));
+        a.attributes().setSize(3L);
+        final NullLocal directory = new NullLocal(System.getProperty("java.io.tmpdir"), "t");
+        final AtomicInteger count = new AtomicInteger();
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                final AttributedList<Path> list = new AttributedList<Path>();
+                if(file.equals(root.getParent())) {
+                    list.add(new Path(root.getAbsolute(), root.getType(), root.attributes()));
+                }
+                else {
+                    count.incrementAndGet();
+                    list.add(a);
+                }
+                return list;
+            }
+        };
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        root.attributes().setModificationDate(1000L);
+        final SyncTransfer t = new SyncTransfer(new Host(new TestProtocol()), new TransferItem(root, directory))
+            .withManifest(new SyncManifest(file));
+        assertEquals(1, t.list(session, root, directory, new DisabledListProgressListener()).size());
+        t.stop();
+        assertEquals(1, count.get());
+        // Directory unchanged
+        final SyncTransfer unchanged = new SyncTransfer(new Host(new TestProtocol()), new TransferItem(root, directory))
+            .withManifest(new SyncManifest(file));
+        final List<TransferItem> list = unchanged.list(session, root, directory, new DisabledListProgressListener());
+        assertEquals(1, list.size());
+        assertEquals(a, list.get(0).remote);
+        assertEquals(3L, list.get(0).remote.attributes().getSize());
+        unchanged.stop();
+        assertEquals(1, count.get());
+        // Directory modified
+        root.attributes().setModificationDate(2000L);
+        final SyncTransfer modified = new SyncTransfer(new Host(new TestProtocol()), new TransferItem(root, directory))
+            .withManifest(new SyncManifest(file));
+        modified.list(session, root, directory, new DisabledListProgressListener());
+        assertEquals(2, count.get());
+        file.delete();
+    }
 }
@@ -9,7 +9,11 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.Permission;
 import ch.cyberduck.core.TestProtocol;
 import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.features.Download;
+import ch.cyberduck.core.features.Read;
 import ch.cyberduck.core.local.DefaultLocalTouchFeature;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.shared.DefaultDownloadFeature;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.transfer.symlink.DisabledDownloadSymlinkResolver;
 
@@ -97,4 +101,43 @@ public class OverwriteFilterTest {
         new DefaultLocalTouchFeature().touch(l);
         f.prepare(new Path("a", EnumSet.of(Path.Type.directory)), l, new TransferStatus().exists(true), new DisabledProgressListener());
     }
+
+    @Test
+    public void testPrepareSegmentsProtocol() throws Exception {
+        final NullSession session = new NullSession(new Host(new TestProtocol() {
+            @Override
+            public String getIdentifier() {
+                return "segmented";
+            }
+        })) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Download.class) {
+                    return (T) new DefaultDownloadFeature(this.getFeature(Read.class)) {
+                        @Override
+                        public boolean offset(final Path file) {
+                            return true;
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+        };
+        final DownloadFilterOptions options = new DownloadFilterOptions();
+        options.segments = false;
+        final OverwriteFilter f = new OverwriteFilter(new DisabledDownloadSymlinkResolver(), session, options);
+        final Path p = new Path("a", EnumSet.of(Path.Type.file));
+        p.attributes().setSize(1024L * 1024L * 1024L);
+        PreferencesFactory.get().setProperty("segmented.download.segments", true);
+        try {
+            final TransferStatus status = f.prepare(p, new NullLocal("a"), new TransferStatus(), new DisabledProgressListener());
+            assertTrue(status.isSegmented());
+            assertEquals(1024L * 1024L * 1024L, status.getSegments().get(status.getSegments().size() - 1).getOffset()
+                + status.getSegments().get(status.getSegments().size() - 1).getLength());
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("segmented.download.segments");
+        }
+    }
 }
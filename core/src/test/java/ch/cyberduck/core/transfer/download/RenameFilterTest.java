@@ -3,19 +3,27 @@ package ch.cyberduck.core.transfer.download;
 import ch.cyberduck.core.AsciiRandomStringService;
 import ch.cyberduck.core.DisabledProgressListener;
 import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Local;
 import ch.cyberduck.core.NullLocal;
+import ch.cyberduck.core.NullReadFeature;
 import ch.cyberduck.core.NullSession;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.features.Download;
+import ch.cyberduck.core.local.DefaultLocalDirectoryFeature;
+import ch.cyberduck.core.shared.DefaultDownloadFeature;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.transfer.symlink.DisabledDownloadSymlinkResolver;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
+import java.util.UUID;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.*;
 
 public class RenameFilterTest {
 
@@ -63,4 +71,52 @@ public class RenameFilterTest {
         final String s = System.getProperty("file.separator");
         assertEquals(String.format("%stmp%st-1%s%s", s, s, s, name), fileStatus.getRename().local.getAbsolute());
     }
+
+    @Test
+    public void testApplySegmentsInPlace() throws Exception {
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Download.class) {
+                    return (T) new DefaultDownloadFeature(new NullReadFeature()) {
+                        @Override
+                        public boolean offset(final Path file) {
+                            return true;
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+        };
+        final DownloadFilterOptions options = new DownloadFilterOptions();
+        options.segments = true;
+        options.positional = true;
+        final SegmentProgress progress = new SegmentProgress();
+        final RenameFilter f = new RenameFilter(new DisabledDownloadSymlinkResolver(), session, options);
+        f.withSegmentProgress(progress);
+        final Local directory = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        new DefaultLocalDirectoryFeature().mkdir(directory);
+        final Local local = new Local(directory, "a.txt");
+        final byte[] content = "existing".getBytes(StandardCharsets.UTF_8);
+        final OutputStream out = local.getOutputStream(false);
+        IOUtils.write(content, out);
+        out.close();
+        final Path p = new Path("/a.txt", EnumSet.of(Path.Type.file));
+        p.attributes().setSize(200L * 1024L * 1024L);
+        final TransferStatus status = f.prepare(p, local, new TransferStatus().exists(true), new DisabledProgressListener());
+        assertTrue(status.isSegmented());
+        final Local target = status.getRename().local;
+        assertEquals("a-1.txt", target.getName());
+        f.apply(p, local, status, new DisabledProgressListener());
+        // Existing file is not modified
+        assertEquals(content.length, local.attributes().getSize());
+        assertArrayEquals(content, IOUtils.toByteArray(local.getInputStream()));
+        assertEquals(200L * 1024L * 1024L, target.attributes().getSize());
+        assertFalse(progress.contains(local));
+        assertTrue(progress.contains(target));
+        target.delete();
+        local.delete();
+        directory.delete();
+    }
 }
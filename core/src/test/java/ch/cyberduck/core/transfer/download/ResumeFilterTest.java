@@ -4,10 +4,12 @@ import ch.cyberduck.core.DisabledProgressListener;
 import ch.cyberduck.core.Host;
 import ch.cyberduck.core.LocalAttributes;
 import ch.cyberduck.core.NullLocal;
+import ch.cyberduck.core.NullReadFeature;
 import ch.cyberduck.core.NullSession;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.TestProtocol;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Download;
 import ch.cyberduck.core.features.Read;
 import ch.cyberduck.core.shared.DefaultDownloadFeature;
 import ch.cyberduck.core.transfer.TransferStatus;
@@ -90,6 +92,65 @@ public class ResumeFilterTest {
         assertEquals(1L, status.getOffset(), 0L);
     }
 
+    @Test
+    public void testPrepareSegmentsInPlace() throws Exception {
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Download.class) {
+                    return (T) new DefaultDownloadFeature(new NullReadFeature()) {
+                        @Override
+                        public boolean offset(final Path file) {
+                            return true;
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+        };
+        final DownloadFilterOptions options = new DownloadFilterOptions();
+        options.segments = true;
+        options.positional = true;
+        final SegmentProgress progress = new SegmentProgress();
+        final ResumeFilter f = new ResumeFilter(new DisabledDownloadSymlinkResolver(), session, options);
+        f.withSegmentProgress(progress);
+        final Path p = new Path("a", EnumSet.of(Path.Type.file));
+        p.attributes().setSize(1024L * 1024L * 1024L);
+        final NullLocal local = new NullLocal("~/Downloads", "a") {
+            @Override
+            public boolean isFile() {
+                return true;
+            }
+
+            @Override
+            public boolean exists() {
+                return true;
+            }
+        };
+        final TransferStatus status = f.prepare(p, local, new TransferStatus().exists(true), new DisabledProgressListener());
+        assertTrue(status.isSegmented());
+        assertTrue(progress.contains(local));
+        final TransferStatus first = status.getSegments().get(0);
+        assertNull(first.getRename().local);
+        assertFalse(first.isAppend());
+        final long length = first.getLength();
+        first.progress(length);
+        final TransferStatus second = status.getSegments().get(1);
+        second.progress(10L);
+        // Restore from serialized state
+        final SegmentProgress restored = new SegmentProgress(progress.serialize());
+        assertTrue(f.withSegmentProgress(restored).accept(p, local, new TransferStatus().exists(true)));
+        final TransferStatus resume = f.prepare(p, local, new TransferStatus().exists(true), new DisabledProgressListener());
+        assertTrue(resume.getSegments().get(0).isComplete());
+        assertEquals(0L, resume.getSegments().get(0).getLength());
+        assertEquals(second.getOffset(), resume.getSegments().get(1).getOffset());
+        assertEquals(length - 10L, resume.getSegments().get(1).getLength());
+        assertEquals(status.getSegments().size(), resume.getSegments().size());
+        restored.remove(resume.getSegments());
+        assertFalse(restored.contains(local));
+    }
+
     @Test
     public void testPrepareDirectoryExists() throws Exception {
         final NullSession session = new NullSession(new Host(new TestProtocol()));
@@ -0,0 +1,76 @@
+package ch.cyberduck.core.transfer.synchronisation;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.io.Checksum;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SyncManifestTest {
+
+    @Test
+    public void testMarker() {
+        final PathAttributes attributes = new PathAttributes();
+        assertNull(SyncManifest.marker(attributes));
+        attributes.setModificationDate(1000L);
+        assertEquals("1000", SyncManifest.marker(attributes));
+        attributes.setETag("e");
+        assertEquals("e", SyncManifest.marker(attributes));
+    }
+
+    @Test
+    public void testSave() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final Path directory = new Path("/d\tn", EnumSet.of(Path.Type.directory));
+        final PathAttributes marker = new PathAttributes();
+        marker.setETag("e1");
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path f = new Path(directory, "f\nn", EnumSet.of(Path.Type.file));
+        f.attributes().setSize(5L);
+        f.attributes().setModificationDate(1000L);
+        f.attributes().setVersionId("v");
+        f.attributes().setChecksum(Checksum.parse("d41d8cd98f00b204e9800998ecf8427e"));
+        list.add(f);
+        list.add(new Path(directory, "d", EnumSet.of(Path.Type.directory, Path.Type.placeholder)));
+        final SyncManifest manifest = new SyncManifest(file);
+        manifest.put(directory, marker, list);
+        manifest.save();
+        final SyncManifest reloaded = new SyncManifest(file);
+        final AttributedList<Path> children = reloaded.get(directory, marker);
+        assertEquals(list, children);
+        assertEquals(5L, children.get(0).attributes().getSize());
+        assertEquals(1000L, children.get(0).attributes().getModificationDate());
+        assertEquals("v", children.get(0).attributes().getVersionId());
+        assertEquals(f.attributes().getChecksum(), children.get(0).attributes().getChecksum());
+        assertEquals(EnumSet.of(Path.Type.directory, Path.Type.placeholder), children.get(1).getType());
+        final PathAttributes changed = new PathAttributes();
+        changed.setETag("e2");
+        assertNull(reloaded.get(directory, changed));
+        reloaded.clear();
+        assertNull(reloaded.get(directory, marker));
+        file.delete();
+    }
+}
@@ -0,0 +1,116 @@
+package ch.cyberduck.core.worker;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.threading.DefaultThreadPool;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TransferSchedulerTest {
+
+    @Test
+    public void testSmallFilesFirst() throws Exception {
+        final TransferScheduler scheduler = new TransferScheduler(new DefaultThreadPool("scheduler", 1), 1, 10);
+        final CountDownLatch block = new CountDownLatch(1);
+        final List<Long> order = Collections.synchronizedList(new ArrayList<Long>());
+        scheduler.submit(new Callable<TransferStatus>() {
+            @Override
+            public TransferStatus call() throws Exception {
+                block.await();
+                return null;
+            }
+        }, TransferScheduler.Lane.transfer, 0L);
+        for(long length : new long[]{300L, 100L, 200L}) {
+            scheduler.submit(new Recording(order, length), TransferScheduler.Lane.transfer, length);
+        }
+        // Awaiting segments is scheduled after any transfer
+        scheduler.submit(new Recording(order, -1L), TransferScheduler.Lane.complete, 0L);
+        scheduler.submit(new Recording(order, 400L), TransferScheduler.Lane.transfer, 400L);
+        block.countDown();
+        for(int i = 0; i < 6; i++) {
+            scheduler.take().get();
+        }
+        assertEquals(Arrays.asList(100L, 200L, 300L, 400L, -1L), order);
+        assertEquals(0, scheduler.getQueued(TransferScheduler.Lane.transfer));
+        assertEquals(0, scheduler.getQueued(TransferScheduler.Lane.complete));
+        scheduler.shutdown(true);
+    }
+
+    @Test
+    public void testRunInWorkerWhenFull() throws Exception {
+        final TransferScheduler scheduler = new TransferScheduler(new DefaultThreadPool("scheduler", 2), 2, 1);
+        final List<Long> order = Collections.synchronizedList(new ArrayList<Long>());
+        scheduler.submit(new Callable<TransferStatus>() {
+            @Override
+            public TransferStatus call() {
+                for(long i = 0; i < 10; i++) {
+                    scheduler.submit(new Recording(order, i), TransferScheduler.Lane.prepare, 0L);
+                }
+                return null;
+            }
+        }, TransferScheduler.Lane.prepare, 0L);
+        for(int i = 0; i < 11; i++) {
+            scheduler.take().get();
+        }
+        assertEquals(10, order.size());
+        assertTrue(scheduler.getInline() > 0L);
+        assertEquals(0, scheduler.getQueued(TransferScheduler.Lane.prepare));
+        scheduler.shutdown(true);
+    }
+
+    @Test
+    public void testSubmitBlocksWhenFull() throws Exception {
+        final TransferScheduler scheduler = new TransferScheduler(new DefaultThreadPool("scheduler", 1), 1, 2);
+        final List<Long> order = Collections.synchronizedList(new ArrayList<Long>());
+        for(long i = 0; i < 100; i++) {
+            scheduler.submit(new Recording(order, i), TransferScheduler.Lane.prepare, 0L);
+        }
+        for(int i = 0; i < 100; i++) {
+            scheduler.take().get();
+        }
+        assertEquals(100, order.size());
+        // Never run by submitting thread
+        assertEquals(0L, scheduler.getInline());
+        scheduler.shutdown(true);
+    }
+
+    private static final class Recording implements Callable<TransferStatus> {
+        private final List<Long> order;
+        private final long id;
+
+        public Recording(final List<Long> order, final long id) {
+            this.order = order;
+            this.id = id;
+        }
+
+        @Override
+        public TransferStatus call() {
+            order.add(id);
+            return new TransferStatus();
+        }
+    }
+}
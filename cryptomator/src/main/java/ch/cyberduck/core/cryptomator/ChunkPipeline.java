@@ -0,0 +1,180 @@
+package ch.cyberduck.core.cryptomator;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
+import org.cryptomator.cryptolib.api.CryptoException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Encrypt or decrypt chunks in parallel and return results in order of submission. Nonces and chunk numbers are
+ * assigned by the caller before submission. Not thread safe, to be used by a single stream.
+ */
+final class ChunkPipeline {
+
+    private static final class Global {
+        private static final ThreadPool instance = ThreadPoolFactory.get("cryptomator", concurrency());
+    }
+
+    /**
+     * @return Number of chunks processed in parallel by default
+     */
+    static int concurrency() {
+        return Math.max(1, PreferencesFactory.get().getInteger("cryptomator.chunk.threads"));
+    }
+
+    /**
+     * Maximum number of chunks submitted and not yet returned
+     */
+    private final int window;
+    private final int buffersize;
+
+    private final Deque<Entry> pending = new ArrayDeque<Entry>();
+    /**
+     * Input buffers for reuse
+     */
+    private final Deque<byte[]> buffers = new ArrayDeque<byte[]>();
+
+    /**
+     * @param concurrency Number of chunks processed in parallel. Process on the calling thread if 1
+     * @param buffersize  Size of input buffers
+     */
+    ChunkPipeline(final int concurrency, final int buffersize) {
+        // Keep workers busy while results are written or read by caller
+        this.window = concurrency > 1 ? concurrency * 2 : 1;
+        this.buffersize = buffersize;
+    }
+
+    /**
+     * @return Input buffer released after the result of the chunk is returned
+     */
+    byte[] buffer() {
+        final byte[] buffer = buffers.poll();
+        if(null == buffer) {
+            return new byte[buffersize];
+        }
+        return buffer;
+    }
+
+    /**
+     * @param buffer Buffer not submitted
+     */
+    void release(final byte[] buffer) {
+        buffers.push(buffer);
+    }
+
+    /**
+     * @param buffer Input buffer of chunk
+     * @param chunk  Encryption or decryption of chunk
+     */
+    void submit(final byte[] buffer, final Callable<ByteBuffer> chunk) throws IOException {
+        if(window == 1) {
+            try {
+                pending.add(new Entry(buffer, chunk.call()));
+            }
+            catch(CryptoException e) {
+                throw new IOException(e.getMessage(), new CryptoAuthenticationException(e.getMessage(), e));
+            }
+            catch(IOException e) {
+                throw e;
+            }
+            catch(Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        else {
+            pending.add(new Entry(buffer, Global.instance.execute(chunk)));
+        }
+    }
+
+    boolean isFull() {
+        return pending.size() >= window;
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Wait for the result of the first chunk submitted
+     *
+     * @return Encrypted or decrypted chunk
+     */
+    ByteBuffer next() throws IOException {
+        final Entry entry = pending.remove();
+        try {
+            final ByteBuffer result = null == entry.future ? entry.result : entry.future.get();
+            // Input no longer referenced
+            buffers.push(entry.buffer);
+            return result;
+        }
+        catch(InterruptedException e) {
+            this.cancel();
+            final InterruptedIOException f = new InterruptedIOException(e.getMessage());
+            f.initCause(e);
+            throw f;
+        }
+        catch(ExecutionException e) {
+            this.cancel();
+            final Throwable cause = e.getCause();
+            if(cause instanceof CryptoException) {
+                throw new IOException(cause.getMessage(), new CryptoAuthenticationException(cause.getMessage(), cause));
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Discard pending chunks
+     */
+    void cancel() {
+        for(Entry entry : pending) {
+            if(null != entry.future) {
+                entry.future.cancel(false);
+            }
+        }
+        pending.clear();
+    }
+
+    private static final class Entry {
+        private final byte[] buffer;
+        private final Future<ByteBuffer> future;
+        private final ByteBuffer result;
+
+        private Entry(final byte[] buffer, final Future<ByteBuffer> future) {
+            this.buffer = buffer;
+            this.future = future;
+            this.result = null;
+        }
+
+        private Entry(final byte[] buffer, final ByteBuffer result) {
+            this.buffer = buffer;
+            this.future = null;
+            this.result = result;
+        }
+    }
+}
@@ -17,13 +17,13 @@ package ch.cyberduck.core.cryptomator;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ProxyInputStream;
-import org.cryptomator.cryptolib.api.CryptoException;
 import org.cryptomator.cryptolib.api.Cryptor;
 import org.cryptomator.cryptolib.api.FileHeader;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
 
 public class CryptoInputStream extends ProxyInputStream {
 
@@ -39,13 +39,28 @@ public class CryptoInputStream extends ProxyInputStream {
     private long chunkIndexOffset;
     private final int chunkSize;
 
+    /**
+     * Chunks read ahead and decrypted in parallel
+     */
+    private final ChunkPipeline pipeline;
+    private boolean eof;
+
     public CryptoInputStream(final InputStream proxy, final Cryptor cryptor, final FileHeader header, final long chunkIndexOffset) throws IOException {
+        this(proxy, cryptor, header, chunkIndexOffset, ChunkPipeline.concurrency());
+    }
+
+    /**
+     * @param concurrency Number of chunks decrypted in parallel
+     */
+    public CryptoInputStream(final InputStream proxy, final Cryptor cryptor, final FileHeader header, final long chunkIndexOffset,
+                             final int concurrency) throws IOException {
         super(proxy);
         this.proxy = proxy;
         this.cryptor = cryptor;
         this.header = header;
         this.chunkSize = cryptor.fileContentCryptor().ciphertextChunkSize();
         this.chunkIndexOffset = chunkIndexOffset;
+        this.pipeline = new ChunkPipeline(concurrency, chunkSize);
     }
 
     @Override
@@ -79,20 +94,42 @@ public class CryptoInputStream extends ProxyInputStream {
         return IOUtils.skip(this, len);
     }
 
-    private int readNextChunk() throws IOException {
-        final ByteBuffer ciphertextBuf = ByteBuffer.allocate(chunkSize);
-        final int read = IOUtils.read(proxy, ciphertextBuf.array());
-        if(read == 0) {
-            return IOUtils.EOF;
-        }
-        ciphertextBuf.position(read);
-        ciphertextBuf.flip();
+    @Override
+    public void close() throws IOException {
         try {
-            buffer = cryptor.fileContentCryptor().decryptChunk(ciphertextBuf, chunkIndexOffset++, header, true);
+            pipeline.cancel();
         }
-        catch(CryptoException e) {
-            throw new IOException(e.getMessage(), new CryptoAuthenticationException(e.getMessage(), e));
+        finally {
+            super.close();
         }
-        return read;
+    }
+
+    private int readNextChunk() throws IOException {
+        // Read ahead and submit chunks for decryption
+        while(!eof && !pipeline.isFull()) {
+            final byte[] ciphertext = pipeline.buffer();
+            final int read = IOUtils.read(proxy, ciphertext);
+            if(read == 0) {
+                pipeline.release(ciphertext);
+                eof = true;
+                break;
+            }
+            if(read < chunkSize) {
+                // Last chunk
+                eof = true;
+            }
+            final long chunkIndex = chunkIndexOffset++;
+            pipeline.submit(ciphertext, new Callable<ByteBuffer>() {
+                @Override
+                public ByteBuffer call() {
+                    return cryptor.fileContentCryptor().decryptChunk(ByteBuffer.wrap(ciphertext, 0, read), chunkIndex, header, true);
+                }
+            });
+        }
+        if(pipeline.isEmpty()) {
+            return IOUtils.EOF;
+        }
+        buffer = pipeline.next();
+        return buffer.remaining();
     }
 }
@@ -21,14 +21,13 @@ import ch.cyberduck.core.io.StatusOutputStream;
 import ch.cyberduck.core.random.NonceGenerator;
 
 import org.apache.commons.io.output.ProxyOutputStream;
-import org.cryptomator.cryptolib.api.CryptoException;
 import org.cryptomator.cryptolib.api.Cryptor;
 import org.cryptomator.cryptolib.api.FileHeader;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.util.concurrent.Callable;
 
 public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
 
@@ -36,7 +35,15 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
 
     public CryptoOutputStream(final StatusOutputStream<Reply> proxy, final Cryptor cryptor, final FileHeader header,
                               final NonceGenerator nonces, final long chunkIndexOffset) {
-        super(new MemorySegementingOutputStream(new EncryptingOutputStream(proxy, cryptor, header, nonces, chunkIndexOffset),
+        this(proxy, cryptor, header, nonces, chunkIndexOffset, ChunkPipeline.concurrency());
+    }
+
+    /**
+     * @param concurrency Number of chunks encrypted in parallel
+     */
+    public CryptoOutputStream(final StatusOutputStream<Reply> proxy, final Cryptor cryptor, final FileHeader header,
+                              final NonceGenerator nonces, final long chunkIndexOffset, final int concurrency) {
+        super(new MemorySegementingOutputStream(new EncryptingOutputStream(proxy, cryptor, header, nonces, chunkIndexOffset, concurrency),
                 cryptor.fileContentCryptor().cleartextChunkSize()));
         this.proxy = proxy;
     }
@@ -61,16 +68,18 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
         private final FileHeader header;
         private final int chunksize;
         private final NonceGenerator nonces;
+        private final ChunkPipeline pipeline;
         private long chunkIndexOffset;
 
         public EncryptingOutputStream(final OutputStream proxy, final Cryptor cryptor, final FileHeader header,
-                                      final NonceGenerator nonces, final long chunkIndexOffset) {
+                                      final NonceGenerator nonces, final long chunkIndexOffset, final int concurrency) {
             super(proxy);
             this.cryptor = cryptor;
             this.header = header;
             this.chunksize = cryptor.fileContentCryptor().cleartextChunkSize();
             this.nonces = nonces;
             this.chunkIndexOffset = chunkIndexOffset;
+            this.pipeline = new ChunkPipeline(concurrency, chunksize);
         }
 
         @Override
@@ -80,17 +89,51 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
 
         @Override
         public void write(final byte[] b, final int off, final int len) throws IOException {
+            for(int chunkOffset = off; chunkOffset < off + len; chunkOffset += chunksize) {
+                final int chunkLen = Math.min(chunksize, off + len - chunkOffset);
+                final byte[] cleartext = pipeline.buffer();
+                System.arraycopy(b, chunkOffset, cleartext, 0, chunkLen);
+                final long chunkIndex = chunkIndexOffset++;
+                final byte[] nonce = nonces.next();
+                pipeline.submit(cleartext, new Callable<ByteBuffer>() {
+                    @Override
+                    public ByteBuffer call() {
+                        return cryptor.fileContentCryptor().encryptChunk(ByteBuffer.wrap(cleartext, 0, chunkLen),
+                                chunkIndex, header, nonce);
+                    }
+                });
+                while(pipeline.isFull()) {
+                    this.writeNext();
+                }
+            }
+        }
+
+        /**
+         * Write encrypted chunks in order
+         */
+        private void writeNext() throws IOException {
+            final ByteBuffer encryptedChunk = pipeline.next();
+            super.write(encryptedChunk.array(), encryptedChunk.arrayOffset() + encryptedChunk.position(), encryptedChunk.remaining());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            while(!pipeline.isEmpty()) {
+                this.writeNext();
+            }
+            super.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
             try {
-                for(int chunkOffset = off; chunkOffset < len; chunkOffset += chunksize) {
-                    int chunkLen = Math.min(chunksize, len - chunkOffset);
-                    final ByteBuffer encryptedChunk = cryptor.fileContentCryptor().encryptChunk(
-                            ByteBuffer.wrap(Arrays.copyOfRange(b, chunkOffset, chunkOffset + chunkLen)),
-                            chunkIndexOffset++, header, nonces.next());
-                    super.write(encryptedChunk.array());
+                while(!pipeline.isEmpty()) {
+                    this.writeNext();
                 }
             }
-            catch(CryptoException e) {
-                throw new IOException(e.getMessage(), new CryptoAuthenticationException(e.getMessage(), e));
+            finally {
+                pipeline.cancel();
+                super.close();
             }
         }
     }
@@ -0,0 +1,113 @@
+package ch.cyberduck.core.cryptomator;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.cryptomator.random.FastSecureRandomProvider;
+import ch.cyberduck.core.cryptomator.random.RandomNonceGenerator;
+import ch.cyberduck.core.io.StatusOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.RandomUtils;
+import org.cryptomator.cryptolib.api.Cryptor;
+import org.cryptomator.cryptolib.api.FileHeader;
+import org.cryptomator.cryptolib.v1.Version1CryptorModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to encrypt and decrypt 16MB of file content. Concurrency of 1 encrypts chunks sequentially on the calling
+ * thread as before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CryptoOutputStreamBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int concurrency;
+
+    private Cryptor cryptor;
+    private FileHeader header;
+    private byte[] cleartext;
+    private byte[] ciphertext;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        cryptor = new Version1CryptorModule().provideCryptorProvider(FastSecureRandomProvider.get().provide()).createNew();
+        header = cryptor.fileHeaderCryptor().create();
+        cleartext = RandomUtils.nextBytes(16 * 1024 * 1024);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.encrypt(out);
+        ciphertext = out.toByteArray();
+    }
+
+    @Benchmark
+    public void encrypt() throws IOException {
+        this.encrypt(NullOutputStream.NULL_OUTPUT_STREAM);
+    }
+
+    @Benchmark
+    public long decrypt() throws IOException {
+        final CryptoInputStream in = new CryptoInputStream(new ByteArrayInputStream(ciphertext), cryptor, header, 0L, concurrency);
+        try {
+            return IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private void encrypt(final OutputStream target) throws IOException {
+        final CryptoOutputStream<Void> out = new CryptoOutputStream<Void>(new StatusOutputStream<Void>(target) {
+            @Override
+            public Void getStatus() {
+                return null;
+            }
+        }, cryptor, header, new RandomNonceGenerator(), 0L, concurrency);
+        // Write in segments of default buffer size used for transfers
+        for(int offset = 0; offset < cleartext.length; offset += 32768) {
+            out.write(cleartext, offset, Math.min(32768, cleartext.length - offset));
+        }
+        out.close();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CryptoOutputStreamBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -145,4 +145,29 @@ public class CryptoOutputStreamTest {
 
         assertArrayEquals(cleartext, read);
     }
+
+    @Test
+    public void testWriteParallel() throws Exception {
+        final CryptoVault vault = this.getVault();
+        final ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+        final FileHeader header = vault.getCryptor().fileHeaderCryptor().create();
+        final CryptoOutputStream<?> stream = new CryptoOutputStream<>(new StatusOutputStream<Void>(cipherText) {
+            @Override
+            public Void getStatus() throws BackgroundException {
+                return null;
+            }
+        }, vault.getCryptor(), header, new RandomNonceGenerator(), 0, 4);
+
+        final byte[] cleartext = RandomUtils.nextBytes(vault.getCryptor().fileContentCryptor().cleartextChunkSize() * 20 + 1);
+        stream.write(cleartext, 0, cleartext.length);
+        stream.close();
+
+        for(int concurrency : new int[]{1, 4}) {
+            final byte[] read = new byte[cleartext.length];
+            final CryptoInputStream cryptoInputStream = new CryptoInputStream(new ByteArrayInputStream(cipherText.toByteArray()), vault.getCryptor(), header, 0, concurrency);
+            IOUtils.readFully(cryptoInputStream, read);
+            cryptoInputStream.close();
+            assertArrayEquals(cleartext, read);
+        }
+    }
 }
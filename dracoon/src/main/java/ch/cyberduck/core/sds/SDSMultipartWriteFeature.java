@@ -143,7 +143,7 @@ public class SDSMultipartWriteFeature implements MultipartWrite<VersionId> {
         @Override
         public void write(final byte[] b, final int off, final int len) throws IOException {
             try {
-                final byte[] content = Arrays.copyOfRange(b, off, len);
+                final byte[] content = Arrays.copyOfRange(b, off, off + len);
                 final HttpEntity entity = MultipartEntityBuilder.create()
                     .setBoundary(DelayedHttpMultipartEntity.DEFAULT_BOUNDARY)
                     .addPart("file", new ByteArrayBody(content, file.getName()))
@@ -18,6 +18,7 @@ package ch.cyberduck.core.sds;
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
 import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.DisabledListProgressListener;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
@@ -28,6 +29,7 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.Encryption;
 import ch.cyberduck.core.features.IdProvider;
+import ch.cyberduck.core.fileid.FileidIndex;
 import ch.cyberduck.core.sds.io.swagger.client.ApiException;
 import ch.cyberduck.core.sds.io.swagger.client.api.NodesApi;
 import ch.cyberduck.core.sds.io.swagger.client.model.FileKey;
@@ -70,6 +72,15 @@ public class SDSNodeIdProvider implements IdProvider {
         if(file.isRoot()) {
             return ROOT_NODE_ID;
         }
+        final String indexed = FileidIndex.get(session.getHost()).get(file, new FileidIndex.Validator() {
+            @Override
+            public boolean validate(final Path directory, final String id) throws BackgroundException {
+                return SDSNodeIdProvider.this.validate(directory, id);
+            }
+        });
+        if(null != indexed) {
+            return this.set(file, indexed);
+        }
         if(cache.isCached(file.getParent())) {
             final AttributedList<Path> list = cache.get(file.getParent());
             final Path found = list.find(new SimplePathPredicate(file));
@@ -79,6 +90,19 @@ public class SDSNodeIdProvider implements IdProvider {
                 }
             }
         }
+        try {
+            return this.find(file, listener);
+        }
+        catch(NotfoundException e) {
+            // Retry with parent directory looked up again
+            if(FileidIndex.get(session.getHost()).invalidate(file.getParent())) {
+                return this.find(file, listener);
+            }
+            throw e;
+        }
+    }
+
+    private String find(final Path file, final ListProgressListener listener) throws BackgroundException {
         try {
             final String type;
             if(file.isDirectory()) {
@@ -107,7 +131,29 @@ public class SDSNodeIdProvider implements IdProvider {
         }
     }
 
+    /**
+     * @return False if the node with the identifier was renamed or moved
+     */
+    private boolean validate(final Path directory, final String id) throws BackgroundException {
+        try {
+            final Node node = new NodesApi(session.getClient()).getFsNode(Long.parseLong(id), StringUtils.EMPTY, null);
+            if(!StringUtils.equals(directory.getName(), node.getName())) {
+                return false;
+            }
+            final String parent = this.getFileid(directory.getParent(), new DisabledListProgressListener());
+            if(ROOT_NODE_ID.equals(parent)) {
+                // Top-level room
+                return null == node.getParentId();
+            }
+            return StringUtils.equals(parent, String.valueOf(node.getParentId()));
+        }
+        catch(ApiException e) {
+            throw new SDSExceptionMappingService().map("Failure to read attributes of {0}", e, directory);
+        }
+    }
+
     protected String set(final Path file, final String id) {
+        FileidIndex.get(session.getHost()).put(file, id);
         file.attributes().setVersionId(id);
         return id;
     }
@@ -30,6 +30,9 @@ import ch.cyberduck.core.UrlProvider;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.PartialLoginFailureException;
 import ch.cyberduck.core.features.*;
+import ch.cyberduck.core.fileid.FileidIndex;
+import ch.cyberduck.core.fileid.FileidIndexDeleteFeature;
+import ch.cyberduck.core.fileid.FileidIndexMoveFeature;
 import ch.cyberduck.core.http.HttpSession;
 import ch.cyberduck.core.oauth.OAuth2ErrorResponseInterceptor;
 import ch.cyberduck.core.oauth.OAuth2RequestInterceptor;
@@ -260,7 +263,7 @@ public class SDSSession extends HttpSession<SDSApiClient> {
             return (T) new SDSDirectoryFeature(this, nodeid);
         }
         if(type == Delete.class) {
-            return (T) new SDSDeleteFeature(this, nodeid);
+            return (T) new FileidIndexDeleteFeature(new SDSDeleteFeature(this, nodeid), FileidIndex.get(host));
         }
         if(type == IdProvider.class) {
             return (T) nodeid;
@@ -275,7 +278,7 @@ public class SDSSession extends HttpSession<SDSApiClient> {
             return (T) new SDSAttributesFinderFeature(this, nodeid);
         }
         if(type == Move.class) {
-            return (T) new SDSDelegatingMoveFeature(this, nodeid, new SDSMoveFeature(this, nodeid));
+            return (T) new FileidIndexMoveFeature(new SDSDelegatingMoveFeature(this, nodeid, new SDSMoveFeature(this, nodeid)), FileidIndex.get(host));
         }
         if(type == Copy.class) {
             return (T) new SDSDelegatingCopyFeature(this, nodeid, new SDSCopyFeature(this, nodeid));
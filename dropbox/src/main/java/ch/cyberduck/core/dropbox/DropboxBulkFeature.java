@@ -0,0 +1,135 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.LocaleFactory;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Bulk;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.transfer.Transfer;
+import ch.cyberduck.core.transfer.TransferItem;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Commit small files of upload transfer in batches
+ */
+public class DropboxBulkFeature implements Bulk<String> {
+    private static final Logger log = Logger.getLogger(DropboxBulkFeature.class);
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final DropboxSession session;
+
+    public DropboxBulkFeature(final DropboxSession session) {
+        this.session = session;
+    }
+
+    /**
+     * @return Batch identifier or null if files are committed individually
+     */
+    @Override
+    public String pre(final Transfer.Type type, final Map<TransferItem, TransferStatus> files, final ConnectionCallback callback) throws BackgroundException {
+        switch(type) {
+            case upload:
+                if(!preferences.getBoolean("dropbox.upload.batch")) {
+                    return null;
+                }
+                final List<TransferStatus> batched = new ArrayList<TransferStatus>();
+                for(Map.Entry<TransferItem, TransferStatus> entry : files.entrySet()) {
+                    final TransferStatus status = entry.getValue();
+                    if(entry.getKey().remote.isFile() && status.getLength() <= preferences.getLong("dropbox.upload.batch.threshold")) {
+                        batched.add(status);
+                    }
+                }
+                if(batched.size() < 2) {
+                    return null;
+                }
+                final DropboxUploadBatch batch = DropboxUploadBatch.create(session);
+                for(TransferStatus status : batched) {
+                    final Map<String, String> parameters = new HashMap<>(status.getParameters());
+                    parameters.put(DropboxUploadBatch.REQUEST_PARAMETER_BATCH_IDENTIFIER, batch.getId());
+                    status.setParameters(parameters);
+                }
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Commit %d files in batch %s", batched.size(), batch));
+                }
+                return batch.getId();
+        }
+        return null;
+    }
+
+    @Override
+    public void post(final Transfer.Type type, final Map<TransferItem, TransferStatus> files, final ConnectionCallback callback) throws BackgroundException {
+        switch(type) {
+            case upload:
+                for(TransferStatus status : files.values()) {
+                    final String id = status.getParameters().get(DropboxUploadBatch.REQUEST_PARAMETER_BATCH_IDENTIFIER);
+                    if(null != id) {
+                        final DropboxUploadBatch batch = DropboxUploadBatch.remove(id);
+                        if(null == batch) {
+                            return;
+                        }
+                        // Commit remaining files and wait for pending commits
+                        final Map<Path, BackgroundException> failures = batch.close();
+                        if(failures.isEmpty()) {
+                            return;
+                        }
+                        for(Map.Entry<TransferItem, TransferStatus> entry : files.entrySet()) {
+                            if(failures.containsKey(entry.getKey().remote)) {
+                                log.warn(String.format("Failure committing %s in batch %s", entry.getKey().remote, batch));
+                                entry.getValue().setFailure();
+                            }
+                        }
+                        final BackgroundException failure = failures.values().iterator().next();
+                        if(failures.size() == 1) {
+                            throw failure;
+                        }
+                        final List<String> names = new ArrayList<String>();
+                        for(Path file : failures.keySet()) {
+                            names.add(file.getName());
+                        }
+                        throw new BackgroundException(MessageFormat.format(LocaleFactory.localizedString("Upload {0} failed", "Error"),
+                            StringUtils.join(names, ", ")), failure.getDetail(), failure);
+                    }
+                }
+        }
+    }
+
+    @Override
+    public Bulk<String> withDelete(final Delete delete) {
+        return this;
+    }
+
+    @Override
+    public Bulk<String> withCache(final Cache<Path> cache) {
+        return this;
+    }
+}
@@ -0,0 +1,398 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.ConnectionTimeoutException;
+import ch.cyberduck.core.exception.InteroperabilityException;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.NamedThreadFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.files.DbxUserFilesRequests;
+import com.dropbox.core.v2.files.UploadSessionFinishArg;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchJobStatus;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchLaunch;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchResult;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchResultEntry;
+import com.dropbox.core.v2.files.UploadSessionFinishError;
+import com.dropbox.core.v2.files.UploadSessionFinishErrorException;
+
+/**
+ * Collect closed upload sessions of files in a transfer and commit them in groups with a single
+ * <code>upload_session/finish_batch</code> request each instead of one commit per file. Commits are serialized per
+ * namespace by the server which fails concurrent single commits with <code>too_many_write_operations</code>.
+ * <p>
+ * The upload of a file returns once its contents are sent. Pending files are committed by a single committer thread
+ * when the maximum number of entries is reached or the delay configured has passed since the first pending file was
+ * added. Files added while a group is committed are collected for the next group. Remaining files are committed when
+ * the batch is closed at the end of the transfer which reports failures per file.
+ */
+public class DropboxUploadBatch {
+    private static final Logger log = Logger.getLogger(DropboxUploadBatch.class);
+
+    /**
+     * Transfer status parameter with batch identifier
+     */
+    public static final String REQUEST_PARAMETER_BATCH_IDENTIFIER = "dropbox.batch";
+
+    private static final Map<String, DropboxUploadBatch> batches = new ConcurrentHashMap<>();
+
+    /**
+     * Register new batch for transfer
+     */
+    public static DropboxUploadBatch create(final DropboxSession session) {
+        final DropboxUploadBatch batch = new DropboxUploadBatch(session, UUID.randomUUID().toString());
+        batches.put(batch.getId(), batch);
+        return batch;
+    }
+
+    /**
+     * @return Batch for file in transfer or null if file is committed individually
+     */
+    public static DropboxUploadBatch get(final TransferStatus status) {
+        final String id = status.getParameters().get(REQUEST_PARAMETER_BATCH_IDENTIFIER);
+        if(null == id) {
+            return null;
+        }
+        return batches.get(id);
+    }
+
+    /**
+     * Unregister batch after transfer
+     */
+    public static DropboxUploadBatch remove(final String id) {
+        return batches.remove(id);
+    }
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final DropboxSession session;
+    private final String id;
+
+    /**
+     * Upload sessions waiting to be committed. Replaced when a file is uploaded again.
+     */
+    private final Map<Path, Entry> pending = new LinkedHashMap<>();
+    /**
+     * Last upload session added for each file
+     */
+    private final Map<Path, Entry> entries = new LinkedHashMap<>();
+
+    private final Integer size;
+
+    private final ScheduledExecutorService committer;
+    /**
+     * Scheduled commit of pending files
+     */
+    private ScheduledFuture<?> scheduled;
+    private boolean closed;
+
+    public DropboxUploadBatch(final DropboxSession session, final String id) {
+        this(session, id, PreferencesFactory.get().getInteger("dropbox.upload.batch.size"));
+    }
+
+    public DropboxUploadBatch(final DropboxSession session, final String id, final Integer size) {
+        this.session = session;
+        this.id = id;
+        this.size = size;
+        this.committer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("dropbox-batch"));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Add closed upload session to batch without waiting for the commit
+     *
+     * @param file   File
+     * @param commit Cursor of closed upload session and commit information
+     * @throws ConnectionCanceledException Batch already closed
+     */
+    public void add(final Path file, final UploadSessionFinishArg commit) throws ConnectionCanceledException {
+        final Entry entry = new Entry(commit);
+        synchronized(pending) {
+            if(closed) {
+                throw new ConnectionCanceledException();
+            }
+            final Entry previous = pending.put(file, entry);
+            if(null != previous) {
+                // Superseded by new upload of same file
+                previous.fail(new ConnectionCanceledException());
+            }
+            entries.put(file, entry);
+            if(pending.size() >= size) {
+                this.schedule(0L);
+            }
+            else if(null == scheduled) {
+                this.schedule(preferences.getLong("dropbox.upload.batch.delay"));
+            }
+        }
+    }
+
+    private void schedule(final long delay) {
+        if(null != scheduled) {
+            scheduled.cancel(false);
+        }
+        scheduled = committer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                final Map<Path, Entry> group;
+                synchronized(pending) {
+                    scheduled = null;
+                    group = drain();
+                }
+                if(!group.isEmpty()) {
+                    commit(group);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Commit pending files and wait for all commits of this batch to complete
+     *
+     * @return Failure for each file not committed
+     * @throws ConnectionCanceledException Interrupted while waiting
+     */
+    public Map<Path, BackgroundException> close() throws ConnectionCanceledException {
+        synchronized(pending) {
+            closed = true;
+            if(null != scheduled) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+        committer.execute(new Runnable() {
+            @Override
+            public void run() {
+                for(Map<Path, Entry> group = drain(); !group.isEmpty(); group = drain()) {
+                    commit(group);
+                }
+            }
+        });
+        committer.shutdown();
+        try {
+            committer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        catch(InterruptedException e) {
+            committer.shutdownNow();
+            throw new ConnectionCanceledException(e);
+        }
+        final Map<Path, BackgroundException> failures = new LinkedHashMap<>();
+        synchronized(pending) {
+            for(Map.Entry<Path, Entry> entry : entries.entrySet()) {
+                final BackgroundException failure = entry.getValue().getFailure();
+                if(null != failure) {
+                    failures.put(entry.getKey(), failure);
+                }
+            }
+        }
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Closed batch %s with %d of %d files failed", id, failures.size(), entries.size()));
+        }
+        return failures;
+    }
+
+    /**
+     * @return Up to maximum number of entries for a single commit
+     */
+    private Map<Path, Entry> drain() {
+        synchronized(pending) {
+            final Map<Path, Entry> group = new LinkedHashMap<>();
+            for(Iterator<Map.Entry<Path, Entry>> iter = pending.entrySet().iterator(); iter.hasNext() && group.size() < size; ) {
+                final Map.Entry<Path, Entry> next = iter.next();
+                group.put(next.getKey(), next.getValue());
+                iter.remove();
+            }
+            return group;
+        }
+    }
+
+    /**
+     * Commit entries and complete each with its result
+     */
+    private void commit(final Map<Path, Entry> entries) {
+        Map<Path, Entry> remaining = entries;
+        try {
+            for(int attempt = 0; !remaining.isEmpty(); attempt++) {
+                if(attempt > 0) {
+                    this.sleep(attempt * preferences.getLong("dropbox.upload.batch.poll.interval"));
+                }
+                final List<Path> files = new ArrayList<>(remaining.keySet());
+                final List<UploadSessionFinishArg> arguments = new ArrayList<>();
+                for(Entry entry : remaining.values()) {
+                    arguments.add(entry.commit);
+                }
+                final List<UploadSessionFinishBatchResultEntry> results = this.launch(arguments);
+                if(results.size() != files.size()) {
+                    throw new InteroperabilityException(String.format("Unexpected number of results %d for %d files in batch %s",
+                        results.size(), files.size(), id));
+                }
+                final Map<Path, Entry> retry = new LinkedHashMap<>();
+                for(int i = 0; i < results.size(); i++) {
+                    final UploadSessionFinishBatchResultEntry result = results.get(i);
+                    final Path file = files.get(i);
+                    final Entry entry = remaining.get(file);
+                    if(result.isSuccess()) {
+                        entry.complete();
+                        continue;
+                    }
+                    final UploadSessionFinishError error = result.getFailureValue();
+                    if(error.isPath() && error.getPathValue().isTooManyWriteOperations()
+                        && attempt < preferences.getInteger("dropbox.upload.batch.retry")) {
+                        retry.put(file, entry);
+                        continue;
+                    }
+                    log.warn(String.format("Failure committing %s. %s", file, error));
+                    entry.fail(this.map(file, error));
+                }
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Committed %d of %d files in batch %s", files.size() - retry.size(), files.size(), id));
+                }
+                remaining = retry;
+            }
+        }
+        catch(BackgroundException e) {
+            log.warn(String.format("Failure committing %d files in batch %s. %s", remaining.size(), id, e.getMessage()));
+            for(Entry entry : remaining.values()) {
+                entry.fail(e);
+            }
+        }
+    }
+
+    private BackgroundException map(final Path file, final UploadSessionFinishError error) {
+        if(error.isPath()) {
+            return new DropboxExceptionMappingService().map("Upload {0} failed",
+                new UploadSessionFinishErrorException("2/files/upload_session/finish_batch", null, null, error), file);
+        }
+        return new InteroperabilityException(String.format("Failure committing %s. %s", file.getAbsolute(), error));
+    }
+
+    /**
+     * Start batch and poll job until complete
+     *
+     * @return Result for each entry in order of request
+     */
+    private List<UploadSessionFinishBatchResultEntry> launch(final List<UploadSessionFinishArg> entries) throws BackgroundException {
+        try {
+            final DbxUserFilesRequests files = new DbxUserFilesRequests(session.getClient());
+            final UploadSessionFinishBatchLaunch launch = files.uploadSessionFinishBatch(entries);
+            if(launch.isComplete()) {
+                return launch.getCompleteValue().getEntries();
+            }
+            if(!launch.isAsyncJobId()) {
+                throw new InteroperabilityException(String.format("Unexpected reply %s for batch %s", launch, id));
+            }
+            final String job = launch.getAsyncJobIdValue();
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Poll job %s for %d files in batch %s", job, entries.size(), id));
+            }
+            final long deadline = System.currentTimeMillis() + preferences.getLong("dropbox.upload.batch.timeout");
+            while(System.currentTimeMillis() < deadline) {
+                this.sleep(preferences.getLong("dropbox.upload.batch.poll.interval"));
+                final UploadSessionFinishBatchJobStatus result = files.uploadSessionFinishBatchCheck(job);
+                if(result.isComplete()) {
+                    final UploadSessionFinishBatchResult complete = result.getCompleteValue();
+                    return complete.getEntries();
+                }
+                if(!result.isInProgress()) {
+                    throw new InteroperabilityException(String.format("Unexpected status %s of job %s for batch %s", result, job, id));
+                }
+            }
+            throw new ConnectionTimeoutException(String.format("Job %s for batch %s not complete in time", job, id), null);
+        }
+        catch(DbxException e) {
+            throw new DropboxExceptionMappingService().map(e);
+        }
+    }
+
+    private void sleep(final long millis) throws ConnectionCanceledException {
+        try {
+            Thread.sleep(millis);
+        }
+        catch(InterruptedException e) {
+            throw new ConnectionCanceledException(e);
+        }
+    }
+
+    /**
+     * Upload session waiting for commit
+     */
+    private static final class Entry {
+        private final UploadSessionFinishArg commit;
+
+        private boolean done;
+        private BackgroundException failure;
+
+        private Entry(final UploadSessionFinishArg commit) {
+            this.commit = commit;
+        }
+
+        private synchronized void complete() {
+            if(done) {
+                return;
+            }
+            done = true;
+        }
+
+        private synchronized void fail(final BackgroundException failure) {
+            if(done) {
+                return;
+            }
+            this.failure = failure;
+            done = true;
+        }
+
+        /**
+         * @return Failure or null if committed
+         */
+        private synchronized BackgroundException getFailure() {
+            if(!done) {
+                return new ConnectionCanceledException();
+            }
+            return failure;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DropboxUploadBatch{");
+        sb.append("id='").append(id).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -43,6 +43,7 @@ import com.dropbox.core.v2.files.DbxUserFilesRequests;
 import com.dropbox.core.v2.files.FileMetadata;
 import com.dropbox.core.v2.files.UploadSessionAppendV2Uploader;
 import com.dropbox.core.v2.files.UploadSessionCursor;
+import com.dropbox.core.v2.files.UploadSessionFinishArg;
 import com.dropbox.core.v2.files.UploadSessionFinishUploader;
 import com.dropbox.core.v2.files.UploadSessionStartUploader;
 import com.dropbox.core.v2.files.WriteMode;
@@ -89,6 +90,11 @@ public class DropboxWriteFeature extends AbstractHttpWriteFeature<String> {
     public HttpResponseOutputStream<String> write(final Path file, final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
         try {
             final DbxUserFilesRequests files = new DbxUserFilesRequests(session.getClient());
+            final DropboxUploadBatch batch = DropboxUploadBatch.get(status);
+            if(null != batch) {
+                // Send contents with single request closing the session to commit together with other files of transfer
+                return new BatchUploadProxyOutputStream(file, status, batch, files.uploadSessionStartBuilder().withClose(true).start());
+            }
             final UploadSessionStartUploader start = files.uploadSessionStart();
             new DefaultStreamCloser().close(start.getOutputStream());
             final String sessionId = start.finish().getSessionId();
@@ -178,11 +184,7 @@ public class DropboxWriteFeature extends AbstractHttpWriteFeature<String> {
         public void close() throws IOException {
             try {
                 DropboxWriteFeature.this.close(uploader);
-                final UploadSessionFinishUploader finish = client.uploadSessionFinish(new UploadSessionCursor(sessionId, written), CommitInfo.newBuilder(file.getAbsolute())
-                        .withClientModified(status.getTimestamp() != null ? new Date(status.getTimestamp()) : null)
-                        .withMode(WriteMode.OVERWRITE)
-                        .build()
-                );
+                final UploadSessionFinishUploader finish = client.uploadSessionFinish(new UploadSessionCursor(sessionId, written), commit(file, status));
                 finish.getOutputStream().close();
                 final FileMetadata metadtata = finish.finish();
                 fileId = metadtata.getId();
@@ -199,6 +201,75 @@ public class DropboxWriteFeature extends AbstractHttpWriteFeature<String> {
         }
     }
 
+    private final class BatchUploadProxyOutputStream extends HttpResponseOutputStream<String> {
+
+        private final Path file;
+        private final TransferStatus status;
+        private final DropboxUploadBatch batch;
+        private final UploadSessionStartUploader uploader;
+
+        private Long written = 0L;
+        private boolean closed;
+
+        public BatchUploadProxyOutputStream(final Path file, final TransferStatus status, final DropboxUploadBatch batch,
+                                            final UploadSessionStartUploader uploader) {
+            super(uploader.getOutputStream());
+            this.file = file;
+            this.status = status;
+            this.batch = batch;
+            this.uploader = uploader;
+        }
+
+        @Override
+        protected void afterWrite(final int n) throws IOException {
+            written += n;
+        }
+
+        /**
+         * @return Null as the file is committed with the batch after the upload returns
+         */
+        @Override
+        public String getStatus() throws BackgroundException {
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(closed) {
+                return;
+            }
+            closed = true;
+            try {
+                uploader.getOutputStream().close();
+                final String sessionId = uploader.finish().getSessionId();
+                if(written != status.getLength()) {
+                    throw new IOException(String.format("Incomplete upload %s with %d of %d bytes written", file, written, status.getLength()));
+                }
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Add session id %s for upload %s to batch %s", sessionId, file, batch));
+                }
+                // Committed with other files of transfer
+                batch.add(file, new UploadSessionFinishArg(new UploadSessionCursor(sessionId, written), commit(file, status)));
+            }
+            catch(DbxException e) {
+                throw new IOException("Upload failed.", new DropboxExceptionMappingService().map(e));
+            }
+            catch(BackgroundException e) {
+                throw new IOException(e.getDetail(), e);
+            }
+            finally {
+                super.close();
+            }
+        }
+    }
+
+    private CommitInfo commit(final Path file, final TransferStatus status) {
+        return CommitInfo.newBuilder(file.getAbsolute())
+                .withClientModified(status.getTimestamp() != null ? new Date(status.getTimestamp()) : null)
+                .withMode(WriteMode.OVERWRITE)
+                .build();
+    }
+
     private UploadSessionAppendV2Uploader open(final DbxUserFilesRequests files, final String sessionId, final Long offset) throws DbxException {
         if(log.isDebugEnabled()) {
             log.debug(String.format("Open next segment for upload session %s", sessionId));
@@ -0,0 +1,135 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AbstractDropboxTest;
+import ch.cyberduck.core.DisabledConnectionCallback;
+import ch.cyberduck.core.DisabledLoginCallback;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.http.HttpResponseOutputStream;
+import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.shared.DefaultHomeFinderService;
+import ch.cyberduck.core.transfer.Transfer;
+import ch.cyberduck.core.transfer.TransferItem;
+import ch.cyberduck.core.transfer.TransferStatus;
+import ch.cyberduck.test.IntegrationTest;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@Category(IntegrationTest.class)
+public class DropboxBulkFeatureTest extends AbstractDropboxTest {
+
+    @Test
+    public void testCommitBatch() throws Exception {
+        final Path home = new DefaultHomeFinderService(session).find();
+        final Path conflict = new Path(home, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        new DropboxTouchFeature(session).touch(conflict, new TransferStatus());
+        final Map<TransferItem, TransferStatus> files = new HashMap<>();
+        final List<Path> uploaded = new ArrayList<>();
+        for(int i = 0; i < 3; i++) {
+            final Path test = new Path(home, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+            files.put(new TransferItem(test, new Local(System.getProperty("java.io.tmpdir"), test.getName())), new TransferStatus().length(100L));
+            uploaded.add(test);
+        }
+        // Parent is a file
+        final Path failure = new Path(conflict, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        files.put(new TransferItem(failure, new Local(System.getProperty("java.io.tmpdir"), failure.getName())), new TransferStatus().length(100L));
+        final DropboxBulkFeature feature = new DropboxBulkFeature(session);
+        final String id = feature.pre(Transfer.Type.upload, files, new DisabledConnectionCallback());
+        assertNotNull(id);
+        final ExecutorService executor = Executors.newFixedThreadPool(files.size());
+        final Map<Path, Future<String>> results = new HashMap<>();
+        for(final Map.Entry<TransferItem, TransferStatus> entry : files.entrySet()) {
+            assertEquals(id, entry.getValue().getParameters().get(DropboxUploadBatch.REQUEST_PARAMETER_BATCH_IDENTIFIER));
+            results.put(entry.getKey().remote, executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    final HttpResponseOutputStream<String> out = new DropboxWriteFeature(session).write(entry.getKey().remote, entry.getValue(), new DisabledConnectionCallback());
+                    new StreamCopier(new TransferStatus(), new TransferStatus()).transfer(new ByteArrayInputStream(RandomUtils.nextBytes(100)), out);
+                    return out.getStatus();
+                }
+            }));
+        }
+        for(Future<String> result : results.values()) {
+            // Upload returns without waiting for commit
+            assertNull(result.get());
+        }
+        executor.shutdown();
+        try {
+            feature.post(Transfer.Type.upload, files, new DisabledConnectionCallback());
+            fail();
+        }
+        catch(BackgroundException e) {
+            // Failure reported for file with parent not a folder only
+        }
+        for(Path file : uploaded) {
+            assertTrue(new DropboxFindFeature(session).find(file));
+            assertEquals(100L, new DropboxAttributesFinderFeature(session).find(file).getSize());
+        }
+        assertNull(DropboxUploadBatch.get(files.values().iterator().next()));
+        uploaded.add(conflict);
+        new DropboxDeleteFeature(session).delete(uploaded, new DisabledLoginCallback(), new Delete.DisabledCallback());
+    }
+
+    @Test(expected = IOException.class)
+    public void testIncompleteUpload() throws Exception {
+        final Path home = new DefaultHomeFinderService(session).find();
+        final Map<TransferItem, TransferStatus> files = new HashMap<>();
+        for(int i = 0; i < 2; i++) {
+            final Path test = new Path(home, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+            files.put(new TransferItem(test, new Local(System.getProperty("java.io.tmpdir"), test.getName())), new TransferStatus().length(100L));
+        }
+        final DropboxBulkFeature feature = new DropboxBulkFeature(session);
+        assertNotNull(feature.pre(Transfer.Type.upload, files, new DisabledConnectionCallback()));
+        final Map.Entry<TransferItem, TransferStatus> entry = files.entrySet().iterator().next();
+        final HttpResponseOutputStream<String> out = new DropboxWriteFeature(session).write(entry.getKey().remote, entry.getValue(), new DisabledConnectionCallback());
+        try {
+            out.write(RandomUtils.nextBytes(50));
+            out.close();
+        }
+        finally {
+            feature.post(Transfer.Type.upload, files, new DisabledConnectionCallback());
+        }
+    }
+
+    @Test
+    public void testSingleFile() throws Exception {
+        final Path test = new Path(new DefaultHomeFinderService(session).find(), UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        final Map<TransferItem, TransferStatus> files = new HashMap<>();
+        files.put(new TransferItem(test, new Local(System.getProperty("java.io.tmpdir"), test.getName())), new TransferStatus().length(100L));
+        assertNull(new DropboxBulkFeature(session).pre(Transfer.Type.upload, files, new DisabledConnectionCallback()));
+    }
+}
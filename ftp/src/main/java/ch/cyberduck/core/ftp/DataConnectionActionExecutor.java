@@ -17,6 +17,7 @@ package ch.cyberduck.core.ftp;
  * Bug fixes, suggestions and comments should be sent to feedback@cyberduck.ch
  */
 
+import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.BackgroundException;
@@ -65,11 +66,14 @@ public class DataConnectionActionExecutor {
         }
         catch(ConnectionTimeoutException failure) {
             log.warn(String.format("Timeout opening data socket %s", failure.getMessage()));
-            // Expect 421 response
-            session.getClient().completePendingCommand();
+            if(!session.getClient().isPendingCommandCompleted()) {
+                // Expect 421 response
+                session.getClient().completePendingCommand();
+            }
             // Fallback handling
             if(enabled) {
                 try {
+                    this.reset(listener);
                     return this.fallback(action);
                 }
                 catch(BackgroundException e) {
@@ -84,6 +88,7 @@ public class DataConnectionActionExecutor {
             // Fallback handling
             if(enabled) {
                 try {
+                    this.reset(listener);
                     return this.fallback(action);
                 }
                 catch(BackgroundException e) {
@@ -95,6 +100,15 @@ public class DataConnectionActionExecutor {
         }
     }
 
+    /**
+     * Entries already delivered to the listener are listed again on retry
+     */
+    private void reset(final ProgressListener listener) {
+        if(listener instanceof ListProgressListener) {
+            ((ListProgressListener) listener).reset();
+        }
+    }
+
     /**
      * @param action Action that needs to open a data connection
      * @return True if action was successful
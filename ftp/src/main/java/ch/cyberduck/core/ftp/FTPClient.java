@@ -64,6 +64,11 @@ public class FTPClient extends FTPSClient {
      */
     private Map<String, Set<String>> features;
 
+    /**
+     * Final reply for last data connection command has been read
+     */
+    private boolean completed = true;
+
     private final Preferences preferences
             = PreferencesFactory.get();
 
@@ -79,6 +84,7 @@ public class FTPClient extends FTPSClient {
 
     @Override
     protected Socket _openDataConnection_(final String command, final String arg) throws IOException {
+        completed = false;
         final Socket socket = super._openDataConnection_(command, arg);
         if(null == socket) {
             throw new FTPException(this.getReplyCode(), this.getReplyString());
@@ -86,6 +92,23 @@ public class FTPClient extends FTPSClient {
         return socket;
     }
 
+    @Override
+    public boolean completePendingCommand() throws IOException {
+        try {
+            return super.completePendingCommand();
+        }
+        finally {
+            completed = true;
+        }
+    }
+
+    /**
+     * @return False if the final reply for the last data connection command must still be read
+     */
+    public boolean isPendingCommandCompleted() {
+        return completed;
+    }
+
     @Override
     protected void _prepareDataSocket_(final Socket socket) throws IOException {
         if(preferences.getBoolean("ftp.tls.session.requirereuse")) {
@@ -174,28 +197,60 @@ public class FTPClient extends FTPSClient {
     }
 
     public List<String> list(final FTPCmd command, final String pathname) throws IOException {
-        this.pret(command, pathname);
-
-        Socket socket = _openDataConnection_(command, pathname);
-
-        BufferedReader reader = new BufferedReader(
-                new InputStreamReader(socket.getInputStream(), getControlEncoding()));
-        ArrayList<String> results = new ArrayList<String>();
-        String line;
-        while((line = reader.readLine()) != null) {
-            _commandSupport_.fireReplyReceived(-1, line);
-            results.add(line);
+        final BufferedReader reader = this.listStream(command, pathname);
+        final List<String> results = new ArrayList<String>();
+        try {
+            String line;
+            while((line = reader.readLine()) != null) {
+                results.add(line);
+            }
+        }
+        finally {
+            reader.close();
         }
-
-        reader.close();
-        socket.close();
-
         if(!this.completePendingCommand()) {
             throw new FTPException(this.getReplyCode(), this.getReplyString());
         }
         return results;
     }
 
+    /**
+     * Open data connection for directory listing. Lines are returned as they arrive on the data connection. Closing
+     * the reader closes the data connection and must be followed by {@link #completePendingCommand()}.
+     *
+     * @param command  Listing command
+     * @param pathname Argument or null
+     * @return Reader for lines of listing
+     */
+    public BufferedReader listStream(final FTPCmd command, final String pathname) throws IOException {
+        this.pret(command, pathname);
+
+        final Socket socket = _openDataConnection_(command, pathname);
+        if(null == socket) {
+            throw new FTPException(this.getReplyCode(), this.getReplyString());
+        }
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), getControlEncoding())) {
+            @Override
+            public String readLine() throws IOException {
+                final String line = super.readLine();
+                if(line != null) {
+                    _commandSupport_.fireReplyReceived(-1, line);
+                }
+                return line;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                }
+                finally {
+                    socket.close();
+                }
+            }
+        };
+    }
+
     /**
      * Query the server for a supported feature, and returns its values (if any).
      * Caches the parsed response to avoid resending the command repeatedly.
@@ -21,10 +21,13 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 
 import java.io.IOException;
-import java.util.List;
 
 public interface FTPDataResponseReader {
 
-    AttributedList<Path> read(Path parent, List<String> replies, ListProgressListener listener)
+    /**
+     * @param replies  Lines of listing. May be read lazily from the data connection.
+     * @param listener Notified with entries parsed so far
+     */
+    AttributedList<Path> read(Path parent, Iterable<String> replies, ListProgressListener listener)
         throws IOException, FTPInvalidListException, ConnectionCanceledException;
 }
@@ -23,6 +23,7 @@ import ch.cyberduck.core.PathNormalizer;
 import ch.cyberduck.core.Permission;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.ftp.parser.FTPExtendedFile;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.net.ftp.FTPFile;
@@ -30,35 +31,62 @@ import org.apache.commons.net.ftp.FTPFileEntryParser;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 
+import com.google.common.collect.Iterators;
+
 public class FTPListResponseReader implements FTPDataResponseReader {
     private static final Logger log = Logger.getLogger(FTPListResponseReader.class);
 
     private final FTPFileEntryParser parser;
     private final boolean lenient;
+    /**
+     * Number of entries parsed before notifying listener
+     */
+    private final int chunksize;
 
     public FTPListResponseReader(final FTPFileEntryParser parser) {
         this(parser, false);
     }
 
     public FTPListResponseReader(final FTPFileEntryParser parser, final boolean lenient) {
+        this(parser, lenient, PreferencesFactory.get().getInteger("ftp.listing.chunksize"));
+    }
+
+    public FTPListResponseReader(final FTPFileEntryParser parser, final boolean lenient, final int chunksize) {
         this.parser = parser;
         this.lenient = lenient;
+        this.chunksize = chunksize;
     }
 
     @Override
-    public AttributedList<Path> read(final Path directory, final List<String> replies, final ListProgressListener listener)
+    public AttributedList<Path> read(final Path directory, final Iterable<String> replies, final ListProgressListener listener)
             throws IOException, FTPInvalidListException, ConnectionCanceledException {
         final AttributedList<Path> children = new AttributedList<Path>();
         // At least one entry successfully parsed
         boolean success = false;
-        // Call hook for those implementors which need to perform some action upon the list after it has been created
-        // from the server stream, but before any clients see the list
-        parser.preParse(replies);
-        for(String line : replies) {
+        final Iterator<String> lines;
+        if(replies instanceof List) {
+            // Call hook for those implementors which need to perform some action upon the list after it has been created
+            // from the server stream, but before any clients see the list.
+            lines = parser.preParse((List<String>) replies).iterator();
+        }
+        else {
+            // Lines parsed as they are read from the data connection. Pass header line such as for MVS datasets
+            // or total in Unix listing to hook before parsing.
+            final Iterator<String> iterator = replies.iterator();
+            final List<String> header = new ArrayList<String>();
+            if(iterator.hasNext()) {
+                header.add(iterator.next());
+            }
+            lines = Iterators.concat(parser.preParse(header).iterator(), iterator);
+        }
+        while(lines.hasNext()) {
+            final String line = lines.next();
             final FTPFile f = parser.parseFTPEntry(line);
             if(null == f) {
                 continue;
@@ -160,6 +188,9 @@ public class FTPListResponseReader implements FTPDataResponseReader {
                 parsed.attributes().setModificationDate(timestamp.getTimeInMillis());
             }
             children.add(parsed);
+            if(children.size() % chunksize == 0) {
+                listener.chunk(directory, children);
+            }
         }
         if(!success) {
             throw new FTPInvalidListException(children);
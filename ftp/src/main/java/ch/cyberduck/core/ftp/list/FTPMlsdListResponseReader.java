@@ -33,21 +33,27 @@ import java.io.IOException;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class FTPMlsdListResponseReader implements FTPDataResponseReader {
     private static final Logger log = Logger.getLogger(FTPMlsdListResponseReader.class);
 
+    /**
+     * Number of entries parsed before notifying listener
+     */
+    private final int chunksize;
+
     public FTPMlsdListResponseReader() {
-        //
+        this(PreferencesFactory.get().getInteger("ftp.listing.chunksize"));
+    }
+
+    public FTPMlsdListResponseReader(final int chunksize) {
+        this.chunksize = chunksize;
     }
 
     @Override
-    public AttributedList<Path> read(final Path directory, final List<String> replies, final ListProgressListener listener)
+    public AttributedList<Path> read(final Path directory, final Iterable<String> replies, final ListProgressListener listener)
         throws IOException, FTPInvalidListException, ConnectionCanceledException {
         final AttributedList<Path> children = new AttributedList<Path>();
         // At least one entry successfully parsed
@@ -167,6 +173,9 @@ public class FTPMlsdListResponseReader implements FTPDataResponseReader {
                     parsed.attributes().setCreationDate(this.parseTimestamp(facts.get("create")));
                 }
                 children.add(parsed);
+                if(children.size() % chunksize == 0) {
+                    listener.chunk(directory, children);
+                }
             }
         }
         if(!success) {
@@ -235,28 +244,54 @@ public class FTPMlsdListResponseReader implements FTPDataResponseReader {
      * @return Parsed keys and values
      */
     protected Map<String, Map<String, String>> parseFacts(final String line) {
-        final Pattern p = Pattern.compile("\\s?(\\S+\\=\\S+;)*\\s(.*)");
-        final Matcher result = p.matcher(line);
-        final Map<String, Map<String, String>> file = new HashMap<String, Map<String, String>>();
-        if(result.matches()) {
-            final String filename = result.group(2);
-            final Map<String, String> facts = new HashMap<String, String>();
-            for(String fact : result.group(1).split(";")) {
-                String key = StringUtils.substringBefore(fact, "=");
-                if(StringUtils.isBlank(key)) {
-                    continue;
-                }
-                String value = StringUtils.substringAfter(fact, "=");
-                if(StringUtils.isBlank(value)) {
-                    continue;
+        // Facts are separated from the filename by a single space and may be preceded by a space
+        int offset = 0;
+        if(line.length() > 0 && this.isWhitespace(line.charAt(0))) {
+            offset = 1;
+        }
+        int separator = offset;
+        while(separator < line.length() && !this.isWhitespace(line.charAt(separator))) {
+            separator++;
+        }
+        if(separator == line.length()) {
+            if(offset == 0) {
+                log.warn(String.format("No match for %s", line));
+                return null;
+            }
+            // No facts
+            separator = 0;
+        }
+        final Map<String, String> facts = new HashMap<String, String>();
+        if(separator > offset) {
+            if(line.charAt(separator - 1) != ';' || line.indexOf('=', offset) == -1) {
+                log.warn(String.format("No match for %s", line));
+                return null;
+            }
+            int start = offset;
+            while(start < separator) {
+                int end = line.indexOf(';', start);
+                final int equals = line.indexOf('=', start);
+                if(equals > start && equals < end - 1) {
+                    facts.put(line.substring(start, equals).toLowerCase(Locale.ROOT), line.substring(equals + 1, end));
                 }
-                facts.put(key.toLowerCase(Locale.ROOT), value);
+                start = end + 1;
             }
-            file.put(filename, facts);
-            return file;
         }
-        log.warn(String.format("No match for %s", line));
-        return null;
+        final Map<String, Map<String, String>> file = new HashMap<String, Map<String, String>>();
+        file.put(line.substring(separator + 1), facts);
+        return file;
     }
 
+    private boolean isWhitespace(final char c) {
+        switch(c) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+                return true;
+        }
+        return false;
+    }
 }
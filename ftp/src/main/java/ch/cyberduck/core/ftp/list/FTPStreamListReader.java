@@ -0,0 +1,79 @@
+package ch.cyberduck.core.ftp.list;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.ftp.FTPClient;
+import ch.cyberduck.core.ftp.FTPException;
+
+import org.apache.commons.io.LineIterator;
+import org.apache.commons.net.ftp.FTPCmd;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Parse directory listing while lines are read from the data connection instead of buffering the complete response
+ */
+public class FTPStreamListReader {
+    private static final Logger log = Logger.getLogger(FTPStreamListReader.class);
+
+    private final FTPClient client;
+    private final FTPDataResponseReader reader;
+
+    public FTPStreamListReader(final FTPClient client, final FTPDataResponseReader reader) {
+        this.client = client;
+        this.reader = reader;
+    }
+
+    public AttributedList<Path> read(final Path directory, final FTPCmd command, final String pathname,
+                                     final ListProgressListener listener) throws IOException, BackgroundException {
+        final BufferedReader lines = client.listStream(command, pathname);
+        boolean complete = false;
+        try {
+            final AttributedList<Path> list = reader.read(directory, new Iterable<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return new LineIterator(lines);
+                }
+            }, listener);
+            complete = true;
+            return list;
+        }
+        catch(IllegalStateException e) {
+            // Failure reading from data connection
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+        finally {
+            lines.close();
+            // Read final reply also when parsing is interrupted
+            if(!client.completePendingCommand()) {
+                if(complete) {
+                    throw new FTPException(client.getReplyCode(), client.getReplyString());
+                }
+                log.warn(String.format("Unexpected reply %s for interrupted listing", client.getReplyString()));
+            }
+        }
+    }
+}
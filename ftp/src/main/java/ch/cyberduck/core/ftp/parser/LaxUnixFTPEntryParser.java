@@ -61,12 +61,19 @@ public class LaxUnixFTPEntryParser extends CommonUnixFTPEntryParser {
                      */
                     + "(\\s*\\S+)(\\s*.*)";
 
+    private static final String TYPES = "bcdlfmpSs-";
+    private static final String EXECUTE = "xsStTL-";
+
     public LaxUnixFTPEntryParser() {
         super(REGEX_WHITESPACE_AWARE);
     }
 
     @Override
     public FTPFile parseFTPEntry(String entry) {
+        final FTPFile scanned = this.scan(entry);
+        if(null != scanned) {
+            return scanned;
+        }
         if(matches(entry)) {
             String typeStr = group(1);
             String usr = group(16);
@@ -99,4 +106,166 @@ public class LaxUnixFTPEntryParser extends CommonUnixFTPEntryParser {
         }
         return null;
     }
+
+    /**
+     * Tokenize the common format with plain size, month name and day followed by time or year without matching the
+     * regular expression. Returns null for any other line to fall back to the regular expression with the same
+     * result for lines accepted by both.
+     *
+     * @param entry Line of listing
+     * @return Null if line is not in common format
+     */
+    private FTPFile scan(final String entry) {
+        final int length = entry.length();
+        if(length < 10 || TYPES.indexOf(entry.charAt(0)) == -1) {
+            return null;
+        }
+        for(int i = 1; i < 10; i += 3) {
+            if(!flag(entry.charAt(i), 'r') || !flag(entry.charAt(i + 1), 'w') || EXECUTE.indexOf(entry.charAt(i + 2)) == -1) {
+                return null;
+            }
+        }
+        int position = 10;
+        if(position < length && entry.charAt(position) == '+') {
+            position++;
+        }
+        // Start and end offset of link count, user, group, size, month, day and time separated by whitespace
+        final int[] tokens = new int[14];
+        int count = 0;
+        while(count < 7) {
+            final int separator = position;
+            while(position < length && isWhitespace(entry.charAt(position))) {
+                position++;
+            }
+            if(position == separator || position == length) {
+                break;
+            }
+            tokens[count * 2] = position;
+            while(position < length && !isWhitespace(entry.charAt(position))) {
+                position++;
+            }
+            tokens[count * 2 + 1] = position;
+            count++;
+        }
+        if(count < 6 || !isDigits(entry, tokens[0], tokens[1])) {
+            return null;
+        }
+        // Try with group first
+        if(count == 7) {
+            final FTPFile parsed = this.scan(entry, tokens, 3);
+            if(null != parsed || isDigit(entry, tokens[6])) {
+                return parsed;
+            }
+        }
+        if(isDigit(entry, tokens[4])) {
+            return this.scan(entry, tokens, 2);
+        }
+        return null;
+    }
+
+    /**
+     * @param size Index of file size token
+     */
+    private FTPFile scan(final String entry, final int[] tokens, final int size) {
+        if(!isDigits(entry, tokens[size * 2], tokens[size * 2 + 1])) {
+            return null;
+        }
+        final int month = size + 1;
+        for(int i = tokens[month * 2]; i < tokens[month * 2 + 1]; i++) {
+            if(entry.charAt(i) == '-' || entry.charAt(i) == '/') {
+                // Possibly numeric date
+                return null;
+            }
+        }
+        final int time = size + 3;
+        final int begin = tokens[time * 2];
+        final int end = tokens[time * 2 + 1];
+        int name;
+        if(end - begin == 4 && isDigits(entry, begin, end)) {
+            // Year may be followed by additional space
+            name = end + 1;
+            if(name < entry.length() && isWhitespace(entry.charAt(name))) {
+                name++;
+            }
+        }
+        else if((end - begin == 4 || end - begin == 5) && entry.charAt(end - 3) == ':'
+                && isDigits(entry, begin, end - 3) && isDigits(entry, end - 2, end)) {
+            name = end + 1;
+        }
+        else {
+            return null;
+        }
+        if(end == entry.length() || !isWhitespace(entry.charAt(end))) {
+            return null;
+        }
+        boolean blank = true;
+        for(int i = name; i < entry.length(); i++) {
+            final char c = entry.charAt(i);
+            switch(c) {
+                case '\n':
+                case '\r':
+                case '\u0085':
+                case '\u2028':
+                case '\u2029':
+                    // Line terminator not matched by regular expression
+                    return null;
+            }
+            if(!isWhitespace(c)) {
+                blank = false;
+            }
+        }
+        if(blank) {
+            return null;
+        }
+        long filesize;
+        try {
+            filesize = Long.parseLong(entry.substring(tokens[size * 2], tokens[size * 2 + 1]));
+        }
+        catch(NumberFormatException e) {
+            filesize = -1;
+        }
+        return this.parseFTPEntry(entry.substring(0, 1), entry.substring(1, 10),
+                entry.substring(tokens[2], tokens[3]),
+                size == 3 ? entry.substring(tokens[4], tokens[5]) : null,
+                filesize,
+                entry.substring(tokens[month * 2], tokens[month * 2 + 3]) + " " + entry.substring(begin, end),
+                entry.substring(name), StringUtils.EMPTY);
+    }
+
+    private static boolean flag(final char c, final char expected) {
+        return c == expected || c == '-';
+    }
+
+    private static boolean isDigit(final String entry, final int index) {
+        final char c = entry.charAt(index);
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isDigits(final String entry, final int begin, final int end) {
+        if(begin == end) {
+            return false;
+        }
+        for(int i = begin; i < end; i++) {
+            if(!isDigit(entry, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whitespace as matched by <code>\s</code>
+     */
+    private static boolean isWhitespace(final char c) {
+        switch(c) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+                return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,88 @@
+package ch.cyberduck.core.ftp;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.IndexedListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionTimeoutException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class DataConnectionActionExecutorFallbackTest {
+
+    @Test
+    public void testFallbackAfterChunk() throws Exception {
+        final AtomicInteger completed = new AtomicInteger();
+        final FTPClient ftp = new FTPClient(new FTPProtocol(), null, null) {
+            @Override
+            public boolean completePendingCommand() throws IOException {
+                completed.incrementAndGet();
+                return true;
+            }
+        };
+        final FTPSession session = new FTPSession(new Host(new FTPProtocol(), "localhost")) {
+            @Override
+            public FTPClient getClient() {
+                return ftp;
+            }
+        };
+        final Path directory = new Path("/", EnumSet.of(Path.Type.directory));
+        final AtomicInteger count = new AtomicInteger();
+        final List<Path> visited = new ArrayList<Path>();
+        final IndexedListProgressListener listener = new IndexedListProgressListener() {
+            @Override
+            public void visit(final AttributedList<Path> list, final int index, final Path file) {
+                visited.add(file);
+            }
+
+            @Override
+            public void message(final String message) {
+                //
+            }
+        };
+        final AttributedList<Path> list = new DataConnectionActionExecutor(session, true).data(new DataConnectionAction<AttributedList<Path>>() {
+            @Override
+            public AttributedList<Path> execute() throws BackgroundException {
+                final AttributedList<Path> children = new AttributedList<Path>();
+                children.add(new Path(directory, "a", EnumSet.of(Path.Type.file)));
+                listener.chunk(directory, children);
+                if(count.getAndIncrement() == 0) {
+                    // Final reply already read after interrupted listing
+                    throw new ConnectionTimeoutException("t", new IOException());
+                }
+                children.add(new Path(directory, "b", EnumSet.of(Path.Type.file)));
+                listener.chunk(directory, children);
+                return children;
+            }
+        }, listener);
+        assertEquals(2, count.get());
+        assertEquals(2, list.size());
+        assertEquals(0, completed.get());
+        // Entries from failed attempt visited again after reset
+        assertEquals(3, visited.size());
+    }
+}
@@ -24,13 +24,16 @@ import ch.cyberduck.core.ftp.FTPParserSelector;
 import ch.cyberduck.core.ftp.parser.CompositeFileEntryParser;
 import ch.cyberduck.test.IntegrationTest;
 
+import org.apache.commons.net.ftp.parser.UnixFTPEntryParser;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -49,6 +52,54 @@ public class FTPListResponseReaderTest {
         );
     }
 
+    @Test
+    public void testChunk() throws Exception {
+        final Path directory = new Path("/", EnumSet.of(Path.Type.directory));
+        final Iterator<String> lines = Arrays.asList(
+            "-rw-r--r--   1 owner group       27 Sep 23  2004 a",
+            "-rw-r--r--   1 owner group       27 Sep 23  2004 b",
+            "-rw-r--r--   1 owner group       27 Sep 23  2004 c").iterator();
+        final List<Integer> chunks = new ArrayList<Integer>();
+        final AttributedList<Path> list = new FTPListResponseReader(new FTPParserSelector().getParser("UNIX"), false, 2)
+            .read(directory, new Iterable<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return lines;
+                }
+            }, new DisabledListProgressListener() {
+                @Override
+                public void chunk(final Path parent, final AttributedList<Path> list) {
+                    chunks.add(list.size());
+                }
+            });
+        assertEquals(3, list.size());
+        assertEquals(Collections.singletonList(2), chunks);
+    }
+
+    @Test
+    public void testPreParseStream() throws Exception {
+        final Path directory = new Path("/", EnumSet.of(Path.Type.directory));
+        final Iterator<String> lines = Arrays.asList(
+            "total 2",
+            "-rw-r--r--   1 owner group       27 Sep 23  2004 a",
+            "-rw-r--r--   1 owner group       27 Sep 23  2004 b").iterator();
+        final List<String> header = new ArrayList<String>();
+        final AttributedList<Path> list = new FTPListResponseReader(new UnixFTPEntryParser() {
+            @Override
+            public List<String> preParse(final List<String> original) {
+                header.addAll(original);
+                return super.preParse(original);
+            }
+        }).read(directory, new Iterable<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return lines;
+            }
+        }, new DisabledListProgressListener());
+        assertEquals(Collections.singletonList("total 2"), header);
+        assertEquals(2, list.size());
+    }
+
     @Test
     public void testParseSymbolicLink() throws Exception {
         Path path = new Path("/", EnumSet.of(Path.Type.directory));
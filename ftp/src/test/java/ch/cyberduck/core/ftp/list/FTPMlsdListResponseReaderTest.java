@@ -27,10 +27,14 @@ import org.junit.experimental.categories.Category;
 
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Map;
 import java.util.TimeZone;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @Category(IntegrationTest.class)
@@ -62,6 +66,24 @@ public class FTPMlsdListResponseReaderTest {
         assertEquals(Permission.EMPTY, children.get(2).attributes().getPermission());
     }
 
+    @Test
+    public void testParseFacts() {
+        final FTPMlsdListResponseReader reader = new FTPMlsdListResponseReader();
+        Map<String, Map<String, String>> parsed = reader.parseFacts("Type=file;Size=1;Modify=;x=a=b; file name");
+        assertEquals(Collections.singleton("file name"), parsed.keySet());
+        final Map<String, String> facts = parsed.get("file name");
+        assertEquals("file", facts.get("type"));
+        assertEquals("1", facts.get("size"));
+        assertEquals("a=b", facts.get("x"));
+        assertFalse(facts.containsKey("modify"));
+        parsed = reader.parseFacts(" type=dir; d");
+        assertEquals("dir", parsed.get("d").get("type"));
+        parsed = reader.parseFacts(" name");
+        assertTrue(parsed.get("name").isEmpty());
+        assertNull(reader.parseFacts("type=file;name"));
+        assertNull(reader.parseFacts("type file"));
+    }
+
     @Test
     public void testParsePermissions() throws Exception {
         Path path = new Path(
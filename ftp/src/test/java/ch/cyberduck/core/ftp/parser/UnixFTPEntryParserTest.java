@@ -459,4 +459,38 @@ public class UnixFTPEntryParserTest {
         assertEquals(28, parsed.getTimestamp().get(Calendar.DAY_OF_MONTH));
         assertEquals(2008, parsed.getTimestamp().get(Calendar.YEAR));
     }
+
+    @Test
+    public void testScanWithoutRegularExpression() {
+        final FTPFileEntryParser parser = new LaxUnixFTPEntryParser();
+        FTPFile parsed = parser.parseFTPEntry("drwxr-sr-t+  2 owner group     4096 Mar  3 12:34  leading space");
+        assertNotNull(parsed);
+        assertEquals(" leading space", parsed.getName());
+        assertEquals(FTPFile.DIRECTORY_TYPE, parsed.getType());
+        assertEquals("owner", parsed.getUser());
+        assertEquals("group", parsed.getGroup());
+        assertEquals(4096L, parsed.getSize());
+        assertEquals(Calendar.MARCH, parsed.getTimestamp().get(Calendar.MONTH));
+        assertEquals(3, parsed.getTimestamp().get(Calendar.DAY_OF_MONTH));
+        assertTrue(((FTPExtendedFile) parsed).isSetgid());
+        assertTrue(((FTPExtendedFile) parsed).isSticky());
+        assertTrue(parsed.hasPermission(FTPFile.WORLD_ACCESS, FTPFile.EXECUTE_PERMISSION));
+        // Missing group
+        parsed = parser.parseFTPEntry("lrwxrwxrwx 1 owner 27 Sep 23  2004 www -> /www/basic/mk");
+        assertNotNull(parsed);
+        assertEquals("www", parsed.getName());
+        assertEquals("/www/basic/mk", parsed.getLink());
+        assertNull(parsed.getGroup());
+        assertEquals(27L, parsed.getSize());
+        assertEquals(2004, parsed.getTimestamp().get(Calendar.YEAR));
+        // Fallback to regular expression
+        parsed = parser.parseFTPEntry("-rw-r--r-- 1 owner group 15.6k Mar 3 2010 file");
+        assertNotNull(parsed);
+        assertEquals("file", parsed.getName());
+        assertEquals(15974L, parsed.getSize());
+        parsed = parser.parseFTPEntry("-rw-r--r-- 1 owner group 123 2010-03-04 12:34 file");
+        assertNotNull(parsed);
+        assertEquals("file", parsed.getName());
+        assertNull(parser.parseFTPEntry("-rw-r--r-- 1 owner group 123 Mar 3 12:34"));
+    }
 }
@@ -42,7 +42,11 @@ public abstract class AbstractDriveListService implements ListService {
 
     protected static final String GOOGLE_APPS_PREFIX = "application/vnd.google-apps";
     protected static final String DRIVE_FOLDER = String.format("%s.folder", GOOGLE_APPS_PREFIX);
-    protected static final String DEFAULT_FIELDS = "files(createdTime,explicitlyTrashed,id,md5Checksum,mimeType,modifiedTime,name,size,webViewLink),nextPageToken";
+    /**
+     * Fields of file required for attributes
+     */
+    protected static final String FILE_FIELDS = "createdTime,explicitlyTrashed,id,md5Checksum,mimeType,modifiedTime,name,size,webViewLink";
+    protected static final String DEFAULT_FIELDS = String.format("files(%s),nextPageToken", FILE_FIELDS);
 
     private final DriveSession session;
     private final int pagesize;
@@ -74,7 +78,7 @@ public abstract class AbstractDriveListService implements ListService {
             String page = null;
             final String query = this.query(directory, listener);
             do {
-                final FileList list = session.getClient().files().list()
+                final FileList list = session.execute(session.getClient().files().list()
                     // Whether Team Drive items should be included in results
                     .setIncludeTeamDriveItems(true)
                     // Whether the requesting application supports Team Drives
@@ -84,7 +88,7 @@ public abstract class AbstractDriveListService implements ListService {
                     .setOrderBy("name")
                     .setPageToken(page)
                     .setFields(fields)
-                    .setPageSize(pagesize).execute();
+                    .setPageSize(pagesize));
                 if(log.isDebugEnabled()) {
                     log.debug(String.format("Chunk of %d retrieved", list.getFiles().size()));
                 }
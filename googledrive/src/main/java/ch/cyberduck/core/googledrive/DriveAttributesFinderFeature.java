@@ -23,15 +23,18 @@ import ch.cyberduck.core.LocaleFactory;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.PathNormalizer;
 import ch.cyberduck.core.SimplePathPredicate;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.io.Checksum;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.webloc.UrlFileWriterFactory;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.text.MessageFormat;
@@ -59,6 +62,12 @@ public class DriveAttributesFinderFeature implements AttributesFinder {
         if(new PathContainerService().isContainer(file)) {
             return PathAttributes.EMPTY;
         }
+        if(StringUtils.isNotBlank(file.attributes().getVersionId())) {
+            final PathAttributes attributes = this.find(file, file.attributes().getVersionId());
+            if(null != attributes) {
+                return attributes;
+            }
+        }
         final AttributedList<Path> list = new FileidDriveListService(session, fileid, file).list(file.getParent(), new DisabledListProgressListener());
         final Path found = list.find(new SimplePathPredicate(file));
         if(null == found) {
@@ -68,6 +77,38 @@ public class DriveAttributesFinderFeature implements AttributesFinder {
 
     }
 
+    /**
+     * Retrieve file by identifier with a request that can be merged into a batch with concurrent requests
+     *
+     * @return Null if the identifier no longer refers to the file with this name in the parent directory
+     */
+    private PathAttributes find(final Path file, final String id) throws BackgroundException {
+        try {
+            final File f = session.execute(session.getClient().files().get(id)
+                .setFields(String.format("%s,parents", AbstractDriveListService.FILE_FIELDS))
+                .setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable")));
+            if(!StringUtils.equals(file.getName(), PathNormalizer.name(f.getName()))) {
+                // Renamed or Google Apps document listed with extension
+                return null;
+            }
+            final String parent = fileid.getFileid(file.getParent(), new DisabledListProgressListener());
+            if(!DriveHomeFinderService.ROOT_FOLDER_ID.equals(parent)) {
+                if(null == f.getParents() || !f.getParents().contains(parent)) {
+                    return null;
+                }
+            }
+            return this.toAttributes(f);
+        }
+        catch(IOException e) {
+            final BackgroundException failure = new DriveExceptionMappingService().map("Failure to read attributes of {0}", e, file);
+            if(failure instanceof NotfoundException) {
+                // Look up by name
+                return null;
+            }
+            throw failure;
+        }
+    }
+
     protected PathAttributes toAttributes(final File f) {
         final PathAttributes attributes = new PathAttributes();
         if(null != f.getExplicitlyTrashed()) {
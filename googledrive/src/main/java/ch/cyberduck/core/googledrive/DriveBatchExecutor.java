@@ -0,0 +1,272 @@
+package ch.cyberduck.core.googledrive;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.HostUrlProvider;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.drive.DriveRequest;
+
+/**
+ * Merge concurrent metadata requests of all sessions for a bookmark into batch requests. Only a single batch is in
+ * flight at a time. Requests made while a batch is in flight are queued and sent together in the next batch. Before
+ * sending, requests of other active callers are awaited for a short merge window, so a single sequential caller sees
+ * no additional latency.
+ */
+public class DriveBatchExecutor {
+    private static final Logger log = Logger.getLogger(DriveBatchExecutor.class);
+
+    /**
+     * Executors by URL of bookmark including username. Removed when no request is executed anymore.
+     */
+    private static final Map<String, DriveBatchExecutor> executors = new ConcurrentHashMap<>();
+
+    private static final BiFunction<String, DriveBatchExecutor, DriveBatchExecutor> acquire = new BiFunction<String, DriveBatchExecutor, DriveBatchExecutor>() {
+        @Override
+        public DriveBatchExecutor apply(final String key, final DriveBatchExecutor executor) {
+            final DriveBatchExecutor found = null == executor ? new DriveBatchExecutor(
+                PreferencesFactory.get().getInteger("googledrive.batch.size"), 1,
+                PreferencesFactory.get().getLong("googledrive.batch.delay")) : executor;
+            found.users++;
+            return found;
+        }
+    };
+
+    private static final BiFunction<String, DriveBatchExecutor, DriveBatchExecutor> release = new BiFunction<String, DriveBatchExecutor, DriveBatchExecutor>() {
+        @Override
+        public DriveBatchExecutor apply(final String key, final DriveBatchExecutor executor) {
+            if(--executor.users == 0) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Remove batch executor for %s", key));
+                }
+                return null;
+            }
+            return executor;
+        }
+    };
+
+    /**
+     * Execute request in batch with requests made concurrently by other sessions of the same bookmark
+     *
+     * @param session Session to send batch with
+     * @param request Request
+     * @return Response of request
+     */
+    public static <T> T execute(final DriveSession session, final DriveRequest<T> request) throws IOException {
+        if(!PreferencesFactory.get().getBoolean("googledrive.batch")) {
+            return request.execute();
+        }
+        final String key = new HostUrlProvider(true).get(session.getHost());
+        final DriveBatchExecutor executor = executors.compute(key, acquire);
+        try {
+            return executor.submit(session, request);
+        }
+        finally {
+            executors.computeIfPresent(key, release);
+        }
+    }
+
+    private final int size;
+    private final int concurrency;
+    private final long delay;
+
+    private final Object lock = new Object();
+    /**
+     * Requests waiting for next batch
+     */
+    private final List<Entry<?>> pending = new ArrayList<>();
+    /**
+     * Number of batches in flight
+     */
+    private int inflight;
+    /**
+     * Number of callers using this executor. Only modified when computing the registry entry.
+     */
+    private volatile int users;
+
+    /**
+     * @param size        Maximum number of requests in batch
+     * @param concurrency Maximum number of batches in flight
+     */
+    DriveBatchExecutor(final int size, final int concurrency) {
+        this(size, concurrency, 0L);
+    }
+
+    /**
+     * @param size        Maximum number of requests in batch
+     * @param concurrency Maximum number of batches in flight
+     * @param delay       Milliseconds to wait for requests of other active callers before sending
+     */
+    DriveBatchExecutor(final int size, final int concurrency, final long delay) {
+        this.size = Math.max(1, size);
+        this.concurrency = Math.max(1, concurrency);
+        this.delay = delay;
+    }
+
+    /**
+     * @param session Session to send batch with when fewer batches than allowed are in flight
+     * @param request Request
+     * @return Response of request
+     */
+    <T> T submit(final DriveSession session, final DriveRequest<T> request) throws IOException {
+        final Entry<T> entry = new Entry<T>(request);
+        synchronized(lock) {
+            pending.add(entry);
+            // Wake sender waiting for more requests
+            lock.notifyAll();
+        }
+        long deadline = 0L;
+        while(!entry.done) {
+            final List<Entry<?>> batch;
+            synchronized(lock) {
+                if(entry.done) {
+                    break;
+                }
+                try {
+                    // Wait when a batch is in flight or the request is part of a batch in flight
+                    if(inflight >= concurrency || pending.isEmpty()) {
+                        lock.wait();
+                        continue;
+                    }
+                    final long now = System.currentTimeMillis();
+                    if(0L == deadline) {
+                        deadline = now + delay;
+                    }
+                    // Merge window for requests of other callers not queued yet
+                    if(pending.size() < Math.min(size, users) && now < deadline) {
+                        lock.wait(deadline - now);
+                        continue;
+                    }
+                }
+                catch(InterruptedException e) {
+                    // Do not send request in later batch
+                    pending.remove(entry);
+                    throw new InterruptedIOException(e.getMessage());
+                }
+                batch = new ArrayList<>(pending.subList(0, Math.min(size, pending.size())));
+                pending.removeAll(batch);
+                inflight++;
+            }
+            try {
+                this.send(session, batch);
+            }
+            finally {
+                for(Entry<?> item : batch) {
+                    // Missing part in batch response
+                    item.failure(new IOException("No response in batch"));
+                }
+                synchronized(lock) {
+                    inflight--;
+                    lock.notifyAll();
+                }
+            }
+        }
+        return entry.get();
+    }
+
+    /**
+     * Send requests and complete entries with response or failure
+     */
+    void send(final DriveSession session, final List<Entry<?>> entries) {
+        if(entries.size() == 1) {
+            entries.get(0).execute();
+            return;
+        }
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Send batch with %d requests", entries.size()));
+        }
+        try {
+            final BatchRequest batch = session.getClient().batch();
+            for(Entry<?> entry : entries) {
+                entry.queue(batch);
+            }
+            batch.execute();
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure sending batch with %d requests. %s", entries.size(), e.getMessage()));
+            for(Entry<?> entry : entries) {
+                entry.failure(e);
+            }
+        }
+    }
+
+    static final class Entry<T> extends JsonBatchCallback<T> {
+        final DriveRequest<T> request;
+
+        private T response;
+        private IOException failure;
+        private volatile boolean done;
+
+        Entry(final DriveRequest<T> request) {
+            this.request = request;
+        }
+
+        private void execute() {
+            try {
+                this.onSuccess(request.execute(), null);
+            }
+            catch(IOException e) {
+                this.failure(e);
+            }
+        }
+
+        private void queue(final BatchRequest batch) throws IOException {
+            request.queue(batch, this);
+        }
+
+        @Override
+        public void onSuccess(final T response, final HttpHeaders headers) {
+            this.response = response;
+            done = true;
+        }
+
+        @Override
+        public void onFailure(final GoogleJsonError error, final HttpHeaders headers) {
+            this.failure(new GoogleJsonResponseException(new HttpResponseException.Builder(error.getCode(), error.getMessage(), headers), error));
+        }
+
+        void failure(final IOException e) {
+            if(done) {
+                return;
+            }
+            this.failure = e;
+            done = true;
+        }
+
+        private T get() throws IOException {
+            if(null != failure) {
+                throw failure;
+            }
+            return response;
+        }
+    }
+}
@@ -59,8 +59,8 @@ public class DriveDirectoryFeature implements Directory<VersionId> {
                     .setName(folder.getName())
                     .setMimeType("application/vnd.google-apps.folder")
                     .setParents(Collections.singletonList(fileid.getFileid(folder.getParent(), new DisabledListProgressListener()))));
-                final File execute = insert
-                    .setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable")).execute();
+                final File execute = session.execute(insert
+                    .setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable")));
                 return new Path(folder.getParent(), folder.getName(), folder.getType(),
                     new DriveAttributesFinderFeature(session, fileid).toAttributes(execute));
             }
@@ -26,11 +26,16 @@ import ch.cyberduck.core.SimplePathPredicate;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.IdProvider;
+import ch.cyberduck.core.fileid.FileidIndex;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
 import java.util.Comparator;
 
+import com.google.api.services.drive.model.File;
+
 public class DriveFileidProvider implements IdProvider {
 
     private final DriveSession session;
@@ -52,6 +57,15 @@ public class DriveFileidProvider implements IdProvider {
             || file.equals(DriveHomeFinderService.TEAM_DRIVES_NAME)) {
             return DriveHomeFinderService.ROOT_FOLDER_ID;
         }
+        final String indexed = FileidIndex.get(session.getHost()).get(file, new FileidIndex.Validator() {
+            @Override
+            public boolean validate(final Path directory, final String id) throws BackgroundException {
+                return DriveFileidProvider.this.validate(directory, id);
+            }
+        });
+        if(null != indexed) {
+            return this.set(file, indexed);
+        }
         if(cache.isCached(file.getParent())) {
             final AttributedList<Path> list = cache.get(file.getParent());
             final Path found = list.find(new SimplePathPredicate(file));
@@ -70,6 +84,19 @@ public class DriveFileidProvider implements IdProvider {
             }
             return this.set(file, found.attributes().getVersionId());
         }
+        try {
+            return this.find(file);
+        }
+        catch(NotfoundException e) {
+            // Retry with parent directory looked up again
+            if(FileidIndex.get(session.getHost()).invalidate(file.getParent())) {
+                return this.find(file);
+            }
+            throw e;
+        }
+    }
+
+    private String find(final Path file) throws BackgroundException {
         final AttributedList<Path> list = new FileidDriveListService(session, this, file).list(file.getParent(), new DisabledListProgressListener());
         final Path found = list.filter(new Comparator<Path>() {
             @Override
@@ -83,7 +110,34 @@ public class DriveFileidProvider implements IdProvider {
         return this.set(file, found.attributes().getVersionId());
     }
 
+    /**
+     * @return False if the folder with the identifier was renamed, moved or trashed
+     */
+    private boolean validate(final Path directory, final String id) throws BackgroundException {
+        try {
+            final File reference = session.execute(session.getClient().files().get(id)
+                .setFields("name,parents,trashed")
+                .setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable")));
+            if(Boolean.TRUE.equals(reference.getTrashed())) {
+                return false;
+            }
+            if(!StringUtils.equals(directory.getName(), reference.getName())) {
+                return false;
+            }
+            final String parent = this.getFileid(directory.getParent(), new DisabledListProgressListener());
+            if(DriveHomeFinderService.ROOT_FOLDER_ID.equals(parent)) {
+                // Alias not returned in parents
+                return true;
+            }
+            return null != reference.getParents() && reference.getParents().contains(parent);
+        }
+        catch(IOException e) {
+            throw new DriveExceptionMappingService().map("Failure to read attributes of {0}", e, directory);
+        }
+    }
+
     protected String set(final Path file, final String id) {
+        FileidIndex.get(session.getHost()).put(file, id);
         file.attributes().setVersionId(id);
         return id;
     }
@@ -57,33 +57,29 @@ public class DriveMoveFeature implements Move {
                 delete.delete(Collections.singletonList(renamed), connectionCallback, callback);
             }
             final String id = fileid.getFileid(file, new DisabledListProgressListener());
-            if(!StringUtils.equals(file.getName(), renamed.getName())) {
-                // Rename title
-                final File properties = new File();
-                properties.setName(renamed.getName());
-                properties.setMimeType(status.getMime());
-                session.getClient().files().update(id, properties).
-                    setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable")).execute();
-            }
             // Retrieve the existing parents to remove
             final StringBuilder previousParents = new StringBuilder();
-            final File reference = session.getClient().files().get(id)
+            final File reference = session.execute(session.getClient().files().get(id)
                 .setFields("parents")
-                .setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable"))
-                .execute();
+                .setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable")));
             for(String parent : reference.getParents()) {
                 previousParents.append(parent);
                 previousParents.append(',');
             }
-            // Move the file to the new folder
-            session.getClient().files().update(id, null)
+            final File properties = new File();
+            if(!StringUtils.equals(file.getName(), renamed.getName())) {
+                // Rename title
+                properties.setName(renamed.getName());
+                properties.setMimeType(status.getMime());
+            }
+            // Rename and move the file to the new folder with a single request returning the new attributes
+            final File moved = session.execute(session.getClient().files().update(id, properties)
                 .setAddParents(fileid.getFileid(renamed.getParent(), new DisabledListProgressListener()))
                 .setRemoveParents(previousParents.toString())
-                .setFields("id, parents")
-                .setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable"))
-                .execute();
+                .setFields(AbstractDriveListService.FILE_FIELDS)
+                .setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable")));
             return new Path(renamed.getParent(), renamed.getName(), renamed.getType(),
-                new DriveAttributesFinderFeature(session, fileid).find(renamed));
+                new DriveAttributesFinderFeature(session, fileid).toAttributes(moved));
         }
         catch(IOException e) {
             throw new DriveExceptionMappingService().map("Cannot rename {0}", e, file);
@@ -24,6 +24,9 @@ import ch.cyberduck.core.UrlProvider;
 import ch.cyberduck.core.UseragentProvider;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.*;
+import ch.cyberduck.core.fileid.FileidIndex;
+import ch.cyberduck.core.fileid.FileidIndexDeleteFeature;
+import ch.cyberduck.core.fileid.FileidIndexMoveFeature;
 import ch.cyberduck.core.http.HttpSession;
 import ch.cyberduck.core.oauth.OAuth2ErrorResponseInterceptor;
 import ch.cyberduck.core.oauth.OAuth2RequestInterceptor;
@@ -44,6 +47,7 @@ import com.google.api.client.http.apache.ApacheHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.DriveRequest;
 
 public class DriveSession extends HttpSession<Drive> {
 
@@ -95,6 +99,13 @@ public class DriveSession extends HttpSession<Drive> {
         return transport.getHttpClient();
     }
 
+    /**
+     * Execute metadata request merged with concurrent requests of other sessions for this bookmark in batches
+     */
+    public <T> T execute(final DriveRequest<T> request) throws IOException {
+        return DriveBatchExecutor.execute(this, request);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <T> T _getFeature(Class<T> type) {
@@ -114,10 +125,10 @@ public class DriveSession extends HttpSession<Drive> {
             return (T) new DriveDirectoryFeature(this, fileid);
         }
         if(type == Delete.class) {
-            return (T) new DriveBatchDeleteFeature(this, fileid);
+            return (T) new FileidIndexDeleteFeature(new DriveBatchDeleteFeature(this, fileid), FileidIndex.get(host));
         }
         if(type == Move.class) {
-            return (T) new DriveMoveFeature(this, fileid);
+            return (T) new FileidIndexMoveFeature(new DriveMoveFeature(this, fileid), FileidIndex.get(host));
         }
         if(type == Copy.class) {
             return (T) new DriveCopyFeature(this, fileid);
@@ -0,0 +1,266 @@
+package ch.cyberduck.core.googledrive;
+
+/*
+ * Copyright (c) 2002-2016 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.NotfoundException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Merges requests without sending them to a server
+ */
+public class DriveBatchExecutorTest {
+
+    private final Drive client = new Drive.Builder(new ApacheHttpTransport(), new GsonFactory(), null)
+        .setApplicationName("test").build();
+
+    /**
+     * Requested file identifiers of each batch in the order sent
+     */
+    private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+
+    /**
+     * Blocks sending of first batch until released
+     */
+    private final class BlockingExecutor extends DriveBatchExecutor {
+        private final CountDownLatch started;
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingExecutor(final int size, final int concurrency, final int blocked) {
+            super(size, concurrency);
+            this.started = new CountDownLatch(blocked);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void send(final DriveSession session, final List<Entry<?>> entries) {
+            final List<String> ids = new ArrayList<>();
+            for(Entry<?> entry : entries) {
+                ids.add(((Drive.Files.Get) entry.request).getFileId());
+            }
+            batches.add(ids);
+            if(started.getCount() > 0) {
+                started.countDown();
+                try {
+                    release.await();
+                }
+                catch(InterruptedException e) {
+                    fail();
+                }
+            }
+            for(Entry<?> entry : entries) {
+                final String id = ((Drive.Files.Get) entry.request).getFileId();
+                if(id.startsWith("missing")) {
+                    ((Entry<File>) entry).onFailure(new GoogleJsonError().set("code", 404).set("message", "File not found"), new HttpHeaders());
+                }
+                else if(id.startsWith("skip")) {
+                    // No part in response
+                    continue;
+                }
+                else {
+                    ((Entry<File>) entry).onSuccess(new File().setId(id), null);
+                }
+            }
+        }
+    }
+
+    private Thread submit(final DriveBatchExecutor executor, final String id, final AtomicReference<Object> result) throws Exception {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.set(executor.submit(null, client.files().get(id)));
+                }
+                catch(IOException e) {
+                    result.set(e);
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private static void await(final Thread thread) throws InterruptedException {
+        while(thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(10L);
+        }
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        final BlockingExecutor executor = new BlockingExecutor(2, 1, 1);
+        final List<AtomicReference<Object>> results = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < 4; i++) {
+            final AtomicReference<Object> result = new AtomicReference<>();
+            results.add(result);
+            final Thread thread = this.submit(executor, String.valueOf(i), result);
+            threads.add(thread);
+            if(i == 0) {
+                executor.started.await();
+            }
+            else {
+                // Queued while first request is in flight
+                await(thread);
+            }
+        }
+        executor.release.countDown();
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(3, batches.size());
+        assertEquals(Collections.singletonList("0"), batches.get(0));
+        assertEquals(2, batches.get(1).size());
+        assertEquals(1, batches.get(2).size());
+        for(int i = 0; i < 4; i++) {
+            assertEquals(String.valueOf(i), ((File) results.get(i).get()).getId());
+        }
+    }
+
+    @Test
+    public void testFewerRequests() throws Exception {
+        // Single batch in flight taking a while to complete
+        final DriveBatchExecutor executor = new DriveBatchExecutor(100, 1) {
+            @Override
+            @SuppressWarnings("unchecked")
+            void send(final DriveSession session, final List<Entry<?>> entries) {
+                final List<String> ids = new ArrayList<>();
+                for(Entry<?> entry : entries) {
+                    ids.add(((Drive.Files.Get) entry.request).getFileId());
+                }
+                batches.add(ids);
+                try {
+                    Thread.sleep(100L);
+                }
+                catch(InterruptedException e) {
+                    fail();
+                }
+                for(Entry<?> entry : entries) {
+                    ((Entry<File>) entry).onSuccess(new File().setId(((Drive.Files.Get) entry.request).getFileId()), null);
+                }
+            }
+        };
+        final int count = 10;
+        final List<AtomicReference<Object>> results = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            final AtomicReference<Object> result = new AtomicReference<>();
+            results.add(result);
+            threads.add(this.submit(executor, String.valueOf(i), result));
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        // Requests made while first batch is in flight are sent together
+        assertTrue(batches.size() <= 2);
+        int requests = 0;
+        for(List<String> batch : batches) {
+            requests += batch.size();
+        }
+        assertEquals(count, requests);
+        for(int i = 0; i < count; i++) {
+            assertEquals(String.valueOf(i), ((File) results.get(i).get()).getId());
+        }
+    }
+
+    @Test
+    public void testConcurrency() throws Exception {
+        final BlockingExecutor executor = new BlockingExecutor(100, 2, 2);
+        final AtomicReference<Object> first = new AtomicReference<>();
+        final AtomicReference<Object> second = new AtomicReference<>();
+        final Thread t1 = this.submit(executor, "1", first);
+        await(t1);
+        final Thread t2 = this.submit(executor, "2", second);
+        // Both requests in flight in separate batches
+        executor.started.await();
+        executor.release.countDown();
+        t1.join();
+        t2.join();
+        assertEquals(2, batches.size());
+        assertEquals("1", ((File) first.get()).getId());
+        assertEquals("2", ((File) second.get()).getId());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final BlockingExecutor executor = new BlockingExecutor(100, 1, 1);
+        final AtomicReference<Object> blocking = new AtomicReference<>();
+        final AtomicReference<Object> found = new AtomicReference<>();
+        final AtomicReference<Object> missing = new AtomicReference<>();
+        final AtomicReference<Object> skipped = new AtomicReference<>();
+        final Thread t0 = this.submit(executor, "0", blocking);
+        executor.started.await();
+        final Thread t1 = this.submit(executor, "1", found);
+        await(t1);
+        final Thread t2 = this.submit(executor, "missing", missing);
+        await(t2);
+        final Thread t3 = this.submit(executor, "skip", skipped);
+        await(t3);
+        executor.release.countDown();
+        t0.join();
+        t1.join();
+        t2.join();
+        t3.join();
+        assertEquals(3, batches.get(1).size());
+        // Failure of single request in batch does not fail other requests
+        assertEquals("1", ((File) found.get()).getId());
+        assertTrue(missing.get() instanceof IOException);
+        final BackgroundException failure = new DriveExceptionMappingService().map((IOException) missing.get());
+        assertTrue(failure instanceof NotfoundException);
+        assertTrue(skipped.get() instanceof IOException);
+        assertEquals("No response in batch", ((IOException) skipped.get()).getMessage());
+    }
+
+    @Test
+    public void testInterrupt() throws Exception {
+        final BlockingExecutor executor = new BlockingExecutor(100, 1, 1);
+        final AtomicReference<Object> blocking = new AtomicReference<>();
+        final AtomicReference<Object> interrupted = new AtomicReference<>();
+        final Thread t0 = this.submit(executor, "0", blocking);
+        executor.started.await();
+        final Thread t1 = this.submit(executor, "1", interrupted);
+        await(t1);
+        t1.interrupt();
+        t1.join();
+        assertTrue(interrupted.get() instanceof InterruptedIOException);
+        executor.release.countDown();
+        t0.join();
+        final AtomicReference<Object> next = new AtomicReference<>();
+        this.submit(executor, "2", next).join();
+        // Interrupted request removed from queue
+        assertEquals(2, batches.size());
+        assertEquals(Collections.singletonList("2"), batches.get(1));
+        assertEquals("2", ((File) next.get()).getId());
+    }
+}
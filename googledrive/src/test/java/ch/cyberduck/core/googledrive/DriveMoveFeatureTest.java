@@ -53,6 +53,25 @@ public class DriveMoveFeatureTest extends AbstractDriveTest {
         new DriveDeleteFeature(session, fileid).delete(Arrays.asList(target, folder), new DisabledLoginCallback(), new Delete.DisabledCallback());
     }
 
+    @Test
+    public void testRenameAndMoveFile() throws Exception {
+        final DriveFileidProvider fileid = new DriveFileidProvider(session).withCache(cache);
+        final Path test = new DriveTouchFeature(session, fileid).touch(new Path(DriveHomeFinderService.MYDRIVE_FOLDER, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.file)), new TransferStatus());
+        final Path folder = new DriveDirectoryFeature(session, fileid).mkdir(new Path(DriveHomeFinderService.MYDRIVE_FOLDER, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.directory)), null, new TransferStatus());
+        final String name = new AlphanumericRandomStringService().random();
+        final Path target = new DriveMoveFeature(session, fileid).move(test, new Path(folder, name, EnumSet.of(Path.Type.file)), new TransferStatus(), new Delete.DisabledCallback(), new DisabledConnectionCallback());
+        assertEquals(name, target.getName());
+        assertEquals(folder, target.getParent());
+        // Attributes returned by update request
+        assertEquals(test.attributes().getVersionId(), target.attributes().getVersionId());
+        assertNotEquals(-1L, target.attributes().getModificationDate());
+        final AttributedList<Path> files = new DriveListService(session, fileid).list(folder, new DisabledListProgressListener());
+        assertEquals(1, files.size());
+        assertEquals(target.attributes().getVersionId(), files.get(target).attributes().getVersionId());
+        assertFalse(new DefaultFindFeature(session).find(test));
+        new DriveDeleteFeature(session, fileid).delete(Arrays.asList(target, folder), new DisabledLoginCallback(), new Delete.DisabledCallback());
+    }
+
     @Test
     public void testMoveToExistingFile() throws Exception {
         final DriveFileidProvider fileid = new DriveFileidProvider(session).withCache(cache);
@@ -19,11 +19,16 @@ import ch.cyberduck.core.ConnectionCallback;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.Copy;
+import ch.cyberduck.core.io.FileChannelInputStream;
+import ch.cyberduck.core.io.FileChannelOutputStream;
+import ch.cyberduck.core.io.StreamCopier;
 import ch.cyberduck.core.transfer.TransferStatus;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 public class LocalCopyFeature implements Copy {
 
@@ -36,7 +41,23 @@ public class LocalCopyFeature implements Copy {
     @Override
     public Path copy(final Path source, final Path target, final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
         try {
-            Files.copy(session.toPath(source), session.toPath(target), StandardCopyOption.REPLACE_EXISTING);
+            if(source.isFile()) {
+                final FileChannel in = FileChannel.open(session.toPath(source), StandardOpenOption.READ);
+                final FileChannel out;
+                try {
+                    out = FileChannel.open(session.toPath(target), StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                }
+                catch(IOException e) {
+                    in.close();
+                    throw e;
+                }
+                // Copy in chunks without buffer in heap to report progress
+                new StreamCopier(status, status).transfer(new FileChannelInputStream(in), new FileChannelOutputStream(out));
+            }
+            else {
+                Files.copy(session.toPath(source), session.toPath(target), StandardCopyOption.REPLACE_EXISTING);
+            }
             // Copy attributes from original file
             return new Path(target.getParent(), target.getName(), target.getType(),
                 new LocalAttributesFinderFeature(session).find(target));
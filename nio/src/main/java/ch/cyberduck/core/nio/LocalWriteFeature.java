@@ -20,13 +20,14 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.io.ChecksumCompute;
 import ch.cyberduck.core.io.DisabledChecksumCompute;
+import ch.cyberduck.core.io.FileChannelOutputStream;
+import ch.cyberduck.core.io.FileChannelStream;
 import ch.cyberduck.core.io.StatusOutputStream;
 import ch.cyberduck.core.io.VoidStatusOutputStream;
 import ch.cyberduck.core.shared.AppendWriteFeature;
 import ch.cyberduck.core.transfer.TransferStatus;
 
 import java.io.IOException;
-import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
@@ -70,7 +71,7 @@ public class LocalWriteFeature extends AppendWriteFeature<Void> {
             }
             final FileChannel channel = FileChannel.open(session.toPath(file), options.stream().toArray(OpenOption[]::new));
             channel.position(status.getOffset());
-            return new VoidStatusOutputStream(Channels.newOutputStream(channel));
+            return new ChannelStatusOutputStream(channel);
         }
         catch(IOException e) {
             throw new LocalExceptionMappingService().map("Upload {0} failed", e, file);
@@ -91,4 +92,18 @@ public class LocalWriteFeature extends AppendWriteFeature<Void> {
     public ChecksumCompute checksum(final Path file) {
         return new DisabledChecksumCompute();
     }
+
+    private static final class ChannelStatusOutputStream extends VoidStatusOutputStream implements FileChannelStream {
+        private final FileChannel channel;
+
+        public ChannelStatusOutputStream(final FileChannel channel) {
+            super(new FileChannelOutputStream(channel));
+            this.channel = channel;
+        }
+
+        @Override
+        public FileChannel getChannel() {
+            return channel;
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package ch.cyberduck.core.nio;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.DisabledCancelCallback;
+import ch.cyberduck.core.DisabledConnectionCallback;
+import ch.cyberduck.core.DisabledHostKeyCallback;
+import ch.cyberduck.core.DisabledLoginCallback;
+import ch.cyberduck.core.DisabledPasswordCallback;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.proxy.Proxy;
+import ch.cyberduck.core.shared.DefaultCopyFeature;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.UUID;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LocalCopyFeatureTest {
+
+    @Test
+    public void testCopy() throws Exception {
+        final LocalSession session = new LocalSession(new Host(new LocalProtocol(), new LocalProtocol().getDefaultHostname()));
+        session.open(Proxy.DIRECT, new DisabledHostKeyCallback(), new DisabledLoginCallback());
+        session.login(Proxy.DIRECT, new DisabledLoginCallback(), new DisabledCancelCallback());
+        final Path workdir = new LocalHomeFinderFeature(session).find();
+        final Path source = new Path(workdir, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        final Path target = new Path(workdir, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        final byte[] content = this.write(session, source, 1024 * 1024 + 1);
+        final TransferStatus status = new TransferStatus().length(content.length);
+        new LocalCopyFeature(session).copy(source, target, status, new DisabledConnectionCallback());
+        assertEquals(content.length, status.getOffset(), 0L);
+        assertTrue(status.isComplete());
+        assertArrayEquals(content, this.read(session, target));
+        // Replace existing file with shorter content
+        final byte[] shorter = this.write(session, source, 100);
+        new LocalCopyFeature(session).copy(source, target, new TransferStatus().length(shorter.length), new DisabledConnectionCallback());
+        assertArrayEquals(shorter, this.read(session, target));
+        new LocalDeleteFeature(session).delete(Arrays.asList(source, target), new DisabledPasswordCallback(), new Delete.DisabledCallback());
+        session.close();
+    }
+
+    @Test
+    public void testCopyOffset() throws Exception {
+        final LocalSession session = new LocalSession(new Host(new LocalProtocol(), new LocalProtocol().getDefaultHostname()));
+        session.open(Proxy.DIRECT, new DisabledHostKeyCallback(), new DisabledLoginCallback());
+        session.login(Proxy.DIRECT, new DisabledLoginCallback(), new DisabledCancelCallback());
+        final Path workdir = new LocalHomeFinderFeature(session).find();
+        final Path source = new Path(workdir, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        final Path target = new Path(workdir, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        final byte[] content = this.write(session, source, 1000);
+        // Copy range between sessions with streams backed by file channels
+        final TransferStatus status = new TransferStatus().length(700L).skip(300L);
+        new DefaultCopyFeature(session).copy(source, target, status, new DisabledConnectionCallback());
+        assertEquals(1000L, status.getOffset());
+        assertArrayEquals(Arrays.copyOfRange(content, 300, 1000), Arrays.copyOfRange(this.read(session, target), 300, 1000));
+        new LocalDeleteFeature(session).delete(Arrays.asList(source, target), new DisabledPasswordCallback(), new Delete.DisabledCallback());
+        session.close();
+    }
+
+    private byte[] write(final LocalSession session, final Path file, final int length) throws Exception {
+        final byte[] content = RandomUtils.nextBytes(length);
+        final TransferStatus status = new TransferStatus().length(content.length).exists(new LocalFindFeature(session).find(file));
+        final OutputStream out = new LocalWriteFeature(session).write(file, status, new DisabledConnectionCallback());
+        new StreamCopier(status, status).transfer(new ByteArrayInputStream(content), out);
+        return content;
+    }
+
+    private byte[] read(final LocalSession session, final Path file) throws Exception {
+        final InputStream in = new LocalReadFeature(session).read(file, new TransferStatus(), new DisabledConnectionCallback());
+        try {
+            return IOUtils.toByteArray(in);
+        }
+        finally {
+            in.close();
+        }
+    }
+}
@@ -36,6 +36,9 @@ import ch.cyberduck.core.features.Search;
 import ch.cyberduck.core.features.Timestamp;
 import ch.cyberduck.core.features.Touch;
 import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.fileid.FileidIndex;
+import ch.cyberduck.core.fileid.FileidIndexDeleteFeature;
+import ch.cyberduck.core.fileid.FileidIndexMoveFeature;
 import ch.cyberduck.core.http.HttpSession;
 import ch.cyberduck.core.oauth.OAuth2ErrorResponseInterceptor;
 import ch.cyberduck.core.oauth.OAuth2RequestInterceptor;
@@ -212,13 +215,13 @@ public abstract class GraphSession extends HttpSession<OneDriveAPI> {
             return (T) new GraphBufferWriteFeature(this);
         }
         if(type == Delete.class) {
-            return (T) new GraphDeleteFeature(this);
+            return (T) new FileidIndexDeleteFeature(new GraphDeleteFeature(this), FileidIndex.get(host));
         }
         if(type == Touch.class) {
             return (T) new GraphTouchFeature(this);
         }
         if(type == Move.class) {
-            return (T) new GraphMoveFeature(this);
+            return (T) new FileidIndexMoveFeature(new GraphMoveFeature(this), FileidIndex.get(host));
         }
         if(type == Copy.class) {
             return (T) new GraphCopyFeature(this);
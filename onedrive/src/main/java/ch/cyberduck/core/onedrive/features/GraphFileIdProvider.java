@@ -17,17 +17,24 @@ package ch.cyberduck.core.onedrive.features;
 
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.SimplePathPredicate;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.IdProvider;
+import ch.cyberduck.core.fileid.FileidIndex;
+import ch.cyberduck.core.onedrive.GraphExceptionMappingService;
 import ch.cyberduck.core.onedrive.GraphSession;
 
 import org.apache.commons.lang3.StringUtils;
+import org.nuxeo.onedrive.client.OneDriveAPIException;
+
+import java.io.IOException;
 
 public class GraphFileIdProvider implements IdProvider {
 
@@ -43,6 +50,15 @@ public class GraphFileIdProvider implements IdProvider {
         if(StringUtils.isNotBlank(file.attributes().getVersionId())) {
             return file.attributes().getVersionId();
         }
+        final String indexed = FileidIndex.get(session.getHost()).get(file, new FileidIndex.Validator() {
+            @Override
+            public boolean validate(final Path directory, final String id) throws BackgroundException {
+                return GraphFileIdProvider.this.validate(directory, id);
+            }
+        });
+        if(null != indexed) {
+            return this.set(file, indexed);
+        }
         if(cache.isCached(file.getParent())) {
             final AttributedList<Path> list = cache.get(file.getParent());
             final Path found = list.find(new SimplePathPredicate(file));
@@ -52,6 +68,19 @@ public class GraphFileIdProvider implements IdProvider {
                 }
             }
         }
+        try {
+            return this.find(file, listener);
+        }
+        catch(NotfoundException e) {
+            // Retry with parent directory looked up again
+            if(FileidIndex.get(session.getHost()).invalidate(file.getParent())) {
+                return this.find(file, listener);
+            }
+            throw e;
+        }
+    }
+
+    private String find(final Path file, final ListProgressListener listener) throws BackgroundException {
         final AttributedList<Path> list = session._getFeature(ListService.class).list(file.getParent(), listener);
         final Path found = list.find(new SimplePathPredicate(file));
         if(null == found) {
@@ -60,7 +89,25 @@ public class GraphFileIdProvider implements IdProvider {
         return this.set(file, found.attributes().getVersionId());
     }
 
+    /**
+     * @return False if the item with the identifier was renamed
+     */
+    private boolean validate(final Path directory, final String id) throws BackgroundException {
+        final Path reference = new Path(directory.getParent(), directory.getName(), directory.getType(),
+            new PathAttributes(directory.attributes()).withVersionId(id));
+        try {
+            return StringUtils.equals(directory.getName(), session.toItem(reference).getMetadata().getName());
+        }
+        catch(OneDriveAPIException e) {
+            throw new GraphExceptionMappingService().map("Failure to read attributes of {0}", e, directory);
+        }
+        catch(IOException e) {
+            throw new DefaultIOExceptionMappingService().map("Failure to read attributes of {0}", e, directory);
+        }
+    }
+
     protected String set(final Path file, final String id) {
+        FileidIndex.get(session.getHost()).put(file, id);
         file.attributes().setVersionId(id);
         return id;
     }
@@ -35,8 +35,7 @@ import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
-import ch.cyberduck.core.threading.ThreadPool;
-import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.worker.DefaultExceptionMappingService;
 
@@ -98,7 +97,6 @@ public class SwiftLargeObjectUploadFeature extends HttpUploadFeature<StorageObje
                                 final StreamListener listener,
                                 final TransferStatus status,
                                 final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("multipart", concurrency);
         final List<Path> existingSegments = new ArrayList<Path>();
         if(status.isAppend()) {
             // Get a lexicographically ordered list of the existing file segments
@@ -110,37 +108,38 @@ public class SwiftLargeObjectUploadFeature extends HttpUploadFeature<StorageObje
         final List<StorageObject> completed = new ArrayList<StorageObject>();
         // Submit file segments for concurrent upload
         final List<Future<StorageObject>> segments = new ArrayList<Future<StorageObject>>();
-        long remaining = status.getLength();
-        long offset = 0;
-        for(int segmentNumber = 1; remaining > 0; segmentNumber++) {
-            final Long length = Math.min(segmentSize, remaining);
-            // Segment name with left padded segment number
-            final Path segment = segmentService.getSegment(file, status.getOffset() + status.getLength(), segmentNumber);
-            if(existingSegments.contains(segment)) {
-                final Path existingSegment = existingSegments.get(existingSegments.indexOf(segment));
-                if(log.isDebugEnabled()) {
-                    log.debug(String.format("Skip segment %s", existingSegment));
-                }
-                final StorageObject stored = new StorageObject(containerService.getKey(segment));
-                if(HashAlgorithm.md5.equals(existingSegment.attributes().getChecksum().algorithm)) {
-                    stored.setMd5sum(existingSegment.attributes().getChecksum().hash);
+        final PartScheduler.Upload pool = PartScheduler.create(session.getHost(), concurrency);
+        try {
+            long remaining = status.getLength();
+            long offset = 0;
+            for(int segmentNumber = 1; remaining > 0; segmentNumber++) {
+                final Long length = Math.min(segmentSize, remaining);
+                // Segment name with left padded segment number
+                final Path segment = segmentService.getSegment(file, status.getOffset() + status.getLength(), segmentNumber);
+                if(existingSegments.contains(segment)) {
+                    final Path existingSegment = existingSegments.get(existingSegments.indexOf(segment));
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Skip segment %s", existingSegment));
+                    }
+                    final StorageObject stored = new StorageObject(containerService.getKey(segment));
+                    if(HashAlgorithm.md5.equals(existingSegment.attributes().getChecksum().algorithm)) {
+                        stored.setMd5sum(existingSegment.attributes().getChecksum().hash);
+                    }
+                    stored.setSize(existingSegment.attributes().getSize());
+                    offset += existingSegment.attributes().getSize();
+                    completed.add(stored);
                 }
-                stored.setSize(existingSegment.attributes().getSize());
-                offset += existingSegment.attributes().getSize();
-                completed.add(stored);
-            }
-            else {
-                // Submit to queue
-                segments.add(this.submit(pool, segment, local, throttle, listener, status, offset, length, callback));
-                if(log.isDebugEnabled()) {
-                    log.debug(String.format("Segment %s submitted with size %d and offset %d",
-                        segment, length, offset));
+                else {
+                    // Submit to queue
+                    segments.add(this.submit(pool, segment, local, throttle, listener, status, offset, length, callback));
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Segment %s submitted with size %d and offset %d",
+                            segment, length, offset));
+                    }
+                    remaining -= length;
+                    offset += length;
                 }
-                remaining -= length;
-                offset += length;
             }
-        }
-        try {
             for(Future<StorageObject> futureSegment : segments) {
                 completed.add(futureSegment.get());
             }
@@ -158,7 +157,7 @@ public class SwiftLargeObjectUploadFeature extends HttpUploadFeature<StorageObje
             throw new DefaultExceptionMappingService().map(e.getCause());
         }
         finally {
-            pool.shutdown(false);
+            pool.shutdown();
         }
         // Mark parent status as complete
         status.setComplete();
@@ -192,7 +191,7 @@ public class SwiftLargeObjectUploadFeature extends HttpUploadFeature<StorageObje
         }
     }
 
-    private Future<StorageObject> submit(final ThreadPool pool, final Path segment, final Local local,
+    private Future<StorageObject> submit(final PartScheduler.Upload pool, final Path segment, final Local local,
                                          final BandwidthThrottle throttle, final StreamListener listener,
                                          final TransferStatus overall, final Long offset, final Long length, final ConnectionCallback callback) {
         return pool.execute(new DefaultRetryCallable<StorageObject>(new BackgroundExceptionCallable<StorageObject>() {
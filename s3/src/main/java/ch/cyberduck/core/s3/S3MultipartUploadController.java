@@ -0,0 +1,255 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.log4j.Logger;
+
+/**
+ * Adjust number of concurrent part uploads and part size from throughput measured for completed parts.
+ * <ul>
+ * <li>Concurrency is increased by one after each round of parts as long as the aggregate throughput improves and
+ * reverted if it drops. It is halved when the server asks to slow down.</li>
+ * <li>Part size is doubled when parts complete faster than the minimum target duration where request latency
+ * dominates and halved when parts take longer than the maximum target duration making retries expensive.</li>
+ * </ul>
+ */
+public class S3MultipartUploadController {
+    private static final Logger log = Logger.getLogger(S3MultipartUploadController.class);
+
+    /**
+     * Minimum relative change in throughput considered an improvement
+     */
+    private static final double TOLERANCE = 0.05d;
+
+    private final long minimumPartsize;
+    private final long maximumPartsize;
+    private final int maximumConcurrency;
+    private final int maximumParts;
+    /**
+     * Target duration range for a single part in milliseconds
+     */
+    private final long minimumDuration;
+    private final long maximumDuration;
+
+    private long partsize;
+    private int concurrency;
+    /**
+     * Number of parts currently uploading
+     */
+    private int active;
+
+    private Round round;
+    /**
+     * Throughput in bytes per millisecond of previous round
+     */
+    private double previous;
+    /**
+     * Last change to concurrency
+     */
+    private int direction;
+
+    /**
+     * @param minimumPartsize    Smallest part size allowed by server
+     * @param maximumPartsize    Largest part size
+     * @param partsize           Initial part size
+     * @param concurrency        Initial number of concurrent parts
+     * @param maximumConcurrency Maximum number of concurrent parts
+     * @param maximumParts       Maximum number of parts allowed by server
+     * @param minimumDuration    Double part size when parts complete faster in milliseconds
+     * @param maximumDuration    Halve part size when parts take longer in milliseconds
+     */
+    public S3MultipartUploadController(final long minimumPartsize, final long maximumPartsize, final long partsize,
+                                     final int concurrency, final int maximumConcurrency, final int maximumParts,
+                                     final long minimumDuration, final long maximumDuration) {
+        this.minimumPartsize = minimumPartsize;
+        this.maximumPartsize = Math.max(minimumPartsize, maximumPartsize);
+        this.partsize = Math.min(this.maximumPartsize, Math.max(minimumPartsize, partsize));
+        this.maximumConcurrency = Math.max(1, maximumConcurrency);
+        this.concurrency = Math.min(this.maximumConcurrency, Math.max(1, concurrency));
+        this.maximumParts = maximumParts;
+        this.minimumDuration = minimumDuration;
+        this.maximumDuration = maximumDuration;
+        this.round = new Round(this.concurrency);
+    }
+
+    /**
+     * @param remaining  Number of bytes not yet submitted
+     * @param partNumber Number of next part starting at 1
+     * @return Length for next part within part size limits and such that the remaining bytes fit in the maximum
+     * number of parts
+     */
+    public synchronized long partsize(final long remaining, final int partNumber) {
+        final long parts = Math.max(1L, maximumParts - partNumber + 1L);
+        final long required = (remaining + parts - 1L) / parts;
+        return Math.min(remaining, Math.max(required, partsize));
+    }
+
+    /**
+     * Wait until the number of parts uploading is below the current concurrency
+     *
+     * @param timeout Milliseconds to wait
+     * @return False if no slot was available within timeout
+     */
+    public synchronized boolean acquire(final long timeout) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeout;
+        while(active >= concurrency) {
+            final long wait = deadline - System.currentTimeMillis();
+            if(wait <= 0L) {
+                return false;
+            }
+            this.wait(wait);
+        }
+        active++;
+        return true;
+    }
+
+    /**
+     * Part upload finished or failed
+     */
+    public synchronized void release() {
+        active--;
+        this.notifyAll();
+    }
+
+    /**
+     * Record completed part
+     *
+     * @param bytes Length of part
+     * @param start Milliseconds when part upload started
+     * @param end   Milliseconds when part upload completed
+     */
+    public synchronized void success(final long bytes, final long start, final long end) {
+        round.add(bytes, start, end);
+        if(round.count < round.size) {
+            return;
+        }
+        final double throughput = round.throughput();
+        final long duration = round.duration / round.count;
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Measured throughput %.0f bytes/s with average part duration %dms for concurrency %d and part size %d",
+                throughput * 1000d, duration, concurrency, partsize));
+        }
+        if(!round.throttled) {
+            if(direction > 0 && throughput < previous * (1d - TOLERANCE)) {
+                // Revert last increase
+                this.concurrency(concurrency - 1);
+                direction = 0;
+            }
+            else if(throughput >= previous * (1d + TOLERANCE) || 0 == direction) {
+                if(concurrency < maximumConcurrency) {
+                    this.concurrency(concurrency + 1);
+                    direction = 1;
+                }
+            }
+            else {
+                direction = 0;
+            }
+        }
+        if(duration < minimumDuration) {
+            this.partsize(partsize * 2L);
+        }
+        else if(duration > maximumDuration) {
+            this.partsize(partsize / 2L);
+        }
+        previous = throughput;
+        round = new Round(concurrency);
+    }
+
+    /**
+     * Server rejected request with slow down reply
+     */
+    public synchronized void throttled() {
+        this.concurrency(Math.max(1, concurrency / 2));
+        direction = -1;
+        round = new Round(concurrency);
+        round.throttled = true;
+        previous = 0d;
+    }
+
+    private void concurrency(final int value) {
+        final int update = Math.min(maximumConcurrency, Math.max(1, value));
+        if(update != concurrency) {
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Change concurrency from %d to %d", concurrency, update));
+            }
+            concurrency = update;
+            this.notifyAll();
+        }
+    }
+
+    private void partsize(final long value) {
+        final long update = Math.min(maximumPartsize, Math.max(minimumPartsize, value));
+        if(update != partsize) {
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Change part size from %d to %d", partsize, update));
+            }
+            partsize = update;
+        }
+    }
+
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    public synchronized long getPartsize() {
+        return partsize;
+    }
+
+    /**
+     * Parts completed with the same concurrency
+     */
+    private static final class Round {
+        private final int size;
+        private int count;
+        private long bytes;
+        private long start = Long.MAX_VALUE;
+        private long end = Long.MIN_VALUE;
+        /**
+         * Sum of part durations
+         */
+        private long duration;
+        private boolean throttled;
+
+        private Round(final int size) {
+            this.size = size;
+        }
+
+        private void add(final long bytes, final long start, final long end) {
+            this.count++;
+            this.bytes += bytes;
+            this.start = Math.min(this.start, start);
+            this.end = Math.max(this.end, end);
+            this.duration += end - start;
+        }
+
+        /**
+         * @return Bytes per millisecond
+         */
+        private double throughput() {
+            return (double) bytes / Math.max(1L, end - start);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder sb = new StringBuilder("S3MultipartUploadController{");
+        sb.append("partsize=").append(partsize);
+        sb.append(", concurrency=").append(concurrency);
+        sb.append(", active=").append(active);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,180 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.log4j.Logger;
+import org.jets3t.service.model.MultipartPart;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Offsets of the parts of an interrupted multipart upload. Completed parts are only known by number and size. The
+ * parts missing between completed parts are assumed to have the size of their neighbours which must be equal. The
+ * offset of a completed part after such a gap is therefore derived and must be verified.
+ */
+public final class S3MultipartUploadLayout {
+    private static final Logger log = Logger.getLogger(S3MultipartUploadLayout.class);
+
+    /**
+     * Parts up to the last completed part in order of part number
+     */
+    private final List<Part> parts;
+    /**
+     * End of last completed part
+     */
+    private final long offset;
+    /**
+     * Part number following last completed part
+     */
+    private final int next;
+
+    private S3MultipartUploadLayout(final List<Part> parts, final long offset, final int next) {
+        this.parts = parts;
+        this.offset = offset;
+        this.next = next;
+    }
+
+    /**
+     * @param completed Parts already uploaded
+     * @param size      Length of file
+     * @return Null if the sizes of completed parts cannot be reconciled with each other and the length of the file
+     */
+    public static S3MultipartUploadLayout resume(final List<MultipartPart> completed, final long size) {
+        final List<MultipartPart> sorted = new ArrayList<MultipartPart>(completed);
+        sorted.sort(new MultipartPart.PartNumberComparator());
+        final List<Part> parts = new ArrayList<Part>();
+        long offset = 0L;
+        int number = 1;
+        boolean inferred = false;
+        MultipartPart previous = null;
+        for(int i = 0; i < sorted.size(); i++) {
+            final MultipartPart part = sorted.get(i);
+            if(part.getPartNumber() < number) {
+                log.warn(String.format("Duplicate part number %d", part.getPartNumber()));
+                return null;
+            }
+            if(part.getPartNumber() > number) {
+                // Missing parts with the size of the neighbouring completed parts
+                final long length = null == previous ? part.getSize() : previous.getSize();
+                final boolean last = i == sorted.size() - 1;
+                if(part.getSize() != length && !(last && part.getSize() < length)) {
+                    log.warn(String.format("Size %d of part %d differs from size %d of missing parts", part.getSize(), part.getPartNumber(), length));
+                    return null;
+                }
+                for(; number < part.getPartNumber(); number++) {
+                    if(offset + length > size) {
+                        log.warn(String.format("Missing part %d exceeds length %d", number, size));
+                        return null;
+                    }
+                    parts.add(new Part(number, offset, length, null, true));
+                    offset += length;
+                }
+                inferred = true;
+            }
+            if(offset + part.getSize() > size) {
+                log.warn(String.format("Part %d exceeds length %d", part.getPartNumber(), size));
+                return null;
+            }
+            if(inferred && null != previous && part.getSize() < previous.getSize() && offset + part.getSize() != size) {
+                // Only the last part of the file can be smaller
+                log.warn(String.format("Part %d with size %d is not the last part", part.getPartNumber(), part.getSize()));
+                return null;
+            }
+            parts.add(new Part(number, offset, part.getSize(), part, inferred));
+            offset += part.getSize();
+            number++;
+            previous = part;
+        }
+        return new S3MultipartUploadLayout(parts, offset, number);
+    }
+
+    /**
+     * @return Missing and completed parts up to the last completed part
+     */
+    public List<Part> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    /**
+     * @return Offset of first byte following the last completed part
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return Part number to continue with after last completed part
+     */
+    public int getNext() {
+        return next;
+    }
+
+    public static final class Part {
+        private final int number;
+        private final long offset;
+        private final long length;
+        private final MultipartPart completed;
+        private final boolean inferred;
+
+        private Part(final int number, final long offset, final long length, final MultipartPart completed, final boolean inferred) {
+            this.number = number;
+            this.offset = offset;
+            this.length = length;
+            this.completed = completed;
+            this.inferred = inferred;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * @return Part already uploaded or null if missing
+         */
+        public MultipartPart getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return True if the offset is derived from the assumed size of missing parts before
+         */
+        public boolean isInferred() {
+            return inferred;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Part{");
+            sb.append("number=").append(number);
+            sb.append(", offset=").append(offset);
+            sb.append(", length=").append(length);
+            sb.append(", completed=").append(null != completed);
+            sb.append(", inferred=").append(inferred);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package ch.cyberduck.core.s3;
  */
 
 import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
 import ch.cyberduck.core.Local;
 import ch.cyberduck.core.LocaleFactory;
 import ch.cyberduck.core.Path;
@@ -27,22 +28,26 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ChecksumException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.exception.InteroperabilityException;
+import ch.cyberduck.core.exception.RetriableAccessDeniedException;
 import ch.cyberduck.core.features.Upload;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpUploadFeature;
 import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.ByteArrayPool;
 import ch.cyberduck.core.io.ChecksumComputeFactory;
+import ch.cyberduck.core.io.ChecksumInputStream;
 import ch.cyberduck.core.io.HashAlgorithm;
+import ch.cyberduck.core.io.StreamCopier;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
-import ch.cyberduck.core.threading.ThreadPool;
-import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.transfer.TransferStatus;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 import org.jets3t.service.ServiceException;
@@ -52,6 +57,9 @@ import org.jets3t.service.model.MultipartUpload;
 import org.jets3t.service.model.S3Object;
 import org.jets3t.service.model.StorageObject;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.MessageDigest;
 import java.text.MessageFormat;
 import java.util.ArrayList;
@@ -68,6 +76,9 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
     private final Preferences preferences
         = PreferencesFactory.get();
 
+    private final ByteArrayPool buffers
+        = ByteArrayPool.get();
+
     private final S3Session session;
 
     private final PathContainerService containerService
@@ -100,7 +111,6 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
     @Override
     public StorageObject upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
                                 final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("multipart", concurrency);
         try {
             MultipartUpload multipart = null;
             try {
@@ -114,7 +124,24 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
             catch(AccessDeniedException | InteroperabilityException e) {
                 log.warn(String.format("Ignore failure listing incomplete multipart uploads. %s", e.getDetail()));
             }
+            // Full size of file
+            final long size = status.getLength() + status.getOffset();
             final List<MultipartPart> completed = new ArrayList<MultipartPart>();
+            S3MultipartUploadLayout layout = null;
+            if(null != multipart) {
+                if(status.isAppend()) {
+                    // Add already completed parts
+                    completed.addAll(multipartService.list(multipart));
+                    layout = S3MultipartUploadLayout.resume(completed, size);
+                    if(null == layout || !this.verify(file, local, layout)) {
+                        log.warn(String.format("Restart multipart upload %s with parts not matching file %s", multipart.getUploadId(), local));
+                        multipartService.delete(multipart);
+                        multipart = null;
+                        completed.clear();
+                        layout = null;
+                    }
+                }
+            }
             // Not found or new upload
             if(null == multipart) {
                 if(log.isInfoEnabled()) {
@@ -128,43 +155,37 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                     log.debug(String.format("Multipart upload started for %s with ID %s", multipart.getObjectKey(), multipart.getUploadId()));
                 }
             }
-            else {
-                if(status.isAppend()) {
-                    // Add already completed parts
-                    completed.addAll(multipartService.list(multipart));
-                }
-            }
+            final boolean adaptive = preferences.getBoolean("s3.upload.multipart.adaptive")
+                && !file.getType().contains(Path.Type.encrypted);
+            final S3MultipartUploadController controller = this.controller(adaptive);
+            // Adjusting concurrency is limited by controller
+            final PartScheduler.Upload pool = PartScheduler.create(session.getHost(),
+                Math.max(concurrency, preferences.getInteger("s3.upload.multipart.concurrency.maximum")));
             try {
-                // Full size of file
-                final long size = status.getLength() + status.getOffset();
                 final List<Future<MultipartPart>> parts = new ArrayList<Future<MultipartPart>>();
-                long remaining = status.getLength();
-                long offset = 0;
-                for(int partNumber = 1; remaining > 0; partNumber++) {
-                    boolean skip = false;
-                    if(status.isAppend()) {
-                        if(log.isInfoEnabled()) {
-                            log.info(String.format("Determine if part number %d can be skipped", partNumber));
+                if(null != layout) {
+                    // Missing parts before the last completed part with the offset and length derived from their neighbours
+                    for(S3MultipartUploadLayout.Part part : layout.getParts()) {
+                        if(null == part.getCompleted()) {
+                            parts.add(this.submit(pool, controller, file, local, throttle, listener, status, multipart,
+                                part.getNumber(), part.getOffset(), part.getLength(), callback));
                         }
-                        for(MultipartPart c : completed) {
-                            if(c.getPartNumber().equals(partNumber)) {
-                                if(log.isInfoEnabled()) {
-                                    log.info(String.format("Skip completed part number %d", partNumber));
-                                }
-                                skip = true;
-                                offset += c.getSize();
-                                break;
+                        else {
+                            if(log.isInfoEnabled()) {
+                                log.info(String.format("Skip completed part number %d", part.getNumber()));
                             }
                         }
                     }
-                    if(!skip) {
-                        // Last part can be less than 5 MB. Adjust part size.
-                        final Long length = Math.min(Math.max((size / S3DefaultMultipartService.MAXIMUM_UPLOAD_PARTS), partsize), remaining);
-                        // Submit to queue
-                        parts.add(this.submit(pool, file, local, throttle, listener, status, multipart, partNumber, offset, length, callback));
-                        remaining -= length;
-                        offset += length;
-                    }
+                }
+                long offset = null == layout ? 0L : layout.getOffset();
+                long remaining = size - offset;
+                for(int partNumber = null == layout ? 1 : layout.getNext(); remaining > 0; partNumber++) {
+                    // Last part can be less than 5 MB. Adjust part size.
+                    final long length = adaptive ? controller.partsize(remaining, partNumber) :
+                        Math.min(Math.max((size / S3DefaultMultipartService.MAXIMUM_UPLOAD_PARTS), partsize), remaining);
+                    parts.add(this.submit(pool, controller, file, local, throttle, listener, status, multipart, partNumber, offset, length, callback));
+                    remaining -= length;
+                    offset += length;
                 }
                 for(Future<MultipartPart> future : parts) {
                     try {
@@ -228,7 +249,7 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
             }
             finally {
                 // Cancel future tasks
-                pool.shutdown(false);
+                pool.shutdown();
             }
         }
         catch(ServiceException e) {
@@ -236,14 +257,94 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
         }
     }
 
-    private Future<MultipartPart> submit(final ThreadPool pool, final Path file, final Local local,
+    /**
+     * Compare the MD5 hash of the local file contents at the derived offset of completed parts with their ETag
+     *
+     * @return False if a completed part does not match or cannot be verified
+     */
+    private boolean verify(final Path file, final Local local, final S3MultipartUploadLayout layout) throws BackgroundException {
+        if(file.getType().contains(Path.Type.encrypted)) {
+            // Uploaded with fixed part size only
+            return true;
+        }
+        for(S3MultipartUploadLayout.Part part : layout.getParts()) {
+            if(null == part.getCompleted() || !part.isInferred()) {
+                continue;
+            }
+            final String etag = StringUtils.remove(part.getCompleted().getEtag(), '"');
+            if(!etag.matches("[0-9a-fA-F]{32}")) {
+                log.warn(String.format("Unable to verify part %d with ETag %s", part.getNumber(), etag));
+                return false;
+            }
+            final String hash = ChecksumComputeFactory.get(HashAlgorithm.md5).compute(local.getInputStream(),
+                new TransferStatus().skip(part.getOffset()).length(part.getLength())).hash;
+            if(!StringUtils.equalsIgnoreCase(etag, hash)) {
+                log.warn(String.format("Mismatch of part %d with ETag %s and checksum %s at offset %d", part.getNumber(), etag, hash, part.getOffset()));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param adaptive Adjust part size and concurrency to measured throughput
+     */
+    private S3MultipartUploadController controller(final boolean adaptive) {
+        if(adaptive) {
+            return new S3MultipartUploadController(
+                preferences.getLong("s3.upload.multipart.partsize.minimum"),
+                maximum(partsize, preferences.getLong("s3.upload.multipart.size.maximum"),
+                    preferences.getLong("s3.upload.multipart.checksum.memory.threshold"),
+                    session.getSignatureVersion() == S3Protocol.AuthenticationHeaderSignatureVersion.AWS4HMACSHA256), partsize,
+                concurrency, preferences.getInteger("s3.upload.multipart.concurrency.maximum"),
+                S3DefaultMultipartService.MAXIMUM_UPLOAD_PARTS,
+                preferences.getLong("s3.upload.multipart.adaptive.duration.minimum"),
+                preferences.getLong("s3.upload.multipart.adaptive.duration.maximum"));
+        }
+        // Only reduce concurrency when throttled
+        return new S3MultipartUploadController(partsize, partsize, partsize,
+            concurrency, concurrency, S3DefaultMultipartService.MAXIMUM_UPLOAD_PARTS, 0L, Long.MAX_VALUE);
+    }
+
+    /**
+     * Limit adaptive growth of parts to the size still hashed in memory. Otherwise larger parts would be read twice
+     * once they have grown past the threshold.
+     *
+     * @param partsize  Initial part size
+     * @param maximum   Maximum part size
+     * @param threshold Maximum size of parts read into memory
+     * @param buffered  Parts are hashed in memory before upload
+     * @return Maximum size for adaptive parts
+     */
+    static long maximum(final long partsize, final long maximum, final long threshold, final boolean buffered) {
+        if(buffered && partsize <= threshold) {
+            return Math.min(maximum, threshold);
+        }
+        return maximum;
+    }
+
+    private Future<MultipartPart> submit(final PartScheduler.Upload pool, final S3MultipartUploadController controller,
+                                         final Path file, final Local local,
                                          final BandwidthThrottle throttle, final StreamListener listener,
                                          final TransferStatus overall, final MultipartUpload multipart,
                                          final int partNumber, final long offset, final long length, final ConnectionCallback callback) throws BackgroundException {
+        // Wait for free slot with current concurrency
+        try {
+            while(!controller.acquire(1000L)) {
+                if(overall.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            log.error("Part upload failed with interrupt failure");
+            overall.setCanceled();
+            throw new ConnectionCanceledException(e);
+        }
         if(log.isInfoEnabled()) {
             log.info(String.format("Submit part %d of %s to queue with offset %d and length %d", partNumber, file, offset, length));
         }
-        return pool.execute(new DefaultRetryCallable<MultipartPart>(new BackgroundExceptionCallable<MultipartPart>() {
+        final DefaultRetryCallable<MultipartPart> retry = new DefaultRetryCallable<MultipartPart>(new BackgroundExceptionCallable<MultipartPart>() {
             @Override
             public MultipartPart call() throws BackgroundException {
                 if(overall.isCanceled()) {
@@ -258,26 +359,56 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                     .withParameters(requestParameters);
                 status.setHeader(overall.getHeader());
                 status.setNonces(overall.getNonces());
+                final InputStream in;
+                final long skip;
+                byte[] buffer = null;
                 switch(session.getSignatureVersion()) {
                     case AWS4HMACSHA256:
-                        status.setChecksum(writer.checksum(file).compute(local.getInputStream(), status));
+                        if(!file.getType().contains(Path.Type.encrypted)
+                            && length <= preferences.getLong("s3.upload.multipart.checksum.memory.threshold")) {
+                            // Calculate hash of part while reading into memory and upload from the same buffer
+                            buffer = buffers.acquire((int) length);
+                            in = new ByteArrayInputStream(buffer, 0, read(local, status, buffer));
+                            skip = 0L;
+                        }
+                        else {
+                            status.setChecksum(writer.checksum(file).compute(local.getInputStream(), status));
+                            in = local.getInputStream();
+                            skip = offset;
+                        }
                         break;
+                    default:
+                        in = local.getInputStream();
+                        skip = offset;
                 }
                 status.setSegment(true);
-                final StorageObject part = S3MultipartUploadService.super.upload(
-                    file, local, throttle, listener, status, overall, new StreamProgress() {
-                        @Override
-                        public void progress(final long bytes) {
-                            status.progress(bytes);
-                            // Discard sent bytes in overall progress if there is an error reply for segment.
-                            overall.progress(bytes);
-                        }
+                final long start = System.currentTimeMillis();
+                final StorageObject part;
+                try {
+                    part = S3MultipartUploadService.super.upload(
+                        file, in, skip, throttle, listener, status, overall, new StreamProgress() {
+                            @Override
+                            public void progress(final long bytes) {
+                                status.progress(bytes);
+                                // Discard sent bytes in overall progress if there is an error reply for segment.
+                                overall.progress(bytes);
+                            }
 
-                        @Override
-                        public void setComplete() {
-                            status.setComplete();
-                        }
-                    }, callback);
+                            @Override
+                            public void setComplete() {
+                                status.setComplete();
+                            }
+                        }, callback);
+                }
+                catch(RetriableAccessDeniedException e) {
+                    // Slow down reply
+                    controller.throttled();
+                    throw e;
+                }
+                finally {
+                    buffers.release(buffer);
+                }
+                controller.success(length, start, System.currentTimeMillis());
                 if(log.isInfoEnabled()) {
                     log.info(String.format("Received response %s for part number %d", part, partNumber));
                 }
@@ -288,7 +419,53 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                     part.getContentLength());
 
             }
-        }, overall));
+        }, overall);
+        boolean submitted = false;
+        try {
+            final Future<MultipartPart> future = pool.execute(new BackgroundExceptionCallable<MultipartPart>() {
+                @Override
+                public MultipartPart call() throws BackgroundException {
+                    try {
+                        return retry.call();
+                    }
+                    finally {
+                        controller.release();
+                    }
+                }
+            });
+            submitted = true;
+            return future;
+        }
+        finally {
+            if(!submitted) {
+                // Released by part upload once submitted
+                controller.release();
+            }
+        }
+    }
+
+    /**
+     * Read part into memory and set its SHA-256 checksum on the status
+     *
+     * @param status Status with offset and length of part in file
+     * @param buffer Target with at least the length of the part
+     * @return Number of bytes read
+     */
+    private static int read(final Local local, final TransferStatus status, final byte[] buffer) throws BackgroundException {
+        final ChecksumInputStream in = new ChecksumInputStream(
+            StreamCopier.skip(local.getInputStream(), status.getOffset()), HashAlgorithm.sha256);
+        try {
+            final int length = (int) status.getLength();
+            IOUtils.readFully(in, buffer, 0, length);
+            status.setChecksum(in.getChecksum());
+            return length;
+        }
+        catch(IOException e) {
+            throw new DefaultIOExceptionMappingService().map(e);
+        }
+        finally {
+            IOUtils.closeQuietly(in);
+        }
     }
 
     @Override
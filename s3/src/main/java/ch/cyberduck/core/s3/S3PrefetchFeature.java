@@ -0,0 +1,258 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.PathNormalizer;
+import ch.cyberduck.core.URIEncoder;
+import ch.cyberduck.core.VersioningConfiguration;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.features.Prefetch;
+import ch.cyberduck.core.features.Versioning;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.StorageObjectsChunk;
+import org.jets3t.service.model.StorageObject;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * List all keys below a prefix without delimiter and build the directory tree in memory instead of listing every
+ * common prefix with a separate request chain. Subdirectories of the prefetched directory are listed concurrently.
+ * Versioned buckets are not supported and the cache is left unchanged. The cache passed must not be limited in size
+ * as listings are otherwise evicted before they are used.
+ */
+public class S3PrefetchFeature implements Prefetch {
+    private static final Logger log = Logger.getLogger(S3PrefetchFeature.class);
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final PathContainerService containerService
+        = new S3PathContainerService();
+
+    private final S3Session session;
+    private final S3AttributesFinderFeature attributes;
+    private final int concurrency;
+
+    public S3PrefetchFeature(final S3Session session) {
+        this(session, PreferencesFactory.get().getInteger("s3.listing.prefetch.concurrency"));
+    }
+
+    /**
+     * @param concurrency Maximum number of subdirectories listed in parallel. Lists the complete prefix with a
+     *                    single request chain if 1
+     */
+    public S3PrefetchFeature(final S3Session session, final int concurrency) {
+        this.session = session;
+        this.attributes = new S3AttributesFinderFeature(session);
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public void prefetch(final Path directory, final Cache<Path> cache, final ListProgressListener listener) throws BackgroundException {
+        if(directory.isRoot()) {
+            // Bucket listing
+            return;
+        }
+        final VersioningConfiguration versioning = null != session.getFeature(Versioning.class) ? session.getFeature(Versioning.class).getConfiguration(
+            containerService.getContainer(directory)
+        ) : VersioningConfiguration.empty();
+        if(versioning.isEnabled()) {
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Skip prefetch for versioned bucket of %s", directory));
+            }
+            return;
+        }
+        final Map<Path, AttributedList<Path>> listings = new LinkedHashMap<Path, AttributedList<Path>>();
+        if(concurrency > 1) {
+            // Shard by subdirectories of first level
+            final AttributedList<Path> children = new S3ObjectListService(session).list(directory, listener,
+                String.valueOf(Path.DELIMITER), preferences.getInteger("s3.listing.chunksize"));
+            listings.put(directory, children);
+            final List<Path> shards = new ArrayList<Path>();
+            for(Path child : children) {
+                if(child.isDirectory()) {
+                    shards.add(child);
+                }
+            }
+            final ThreadPool pool = ThreadPoolFactory.get("prefetch", Math.min(concurrency, Math.max(1, shards.size())));
+            try {
+                final List<Future<Map<Path, AttributedList<Path>>>> futures = new ArrayList<Future<Map<Path, AttributedList<Path>>>>();
+                for(final Path shard : shards) {
+                    futures.add(pool.execute(new BackgroundExceptionCallable<Map<Path, AttributedList<Path>>>() {
+                        @Override
+                        public Map<Path, AttributedList<Path>> call() throws BackgroundException {
+                            return list(shard, listener);
+                        }
+                    }));
+                }
+                for(Future<Map<Path, AttributedList<Path>>> future : futures) {
+                    final Map<Path, AttributedList<Path>> shard;
+                    try {
+                        shard = future.get();
+                    }
+                    catch(InterruptedException e) {
+                        throw new ConnectionCanceledException(e);
+                    }
+                    catch(ExecutionException e) {
+                        if(e.getCause() instanceof BackgroundException) {
+                            throw (BackgroundException) e.getCause();
+                        }
+                        throw new BackgroundException(e.getCause());
+                    }
+                    if(null == shard) {
+                        return;
+                    }
+                    listings.putAll(shard);
+                }
+            }
+            finally {
+                pool.shutdown(false);
+            }
+        }
+        else {
+            final Map<Path, AttributedList<Path>> tree = this.list(directory, listener);
+            if(null == tree) {
+                return;
+            }
+            listings.putAll(tree);
+        }
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Prefetched %d directories in %s", listings.size(), directory));
+        }
+        for(Map.Entry<Path, AttributedList<Path>> entry : listings.entrySet()) {
+            cache.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * @param directory Directory to list all keys with prefix for
+     * @return Listings of directory and all its descendants or null if keys cannot be mapped to a directory tree
+     */
+    protected Map<Path, AttributedList<Path>> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        final Path bucket = containerService.getContainer(directory);
+        final String prefix = new S3ObjectListService(session).createPrefix(directory);
+        final Tree tree = new Tree(directory, bucket.attributes().getRegion());
+        try {
+            // Null if listing is complete
+            String priorLastKey = null;
+            do {
+                final StorageObjectsChunk chunk = session.getClient().listObjectsChunked(
+                    PathNormalizer.name(URIEncoder.encode(bucket.getName())), prefix, null,
+                    preferences.getInteger("s3.listing.chunksize"), priorLastKey);
+                for(StorageObject object : chunk.getObjects()) {
+                    final String key = object.getKey().substring(prefix.length());
+                    if(StringUtils.isEmpty(key)) {
+                        // Placeholder of directory itself
+                        continue;
+                    }
+                    final boolean placeholder = key.endsWith(String.valueOf(Path.DELIMITER));
+                    final String[] segments = StringUtils.splitPreserveAllTokens(
+                        placeholder ? StringUtils.removeEnd(key, String.valueOf(Path.DELIMITER)) : key, Path.DELIMITER);
+                    for(String segment : segments) {
+                        if(StringUtils.isEmpty(segment) || ".".equals(segment) || "..".equals(segment)) {
+                            log.warn(String.format("Cancel prefetch in %s for key %s", directory, object.getKey()));
+                            return null;
+                        }
+                    }
+                    Path parent = directory;
+                    for(int i = 0; i < segments.length - 1; i++) {
+                        parent = tree.directory(parent, segments[i]);
+                    }
+                    if(placeholder) {
+                        tree.directory(parent, segments[segments.length - 1]);
+                    }
+                    else {
+                        final PathAttributes attr = attributes.toAttributes(object);
+                        // Copy bucket location
+                        attr.setRegion(bucket.attributes().getRegion());
+                        tree.add(parent, new Path(parent, PathNormalizer.name(PathNormalizer.normalize(segments[segments.length - 1])),
+                            EnumSet.of(Path.Type.file), attr));
+                    }
+                }
+                priorLastKey = chunk.getPriorLastKey();
+                synchronized(listener) {
+                    listener.chunk(directory, tree.listings.get(directory));
+                }
+            }
+            while(priorLastKey != null);
+            return tree.listings;
+        }
+        catch(ServiceException e) {
+            throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, directory);
+        }
+    }
+
+    /**
+     * Listings of directories synthesized from keys
+     */
+    private static final class Tree {
+        private final Map<Path, AttributedList<Path>> listings = new LinkedHashMap<Path, AttributedList<Path>>();
+        /**
+         * Directories by parent and key segment
+         */
+        private final Map<String, Path> directories = new HashMap<String, Path>();
+        private final String region;
+
+        private Tree(final Path root, final String region) {
+            this.region = region;
+            listings.put(root, new AttributedList<Path>());
+        }
+
+        /**
+         * @return Existing or new placeholder directory with name in parent
+         */
+        private Path directory(final Path parent, final String segment) {
+            final String key = String.format("%s%s%s", parent.getAbsolute(), Path.DELIMITER, segment);
+            Path directory = directories.get(key);
+            if(null == directory) {
+                final PathAttributes attr = new PathAttributes();
+                attr.setRegion(region);
+                directory = new Path(parent, PathNormalizer.name(PathNormalizer.normalize(segment)),
+                    EnumSet.of(Path.Type.directory, Path.Type.placeholder), attr);
+                directories.put(key, directory);
+                listings.put(directory, new AttributedList<Path>());
+                this.add(parent, directory);
+            }
+            return directory;
+        }
+
+        private void add(final Path parent, final Path file) {
+            listings.get(parent).add(file);
+        }
+    }
+}
@@ -378,6 +378,12 @@ public class S3Session extends HttpSession<RequestEntityRestStorageService> {
         if(type == Search.class) {
             return (T) new S3SearchFeature(this);
         }
+        if(type == Prefetch.class) {
+            if(preferences.getBoolean("s3.listing.prefetch.enable")) {
+                return (T) new S3PrefetchFeature(this);
+            }
+            return null;
+        }
         if(type == IdProvider.class) {
             return (T) new S3VersionIdProvider(this);
         }
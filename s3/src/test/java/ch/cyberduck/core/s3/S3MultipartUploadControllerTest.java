@@ -0,0 +1,245 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class S3MultipartUploadControllerTest {
+    private static final Logger log = Logger.getLogger(S3MultipartUploadControllerTest.class);
+
+    private static final long MB = 1024L * 1024L;
+
+    @Test
+    public void testPartsize() {
+        final S3MultipartUploadController controller = new S3MultipartUploadController(5 * MB, 100 * MB, 10 * MB, 1, 1, 10000, 0L, Long.MAX_VALUE);
+        assertEquals(10 * MB, controller.partsize(1000 * MB, 1));
+        // Last part
+        assertEquals(MB, controller.partsize(MB, 1));
+        // Must fit in remaining number of parts
+        assertEquals(50 * MB, controller.partsize(100 * MB, 9999));
+        assertEquals(100 * MB, controller.partsize(100 * MB, 10000));
+    }
+
+    @Test
+    public void testLimits() {
+        final S3MultipartUploadController controller = new S3MultipartUploadController(5 * MB, 100 * MB, MB, 0, 4, 10000, 0L, Long.MAX_VALUE);
+        assertEquals(5 * MB, controller.getPartsize());
+        assertEquals(1, controller.getConcurrency());
+    }
+
+    @Test
+    public void testIncreaseConcurrency() {
+        final S3MultipartUploadController controller = new S3MultipartUploadController(5 * MB, 100 * MB, 10 * MB, 1, 3, 10000, 0L, Long.MAX_VALUE);
+        controller.success(10 * MB, 0L, 1000L);
+        assertEquals(2, controller.getConcurrency());
+        // Throughput doubled
+        controller.success(10 * MB, 1000L, 2000L);
+        controller.success(10 * MB, 1000L, 2000L);
+        assertEquals(3, controller.getConcurrency());
+        // Maximum
+        for(int i = 0; i < 3; i++) {
+            controller.success(10 * MB, 2000L, 3000L);
+        }
+        assertEquals(3, controller.getConcurrency());
+    }
+
+    @Test
+    public void testRevertConcurrency() {
+        final S3MultipartUploadController controller = new S3MultipartUploadController(5 * MB, 100 * MB, 10 * MB, 1, 10, 10000, 0L, Long.MAX_VALUE);
+        controller.success(10 * MB, 0L, 1000L);
+        assertEquals(2, controller.getConcurrency());
+        // Throughput dropped with link saturated
+        controller.success(10 * MB, 1000L, 4000L);
+        controller.success(10 * MB, 1000L, 4000L);
+        assertEquals(1, controller.getConcurrency());
+    }
+
+    @Test
+    public void testThrottled() {
+        final S3MultipartUploadController controller = new S3MultipartUploadController(5 * MB, 100 * MB, 10 * MB, 8, 10, 10000, 0L, Long.MAX_VALUE);
+        controller.throttled();
+        assertEquals(4, controller.getConcurrency());
+        controller.throttled();
+        controller.throttled();
+        controller.throttled();
+        assertEquals(1, controller.getConcurrency());
+    }
+
+    @Test
+    public void testAdjustPartsize() {
+        final S3MultipartUploadController controller = new S3MultipartUploadController(5 * MB, 40 * MB, 10 * MB, 1, 1, 10000, 2000L, 20000L);
+        controller.success(10 * MB, 0L, 500L);
+        assertEquals(20 * MB, controller.getPartsize());
+        controller.success(20 * MB, 0L, 1000L);
+        controller.success(40 * MB, 0L, 1000L);
+        assertEquals(40 * MB, controller.getPartsize());
+        controller.success(40 * MB, 0L, 60000L);
+        assertEquals(20 * MB, controller.getPartsize());
+        controller.success(20 * MB, 0L, 10000L);
+        assertEquals(20 * MB, controller.getPartsize());
+    }
+
+    @Test
+    public void testMaximumBuffered() {
+        // Parts hashed in memory do not grow past threshold
+        final long maximum = S3MultipartUploadService.maximum(10 * MB, 100 * MB, 16 * MB, true);
+        assertEquals(16 * MB, maximum);
+        final S3MultipartUploadController controller = new S3MultipartUploadController(5 * MB, maximum, 10 * MB, 1, 1, 10000, 2000L, 20000L);
+        for(int i = 0; i < 10; i++) {
+            controller.success(controller.getPartsize(), 0L, 100L);
+        }
+        assertEquals(16 * MB, controller.getPartsize());
+        assertEquals(16 * MB, controller.partsize(1000 * MB, 1));
+        // No parts hashed in memory
+        assertEquals(100 * MB, S3MultipartUploadService.maximum(10 * MB, 100 * MB, 16 * MB, false));
+        assertEquals(100 * MB, S3MultipartUploadService.maximum(32 * MB, 100 * MB, 16 * MB, true));
+        assertEquals(8 * MB, S3MultipartUploadService.maximum(5 * MB, 8 * MB, 16 * MB, true));
+    }
+
+    @Test
+    public void testAcquire() throws Exception {
+        final S3MultipartUploadController controller = new S3MultipartUploadController(5 * MB, 100 * MB, 10 * MB, 2, 2, 10000, 0L, Long.MAX_VALUE);
+        assertTrue(controller.acquire(0L));
+        assertTrue(controller.acquire(0L));
+        assertFalse(controller.acquire(10L));
+        controller.release();
+        assertTrue(controller.acquire(0L));
+    }
+
+    /**
+     * Upload over simulated link where a single connection cannot saturate the bandwidth and the server replies with
+     * slow down when too many parts are uploaded concurrently.
+     */
+    @Test
+    public void testSimulation() {
+        final Simulation simulation = new Simulation(100 * MB / 1000L, 5 * MB / 1000L, 200L, 16);
+        final long fixed = simulation.run(new S3MultipartUploadController(10 * MB, 10 * MB, 10 * MB, 10, 10, 10000, 0L, Long.MAX_VALUE), 2000 * MB);
+        final long adaptive = simulation.run(new S3MultipartUploadController(5 * MB, 100 * MB, 10 * MB, 10, 20, 10000, 2000L, 30000L), 2000 * MB);
+        log.info(String.format("Upload completed in %dms with fixed and %dms with adaptive configuration", fixed, adaptive));
+        assertTrue(adaptive < fixed);
+        // Request latency dominates with small parts
+        final Simulation latency = new Simulation(100 * MB / 1000L, 100 * MB / 1000L, 500L, Integer.MAX_VALUE);
+        final S3MultipartUploadController controller = new S3MultipartUploadController(5 * MB, 100 * MB, 10 * MB, 1, 1, 10000, 2000L, 30000L);
+        assertTrue(latency.run(controller, 2000 * MB) < latency.run(new S3MultipartUploadController(10 * MB, 10 * MB, 10 * MB, 1, 1, 10000, 0L, Long.MAX_VALUE), 2000 * MB));
+        assertTrue(controller.getPartsize() > 10 * MB);
+    }
+
+    /**
+     * Stand-in for server in virtual time
+     */
+    private static final class Simulation {
+        private static final long STEP = 10L;
+
+        /**
+         * Bytes per millisecond
+         */
+        private final long bandwidth;
+        /**
+         * Bytes per millisecond for single connection
+         */
+        private final long connection;
+        /**
+         * Milliseconds for request and response
+         */
+        private final long latency;
+        /**
+         * Reply with slow down when more parts are uploaded concurrently
+         */
+        private final int threshold;
+
+        public Simulation(final long bandwidth, final long connection, final long latency, final int threshold) {
+            this.bandwidth = bandwidth;
+            this.connection = connection;
+            this.latency = latency;
+            this.threshold = threshold;
+        }
+
+        /**
+         * @return Milliseconds to complete upload
+         */
+        public long run(final S3MultipartUploadController controller, final long size) {
+            final List<Part> active = new ArrayList<Part>();
+            final List<Long> failed = new ArrayList<Long>();
+            long remaining = size;
+            int partNumber = 1;
+            long time = 0L;
+            while(remaining > 0 || !failed.isEmpty() || !active.isEmpty()) {
+                while(active.size() < controller.getConcurrency()) {
+                    final long length;
+                    if(!failed.isEmpty()) {
+                        length = failed.remove(0);
+                    }
+                    else if(remaining > 0) {
+                        length = controller.partsize(remaining, partNumber++);
+                        remaining -= length;
+                    }
+                    else {
+                        break;
+                    }
+                    active.add(new Part(length, time, active.size() >= threshold));
+                }
+                time += STEP;
+                int transferring = 0;
+                for(Part part : active) {
+                    if(time - part.start > latency && !part.rejected) {
+                        transferring++;
+                    }
+                }
+                final long rate = transferring == 0 ? 0L : Math.min(connection, bandwidth / transferring);
+                for(Iterator<Part> iter = active.iterator(); iter.hasNext(); ) {
+                    final Part part = iter.next();
+                    if(time - part.start <= latency) {
+                        continue;
+                    }
+                    if(part.rejected) {
+                        controller.throttled();
+                        failed.add(part.length);
+                        iter.remove();
+                        continue;
+                    }
+                    part.sent += rate * STEP;
+                    if(part.sent >= part.length) {
+                        controller.success(part.length, part.start, time);
+                        iter.remove();
+                    }
+                }
+            }
+            return time;
+        }
+
+        private static final class Part {
+            private final long length;
+            private final long start;
+            private final boolean rejected;
+            private long sent;
+
+            public Part(final long length, final long start, final boolean rejected) {
+                this.length = length;
+                this.start = start;
+                this.rejected = rejected;
+            }
+        }
+    }
+}
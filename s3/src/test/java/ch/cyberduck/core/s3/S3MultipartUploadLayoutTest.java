@@ -0,0 +1,111 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.jets3t.service.model.MultipartPart;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class S3MultipartUploadLayoutTest {
+
+    private static final long MB = 1024L * 1024L;
+
+    private static MultipartPart part(final int number, final long size) {
+        return new MultipartPart(number, new Date(), "", size);
+    }
+
+    @Test
+    public void testNoneCompleted() {
+        final S3MultipartUploadLayout layout = S3MultipartUploadLayout.resume(Collections.<MultipartPart>emptyList(), 100 * MB);
+        assertNotNull(layout);
+        assertTrue(layout.getParts().isEmpty());
+        assertEquals(0L, layout.getOffset());
+        assertEquals(1, layout.getNext());
+    }
+
+    @Test
+    public void testContiguousAdaptive() {
+        // Part size doubled after first round
+        final S3MultipartUploadLayout layout = S3MultipartUploadLayout.resume(Arrays.asList(
+            part(2, 10 * MB), part(1, 5 * MB), part(3, 10 * MB)), 100 * MB);
+        assertNotNull(layout);
+        assertEquals(3, layout.getParts().size());
+        assertEquals(5 * MB, layout.getParts().get(1).getOffset());
+        assertFalse(layout.getParts().get(2).isInferred());
+        assertEquals(25 * MB, layout.getOffset());
+        assertEquals(4, layout.getNext());
+    }
+
+    @Test
+    public void testGap() {
+        final S3MultipartUploadLayout layout = S3MultipartUploadLayout.resume(Arrays.asList(
+            part(1, 10 * MB), part(4, 10 * MB)), 100 * MB);
+        assertNotNull(layout);
+        assertEquals(4, layout.getParts().size());
+        final S3MultipartUploadLayout.Part missing = layout.getParts().get(2);
+        assertNull(missing.getCompleted());
+        assertEquals(3, missing.getNumber());
+        assertEquals(20 * MB, missing.getOffset());
+        assertEquals(10 * MB, missing.getLength());
+        final S3MultipartUploadLayout.Part completed = layout.getParts().get(3);
+        assertNotNull(completed.getCompleted());
+        assertTrue(completed.isInferred());
+        assertEquals(30 * MB, completed.getOffset());
+        assertEquals(40 * MB, layout.getOffset());
+        assertEquals(5, layout.getNext());
+    }
+
+    @Test
+    public void testGapFirstPart() {
+        final S3MultipartUploadLayout layout = S3MultipartUploadLayout.resume(Collections.singletonList(part(2, 10 * MB)), 100 * MB);
+        assertNotNull(layout);
+        assertEquals(0L, layout.getParts().get(0).getOffset());
+        assertEquals(10 * MB, layout.getParts().get(1).getOffset());
+    }
+
+    @Test
+    public void testGapAdaptive() {
+        // Part size doubled between completed parts. Size of missing part is unknown.
+        assertNull(S3MultipartUploadLayout.resume(Arrays.asList(
+            part(1, 5 * MB), part(3, 10 * MB)), 100 * MB));
+        assertNull(S3MultipartUploadLayout.resume(Arrays.asList(
+            part(1, 10 * MB), part(3, 5 * MB), part(4, 5 * MB)), 100 * MB));
+    }
+
+    @Test
+    public void testGapLastPart() {
+        final S3MultipartUploadLayout layout = S3MultipartUploadLayout.resume(Arrays.asList(
+            part(1, 10 * MB), part(3, 3 * MB)), 23 * MB);
+        assertNotNull(layout);
+        assertEquals(23 * MB, layout.getOffset());
+        // Smaller part must end at length of file
+        assertNull(S3MultipartUploadLayout.resume(Arrays.asList(
+            part(1, 10 * MB), part(3, 3 * MB)), 30 * MB));
+    }
+
+    @Test
+    public void testExceedsLength() {
+        assertNull(S3MultipartUploadLayout.resume(Arrays.asList(
+            part(1, 10 * MB), part(2, 10 * MB)), 15 * MB));
+        assertNull(S3MultipartUploadLayout.resume(Arrays.asList(
+            part(1, 10 * MB), part(3, 10 * MB)), 25 * MB));
+    }
+}
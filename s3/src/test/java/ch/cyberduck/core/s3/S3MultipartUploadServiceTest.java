@@ -19,6 +19,7 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.text.RandomStringGenerator;
+import org.jets3t.service.model.MultipartUpload;
 import org.jets3t.service.model.S3Object;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -26,6 +27,7 @@ import org.junit.experimental.categories.Category;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Map;
@@ -217,6 +219,64 @@ public class S3MultipartUploadServiceTest extends AbstractS3Test {
         session.close();
     }
 
+    @Test
+    public void testAppendWithGap() throws Exception {
+        final Path container = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final String name = UUID.randomUUID().toString();
+        final Path test = new Path(container, name, EnumSet.of(Path.Type.file));
+        final int length = 22 * 1024 * 1024;
+        final int partsize = 5 * 1024 * 1024;
+        final byte[] content = RandomUtils.nextBytes(length);
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), name);
+        IOUtils.write(content, local.getOutputStream(false));
+        // Interrupted with second part missing
+        final MultipartUpload multipart = session.getClient().multipartStartUpload(container.getName(), new S3Object(name));
+        session.getClient().multipartUploadPart(multipart, 1, new S3Object(name, Arrays.copyOfRange(content, 0, partsize)));
+        session.getClient().multipartUploadPart(multipart, 3, new S3Object(name, Arrays.copyOfRange(content, 2 * partsize, 3 * partsize)));
+        final TransferStatus append = new TransferStatus().append(true).length(length - 2L * partsize).skip(2L * partsize);
+        new S3MultipartUploadService(session, new S3WriteFeature(session, new S3DisabledMultipartService()), (long) partsize, 1).upload(test, local,
+            new BandwidthThrottle(BandwidthThrottle.UNLIMITED), new DisabledStreamListener(), append,
+            new DisabledConnectionCallback());
+        assertTrue(append.isComplete());
+        final byte[] buffer = new byte[content.length];
+        final InputStream in = new S3ReadFeature(session).read(test, new TransferStatus(), new DisabledConnectionCallback());
+        IOUtils.readFully(in, buffer);
+        in.close();
+        assertArrayEquals(content, buffer);
+        new S3DefaultDeleteFeature(session).delete(Collections.singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        local.delete();
+    }
+
+    @Test
+    public void testAppendAdaptiveWithGap() throws Exception {
+        final Path container = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final String name = UUID.randomUUID().toString();
+        final Path test = new Path(container, name, EnumSet.of(Path.Type.file));
+        final int length = 22 * 1024 * 1024;
+        final int partsize = 5 * 1024 * 1024;
+        final byte[] content = RandomUtils.nextBytes(length);
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), name);
+        IOUtils.write(content, local.getOutputStream(false));
+        // Interrupted adaptive upload with missing second part of double size. Same size as completed neighbours assumed.
+        final MultipartUpload multipart = session.getClient().multipartStartUpload(container.getName(), new S3Object(name));
+        session.getClient().multipartUploadPart(multipart, 1, new S3Object(name, Arrays.copyOfRange(content, 0, partsize)));
+        session.getClient().multipartUploadPart(multipart, 3, new S3Object(name, Arrays.copyOfRange(content, 3 * partsize, 4 * partsize)));
+        final TransferStatus append = new TransferStatus().append(true).length(length - 2L * partsize).skip(2L * partsize);
+        new S3MultipartUploadService(session, new S3WriteFeature(session, new S3DisabledMultipartService()), (long) partsize, 1).upload(test, local,
+            new BandwidthThrottle(BandwidthThrottle.UNLIMITED), new DisabledStreamListener(), append,
+            new DisabledConnectionCallback());
+        assertTrue(append.isComplete());
+        // Restarted as the completed third part does not match the file at its derived offset
+        final byte[] buffer = new byte[content.length];
+        final InputStream in = new S3ReadFeature(session).read(test, new TransferStatus(), new DisabledConnectionCallback());
+        IOUtils.readFully(in, buffer);
+        in.close();
+        assertArrayEquals(content, buffer);
+        assertTrue(new S3DefaultMultipartService(session).find(test).isEmpty());
+        new S3DefaultDeleteFeature(session).delete(Collections.singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        local.delete();
+    }
+
     @Test
     public void testAppendNoPartCompleted() throws Exception {
         final Path container = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
@@ -0,0 +1,67 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AlphanumericRandomStringService;
+import ch.cyberduck.core.DisabledListProgressListener;
+import ch.cyberduck.core.DisabledLoginCallback;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathCache;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.transfer.TransferStatus;
+import ch.cyberduck.test.IntegrationTest;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+@Category(IntegrationTest.class)
+public class S3PrefetchFeatureTest extends AbstractS3Test {
+
+    @Test
+    public void testPrefetch() throws Exception {
+        final Path container = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        container.attributes().setRegion("us-east-1");
+        final Path directory = new S3DirectoryFeature(session, new S3WriteFeature(session)).mkdir(
+            new Path(container, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.directory)), null, new TransferStatus());
+        final Path placeholder = new S3DirectoryFeature(session, new S3WriteFeature(session)).mkdir(
+            new Path(directory, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.directory)), null, new TransferStatus());
+        final Path file = new S3TouchFeature(session).touch(
+            new Path(placeholder, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.file)), new TransferStatus());
+        // No placeholder object for intermediate directory
+        final Path nested = new Path(new Path(directory, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.directory)),
+            new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.file));
+        new S3TouchFeature(session).touch(nested, new TransferStatus());
+        for(int concurrency : Arrays.asList(1, 5)) {
+            final PathCache cache = new PathCache(Integer.MAX_VALUE);
+            new S3PrefetchFeature(session, concurrency).prefetch(directory, cache, new DisabledListProgressListener());
+            assertTrue(cache.isCached(directory));
+            assertEquals(new HashSet<Path>(new S3ObjectListService(session).list(directory, new DisabledListProgressListener()).toList()),
+                new HashSet<Path>(cache.get(directory).toList()));
+            assertTrue(cache.isCached(placeholder));
+            assertTrue(cache.get(placeholder).contains(file));
+            assertTrue(cache.isCached(nested.getParent()));
+            assertTrue(cache.get(nested.getParent()).contains(nested));
+            assertEquals(0L, cache.get(placeholder).get(file).attributes().getSize());
+        }
+        new S3DefaultDeleteFeature(session).delete(Arrays.asList(file, nested, placeholder, directory), new DisabledLoginCallback(), new Delete.DisabledCallback());
+    }
+}
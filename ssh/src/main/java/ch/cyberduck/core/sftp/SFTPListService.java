@@ -28,60 +28,118 @@ import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.InteroperabilityException;
 import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
 
+import net.schmizz.concurrent.Promise;
 import net.schmizz.sshj.sftp.FileAttributes;
 import net.schmizz.sshj.sftp.FileMode;
-import net.schmizz.sshj.sftp.RemoteDirectory;
-import net.schmizz.sshj.sftp.RemoteResourceFilter;
-import net.schmizz.sshj.sftp.RemoteResourceInfo;
+import net.schmizz.sshj.sftp.PacketType;
+import net.schmizz.sshj.sftp.Response;
+import net.schmizz.sshj.sftp.SFTPEngine;
 import net.schmizz.sshj.sftp.SFTPException;
 
+/**
+ * Passes entries to the listener for every batch of names received. The next batch is requested before processing
+ * the current. Targets of symbolic links are resolved with requests to read the link and its attributes sent
+ * without waiting for previous replies.
+ */
 public class SFTPListService implements ListService {
     private static final Logger log = Logger.getLogger(SFTPListService.class);
 
     private final SFTPSession session;
     private final SFTPAttributesFinderFeature attributes;
 
+    /**
+     * Maximum number of symbolic links with pending requests
+     */
+    private final int maxunconfirmed;
+
     public SFTPListService(final SFTPSession session) {
+        this(session, PreferencesFactory.get().getInteger("sftp.list.maxunconfirmed"));
+    }
+
+    public SFTPListService(final SFTPSession session, final int maxunconfirmed) {
         this.session = session;
         this.attributes = new SFTPAttributesFinderFeature(session);
+        this.maxunconfirmed = Math.max(1, maxunconfirmed);
     }
 
     @Override
     public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
         try {
-            final AttributedList<Path> children = new AttributedList<Path>();
-            final RemoteDirectory handle = session.sftp().openDir(directory.getAbsolute());
-            for(RemoteResourceInfo f : handle.scan(new RemoteResourceFilter() {
-                @Override
-                public boolean accept(RemoteResourceInfo remoteResourceInfo) {
-                    return true;
-                }
-            })) {
-                final PathAttributes attr = attributes.toAttributes(f.getAttributes());
-                final EnumSet<Path.Type> type = EnumSet.noneOf(Path.Type.class);
-                if(f.getAttributes().getType().equals(FileMode.Type.DIRECTORY)) {
-                    type.add(Path.Type.directory);
+            final SFTPEngine sftp = session.sftp();
+            final byte[] handle = this.retrieve(sftp, sftp.request(sftp.newRequest(PacketType.OPENDIR).putString(directory.getAbsolute())))
+                .ensurePacketTypeIs(PacketType.HANDLE).readBytes();
+            try {
+                final AttributedList<Path> children = new AttributedList<Path>();
+                final Deque<Symlink> pending = new ArrayDeque<Symlink>();
+                Promise<Response, SFTPException> next = sftp.request(sftp.newRequest(PacketType.READDIR).putString(handle));
+                while(null != next) {
+                    final Response response = this.retrieve(sftp, next);
+                    switch(response.getType()) {
+                        case NAME:
+                            // Request next batch while processing this
+                            next = sftp.request(sftp.newRequest(PacketType.READDIR).putString(handle));
+                            final int count = response.readUInt32AsInt();
+                            for(int i = 0; i < count; i++) {
+                                final String name = response.readString();
+                                // Long name ignored
+                                response.readString();
+                                final FileAttributes stat = response.readFileAttributes();
+                                if(".".equals(name) || "..".equals(name)) {
+                                    continue;
+                                }
+                                final Path file = this.toPath(directory, name, stat);
+                                if(file.isSymbolicLink()) {
+                                    while(pending.size() >= maxunconfirmed) {
+                                        this.resolve(sftp, pending.removeFirst(), children);
+                                    }
+                                    pending.add(new Symlink(file,
+                                        sftp.request(sftp.newRequest(PacketType.READLINK).putString(file.getAbsolute())),
+                                        sftp.request(sftp.newRequest(PacketType.STAT).putString(file.getAbsolute()))));
+                                }
+                                else if(this.post(file)) {
+                                    children.add(file);
+                                }
+                            }
+                            // Add links with replies already received
+                            while(!pending.isEmpty() && pending.peekFirst().isDelivered()) {
+                                this.resolve(sftp, pending.removeFirst(), children);
+                            }
+                            listener.chunk(directory, children);
+                            break;
+                        case STATUS:
+                            response.ensureStatusIs(Response.StatusCode.EOF);
+                            next = null;
+                            break;
+                        default:
+                            throw new SFTPException(String.format("Unexpected packet %s", response.getType()));
+                    }
                 }
-                if(f.getAttributes().getType().equals(FileMode.Type.REGULAR)) {
-                    type.add(Path.Type.file);
+                if(!pending.isEmpty()) {
+                    while(!pending.isEmpty()) {
+                        this.resolve(sftp, pending.removeFirst(), children);
+                    }
+                    listener.chunk(directory, children);
                 }
-                if(f.getAttributes().getType().equals(FileMode.Type.SYMLINK)) {
-                    type.add(Path.Type.symboliclink);
+                return children;
+            }
+            finally {
+                try {
+                    this.retrieve(sftp, sftp.request(sftp.newRequest(PacketType.CLOSE).putString(handle))).ensureStatusPacketIsOK();
                 }
-                final Path file = new Path(directory, f.getName(), type, attr);
-                if(this.post(file)) {
-                    children.add(file);
-                    listener.chunk(directory, children);
+                catch(IOException e) {
+                    log.warn(String.format("Failure closing handle for %s. %s", directory, e.getMessage()));
                 }
             }
-            handle.close();
-            return children;
         }
         catch(IOException e) {
             throw new SFTPExceptionMappingService().map("Listing directory {0} failed", e, directory);
@@ -94,57 +152,110 @@ public class SFTPListService implements ListService {
         return this;
     }
 
+    private Response retrieve(final SFTPEngine sftp, final Promise<Response, SFTPException> promise) throws SFTPException {
+        return promise.retrieve(sftp.getTimeoutMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private Path toPath(final Path directory, final String name, final FileAttributes stat) {
+        final PathAttributes attr = attributes.toAttributes(stat);
+        final EnumSet<Path.Type> type = EnumSet.noneOf(Path.Type.class);
+        if(stat.getType().equals(FileMode.Type.DIRECTORY)) {
+            type.add(Path.Type.directory);
+        }
+        if(stat.getType().equals(FileMode.Type.REGULAR)) {
+            type.add(Path.Type.file);
+        }
+        if(stat.getType().equals(FileMode.Type.SYMLINK)) {
+            type.add(Path.Type.symboliclink);
+        }
+        return new Path(directory, name, type, attr);
+    }
+
+    /**
+     * Called for every file with the target of symbolic links already resolved
+     *
+     * @param file File in directory
+     * @return False to exclude file from listing
+     */
     protected boolean post(final Path file) throws BackgroundException {
-        if(file.isSymbolicLink()) {
-            final Path target;
-            Path.Type type;
-            PathAttributes attr;
+        return true;
+    }
+
+    /**
+     * Set target of symbolic link from replies and add to list
+     */
+    private void resolve(final SFTPEngine sftp, final Symlink symlink, final AttributedList<Path> children) throws BackgroundException {
+        final Path file = symlink.file;
+        final Path target;
+        Path.Type type;
+        PathAttributes attr;
+        try {
+            final Response name = this.retrieve(sftp, symlink.readlink).ensurePacketTypeIs(PacketType.NAME);
+            if(name.readUInt32AsInt() != 1) {
+                throw new SFTPException(String.format("Unexpected data in %s packet", name.getType()));
+            }
+            final String link = name.readString();
+            if(link.startsWith(String.valueOf(Path.DELIMITER))) {
+                target = new Path(PathNormalizer.normalize(link), EnumSet.of(Path.Type.file));
+            }
+            else {
+                target = new Path(PathNormalizer.normalize(String.format("%s/%s", file.getParent().getAbsolute(), link)), EnumSet.of(Path.Type.file));
+            }
             try {
-                final String link = session.sftp().readLink(file.getAbsolute());
-                if(link.startsWith(String.valueOf(Path.DELIMITER))) {
-                    target = new Path(PathNormalizer.normalize(link), EnumSet.of(Path.Type.file));
+                // Attributes of link target
+                final FileAttributes stat = this.retrieve(sftp, symlink.stat).ensurePacketTypeIs(PacketType.ATTRS).readFileAttributes();
+                if(stat.getType().equals(FileMode.Type.DIRECTORY)) {
+                    type = Path.Type.directory;
                 }
                 else {
-                    target = new Path(PathNormalizer.normalize(String.format("%s/%s", file.getParent().getAbsolute(), link)), EnumSet.of(Path.Type.file));
+                    type = Path.Type.file;
                 }
-                try {
-                    final FileAttributes stat = session.sftp().stat(target.getAbsolute());
-                    if(stat.getType().equals(FileMode.Type.DIRECTORY)) {
-                        type = Path.Type.directory;
-                    }
-                    else {
-                        type = Path.Type.file;
-                    }
-                    attr = attributes.toAttributes(stat);
+                attr = attributes.toAttributes(stat);
+            }
+            catch(SFTPException e) {
+                final BackgroundException reason = new SFTPExceptionMappingService().map(e);
+                if(reason instanceof NotfoundException) {
+                    log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
                 }
-                catch(SFTPException e) {
-                    final BackgroundException reason = new SFTPExceptionMappingService().map(e);
-                    if(reason instanceof NotfoundException) {
-                        log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
-                    }
-                    else if(reason instanceof AccessDeniedException) {
-                        log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
-                    }
-                    else if(reason instanceof InteroperabilityException) {
-                        log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
-                    }
-                    else {
-                        log.warn(String.format("Unknown failure reading symbolic link target of %s. %s", file, reason.toString()));
-                        throw reason;
-                    }
-                    type = Path.Type.file;
-                    attr = PathAttributes.EMPTY;
+                else if(reason instanceof AccessDeniedException) {
+                    log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
                 }
-                file.setType(EnumSet.of(Path.Type.symboliclink, type));
-                target.setType(EnumSet.of(type));
-                target.setAttributes(attr);
-                file.setSymlinkTarget(target);
+                else if(reason instanceof InteroperabilityException) {
+                    log.warn(String.format("Cannot find symbolic link target of %s. %s", file, reason.toString()));
+                }
+                else {
+                    log.warn(String.format("Unknown failure reading symbolic link target of %s. %s", file, reason.toString()));
+                    throw reason;
+                }
+                type = Path.Type.file;
+                attr = PathAttributes.EMPTY;
             }
-            catch(IOException e) {
-                log.warn(String.format("Failure to read symbolic link of %s. %s", file, e.getMessage()));
-                return false;
+            file.setType(EnumSet.of(Path.Type.symboliclink, type));
+            target.setType(EnumSet.of(type));
+            target.setAttributes(attr);
+            file.setSymlinkTarget(target);
+            if(this.post(file)) {
+                children.add(file);
             }
         }
-        return true;
+        catch(IOException e) {
+            log.warn(String.format("Failure to read symbolic link of %s. %s", file, e.getMessage()));
+        }
+    }
+
+    private static final class Symlink {
+        private final Path file;
+        private final Promise<Response, SFTPException> readlink;
+        private final Promise<Response, SFTPException> stat;
+
+        public Symlink(final Path file, final Promise<Response, SFTPException> readlink, final Promise<Response, SFTPException> stat) {
+            this.file = file;
+            this.readlink = readlink;
+            this.stat = stat;
+        }
+
+        private boolean isDelivered() {
+            return readlink.isDelivered() && stat.isDelivered();
+        }
     }
 }
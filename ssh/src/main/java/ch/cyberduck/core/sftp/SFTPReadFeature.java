@@ -55,7 +55,9 @@ public class SFTPReadFeature implements Read {
             if(log.isInfoEnabled()) {
                 log.info(String.format("Skipping %d bytes", status.getOffset()));
             }
-            return handle.new ReadAheadRemoteFileInputStream(maxUnconfirmedReads, status.getOffset()) {
+            // Do not request data past the end of a segment read concurrently with other connections
+            final long readAheadLimit = status.isSegment() ? status.getLength() : -1L;
+            return handle.new ReadAheadRemoteFileInputStream(maxUnconfirmedReads, status.getOffset(), readAheadLimit) {
                 private final AtomicBoolean close = new AtomicBoolean();
 
                 @Override
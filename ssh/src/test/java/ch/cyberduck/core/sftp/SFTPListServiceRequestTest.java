@@ -0,0 +1,196 @@
+package ch.cyberduck.core.sftp;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.DisabledListProgressListener;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.schmizz.concurrent.Promise;
+import net.schmizz.sshj.common.Buffer;
+import net.schmizz.sshj.sftp.FileAttributes;
+import net.schmizz.sshj.sftp.FileMode;
+import net.schmizz.sshj.sftp.PacketType;
+import net.schmizz.sshj.sftp.Request;
+import net.schmizz.sshj.sftp.Response;
+import net.schmizz.sshj.sftp.SFTPEngine;
+import net.schmizz.sshj.sftp.SFTPException;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replies to requests of the list service from a fake directory without a server
+ */
+public class SFTPListServiceRequestTest {
+
+    /**
+     * Request types in the order sent
+     */
+    private final List<PacketType> requests = new ArrayList<PacketType>();
+
+    private SFTPSession session;
+
+    @Before
+    public void setup() throws Exception {
+        final SFTPEngine sftp = mock(SFTPEngine.class);
+        final AtomicInteger id = new AtomicInteger();
+        final AtomicInteger batches = new AtomicInteger();
+        when(sftp.getTimeoutMs()).thenReturn(1000);
+        when(sftp.newRequest(any(PacketType.class))).thenAnswer(new Answer<Request>() {
+            @Override
+            public Request answer(final InvocationOnMock invocation) {
+                return new Request(invocation.<PacketType>getArgument(0), id.incrementAndGet());
+            }
+        });
+        when(sftp.request(any(Request.class))).thenAnswer(new Answer<Promise<Response, SFTPException>>() {
+            @Override
+            public Promise<Response, SFTPException> answer(final InvocationOnMock invocation) throws Exception {
+                final Request request = invocation.getArgument(0);
+                requests.add(request.getType());
+                // Skip type and request identifier
+                request.readByte();
+                request.readUInt32();
+                final Buffer.PlainBuffer reply = new Buffer.PlainBuffer();
+                switch(request.getType()) {
+                    case OPENDIR:
+                        reply.putByte(PacketType.HANDLE.toByte()).putUInt32(request.getRequestID()).putString("h");
+                        break;
+                    case READDIR:
+                        if(batches.incrementAndGet() == 1) {
+                            reply.putByte(PacketType.NAME.toByte()).putUInt32(request.getRequestID()).putUInt32(5);
+                            name(reply, ".", FileMode.Type.DIRECTORY);
+                            name(reply, "f", FileMode.Type.REGULAR);
+                            name(reply, "d", FileMode.Type.DIRECTORY);
+                            name(reply, "l-f", FileMode.Type.SYMLINK);
+                            name(reply, "l-d", FileMode.Type.SYMLINK);
+                        }
+                        else {
+                            // SSH_FX_EOF
+                            status(reply, request, 1L);
+                        }
+                        break;
+                    case READLINK:
+                        final String link = request.readString();
+                        reply.putByte(PacketType.NAME.toByte()).putUInt32(request.getRequestID()).putUInt32(1);
+                        name(reply, link.endsWith("l-d") ? "d" : "/dir/f", FileMode.Type.REGULAR);
+                        break;
+                    case STAT:
+                        final String target = request.readString();
+                        reply.putByte(PacketType.ATTRS.toByte()).putUInt32(request.getRequestID());
+                        reply.putRawBytes(new FileAttributes.Builder()
+                            .withType(target.endsWith("l-d") ? FileMode.Type.DIRECTORY : FileMode.Type.REGULAR).withSize(3L).build().toBytes());
+                        break;
+                    case CLOSE:
+                        // SSH_FX_OK
+                        status(reply, request, 0L);
+                        break;
+                    default:
+                        fail(String.format("Unexpected request %s", request.getType()));
+                }
+                final Promise<Response, SFTPException> promise = new Promise<Response, SFTPException>("response", SFTPException.chainer);
+                promise.deliver(new Response(response(reply), 3));
+                return promise;
+            }
+        });
+        session = new SFTPSession(new Host(new SFTPProtocol(), "localhost")) {
+            @Override
+            public SFTPEngine sftp() {
+                return sftp;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Buffer<Response> response(final Buffer.PlainBuffer reply) {
+        return (Buffer) reply;
+    }
+
+    private static void name(final Buffer.PlainBuffer reply, final String name, final FileMode.Type type) {
+        reply.putString(name).putString(name).putRawBytes(new FileAttributes.Builder().withType(type).build().toBytes());
+    }
+
+    private static void status(final Buffer.PlainBuffer reply, final Request request, final long code) {
+        reply.putByte(PacketType.STATUS.toByte()).putUInt32(request.getRequestID()).putUInt32(code).putString("").putString("");
+    }
+
+    @Test
+    public void testListResolveSymlinks() throws Exception {
+        final Path directory = new Path("/dir", EnumSet.of(Path.Type.directory));
+        final AtomicInteger chunks = new AtomicInteger();
+        final AttributedList<Path> list = new SFTPListService(session, 64).list(directory, new DisabledListProgressListener() {
+            @Override
+            public void chunk(final Path parent, final AttributedList<Path> list) {
+                chunks.incrementAndGet();
+            }
+        });
+        assertEquals(4, list.size());
+        assertTrue(list.contains(new Path(directory, "f", EnumSet.of(Path.Type.file))));
+        assertTrue(list.contains(new Path(directory, "d", EnumSet.of(Path.Type.directory))));
+        final Path file = list.get(new Path(directory, "l-f", EnumSet.of(Path.Type.file, Path.Type.symboliclink)));
+        assertNotNull(file);
+        assertEquals(new Path("/dir/f", EnumSet.of(Path.Type.file)), file.getSymlinkTarget());
+        assertEquals(3L, file.getSymlinkTarget().attributes().getSize());
+        final Path folder = list.get(new Path(directory, "l-d", EnumSet.of(Path.Type.directory, Path.Type.symboliclink)));
+        assertNotNull(folder);
+        assertEquals(new Path("/dir/d", EnumSet.of(Path.Type.directory)), folder.getSymlinkTarget());
+        // Single notification for batch of names
+        assertEquals(1, chunks.get());
+        // Next batch and all requests for symbolic links sent before any reply is read
+        assertEquals(PacketType.READDIR, requests.get(2));
+        assertEquals(PacketType.READLINK, requests.get(3));
+        assertEquals(PacketType.STAT, requests.get(4));
+        assertEquals(PacketType.READLINK, requests.get(5));
+        assertEquals(PacketType.STAT, requests.get(6));
+        assertEquals(PacketType.CLOSE, requests.get(requests.size() - 1));
+    }
+
+    @Test
+    public void testPost() throws Exception {
+        final Path directory = new Path("/dir", EnumSet.of(Path.Type.directory));
+        final List<Path> posted = new ArrayList<Path>();
+        final AttributedList<Path> list = new SFTPListService(session, 1) {
+            @Override
+            protected boolean post(final Path file) throws BackgroundException {
+                posted.add(file);
+                return !file.isSymbolicLink();
+            }
+        }.list(directory, new DisabledListProgressListener());
+        assertEquals(4, posted.size());
+        for(Path f : posted) {
+            if(f.isSymbolicLink()) {
+                // Target resolved before hook is called
+                assertNotNull(f.getSymlinkTarget());
+            }
+        }
+        assertEquals(2, list.size());
+        assertFalse(list.contains(new Path(directory, "l-f", EnumSet.of(Path.Type.file, Path.Type.symboliclink))));
+    }
+}
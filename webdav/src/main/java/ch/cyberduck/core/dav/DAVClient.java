@@ -99,6 +99,18 @@ public class DAVClient extends SardineImpl {
         return resources;
     }
 
+    /**
+     * Pass resources to callback while reading response
+     *
+     * @param depth Negative number for infinity
+     */
+    public void propfind(final String url, final int depth, final Propfind body, final SaxPropFindResponseHandler.Callback callback) throws IOException {
+        HttpPropFind entity = new HttpPropFind(url);
+        entity.setDepth(depth < 0 ? "infinity" : Integer.toString(depth));
+        entity.setEntity(new StringEntity(SardineUtil.toXml(body), StandardCharsets.UTF_8));
+        this.execute(entity, new SaxPropFindResponseHandler(callback));
+    }
+
     @Override
     public ContentLengthStatusInputStream get(final String url, final List<Header> headers) throws IOException {
         HttpGet get = new HttpGet(url);
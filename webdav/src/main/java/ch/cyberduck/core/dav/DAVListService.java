@@ -32,12 +32,13 @@ import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.EnumSet;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.github.sardine.DavResource;
 import com.github.sardine.impl.SardineException;
+import com.github.sardine.model.ObjectFactory;
+import com.github.sardine.model.Prop;
+import com.github.sardine.model.Propfind;
+import com.github.sardine.util.SardineUtil;
 
 public class DAVListService implements ListService {
     private static final Logger log = Logger.getLogger(DAVListService.class);
@@ -58,39 +59,59 @@ public class DAVListService implements ListService {
     public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
         try {
             final AttributedList<Path> children = new AttributedList<Path>();
-            for(final DavResource resource : this.list(directory)) {
-                // Try to parse as RFC 2396
-                final String href = PathNormalizer.normalize(resource.getHref().getPath(), true);
-                if(href.equals(directory.getAbsolute())) {
-                    log.warn(String.format("Ignore resource %s", href));
-                    // Do not include self
-                    if(resource.isDirectory()) {
-                        continue;
+            // Add children while the multistatus response is parsed
+            session.getClient().propfind(new DAVPathEncoder().encode(directory), 1, this.body(),
+                new SaxPropFindResponseHandler.Callback() {
+                    @Override
+                    public void resource(final DavResource resource) throws BackgroundException {
+                        // Try to parse as RFC 2396
+                        final String href = PathNormalizer.normalize(resource.getHref().getPath(), true);
+                        if(href.equals(directory.getAbsolute())) {
+                            log.warn(String.format("Ignore resource %s", href));
+                            // Do not include self
+                            if(resource.isDirectory()) {
+                                return;
+                            }
+                            throw new NotfoundException(directory.getAbsolute());
+                        }
+                        final PathAttributes attr = attributes.toAttributes(resource);
+                        final Path file = new Path(directory, PathNormalizer.name(href),
+                            resource.isDirectory() ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file), attr);
+                        children.add(file);
+                        listener.chunk(directory, children);
                     }
-                    throw new NotfoundException(directory.getAbsolute());
-                }
-                final PathAttributes attr = attributes.toAttributes(resource);
-                final Path file = new Path(directory, PathNormalizer.name(href),
-                    resource.isDirectory() ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file), attr);
-                children.add(file);
-                listener.chunk(directory, children);
-            }
+                });
             return children;
         }
         catch(SardineException e) {
             throw new DAVExceptionMappingService().map("Listing directory {0} failed", e, directory);
         }
         catch(IOException e) {
+            if(e.getCause() instanceof BackgroundException) {
+                throw (BackgroundException) e.getCause();
+            }
             throw new HttpExceptionMappingService().map(e, directory);
         }
     }
 
-    protected List<DavResource> list(final Path directory) throws IOException {
-        return session.getClient().list(new DAVPathEncoder().encode(directory), 1,
-            Stream.of(
-                DAVTimestampFeature.LAST_MODIFIED_CUSTOM_NAMESPACE,
-                DAVTimestampFeature.LAST_MODIFIED_SERVER_CUSTOM_NAMESPACE).
-                collect(Collectors.toSet()));
+    /**
+     * @return Properties requested for every resource
+     */
+    protected Propfind body() {
+        final Propfind body = new Propfind();
+        final Prop prop = new Prop();
+        final ObjectFactory factory = new ObjectFactory();
+        prop.setGetcontentlength(factory.createGetcontentlength());
+        prop.setGetlastmodified(factory.createGetlastmodified());
+        prop.setCreationdate(factory.createCreationdate());
+        prop.setDisplayname(factory.createDisplayname());
+        prop.setGetcontenttype(factory.createGetcontenttype());
+        prop.setResourcetype(factory.createResourcetype());
+        prop.setGetetag(factory.createGetetag());
+        prop.getAny().add(SardineUtil.createElement(DAVTimestampFeature.LAST_MODIFIED_CUSTOM_NAMESPACE));
+        prop.getAny().add(SardineUtil.createElement(DAVTimestampFeature.LAST_MODIFIED_SERVER_CUSTOM_NAMESPACE));
+        body.setProp(prop);
+        return body;
     }
 
     @Override
@@ -0,0 +1,119 @@
+package ch.cyberduck.core.dav;
+
+/*
+ * Copyright (c) 2002-2018 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathNormalizer;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Prefetch;
+import ch.cyberduck.core.http.HttpExceptionMappingService;
+
+import org.apache.http.HttpStatus;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.sardine.DavResource;
+import com.github.sardine.impl.SardineException;
+
+/**
+ * Retrieve the complete tree with a single <code>PROPFIND</code> request with <code>Depth: infinity</code>. Many servers
+ * reject such requests in which case the cache is left unchanged.
+ */
+public class DAVPrefetchFeature implements Prefetch {
+    private static final Logger log = Logger.getLogger(DAVPrefetchFeature.class);
+
+    private final DAVSession session;
+    private final DAVListService list;
+    private final DAVAttributesFinderFeature attributes;
+
+    public DAVPrefetchFeature(final DAVSession session) {
+        this(session, new DAVListService(session), new DAVAttributesFinderFeature(session));
+    }
+
+    /**
+     * @param list Service determining the requested properties
+     */
+    public DAVPrefetchFeature(final DAVSession session, final DAVListService list, final DAVAttributesFinderFeature attributes) {
+        this.session = session;
+        this.list = list;
+        this.attributes = attributes;
+    }
+
+    @Override
+    public void prefetch(final Path directory, final Cache<Path> cache, final ListProgressListener listener) throws BackgroundException {
+        final Map<Path, AttributedList<Path>> listings = new LinkedHashMap<Path, AttributedList<Path>>();
+        listings.put(directory, new AttributedList<Path>());
+        try {
+            session.getClient().propfind(new DAVPathEncoder().encode(directory), -1, list.body(),
+                new SaxPropFindResponseHandler.Callback() {
+                    @Override
+                    public void resource(final DavResource resource) throws BackgroundException {
+                        final String href = PathNormalizer.normalize(resource.getHref().getPath(), true);
+                        if(href.equals(directory.getAbsolute())) {
+                            // Do not include self
+                            return;
+                        }
+                        final Path file = new Path(href,
+                            resource.isDirectory() ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file),
+                            attributes.toAttributes(resource));
+                        if(!file.isChild(directory)) {
+                            log.warn(String.format("Ignore resource %s outside of %s", href, directory));
+                            return;
+                        }
+                        if(file.isDirectory() && !listings.containsKey(file)) {
+                            // Empty directories have no further responses
+                            listings.put(file, new AttributedList<Path>());
+                        }
+                        AttributedList<Path> children = listings.get(file.getParent());
+                        if(null == children) {
+                            // Response for child received before its parent
+                            children = new AttributedList<Path>();
+                            listings.put(file.getParent(), children);
+                        }
+                        children.add(file);
+                        listener.chunk(file.getParent(), children);
+                    }
+                });
+        }
+        catch(SardineException e) {
+            if(e.getStatusCode() == HttpStatus.SC_FORBIDDEN) {
+                // Server does not allow Depth: infinity
+                log.warn(String.format("Failure prefetching %s. %s", directory, e.getMessage()));
+                return;
+            }
+            throw new DAVExceptionMappingService().map("Listing directory {0} failed", e, directory);
+        }
+        catch(IOException e) {
+            if(e.getCause() instanceof BackgroundException) {
+                throw (BackgroundException) e.getCause();
+            }
+            throw new HttpExceptionMappingService().map(e, directory);
+        }
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Prefetched %d directories in %s", listings.size(), directory));
+        }
+        for(Map.Entry<Path, AttributedList<Path>> entry : listings.entrySet()) {
+            cache.put(entry.getKey(), entry.getValue());
+        }
+    }
+}
@@ -332,6 +332,16 @@ public class DAVSession extends HttpSession<DAVClient> {
             return iis ? (T) new MicrosoftIISDAVListService(this, new MicrosoftIISDAVAttributesFinderFeature(this)) :
                 (T) new DAVListService(this, new DAVAttributesFinderFeature(this));
         }
+        if(type == Prefetch.class) {
+            if(preferences.getBoolean("webdav.list.infinity.enable")) {
+                if(iis) {
+                    final MicrosoftIISDAVAttributesFinderFeature attributes = new MicrosoftIISDAVAttributesFinderFeature(this);
+                    return (T) new DAVPrefetchFeature(this, new MicrosoftIISDAVListService(this, attributes), attributes);
+                }
+                return (T) new DAVPrefetchFeature(this);
+            }
+            return null;
+        }
         if(type == Directory.class) {
             return (T) new DAVDirectoryFeature(this);
         }
@@ -15,6 +15,9 @@ package ch.cyberduck.core.dav;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.exception.BackgroundException;
+
+import org.apache.log4j.Logger;
 import org.w3c.dom.Element;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
@@ -23,11 +26,14 @@ import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.namespace.QName;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
 
+import com.github.sardine.DavResource;
 import com.github.sardine.impl.handler.MultiStatusResponseHandler;
 import com.github.sardine.model.Collection;
 import com.github.sardine.model.Creationdate;
@@ -43,27 +49,90 @@ import com.github.sardine.model.Resourcetype;
 import com.github.sardine.model.Response;
 import com.github.sardine.util.SardineUtil;
 
+/**
+ * Parse multistatus response with SAX. Resources are either collected or passed to a callback when the closing
+ * response element is read without keeping previous responses.
+ */
 public class SaxPropFindResponseHandler extends MultiStatusResponseHandler {
+    private static final Logger log = Logger.getLogger(SaxPropFindResponseHandler.class);
+
+    private static final SAXParserFactory factory = SAXParserFactory.newInstance();
+
+    static {
+        factory.setNamespaceAware(true);
+    }
+
+    /**
+     * Parser reused for responses read on the same thread
+     */
+    private static final ThreadLocal<SAXParser> parsers = new ThreadLocal<SAXParser>();
+
+    private final Callback callback;
+
+    /**
+     * Collect all responses
+     */
+    public SaxPropFindResponseHandler() {
+        this(null);
+    }
+
+    /**
+     * @param callback Receives every resource parsed. Returned multistatus contains no responses
+     */
+    public SaxPropFindResponseHandler(final Callback callback) {
+        this.callback = callback;
+    }
 
     @Override
     protected Multistatus getMultistatus(final InputStream stream) throws IOException {
-        final SAXParserFactory spf = SAXParserFactory.newInstance();
-        spf.setNamespaceAware(true);
         try {
-            final SAXParser saxParser = spf.newSAXParser();
-            final XMLReader xmlReader = saxParser.getXMLReader();
-            final SaxHandler handler = new SaxHandler();
-            xmlReader.setContentHandler(handler);
-            xmlReader.parse(new InputSource(stream));
-            return handler.getMultistatus();
+            final SAXParser parser = this.parser();
+            try {
+                final XMLReader xmlReader = parser.getXMLReader();
+                final SaxHandler handler = new SaxHandler(callback);
+                xmlReader.setContentHandler(handler);
+                xmlReader.parse(new InputSource(stream));
+                return handler.getMultistatus();
+            }
+            finally {
+                parser.reset();
+            }
+        }
+        catch(SAXException e) {
+            if(e.getException() instanceof IOException) {
+                // Failure in callback
+                throw (IOException) e.getException();
+            }
+            throw new IOException("Not a valid DAV response", e);
         }
         catch(Exception e) {
             throw new IOException("Not a valid DAV response", e);
         }
     }
 
+    private SAXParser parser() throws ParserConfigurationException, SAXException {
+        SAXParser parser = parsers.get();
+        if(null == parser) {
+            synchronized(factory) {
+                parser = factory.newSAXParser();
+            }
+            parsers.set(parser);
+        }
+        return parser;
+    }
+
+    public interface Callback {
+        /**
+         * @param resource Resource parsed from response element
+         * @throws BackgroundException Interrupt parsing
+         */
+        void resource(DavResource resource) throws BackgroundException;
+    }
+
     private static final class SaxHandler extends DefaultHandler {
 
+        private final Callback callback;
+
         private Multistatus multistatus;
 
         private Response response;
@@ -75,6 +144,10 @@ public class SaxPropFindResponseHandler extends MultiStatusResponseHandler {
 
         private Element root;
 
+        public SaxHandler(final Callback callback) {
+            this.callback = callback;
+        }
+
         @Override
         public void startDocument() throws SAXException {
             multistatus = new Multistatus();
@@ -85,7 +158,6 @@ public class SaxPropFindResponseHandler extends MultiStatusResponseHandler {
         public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) throws SAXException {
             if(localName.equals("response")) {
                 response = new Response();
-                multistatus.getResponse().add(response);
             }
             else if(localName.equals("propstat")) {
                 propstat = new Propstat();
@@ -107,12 +179,28 @@ public class SaxPropFindResponseHandler extends MultiStatusResponseHandler {
 
         @Override
         public void characters(final char[] ch, final int start, final int length) throws SAXException {
-            data.append(new String(ch, start, length));
+            data.append(ch, start, length);
         }
 
         @Override
         public void endElement(final String uri, final String localName, final String qName) throws SAXException {
-            if(localName.equals("status")) {
+            if(localName.equals("response")) {
+                if(null == callback) {
+                    multistatus.getResponse().add(response);
+                }
+                else {
+                    try {
+                        callback.resource(new DavResource(response));
+                    }
+                    catch(URISyntaxException e) {
+                        log.warn(String.format("Ignore resource with invalid URI %s", response.getHref().get(0)));
+                    }
+                    catch(BackgroundException e) {
+                        throw new SAXException(new IOException(e.getMessage(), e));
+                    }
+                }
+            }
+            else if(localName.equals("status")) {
                 propstat.setStatus(data.toString());
             }
             else if(localName.equals("creationdate")) {
@@ -15,28 +15,23 @@ package ch.cyberduck.core.dav.microsoft;
  * GNU General Public License for more details.
  */
 
-import ch.cyberduck.core.Path;
 import ch.cyberduck.core.dav.DAVAttributesFinderFeature;
 import ch.cyberduck.core.dav.DAVListService;
-import ch.cyberduck.core.dav.DAVPathEncoder;
 import ch.cyberduck.core.dav.DAVSession;
 
-import java.io.IOException;
-import java.util.List;
-
-import com.github.sardine.DavResource;
+import com.github.sardine.model.Allprop;
+import com.github.sardine.model.Propfind;
 
 public class MicrosoftIISDAVListService extends DAVListService {
 
-    private final DAVSession session;
-
     public MicrosoftIISDAVListService(final DAVSession session, final DAVAttributesFinderFeature attributes) {
         super(session, attributes);
-        this.session = session;
     }
 
     @Override
-    protected List<DavResource> list(final Path directory) throws IOException {
-        return session.getClient().list(new DAVPathEncoder().encode(directory), 1, true);
+    protected Propfind body() {
+        final Propfind body = new Propfind();
+        body.setAllprop(new Allprop());
+        return body;
     }
 }
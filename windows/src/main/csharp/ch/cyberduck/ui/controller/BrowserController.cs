@@ -71,7 +71,8 @@ namespace Ch.Cyberduck.Ui.Controller
         private readonly AbstractHostCollection _bookmarkCollection = FolderBookmarkCollection.favoritesCollection();
         private readonly BookmarkModel _bookmarkModel;
         private readonly TreeBrowserModel _browserModel;
-        private readonly PathCache _cache = new PathCache(PreferencesFactory.get().getInteger("browser.cache.size"));
+        private readonly PathCache _cache = new PathCache(PreferencesFactory.get().getInteger("browser.cache.size"),
+            PreferencesFactory.get().getLong("browser.cache.weight"), PreferencesFactory.get().getLong("browser.cache.expiry"));
         private readonly ListProgressListener _limitListener;
         private readonly Navigation _navigation = new Navigation();
         private readonly IList<FileSystemWatcher> _temporaryWatcher = new List<FileSystemWatcher>();